@@ -0,0 +1,185 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the cart totals of the former implementation, which reduced a stream of BigDecimal on every call, with the
+ * running totals kept by {@link Cart}.
+ * <p>
+ * {@code render} asks for the totals the way Cart.jsp does (every line total, then the sub total twice);
+ * {@code updateAndRender} changes one quantity first, like the "Update Cart" button.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartBenchmark {
+
+  @Param({ "1", "10", "200" })
+  private int lines;
+
+  private LegacyCart legacyCart;
+  private Cart cart;
+  private String[] itemIds;
+  private int next;
+
+  @Setup
+  public void setup() {
+    legacyCart = new LegacyCart();
+    cart = new Cart();
+    itemIds = new String[lines];
+    for (int i = 0; i < lines; i++) {
+      Item item = new Item();
+      item.setItemId("EST-" + i);
+      item.setListPrice(new BigDecimal(i % 100 + ".50"));
+      legacyCart.addItem(item, true);
+      cart.addItem(item, true);
+      itemIds[i] = item.getItemId();
+    }
+  }
+
+  @Benchmark
+  public void legacyRender(Blackhole blackhole) {
+    Iterator<LegacyCartItem> cartItems = legacyCart.getCartItems();
+    while (cartItems.hasNext()) {
+      blackhole.consume(cartItems.next().getTotal());
+    }
+    blackhole.consume(legacyCart.getSubTotal());
+    blackhole.consume(legacyCart.getSubTotal());
+  }
+
+  @Benchmark
+  public void render(Blackhole blackhole) {
+    Iterator<CartItem> cartItems = cart.getCartItems();
+    while (cartItems.hasNext()) {
+      blackhole.consume(cartItems.next().getTotal());
+    }
+    blackhole.consume(cart.getSubTotal());
+    blackhole.consume(cart.getSubTotal());
+  }
+
+  @Benchmark
+  public void legacyUpdateAndRender(Blackhole blackhole) {
+    legacyCart.setQuantityByItemId(nextItemId(), next % 7 + 1);
+    legacyRender(blackhole);
+  }
+
+  @Benchmark
+  public void updateAndRender(Blackhole blackhole) {
+    cart.setQuantityByItemId(nextItemId(), next % 7 + 1);
+    render(blackhole);
+  }
+
+  private String nextItemId() {
+    next = next + 1 == itemIds.length ? 0 : next + 1;
+    return itemIds[next];
+  }
+
+  /**
+   * The cart as it was before the totals were maintained incrementally.
+   */
+  static class LegacyCart {
+
+    private final Map<String, LegacyCartItem> itemMap = Collections.synchronizedMap(new HashMap<>());
+    private final List<LegacyCartItem> itemList = new ArrayList<>();
+
+    Iterator<LegacyCartItem> getCartItems() {
+      return itemList.iterator();
+    }
+
+    void addItem(Item item, boolean isInStock) {
+      LegacyCartItem cartItem = itemMap.get(item.getItemId());
+      if (cartItem == null) {
+        cartItem = new LegacyCartItem();
+        cartItem.setItem(item);
+        cartItem.setQuantity(0);
+        itemMap.put(item.getItemId(), cartItem);
+        itemList.add(cartItem);
+      }
+      cartItem.setQuantity(cartItem.getQuantity() + 1);
+    }
+
+    void setQuantityByItemId(String itemId, int quantity) {
+      itemMap.get(itemId).setQuantity(quantity);
+    }
+
+    BigDecimal getSubTotal() {
+      return itemList.stream()
+          .map(cartItem -> cartItem.getItem().getListPrice().multiply(new BigDecimal(cartItem.getQuantity())))
+          .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+  }
+
+  static class LegacyCartItem {
+
+    private Item item;
+    private int quantity;
+    private BigDecimal total;
+
+    Item getItem() {
+      return item;
+    }
+
+    void setItem(Item item) {
+      this.item = item;
+      calculateTotal();
+    }
+
+    int getQuantity() {
+      return quantity;
+    }
+
+    void setQuantity(int quantity) {
+      this.quantity = quantity;
+      calculateTotal();
+    }
+
+    BigDecimal getTotal() {
+      return total;
+    }
+
+    private void calculateTotal() {
+      total = item == null ? null : item.getListPrice().multiply(new BigDecimal(quantity));
+    }
+
+  }
+
+}
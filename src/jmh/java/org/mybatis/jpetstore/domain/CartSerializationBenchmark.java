@@ -0,0 +1,172 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the compact form of {@link Cart} with default Java serialization of the same cart holding its items, as a
+ * session snapshot did before. The serialized sizes are printed at setup.
+ * <p>
+ * {@code deserializeCompactAndRehydrate} also loads every item from a map standing for the catalog cache, the cost
+ * paid when a restored cart is rendered.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartSerializationBenchmark {
+
+  @Param({ "1", "10", "50" })
+  private int lines;
+
+  private final Map<String, Item> catalog = new HashMap<>();
+  private DefaultFormCart defaultCart;
+  private Cart cart;
+  private byte[] defaultBytes;
+  private byte[] compactBytes;
+
+  @Setup
+  public void setup() throws IOException {
+    defaultCart = new DefaultFormCart();
+    cart = new Cart();
+    for (int i = 0; i < lines; i++) {
+      Item item = item(i);
+      catalog.put(item.getItemId(), item);
+      defaultCart.items.add(new DefaultFormCartItem(item, i % 3 + 1));
+      cart.addItem(item, true);
+      cart.setQuantityByItemId(item.getItemId(), i % 3 + 1);
+    }
+    defaultBytes = serialize(defaultCart);
+    compactBytes = serialize(cart);
+    System.out.printf("%n%d lines: default %d bytes, compact %d bytes%n", lines, defaultBytes.length,
+        compactBytes.length);
+  }
+
+  @Benchmark
+  public byte[] serializeDefault() throws IOException {
+    return serialize(defaultCart);
+  }
+
+  @Benchmark
+  public byte[] serializeCompact() throws IOException {
+    return serialize(cart);
+  }
+
+  @Benchmark
+  public Object deserializeDefault() throws IOException, ClassNotFoundException {
+    return deserialize(defaultBytes);
+  }
+
+  @Benchmark
+  public Object deserializeCompact() throws IOException, ClassNotFoundException {
+    return deserialize(compactBytes);
+  }
+
+  @Benchmark
+  public void deserializeCompactAndRehydrate(Blackhole blackhole) throws IOException, ClassNotFoundException {
+    Cart read = (Cart) deserialize(compactBytes);
+    read.setItemLoader(catalog::get);
+    read.getCartItems().forEachRemaining(cartItem -> blackhole.consume(cartItem.getItem()));
+  }
+
+  private static Item item(int i) {
+    Product product = new Product();
+    product.setProductId("FI-SW-" + i);
+    product.setCategoryId("FISH");
+    product.setName("Angelfish " + i);
+    product.setDescription("<image src=\"../images/fish1.gif\">Salt Water fish from Australia");
+    Item item = new Item();
+    item.setItemId("EST-" + i);
+    item.setProduct(product);
+    item.setListPrice(new BigDecimal(i % 100 + 10 + ".50"));
+    item.setUnitCost(new BigDecimal("10.00"));
+    item.setSupplierId(1);
+    item.setStatus("P");
+    item.setAttribute1("Large");
+    item.setQuantity(10000);
+    return item;
+  }
+
+  private static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readObject();
+    }
+  }
+
+  /**
+   * A cart serialized with the default mechanism, writing every item with its product.
+   */
+  static class DefaultFormCart implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    final List<DefaultFormCartItem> items = new ArrayList<>();
+
+  }
+
+  static class DefaultFormCartItem implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    final Item item;
+    final int quantity;
+    final boolean inStock = true;
+    final long unitPriceCents;
+
+    DefaultFormCartItem(Item item, int quantity) {
+      this.item = item;
+      this.quantity = quantity;
+      this.unitPriceCents = CartItem.toCents(item.getListPrice());
+    }
+
+  }
+
+}
@@ -0,0 +1,212 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.mybatis.jpetstore.data.CatalogDataGenerator;
+import org.mybatis.jpetstore.domain.Item;
+import org.mybatis.jpetstore.exception.InsufficientInventoryException;
+import org.mybatis.jpetstore.jdbc.ConnectionLimitingDataSource;
+import org.mybatis.jpetstore.web.VirtualThreads;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Drives the services with many concurrent users, once with a bounded pool of platform threads, the way Tomcat runs
+ * requests by default, and once with a virtual thread per request. Virtual threads are skipped on runtimes before Java
+ * 21.
+ * <p>
+ * Every user is a closed loop: it sends a request (a product page, an item page and every tenth time an order),
+ * waits for the response, thinks, and sends the next one. The latency of a request includes the time it waits for a
+ * thread, as a request queued by Tomcat would. The services run on the {@link PetStoreState} database behind a
+ * {@link ConnectionLimitingDataSource}.
+ * <p>
+ * This measures the services only. Requests call {@link CatalogService} and {@link OrderService} directly, not through
+ * Tomcat, Stripes or the {@link org.mybatis.jpetstore.web.VirtualThreadDispatcherServlet}, so neither the async
+ * hand-over of the dispatcher nor the rendering of the JSPs is part of the figures. Load an actual deployment over HTTP
+ * to measure those.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec@loadtest -Dloadtest.args="-Dloadtest.users=2000"
+ * </pre>
+ * <p>
+ * Settings are system properties: {@code loadtest.users} (2000), {@code loadtest.seconds} (20),
+ * {@code loadtest.think-ms} (50), {@code loadtest.platform-threads} (200, Tomcat's maxThreads) and
+ * {@code loadtest.max-connections} (64).
+ */
+public final class ConcurrentUsersLoadTest {
+
+  private static final int LATENCY_BUCKETS = 100_000;
+  private static final long BUCKET_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final PetStoreState state = new PetStoreState();
+  private final int users = Integer.getInteger("loadtest.users", 2000);
+  private final int seconds = Integer.getInteger("loadtest.seconds", 20);
+  private final int thinkMillis = Integer.getInteger("loadtest.think-ms", 50);
+  private final int platformThreads = Integer.getInteger("loadtest.platform-threads", 200);
+  private final int maxConnections = Integer.getInteger("loadtest.max-connections", 64);
+
+  private CatalogDataGenerator.WorkingCopy database;
+  private AnnotationConfigApplicationContext context;
+
+  private ConcurrentUsersLoadTest() {
+    state.products = 1000;
+    state.itemsPerProduct = 4;
+    state.accounts = 1000;
+    state.orders = 10000;
+  }
+
+  public static void main(String[] args) throws Exception {
+    ConcurrentUsersLoadTest loadTest = new ConcurrentUsersLoadTest();
+    loadTest.setup();
+    try {
+      List<String> results = new ArrayList<>();
+      results.add(loadTest.run("platform", Executors.newFixedThreadPool(loadTest.platformThreads)));
+      VirtualThreads.newThreadPerTaskExecutor().map(executor -> loadTest.run("virtual", executor))
+          .ifPresentOrElse(results::add, () -> results.add("virtual: skipped, Java "
+              + Runtime.version().feature() + " has no virtual threads"));
+      results.forEach(System.out::println);
+    } finally {
+      loadTest.context.close();
+      loadTest.database.close();
+    }
+  }
+
+  private void setup() throws Exception {
+    CatalogDataGenerator generator = new CatalogDataGenerator();
+    generator.setProducts(state.products);
+    generator.setItemsPerProduct(state.itemsPerProduct);
+    generator.setAccounts(state.accounts);
+    generator.setOrders(state.orders);
+    database = generator.openOrGenerate(Paths.get("target", "datagen"));
+    DataSource dataSource = new ConnectionLimitingDataSource(database.getDataSource(), maxConnections);
+
+    context = new AnnotationConfigApplicationContext();
+    context.getBeanFactory().registerSingleton("dataSource", dataSource);
+    context.register(BenchmarkContext.class);
+    context.refresh();
+    state.catalogService = context.getBean(CatalogService.class);
+    state.orderService = context.getBean(OrderService.class);
+    state.accountService = context.getBean(AccountService.class);
+    state.account = state.accountService.getAccount("j2ee");
+  }
+
+  private String run(String name, ExecutorService executor) {
+    Run run = new Run(executor);
+    try {
+      return name + ": " + run.execute();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return name + ": interrupted";
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private final class Run {
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService thinkTimer = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS + 1);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final CountDownLatch stopped = new CountDownLatch(users);
+    private volatile long deadline;
+
+    Run(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    String execute() throws InterruptedException {
+      long start = System.nanoTime();
+      deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+      for (int user = 0; user < users; user++) {
+        SplittableRandom random = new SplittableRandom(user);
+        thinkTimer.schedule(() -> send(random, 0), random.nextInt(thinkMillis + 1), TimeUnit.MILLISECONDS);
+      }
+      stopped.await();
+      double elapsed = (System.nanoTime() - start) / 1e9;
+      thinkTimer.shutdown();
+      return String.format("%d users, %.0f requests/s, p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, %d errors", users,
+          requests.sum() / elapsed, percentile(0.50), percentile(0.99), percentile(0.999), errors.sum());
+    }
+
+    private void send(SplittableRandom random, int iteration) {
+      if (System.nanoTime() - deadline > 0) {
+        stopped.countDown();
+        return;
+      }
+      long sent = System.nanoTime();
+      executor.execute(() -> {
+        try {
+          request(random, iteration);
+        } catch (RuntimeException e) {
+          errors.increment();
+        } finally {
+          record(System.nanoTime() - sent);
+          thinkTimer.schedule(() -> send(random, iteration + 1), thinkMillis, TimeUnit.MILLISECONDS);
+        }
+      });
+    }
+
+    private void request(SplittableRandom random, int iteration) {
+      String productId = state.productId(random);
+      List<Item> items = state.catalogService.getItemListByProduct(productId);
+      state.catalogService.getProduct(productId);
+      if (!items.isEmpty()) {
+        state.catalogService.getItem(items.get(random.nextInt(items.size())).getItemId());
+      }
+      if (iteration % 10 == 9) {
+        try {
+          state.orderService.insertOrder(state.newOrder(random, 1 + random.nextInt(3)));
+        } catch (InsufficientInventoryException e) {
+          // sold out is an answer, not an error
+        }
+      }
+    }
+
+    private void record(long nanos) {
+      requests.increment();
+      latencies.incrementAndGet((int) Math.min(nanos / BUCKET_NANOS, LATENCY_BUCKETS));
+    }
+
+    private double percentile(double fraction) {
+      long rank = (long) Math.ceil(requests.sum() * fraction);
+      long seen = 0;
+      for (int bucket = 0; bucket <= LATENCY_BUCKETS; bucket++) {
+        seen += latencies.get(bucket);
+        if (seen >= rank) {
+          return (bucket + 1) * BUCKET_NANOS / 1e6;
+        }
+      }
+      return LATENCY_BUCKETS * BUCKET_NANOS / 1e6;
+    }
+
+  }
+
+}
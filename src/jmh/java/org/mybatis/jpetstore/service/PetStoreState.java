@@ -0,0 +1,116 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+import org.mybatis.jpetstore.data.CatalogDataGenerator;
+import org.mybatis.jpetstore.domain.Account;
+import org.mybatis.jpetstore.domain.Cart;
+import org.mybatis.jpetstore.domain.Item;
+import org.mybatis.jpetstore.domain.Order;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * A Spring context on a copy of the database built by {@link CatalogDataGenerator} for the {@code products},
+ * {@code itemsPerProduct}, {@code accounts} and {@code orders} parameters. The database is generated once in
+ * target/datagen and reused by later runs.
+ */
+@State(Scope.Benchmark)
+public class PetStoreState {
+
+  static final String[] KEYWORDS = { "dog", "cat", "fish", "bird", "snake", "lizard", "parrot", "poodle", "koi",
+      "iguana", "friendly", "tiny", "spotted", "striped", "golden", "green" };
+
+  @Param({ "1000" })
+  int products;
+
+  @Param({ "4" })
+  int itemsPerProduct;
+
+  @Param({ "1000" })
+  int accounts;
+
+  @Param({ "10000" })
+  int orders;
+
+  CatalogDataGenerator.WorkingCopy database;
+  AnnotationConfigApplicationContext context;
+  CatalogService catalogService;
+  OrderService orderService;
+  AccountService accountService;
+  Account account;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    CatalogDataGenerator generator = new CatalogDataGenerator();
+    generator.setProducts(products);
+    generator.setItemsPerProduct(itemsPerProduct);
+    generator.setAccounts(accounts);
+    generator.setOrders(orders);
+    database = generator.openOrGenerate(Paths.get("target", "datagen"));
+
+    context = new AnnotationConfigApplicationContext();
+    context.getBeanFactory().registerSingleton("dataSource", database.getDataSource());
+    context.register(BenchmarkContext.class);
+    context.refresh();
+    catalogService = context.getBean(CatalogService.class);
+    orderService = context.getBean(OrderService.class);
+    accountService = context.getBean(AccountService.class);
+    account = accountService.getAccount("j2ee");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    context.close();
+    database.close();
+  }
+
+  String productId(SplittableRandom random) {
+    return CatalogDataGenerator.productId(random.nextInt(products));
+  }
+
+  int orderId(SplittableRandom random) {
+    return CatalogDataGenerator.orderId(random.nextInt(orders));
+  }
+
+  String username(SplittableRandom random) {
+    return CatalogDataGenerator.username(random.nextInt(accounts));
+  }
+
+  Order newOrder(SplittableRandom random, int lines) {
+    Cart cart = new Cart();
+    for (int i = 0; i < lines; i++) {
+      Item item = new Item();
+      item.setItemId(CatalogDataGenerator.itemId(random.nextInt(products * itemsPerProduct)));
+      item.setListPrice(new BigDecimal("18.50"));
+      cart.addItem(item, true);
+    }
+    Order order = new Order();
+    order.initOrder(account, cart);
+    return order;
+  }
+
+}
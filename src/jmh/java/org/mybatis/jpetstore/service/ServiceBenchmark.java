@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mybatis.jpetstore.domain.Category;
+import org.mybatis.jpetstore.domain.Order;
+import org.mybatis.jpetstore.domain.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Service calls behind the main screens, against {@link PetStoreState}. The data volume is set with JMH parameters,
+ * e.g. {@code -Djmh.args="ServiceBenchmark -p products=100000 -p orders=1000000"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ServiceBenchmark {
+
+  private SplittableRandom random;
+
+  @Setup
+  public void setup() {
+    random = new SplittableRandom(7);
+  }
+
+  @Benchmark
+  public List<Category> catalogGetCategoryList(PetStoreState state) {
+    return state.catalogService.getCategoryList();
+  }
+
+  @Benchmark
+  public Product catalogGetProduct(PetStoreState state) {
+    return state.catalogService.getProduct(state.productId(random));
+  }
+
+  @Benchmark
+  public List<Product> catalogSearchProductList(PetStoreState state) {
+    return state.catalogService
+        .searchProductList(PetStoreState.KEYWORDS[random.nextInt(PetStoreState.KEYWORDS.length)]);
+  }
+
+  @Benchmark
+  public Order orderInsertOrder(PetStoreState state) {
+    Order order = state.newOrder(random, 5);
+    state.orderService.insertOrder(order);
+    return order;
+  }
+
+  @Benchmark
+  public Order orderGetOrder(PetStoreState state) {
+    return state.orderService.getOrder(state.orderId(random));
+  }
+
+  @Benchmark
+  public int orderGetNextId(PetStoreState state) {
+    return state.orderService.getNextId("ordernum");
+  }
+
+}
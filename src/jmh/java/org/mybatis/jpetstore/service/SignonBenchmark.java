@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mybatis.jpetstore.data.CatalogDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Signons per second for a PBKDF2 cost, through {@link AccountService#authenticate(String, String)} against
+ * {@link PetStoreState} and for the hash check alone. Run with several threads to see how the cost scales with cores,
+ * e.g. {@code -Djmh.args="SignonBenchmark -t 4 -p iterations=100000"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignonBenchmark {
+
+  private static final int USERS = 64;
+
+  @Param({ "10000", "100000" })
+  int iterations;
+
+  private PasswordHasher passwordHasher;
+  private String hash;
+
+  /**
+   * Sets the cost and signs every benchmark user on once, so that their passwords are hashed with it.
+   */
+  @Setup(Level.Trial)
+  public void setup(PetStoreState state) {
+    passwordHasher = state.context.getBean(PasswordHasher.class);
+    passwordHasher.setIterations(iterations);
+    state.context.getBean(SignonThrottle.class).setMaxFailures(Integer.MAX_VALUE);
+    for (int i = 0; i < USERS; i++) {
+      String username = CatalogDataGenerator.username(i);
+      state.accountService.authenticate(username, username);
+    }
+    hash = passwordHasher.hash("j2ee");
+  }
+
+  @Benchmark
+  public boolean signon(PetStoreState state, Users users) {
+    String username = users.next();
+    return state.accountService.authenticate(username, username);
+  }
+
+  @Benchmark
+  public boolean signonWithWrongPassword(PetStoreState state, Users users) {
+    return state.accountService.authenticate(users.next(), "wrong");
+  }
+
+  @Benchmark
+  public boolean passwordCheck() {
+    return passwordHasher.matches("j2ee", hash);
+  }
+
+  @State(Scope.Thread)
+  public static class Users {
+
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    String next() {
+      return CatalogDataGenerator.username(random.nextInt(USERS));
+    }
+
+  }
+
+}
@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.cart;
+
+import java.io.Closeable;
+
+/**
+ * Where the carts live between requests, outside the HTTP session. A cart is stored as the bytes of its compact form
+ * under a key naming its owner; the store neither interprets nor validates them.
+ * <p>
+ * Implementations are thread safe and report storage failures with unchecked exceptions, typically
+ * {@link java.io.UncheckedIOException}. Entries not written for the time to live of the store may disappear.
+ */
+public interface CartStore extends Closeable {
+
+  /**
+   * Gets a cart.
+   *
+   * @param key
+   *          the cart key
+   *
+   * @return the stored bytes, or null if there is no cart under the key
+   */
+  byte[] get(String key);
+
+  void put(String key, byte[] cart);
+
+  void remove(String key);
+
+  @Override
+  default void close() {
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.cart;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Keeps the carts in the heap of this JVM: the fastest store, but the carts are lost on restart and not shared with the
+ * other nodes. Carts expire after their time to live without access, and the least used are dropped beyond the maximum
+ * size.
+ */
+public class HeapCartStore implements CartStore {
+
+  private final Cache<String, byte[]> carts;
+
+  public HeapCartStore(Duration timeToLive, long maximumSize) {
+    this.carts = Caffeine.newBuilder().expireAfterAccess(timeToLive).maximumSize(maximumSize).build();
+  }
+
+  @Override
+  public byte[] get(String key) {
+    return carts.getIfPresent(key);
+  }
+
+  @Override
+  public void put(String key, byte[] cart) {
+    carts.put(key, cart);
+  }
+
+  @Override
+  public void remove(String key) {
+    carts.invalidate(key);
+  }
+
+}
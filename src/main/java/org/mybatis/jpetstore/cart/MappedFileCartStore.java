@@ -0,0 +1,326 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.cart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the carts in a memory-mapped file, so that they stay out of the Java heap and survive a restart of the JVM.
+ * Only an index of the live entries is kept on the heap. Writes go to the page cache and are not forced to disk, so a
+ * crash of the machine may lose the last ones.
+ * <p>
+ * The file is a log: every put or remove appends a record and the index points at the last record of each key. When the
+ * file is full the live entries are copied to a new file that replaces it, dropping the overwritten, removed and
+ * expired ones. If the live entries would still fill more than three quarters of the file, the ones that expire
+ * soonest, i.e. the carts written least recently, are evicted as well, like the heap store evicts when it reaches its
+ * size, and so that the next compaction is a quarter of a file of writes away. At startup the log is replayed to
+ * rebuild the index, up to the first record whose CRC does not match.
+ * <p>
+ * Layout of a record: the payload length and its CRC-32, then the expiry time in epoch milliseconds, the key length and
+ * key in UTF-8, and the cart length and cart, a length of -1 marking a removal. The last record is followed by a zero
+ * length.
+ */
+public class MappedFileCartStore implements CartStore {
+
+  private static final Logger log = LoggerFactory.getLogger(MappedFileCartStore.class);
+
+  private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+  private static final int MAX_KEY_BYTES = Short.MAX_VALUE;
+  private static final int COMPACTED_FILL_PERCENT = 75;
+
+  private final Path file;
+  private final int capacity;
+  private final Duration timeToLive;
+  private final Clock clock;
+  private final Object writeLock = new Object();
+
+  private volatile Segment segment;
+
+  public MappedFileCartStore(Path file, int capacity, Duration timeToLive) throws IOException {
+    this(file, capacity, timeToLive, Clock.systemUTC());
+  }
+
+  MappedFileCartStore(Path file, int capacity, Duration timeToLive, Clock clock) throws IOException {
+    this.file = file;
+    this.capacity = capacity;
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    Segment opened = Segment.open(file, capacity);
+    opened.recover(clock.millis());
+    this.segment = opened;
+  }
+
+  @Override
+  public byte[] get(String key) {
+    Segment current = segment;
+    Entry entry = current.index.get(key);
+    if (entry == null || entry.expiresAt <= clock.millis()) {
+      return null;
+    }
+    byte[] cart = new byte[entry.length];
+    current.buffer.get(entry.offset, cart);
+    return cart;
+  }
+
+  @Override
+  public void put(String key, byte[] cart) {
+    append(key, cart);
+  }
+
+  @Override
+  public void remove(String key) {
+    if (segment.index.containsKey(key)) {
+      append(key, null);
+    }
+  }
+
+  /**
+   * Gets the number of bytes used in the file, records and end marker included.
+   *
+   * @return the bytes used
+   */
+  public int getUsedBytes() {
+    synchronized (writeLock) {
+      return segment.writePosition + Integer.BYTES;
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (writeLock) {
+      try {
+        segment.buffer.force();
+        segment.channel.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void append(String key, byte[] cart) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    if (keyBytes.length > MAX_KEY_BYTES) {
+      throw new IllegalArgumentException("Cart key longer than " + MAX_KEY_BYTES + " bytes");
+    }
+    int payloadSize = Long.BYTES + Short.BYTES + keyBytes.length + Integer.BYTES + (cart == null ? 0 : cart.length);
+    synchronized (writeLock) {
+      if (!segment.fits(payloadSize)) {
+        int recordSize = RECORD_HEADER_SIZE + payloadSize;
+        if (recordSize + Integer.BYTES > compactedSize()) {
+          // compacting would evict every cart and still not make room
+          log.warn("Cart {} of {} bytes does not fit in cart store {}, dropping it", key, recordSize, file);
+          if (cart != null && segment.index.containsKey(key)) {
+            append(key, null);
+          }
+          return;
+        }
+        compact(recordSize);
+      }
+      segment.append(keyBytes, key, cart, clock.millis() + timeToLive.toMillis());
+    }
+  }
+
+  /**
+   * Copies the live entries to a new file and swaps it in, keeping the ones that expire last within the fill allowed
+   * after a compaction, less the record about to be appended. Readers holding the previous segment keep reading the
+   * previous mapping, which stays valid after its file is replaced.
+   *
+   * @param reserved
+   *          the size of the record to append
+   */
+  private void compact(int reserved) {
+    Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+    try {
+      Segment current = segment;
+      long now = clock.millis();
+      List<Map.Entry<String, Entry>> live = current.index.entrySet().stream()
+          .filter(entry -> entry.getValue().expiresAt > now)
+          .sorted(Comparator.comparingLong((Map.Entry<String, Entry> entry) -> entry.getValue().expiresAt).reversed())
+          .collect(Collectors.toList());
+      long budget = compactedSize() - reserved - Integer.BYTES;
+      long used = 0;
+      int kept = 0;
+      for (Map.Entry<String, Entry> entry : live) {
+        used += recordSize(entry.getKey(), entry.getValue());
+        if (used > budget) {
+          break;
+        }
+        kept++;
+      }
+
+      Files.deleteIfExists(compacted);
+      Segment next = Segment.open(compacted, capacity);
+      // oldest first, as they were written
+      for (int i = kept - 1; i >= 0; i--) {
+        String key = live.get(i).getKey();
+        Entry entry = live.get(i).getValue();
+        byte[] cart = new byte[entry.length];
+        current.buffer.get(entry.offset, cart);
+        next.append(key.getBytes(StandardCharsets.UTF_8), key, cart, entry.expiresAt);
+      }
+      Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      segment = next;
+      current.channel.close();
+      log.info("Compacted cart store {} from {} to {} bytes, evicting {} carts", file, current.writePosition,
+          next.writePosition, live.size() - kept);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Gets the number of bytes the live entries may use after a compaction.
+   */
+  private long compactedSize() {
+    return (long) capacity * COMPACTED_FILL_PERCENT / 100;
+  }
+
+  private static int recordSize(String key, Entry entry) {
+    return RECORD_HEADER_SIZE + Long.BYTES + Short.BYTES + key.getBytes(StandardCharsets.UTF_8).length + Integer.BYTES
+        + entry.length;
+  }
+
+  private static final class Segment {
+
+    final FileChannel channel;
+    final MappedByteBuffer buffer;
+    final Map<String, Entry> index = new ConcurrentHashMap<>();
+    final int capacity;
+    int writePosition;
+
+    private Segment(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+      this.channel = channel;
+      this.buffer = buffer;
+      this.capacity = capacity;
+    }
+
+    static Segment open(Path file, int capacity) throws IOException {
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      return new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), capacity);
+    }
+
+    boolean fits(int payloadSize) {
+      return writePosition + RECORD_HEADER_SIZE + payloadSize + Integer.BYTES <= capacity;
+    }
+
+    void append(byte[] keyBytes, String key, byte[] cart, long expiresAt) {
+      int payloadStart = writePosition + RECORD_HEADER_SIZE;
+      int position = payloadStart;
+      buffer.putLong(position, expiresAt);
+      position += Long.BYTES;
+      buffer.putShort(position, (short) keyBytes.length);
+      position += Short.BYTES;
+      buffer.put(position, keyBytes);
+      position += keyBytes.length;
+      buffer.putInt(position, cart == null ? -1 : cart.length);
+      position += Integer.BYTES;
+      if (cart != null) {
+        buffer.put(position, cart);
+      }
+      int end = position + (cart == null ? 0 : cart.length);
+
+      byte[] payload = new byte[end - payloadStart];
+      buffer.get(payloadStart, payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      buffer.putInt(end, 0);
+      buffer.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+      buffer.putInt(writePosition, payload.length);
+      writePosition = end;
+
+      if (cart == null) {
+        index.remove(key);
+      } else {
+        index.put(key, new Entry(position, cart.length, expiresAt));
+      }
+    }
+
+    void recover(long now) {
+      int position = 0;
+      while (position + RECORD_HEADER_SIZE <= capacity) {
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + RECORD_HEADER_SIZE + length + Integer.BYTES > capacity) {
+          break;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(position + RECORD_HEADER_SIZE, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+          log.warn("Cart store record at {} is corrupt, ignoring it and the following ones", position);
+          break;
+        }
+        int cursor = position + RECORD_HEADER_SIZE;
+        long expiresAt = buffer.getLong(cursor);
+        cursor += Long.BYTES;
+        byte[] keyBytes = new byte[buffer.getShort(cursor)];
+        cursor += Short.BYTES;
+        buffer.get(cursor, keyBytes);
+        cursor += keyBytes.length;
+        int cartLength = buffer.getInt(cursor);
+        cursor += Integer.BYTES;
+        String key = new String(keyBytes, StandardCharsets.UTF_8);
+        if (cartLength < 0 || expiresAt <= now) {
+          index.remove(key);
+        } else {
+          index.put(key, new Entry(cursor, cartLength, expiresAt));
+        }
+        position += RECORD_HEADER_SIZE + length;
+      }
+      writePosition = position;
+      buffer.putInt(writePosition, 0);
+    }
+
+  }
+
+  private static final class Entry {
+
+    final int offset;
+    final int length;
+    final long expiresAt;
+
+    Entry(int offset, int length, long expiresAt) {
+      this.offset = offset;
+      this.length = length;
+      this.expiresAt = expiresAt;
+    }
+
+  }
+
+}
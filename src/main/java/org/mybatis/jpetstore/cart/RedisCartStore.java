@@ -0,0 +1,251 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.cart;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Keeps the carts in Redis, or any server speaking its protocol, so that they survive restarts and are shared by all
+ * the nodes. Every put sets the time to live of the cart again.
+ * <p>
+ * A minimal RESP2 client is enough for the three commands used, so no client library is needed. Connections are pooled;
+ * a command failing with an I/O error is retried once on a new connection, as the pooled one may have been closed by
+ * the server.
+ */
+public class RedisCartStore implements CartStore {
+
+  private static final byte[] CRLF = { '\r', '\n' };
+
+  private final String host;
+  private final int port;
+  private final String password;
+  private final int database;
+  private final int timeoutMillis;
+  private final String keyPrefix;
+  private final long timeToLiveSeconds;
+  private final BlockingQueue<Connection> idle;
+
+  private volatile boolean closed;
+
+  public RedisCartStore(String host, int port, String password, int database, Duration timeout, int poolSize,
+      String keyPrefix, Duration timeToLive) {
+    this.host = host;
+    this.port = port;
+    this.password = password == null || password.isEmpty() ? null : password;
+    this.database = database;
+    this.timeoutMillis = (int) timeout.toMillis();
+    this.idle = new ArrayBlockingQueue<>(poolSize);
+    this.keyPrefix = keyPrefix;
+    this.timeToLiveSeconds = Math.max(timeToLive.getSeconds(), 1);
+  }
+
+  @Override
+  public byte[] get(String key) {
+    Object reply = execute(bytes("GET"), bytes(keyPrefix + key));
+    return (byte[]) reply;
+  }
+
+  @Override
+  public void put(String key, byte[] cart) {
+    execute(bytes("SET"), bytes(keyPrefix + key), cart, bytes("EX"), bytes(Long.toString(timeToLiveSeconds)));
+  }
+
+  @Override
+  public void remove(String key) {
+    execute(bytes("DEL"), bytes(keyPrefix + key));
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (Connection connection = idle.poll(); connection != null; connection = idle.poll()) {
+      connection.close();
+    }
+  }
+
+  private Object execute(byte[]... command) {
+    IOException failure = null;
+    for (int attempt = 0; attempt < 2; attempt++) {
+      Connection connection = idle.poll();
+      try {
+        if (connection == null) {
+          connection = connect();
+        }
+        Object reply = connection.execute(command);
+        release(connection);
+        return reply;
+      } catch (RedisException e) {
+        // the reply was read in full, the connection is still usable
+        release(connection);
+        throw e;
+      } catch (IOException e) {
+        if (connection != null) {
+          connection.close();
+        }
+        failure = e;
+      }
+    }
+    throw new UncheckedIOException(
+        "Redis command " + new String(command[0], StandardCharsets.US_ASCII) + " failed on " + host + ":" + port,
+        failure);
+  }
+
+  private Connection connect() throws IOException {
+    Connection connection = new Connection(host, port, timeoutMillis);
+    try {
+      if (password != null) {
+        connection.execute(bytes("AUTH"), bytes(password));
+      }
+      if (database != 0) {
+        connection.execute(bytes("SELECT"), bytes(Integer.toString(database)));
+      }
+    } catch (IOException | RuntimeException e) {
+      connection.close();
+      throw e;
+    }
+    return connection;
+  }
+
+  private void release(Connection connection) {
+    if (closed || !idle.offer(connection)) {
+      connection.close();
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static final class Connection {
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    Connection(String host, int port, int timeoutMillis) throws IOException {
+      socket = new Socket();
+      try {
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        socket.setSoTimeout(timeoutMillis);
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+      } catch (IOException e) {
+        socket.close();
+        throw e;
+      }
+    }
+
+    Object execute(byte[]... command) throws IOException {
+      out.write('*');
+      writeNumber(command.length);
+      for (byte[] argument : command) {
+        out.write('$');
+        writeNumber(argument.length);
+        out.write(argument);
+        out.write(CRLF);
+      }
+      out.flush();
+      return readReply();
+    }
+
+    /**
+     * Reads a reply: a bulk string as bytes or null, an integer as a Long, a simple string as a String. Errors are
+     * thrown as {@link RedisException}.
+     */
+    private Object readReply() throws IOException {
+      int type = in.read();
+      String line = readLine();
+      switch (type) {
+        case '$':
+          int length = Integer.parseInt(line);
+          if (length < 0) {
+            return null;
+          }
+          byte[] value = in.readNBytes(length);
+          if (value.length < length || in.read() != '\r' || in.read() != '\n') {
+            throw new EOFException("Truncated bulk reply");
+          }
+          return value;
+        case ':':
+          return Long.valueOf(line);
+        case '+':
+          return line;
+        case '-':
+          throw new RedisException(line);
+        case -1:
+          throw new EOFException("Connection closed by the server");
+        default:
+          throw new IOException("Unexpected reply type " + (char) type);
+      }
+    }
+
+    private String readLine() throws IOException {
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      for (int b = in.read(); b != '\r'; b = in.read()) {
+        if (b == -1) {
+          throw new EOFException("Connection closed by the server");
+        }
+        line.write(b);
+      }
+      if (in.read() != '\n') {
+        throw new IOException("Malformed reply line");
+      }
+      return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private void writeNumber(int value) throws IOException {
+      out.write(bytes(Integer.toString(value)));
+      out.write(CRLF);
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // nothing left to release
+      }
+    }
+
+  }
+
+  /**
+   * An error reply of the server, not retried.
+   */
+  public static class RedisException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RedisException(String message) {
+      super(message);
+    }
+
+  }
+
+}
@@ -15,47 +15,99 @@
  */
 package org.mybatis.jpetstore.domain;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * The Class Cart.
+ * <p>
+ * Safe for concurrent requests of the same session without locking: items are looked up in a {@link ConcurrentHashMap},
+ * kept in insertion order in a {@link ConcurrentSkipListMap} and iterated with weakly consistent iterators. The sub
+ * total is maintained in cents as quantities change.
+ * <p>
+ * The serialized form is a format version and the live items in order, each in the compact form of {@link CartItem}. A
+ * deserialized cart loads its items on first access with the loader given to {@link #setItemLoader(Function)}.
  *
  * @author Eduardo Macarron
  */
-public class Cart implements Serializable {
+public class Cart implements Externalizable {
 
   private static final long serialVersionUID = 8329559983943337176L;
 
-  private final Map<String, CartItem> itemMap = Collections.synchronizedMap(new HashMap<>());
-  private final List<CartItem> itemList = new ArrayList<>();
+  private static final int FORMAT_VERSION = 1;
+
+  private final ConcurrentMap<String, CartItem> itemMap = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long, CartItem> itemsInOrder = new ConcurrentSkipListMap<>();
+  private final AtomicLong nextPosition = new AtomicLong();
+  private final AtomicLong subTotalCents = new AtomicLong();
+  private transient volatile SubTotal cachedSubTotal;
+  private transient volatile Function<String, Item> itemLoader;
 
   public Iterator<CartItem> getCartItems() {
-    return itemList.iterator();
+    return new CartItemIterator();
   }
 
+  /**
+   * Gets a snapshot of the cart items.
+   *
+   * @return the cart items, in the order they were added
+   */
   public List<CartItem> getCartItemList() {
-    return itemList;
+    List<CartItem> cartItems = new ArrayList<>(itemsInOrder.size());
+    getCartItems().forEachRemaining(cartItems::add);
+    return Collections.unmodifiableList(cartItems);
   }
 
   public int getNumberOfItems() {
-    return itemList.size();
+    return itemMap.size();
   }
 
   public Iterator<CartItem> getAllCartItems() {
-    return itemList.iterator();
+    return new CartItemIterator();
   }
 
   public boolean containsItemId(String itemId) {
     return itemMap.containsKey(itemId);
   }
 
+  /**
+   * Gets a snapshot of the ids of the items in the cart.
+   *
+   * @return the item ids
+   */
+  public Set<String> getItemIds() {
+    return Set.copyOf(itemMap.keySet());
+  }
+
+  /**
+   * Updates the in stock flag of every cart item. Items missing from the quantities are marked out of stock.
+   *
+   * @param quantities
+   *          the inventory quantities by item id
+   */
+  public void updateStock(Map<String, Integer> quantities) {
+    itemMap.forEach((itemId, cartItem) -> {
+      Integer quantity = quantities.get(itemId);
+      cartItem.setInStock(quantity != null && quantity > 0);
+    });
+  }
+
   /**
    * Adds the item.
    *
@@ -65,16 +117,29 @@ public class Cart implements Serializable {
    *          the is in stock
    */
   public void addItem(Item item, boolean isInStock) {
-    CartItem cartItem = itemMap.get(item.getItemId());
-    if (cartItem == null) {
-      cartItem = new CartItem();
-      cartItem.setItem(item);
-      cartItem.setQuantity(0);
-      cartItem.setInStock(isInStock);
-      itemMap.put(item.getItemId(), cartItem);
-      itemList.add(cartItem);
+    while (true) {
+      CartItem cartItem = itemMap.get(item.getItemId());
+      if (cartItem == null) {
+        CartItem candidate = new CartItem();
+        candidate.setItem(item);
+        candidate.setInStock(isInStock);
+        candidate.setPosition(nextPosition.incrementAndGet());
+        cartItem = itemMap.putIfAbsent(item.getItemId(), candidate);
+        if (cartItem == null) {
+          cartItem = candidate;
+          itemsInOrder.put(candidate.getPosition(), candidate);
+          if (candidate.isRetired()) {
+            // removed before it was listed
+            itemsInOrder.remove(candidate.getPosition(), candidate);
+          }
+        }
+      }
+      if (addQuantity(cartItem, 1)) {
+        return;
+      }
+      // retired by a concurrent removal, drop it and start over
+      itemMap.remove(item.getItemId(), cartItem);
     }
-    cartItem.incrementQuantity();
   }
 
   /**
@@ -89,10 +154,9 @@ public class Cart implements Serializable {
     CartItem cartItem = itemMap.remove(itemId);
     if (cartItem == null) {
       return null;
-    } else {
-      itemList.remove(cartItem);
-      return cartItem.getItem();
     }
+    retire(cartItem);
+    return cartItem.getItem();
   }
 
   /**
@@ -103,12 +167,19 @@ public class Cart implements Serializable {
    */
   public void incrementQuantityByItemId(String itemId) {
     CartItem cartItem = itemMap.get(itemId);
-    cartItem.incrementQuantity();
+    if (cartItem != null) {
+      addQuantity(cartItem, 1);
+    }
   }
 
   public void setQuantityByItemId(String itemId, int quantity) {
     CartItem cartItem = itemMap.get(itemId);
-    cartItem.setQuantity(quantity);
+    if (cartItem != null) {
+      int previous = cartItem.changeQuantity(quantity);
+      if (previous != CartItem.RETIRED) {
+        subTotalCents.addAndGet((Math.max(quantity, 0) - (long) previous) * cartItem.getUnitPriceCents());
+      }
+    }
   }
 
   /**
@@ -117,9 +188,157 @@ public class Cart implements Serializable {
    * @return the sub total
    */
   public BigDecimal getSubTotal() {
-    return itemList.stream()
-        .map(cartItem -> cartItem.getItem().getListPrice().multiply(new BigDecimal(cartItem.getQuantity())))
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
+    long cents = subTotalCents.get();
+    if (cents == 0) {
+      return BigDecimal.ZERO;
+    }
+    SubTotal subTotal = cachedSubTotal;
+    if (subTotal == null || subTotal.cents != cents) {
+      subTotal = new SubTotal(cents);
+      cachedSubTotal = subTotal;
+    }
+    return subTotal.value;
+  }
+
+  /**
+   * Prices every line at the current list price of its item and drops the lines whose item no longer exists. A cart
+   * keeps the price each item was added at, so this is done before checking out, for the order total to agree with its
+   * line items. Not atomic with concurrent quantity changes: it is meant for the cart a request has loaded for itself.
+   *
+   * @return true if a price changed or a line was dropped
+   */
+  public boolean reprice() {
+    boolean changed = false;
+    for (Iterator<CartItem> cartItems = getCartItems(); cartItems.hasNext();) {
+      CartItem cartItem = cartItems.next();
+      Item item = cartItem.getItem();
+      if (item == null) {
+        cartItems.remove();
+        changed = true;
+        continue;
+      }
+      long previousCents = cartItem.getUnitPriceCents();
+      cartItem.setItem(item);
+      long deltaCents = cartItem.getUnitPriceCents() - previousCents;
+      if (deltaCents != 0) {
+        subTotalCents.addAndGet(deltaCents * cartItem.getQuantity());
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Sets how the items of a deserialized cart are loaded, typically from the catalog cache.
+   *
+   * @param itemLoader
+   *          loads an item by id
+   */
+  public void setItemLoader(Function<String, Item> itemLoader) {
+    this.itemLoader = itemLoader;
+    itemMap.values().forEach(cartItem -> cartItem.setItemLoader(itemLoader));
+  }
+
+  @Override
+  public void writeExternal(ObjectOutput out) throws IOException {
+    List<CartItem> cartItems = getCartItemList();
+    out.writeByte(FORMAT_VERSION);
+    Varints.writeUnsigned(out, cartItems.size());
+    for (CartItem cartItem : cartItems) {
+      cartItem.writeExternal(out);
+    }
+  }
+
+  @Override
+  public void readExternal(ObjectInput in) throws IOException {
+    int version = in.readUnsignedByte();
+    if (version != FORMAT_VERSION) {
+      throw new InvalidObjectException("Unsupported cart format " + version);
+    }
+    int size = Varints.readUnsignedInt(in);
+    for (int i = 0; i < size; i++) {
+      CartItem cartItem = new CartItem();
+      cartItem.readExternal(in);
+      cartItem.setItemLoader(itemLoader);
+      cartItem.setPosition(nextPosition.incrementAndGet());
+      if (itemMap.putIfAbsent(cartItem.getItemId(), cartItem) != null) {
+        throw new InvalidObjectException("Duplicate cart item " + cartItem.getItemId());
+      }
+      itemsInOrder.put(cartItem.getPosition(), cartItem);
+      subTotalCents.addAndGet(cartItem.getQuantity() * cartItem.getUnitPriceCents());
+    }
+  }
+
+  private void retire(CartItem cartItem) {
+    int quantity = cartItem.retire();
+    if (quantity != CartItem.RETIRED) {
+      subTotalCents.addAndGet(-quantity * cartItem.getUnitPriceCents());
+    }
+    itemsInOrder.remove(cartItem.getPosition(), cartItem);
+  }
+
+  private boolean addQuantity(CartItem cartItem, int delta) {
+    int previous = cartItem.addQuantity(delta);
+    if (previous == CartItem.RETIRED) {
+      return false;
+    }
+    subTotalCents.addAndGet((Math.max(previous + delta, 0) - (long) previous) * cartItem.getUnitPriceCents());
+    return true;
+  }
+
+  private static final class SubTotal {
+
+    final long cents;
+    final BigDecimal value;
+
+    SubTotal(long cents) {
+      this.cents = cents;
+      this.value = BigDecimal.valueOf(cents, 2);
+    }
+
+  }
+
+  /**
+   * Iterates the live items in insertion order; {@link #remove()} removes the item from the cart.
+   */
+  private class CartItemIterator implements Iterator<CartItem> {
+
+    private final Iterator<CartItem> delegate = itemsInOrder.values().iterator();
+    private CartItem next;
+    private CartItem last;
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && delegate.hasNext()) {
+        CartItem candidate = delegate.next();
+        if (!candidate.isRetired()) {
+          next = candidate;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public CartItem next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      next = null;
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      if (itemMap.remove(last.getItemId(), last)) {
+        retire(last);
+      }
+      last = null;
+    }
+
   }
 
 }
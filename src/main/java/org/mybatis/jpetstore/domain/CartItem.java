@@ -15,23 +15,42 @@
  */
 package org.mybatis.jpetstore.domain;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * The Class CartItem.
+ * <p>
+ * The quantity is an atomic counter so that concurrent requests of the same session can update it without locking. Once
+ * the item has been removed from its {@link Cart} it is retired and ignores further updates.
+ * <p>
+ * The serialized form is the item id, the quantity with the in stock flag and the unit price in cents, as varints. The
+ * {@link Item} itself is not written: after deserialization it is loaded on first access with the item loader of the
+ * cart, while the totals keep using the price the item was added at.
  *
  * @author Eduardo Macarron
  */
-public class CartItem implements Serializable {
+public class CartItem implements Externalizable {
 
   private static final long serialVersionUID = 6620528781626504362L;
 
-  private Item item;
-  private int quantity;
-  private boolean inStock;
-  private BigDecimal total;
+  static final int RETIRED = Integer.MIN_VALUE;
+
+  private volatile Item item;
+  private String itemId;
+  private transient volatile Function<String, Item> itemLoader;
+  private final AtomicInteger quantity = new AtomicInteger();
+  private volatile boolean inStock;
+  private long unitPriceCents;
+  private long position;
+  private transient volatile Total cachedTotal;
 
   public boolean isInStock() {
     return inStock;
@@ -41,36 +60,177 @@ public class CartItem implements Serializable {
     this.inStock = inStock;
   }
 
+  /**
+   * Gets the total. The value is computed once per quantity, the JSPs ask for it several times per render.
+   *
+   * @return the total, or null if the item has no price
+   */
   public BigDecimal getTotal() {
-    return total;
+    int current = getQuantity();
+    Total total = cachedTotal;
+    if (total == null || total.quantity != current) {
+      BigDecimal unitPrice = getUnitPrice();
+      if (unitPrice == null) {
+        return null;
+      }
+      total = new Total(current, unitPrice.multiply(new BigDecimal(current)));
+      cachedTotal = total;
+    }
+    return total.value;
   }
 
+  /**
+   * Gets the item, loading it with the item loader if it was not deserialized yet.
+   *
+   * @return the item, or null if it is neither set nor loadable
+   */
   public Item getItem() {
-    return item;
+    Item current = item;
+    if (current == null && itemId != null) {
+      Function<String, Item> loader = itemLoader;
+      if (loader != null) {
+        current = loader.apply(itemId);
+        item = current;
+      }
+    }
+    return current;
   }
 
   public void setItem(Item item) {
     this.item = item;
-    calculateTotal();
+    this.itemId = item == null ? null : item.getItemId();
+    this.cachedTotal = null;
+    this.unitPriceCents = toCents(item == null ? null : item.getListPrice());
+  }
+
+  public String getItemId() {
+    return itemId;
+  }
+
+  void setItemLoader(Function<String, Item> itemLoader) {
+    this.itemLoader = itemLoader;
   }
 
   public int getQuantity() {
-    return quantity;
+    int current = quantity.get();
+    return current == RETIRED ? 0 : current;
+  }
+
+  /**
+   * Sets the quantity. Negative quantities are stored as 0. Package-private as the subtotal of the cart would not
+   * follow: quantities are changed through {@link Cart}.
+   *
+   * @param quantity
+   *          the quantity
+   */
+  void setQuantity(int quantity) {
+    changeQuantity(quantity);
+  }
+
+  void incrementQuantity() {
+    addQuantity(1);
+  }
+
+  boolean isRetired() {
+    return quantity.get() == RETIRED;
+  }
+
+  long getUnitPriceCents() {
+    return unitPriceCents;
+  }
+
+  long getPosition() {
+    return position;
   }
 
-  public void setQuantity(int quantity) {
-    this.quantity = quantity;
-    calculateTotal();
+  void setPosition(long position) {
+    this.position = position;
   }
 
-  public void incrementQuantity() {
-    quantity++;
-    calculateTotal();
+  /**
+   * Adds to the quantity unless the item is retired.
+   *
+   * @return the previous quantity, or {@link #RETIRED}
+   */
+  int addQuantity(int delta) {
+    int current;
+    do {
+      current = quantity.get();
+      if (current == RETIRED) {
+        return RETIRED;
+      }
+    } while (!quantity.compareAndSet(current, Math.max(current + delta, 0)));
+    return current;
   }
 
-  private void calculateTotal() {
-    total = Optional.ofNullable(item).map(Item::getListPrice).map(v -> v.multiply(new BigDecimal(quantity)))
-        .orElse(null);
+  /**
+   * Replaces the quantity unless the item is retired.
+   *
+   * @return the previous quantity, or {@link #RETIRED}
+   */
+  int changeQuantity(int newQuantity) {
+    int target = Math.max(newQuantity, 0);
+    int current;
+    do {
+      current = quantity.get();
+      if (current == RETIRED) {
+        return RETIRED;
+      }
+    } while (!quantity.compareAndSet(current, target));
+    return current;
+  }
+
+  /**
+   * Retires the item so that it ignores further quantity updates.
+   *
+   * @return the quantity held before retirement, or {@link #RETIRED} if it was already retired
+   */
+  int retire() {
+    return quantity.getAndSet(RETIRED);
+  }
+
+  /**
+   * Gets the price the item was added at, without loading a deserialized item.
+   */
+  private BigDecimal getUnitPrice() {
+    Item current = item;
+    boolean priced = current != null ? current.getListPrice() != null : itemId != null;
+    return priced ? BigDecimal.valueOf(unitPriceCents, 2) : null;
+  }
+
+  @Override
+  public void writeExternal(ObjectOutput out) throws IOException {
+    Varints.writeString(out, itemId);
+    Varints.writeUnsigned(out, (long) getQuantity() << 1 | (inStock ? 1 : 0));
+    Varints.writeSigned(out, unitPriceCents);
+  }
+
+  @Override
+  public void readExternal(ObjectInput in) throws IOException {
+    itemId = Varints.readString(in);
+    long quantityAndStock = Varints.readUnsigned(in);
+    if (quantityAndStock >>> 1 > Integer.MAX_VALUE) {
+      throw new StreamCorruptedException("Quantity out of range: " + (quantityAndStock >>> 1));
+    }
+    quantity.set((int) (quantityAndStock >>> 1));
+    inStock = (quantityAndStock & 1) != 0;
+    unitPriceCents = Varints.readSigned(in);
+  }
+
+  static long toCents(BigDecimal amount) {
+    return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+  }
+
+  private static final class Total {
+
+    final int quantity;
+    final BigDecimal value;
+
+    Total(int quantity, BigDecimal value) {
+      this.quantity = quantity;
+      this.value = value;
+    }
+
   }
 
 }
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.domain;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LEB128 style variable length integers for the compact forms of {@link Cart} and {@link CartItem}: seven bits per
+ * byte, low bits first, the high bit set on every byte but the last. Quantities and prices of a cart fit in one to
+ * three bytes instead of the four or eight of their fixed size encodings.
+ */
+final class Varints {
+
+  private static final int MAX_BYTES = 10;
+  private static final int MAX_STRING_BYTES = 64 * 1024;
+
+  private Varints() {
+  }
+
+  static void writeUnsigned(DataOutput out, long value) throws IOException {
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0) {
+      out.writeByte((int) (remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    out.writeByte((int) remaining);
+  }
+
+  static long readUnsigned(DataInput in) throws IOException {
+    long value = 0;
+    for (int i = 0; i < MAX_BYTES; i++) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << (7 * i);
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new StreamCorruptedException("Varint longer than " + MAX_BYTES + " bytes");
+  }
+
+  /**
+   * Writes a signed value in zig-zag form, so that small negative values stay short too.
+   */
+  static void writeSigned(DataOutput out, long value) throws IOException {
+    writeUnsigned(out, (value << 1) ^ (value >> 63));
+  }
+
+  static long readSigned(DataInput in) throws IOException {
+    long value = readUnsigned(in);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  static int readUnsignedInt(DataInput in) throws IOException {
+    long value = readUnsigned(in);
+    if (value > Integer.MAX_VALUE) {
+      throw new StreamCorruptedException("Varint out of int range: " + value);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+   */
+  static void writeString(DataOutput out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeUnsigned(out, bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(DataInput in) throws IOException {
+    int length = readUnsignedInt(in);
+    if (length > MAX_STRING_BYTES) {
+      throw new StreamCorruptedException("String of " + length + " bytes");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.exception;
+
+import java.util.List;
+
+/**
+ * Thrown when an order asks for more units of some items than the inventory holds. The order is rolled back.
+ */
+public class InsufficientInventoryException extends RuntimeException {
+
+  private static final long serialVersionUID = 2925318430046870713L;
+
+  private final List<String> itemIds;
+
+  public InsufficientInventoryException(List<String> itemIds) {
+    super("Error: Not enough inventory for items " + itemIds + ".");
+    this.itemIds = List.copyOf(itemIds);
+  }
+
+  public List<String> getItemIds() {
+    return itemIds;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Caps the number of threads holding a connection of the target data source at once.
+ * <p>
+ * A thread takes a permit with its first open connection and gives it back when its last one is closed, so a nested
+ * connection such as the {@code REQUIRES_NEW} transaction of the sequence allocator never waits for a permit held by
+ * its own thread. A thread that cannot get a permit within the acquire timeout fails with a
+ * {@link SQLTransientConnectionException} instead of queueing forever, which keeps thousands of concurrent requests
+ * from piling up on the embedded database.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+  private static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 30_000;
+
+  private final int maxConnections;
+  private final Semaphore permits;
+  private final ThreadLocal<AtomicInteger> openConnections = ThreadLocal.withInitial(AtomicInteger::new);
+
+  private long acquireTimeoutMillis = DEFAULT_ACQUIRE_TIMEOUT_MILLIS;
+
+  public ConnectionLimitingDataSource(DataSource targetDataSource, int maxConnections) {
+    super(targetDataSource);
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("The connection limit must be positive: " + maxConnections);
+    }
+    this.maxConnections = maxConnections;
+    this.permits = new Semaphore(maxConnections, true);
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Gets the number of threads that can still open a connection without waiting.
+   *
+   * @return the available permits
+   */
+  public int getAvailablePermits() {
+    return permits.availablePermits();
+  }
+
+  public long getAcquireTimeoutMillis() {
+    return acquireTimeoutMillis;
+  }
+
+  public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+    if (acquireTimeoutMillis < 0) {
+      throw new IllegalArgumentException("The acquire timeout must not be negative: " + acquireTimeoutMillis);
+    }
+    this.acquireTimeoutMillis = acquireTimeoutMillis;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    AtomicInteger open = acquire();
+    try {
+      return limited(obtainTargetDataSource().getConnection(), open);
+    } catch (SQLException | RuntimeException e) {
+      release(open);
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    AtomicInteger open = acquire();
+    try {
+      return limited(obtainTargetDataSource().getConnection(username, password), open);
+    } catch (SQLException | RuntimeException e) {
+      release(open);
+      throw e;
+    }
+  }
+
+  private AtomicInteger acquire() throws SQLException {
+    AtomicInteger open = openConnections.get();
+    if (open.getAndIncrement() > 0) {
+      return open;
+    }
+    boolean acquired = false;
+    try {
+      acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!acquired) {
+      open.decrementAndGet();
+      throw new SQLTransientConnectionException(
+          "No connection became available within " + acquireTimeoutMillis + " ms (limit " + maxConnections + ")");
+    }
+    return open;
+  }
+
+  private void release(AtomicInteger open) {
+    if (open.decrementAndGet() == 0) {
+      permits.release();
+    }
+  }
+
+  private Connection limited(Connection target, AtomicInteger open) {
+    return (Connection) Proxy.newProxyInstance(ConnectionLimitingDataSource.class.getClassLoader(),
+        new Class<?>[] { Connection.class }, new LimitedConnection(target, open));
+  }
+
+  private final class LimitedConnection implements InvocationHandler {
+
+    private final Connection target;
+    private final AtomicInteger open;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    LimitedConnection(Connection target, AtomicInteger open) {
+      this.target = target;
+      this.open = open;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Limited connection [" + target + "]";
+        case "close":
+          if (closed.compareAndSet(false, true)) {
+            try {
+              target.close();
+            } finally {
+              release(open);
+            }
+          }
+          return null;
+        default:
+          try {
+            return method.invoke(target, args);
+          } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+          }
+      }
+    }
+
+  }
+
+}
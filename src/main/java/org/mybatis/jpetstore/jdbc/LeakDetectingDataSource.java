@@ -0,0 +1,136 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A DBCP2 pool that logs the connections held longer than a threshold, with the stack trace that borrowed them, and
+ * leaves them alone: a long transaction is reported, not killed. A connection reported as leaked logs again when it is
+ * finally returned.
+ * <p>
+ * Each borrowed connection is wrapped in a proxy whose {@code close} cancels the report scheduled at borrow time on a
+ * single daemon thread.
+ */
+class LeakDetectingDataSource extends BasicDataSource {
+
+  private static final Logger log = LoggerFactory.getLogger(LeakDetectingDataSource.class);
+
+  private final long thresholdMillis;
+  private final ScheduledThreadPoolExecutor scheduler;
+
+  LeakDetectingDataSource(Duration threshold) {
+    this.thresholdMillis = threshold.toMillis();
+    this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "jpetstore-connection-leak-detector");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    Connection connection = super.getConnection();
+    LeakReport report = new LeakReport(Thread.currentThread().getName());
+    report.future = scheduler.schedule(report, thresholdMillis, TimeUnit.MILLISECONDS);
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+        new TrackedConnection(connection, report));
+  }
+
+  @Override
+  public synchronized void close() throws SQLException {
+    scheduler.shutdownNow();
+    super.close();
+  }
+
+  private final class LeakReport implements Runnable {
+
+    private final Exception borrowedAt;
+    private final long borrowedNanos = System.nanoTime();
+    private volatile ScheduledFuture<?> future;
+    private volatile boolean reported;
+
+    LeakReport(String threadName) {
+      this.borrowedAt = new Exception("Connection borrowed by thread " + threadName);
+    }
+
+    @Override
+    public void run() {
+      reported = true;
+      log.warn("A connection has been held for more than {} ms, possible leak", thresholdMillis, borrowedAt);
+    }
+
+    void returned() {
+      future.cancel(false);
+      if (reported) {
+        log.info("A connection reported as leaked was returned after {} ms",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - borrowedNanos));
+      }
+    }
+
+  }
+
+  private static final class TrackedConnection implements InvocationHandler {
+
+    private final Connection connection;
+    private final LeakReport report;
+    private boolean returned;
+
+    TrackedConnection(Connection connection, LeakReport report) {
+      this.connection = connection;
+      this.report = report;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "close":
+          if (!returned) {
+            returned = true;
+            report.returned();
+          }
+          break;
+        default:
+          break;
+      }
+      try {
+        return method.invoke(connection, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+
+  }
+
+}
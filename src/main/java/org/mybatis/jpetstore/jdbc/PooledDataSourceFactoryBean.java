@@ -0,0 +1,181 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.jdbc;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Builds a DBCP2 connection pool and runs the database scripts on it before anything else gets a connection.
+ * <p>
+ * Prepared statements are pooled per connection, so MyBatis statements prepared again in a later transaction reuse the
+ * driver statement. A connection held longer than the leak detection threshold is logged with the stack trace that
+ * borrowed it, and left to its borrower. Taking back abandoned connections is a separate opt-in, as it closes the
+ * connection of a long transaction still running. With a JMX name the pool registers its MBeans: the data source
+ * reports NumActive, NumIdle and MaxTotal, and the connection pool under {@code <jmxName>,connectionpool=connections}
+ * adds NumWaiters and the mean and maximum borrow wait times, the numbers that show a saturated pool.
+ */
+public class PooledDataSourceFactoryBean implements FactoryBean<BasicDataSource>, InitializingBean, DisposableBean {
+
+  private String driverClassName;
+  private String url;
+  private String username;
+  private String password;
+  private int minIdle = 4;
+  private int maxTotal = 96;
+  private long maxWaitMillis = 30_000;
+  private int maxOpenPreparedStatements = 200;
+  private int leakDetectionThresholdSeconds = 60;
+  private int removeAbandonedSeconds;
+  private long evictionRunIntervalMillis = 30_000;
+  private String jmxName;
+  private Resource[] scripts = {};
+
+  private BasicDataSource dataSource;
+
+  public void setDriverClassName(String driverClassName) {
+    this.driverClassName = driverClassName;
+  }
+
+  public void setUrl(String url) {
+    this.url = url;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public void setPassword(String password) {
+    this.password = password;
+  }
+
+  public void setMinIdle(int minIdle) {
+    this.minIdle = minIdle;
+  }
+
+  public void setMaxTotal(int maxTotal) {
+    this.maxTotal = maxTotal;
+  }
+
+  public void setMaxWaitMillis(long maxWaitMillis) {
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  /**
+   * Sets how many prepared statements each connection keeps open; 0 turns statement pooling off.
+   *
+   * @param maxOpenPreparedStatements
+   *          the statements per connection
+   */
+  public void setMaxOpenPreparedStatements(int maxOpenPreparedStatements) {
+    this.maxOpenPreparedStatements = maxOpenPreparedStatements;
+  }
+
+  /**
+   * Sets how long a connection can be borrowed before it is reported as leaked; 0 turns leak detection off.
+   *
+   * @param leakDetectionThresholdSeconds
+   *          the threshold in seconds
+   */
+  public void setLeakDetectionThresholdSeconds(int leakDetectionThresholdSeconds) {
+    this.leakDetectionThresholdSeconds = leakDetectionThresholdSeconds;
+  }
+
+  /**
+   * Sets how long a connection can be borrowed before the eviction run closes it and takes it back; 0, the default,
+   * never does.
+   *
+   * @param removeAbandonedSeconds
+   *          the timeout in seconds
+   */
+  public void setRemoveAbandonedSeconds(int removeAbandonedSeconds) {
+    this.removeAbandonedSeconds = removeAbandonedSeconds;
+  }
+
+  public void setEvictionRunIntervalMillis(long evictionRunIntervalMillis) {
+    this.evictionRunIntervalMillis = evictionRunIntervalMillis;
+  }
+
+  public void setJmxName(String jmxName) {
+    this.jmxName = jmxName;
+  }
+
+  public void setScripts(Resource... scripts) {
+    this.scripts = scripts;
+  }
+
+  @Override
+  public void afterPropertiesSet() throws SQLException {
+    if (minIdle > maxTotal) {
+      throw new IllegalArgumentException("The pool keeps more idle connections than it may open: " + minIdle);
+    }
+    BasicDataSource pool = leakDetectionThresholdSeconds > 0
+        ? new LeakDetectingDataSource(Duration.ofSeconds(leakDetectionThresholdSeconds)) : new BasicDataSource();
+    pool.setDriverClassName(driverClassName);
+    pool.setUrl(url);
+    pool.setUsername(username);
+    pool.setPassword(password);
+    pool.setInitialSize(minIdle);
+    pool.setMinIdle(minIdle);
+    pool.setMaxIdle(maxTotal);
+    pool.setMaxTotal(maxTotal);
+    pool.setMaxWait(Duration.ofMillis(maxWaitMillis));
+    pool.setPoolPreparedStatements(maxOpenPreparedStatements > 0);
+    pool.setMaxOpenPreparedStatements(maxOpenPreparedStatements);
+    pool.setDurationBetweenEvictionRuns(Duration.ofMillis(evictionRunIntervalMillis));
+    if (removeAbandonedSeconds > 0) {
+      pool.setRemoveAbandonedOnMaintenance(true);
+      pool.setRemoveAbandonedTimeout(Duration.ofSeconds(removeAbandonedSeconds));
+      pool.setLogAbandoned(true);
+    }
+    pool.setJmxName(jmxName);
+    try {
+      if (scripts.length > 0) {
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(scripts), pool);
+      }
+    } catch (RuntimeException e) {
+      pool.close();
+      throw e;
+    }
+    dataSource = pool;
+  }
+
+  @Override
+  public BasicDataSource getObject() {
+    return dataSource;
+  }
+
+  @Override
+  public Class<?> getObjectType() {
+    return BasicDataSource.class;
+  }
+
+  @Override
+  public void destroy() throws SQLException {
+    if (dataSource != null) {
+      dataSource.close();
+    }
+  }
+
+}
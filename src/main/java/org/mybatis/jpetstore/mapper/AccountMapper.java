@@ -26,7 +26,7 @@ public interface AccountMapper {
 
   Account getAccountByUsername(String username);
 
-  Account getAccountByUsernameAndPassword(String username, String password);
+  String getPassword(String username);
 
   void insertAccount(Account account);
 
@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.mybatis.jpetstore.domain.LineItem;
+
+/**
+ * The Interface InventoryLedgerMapper.
+ * <p>
+ * Persistence of the inventory reservations made by {@code InventoryLedger}: an order whose decrements are not yet
+ * applied to INVENTORY is listed in INVENTORYLEDGER until they are.
+ */
+public interface InventoryLedgerMapper {
+
+  void insertPendingOrder(int orderId);
+
+  void deletePendingOrder(int orderId);
+
+  void deleteAllPendingOrders();
+
+  /**
+   * Gets the quantities ordered by the pending orders.
+   *
+   * @return line items holding an item id and the total quantity still to take out of its inventory
+   */
+  List<LineItem> getPendingQuantities();
+
+  void decrementInventoryQuantity(@Param("itemId") String itemId, @Param("decrement") int decrement);
+
+}
@@ -15,9 +15,12 @@
  */
 package org.mybatis.jpetstore.mapper;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.annotations.MapKey;
+import org.apache.ibatis.annotations.Param;
 import org.mybatis.jpetstore.domain.Item;
 
 /**
@@ -27,12 +30,45 @@ import org.mybatis.jpetstore.domain.Item;
  */
 public interface ItemMapper {
 
-  void updateInventoryQuantity(Map<String, Object> param);
+  /**
+   * Takes the ordered quantity out of the inventory of an item, unless it holds fewer units.
+   *
+   * @param param
+   *          the itemId and the increment to subtract
+   *
+   * @return 1 if the inventory was updated, 0 if it holds fewer units than the increment or the item does not exist
+   */
+  int updateInventoryQuantity(Map<String, Object> param);
 
   int getInventoryQuantity(String itemId);
 
+  /**
+   * Gets the inventory quantities of several items in one query.
+   *
+   * @param itemIds
+   *          the item ids, must not be empty
+   *
+   * @return items holding only their id and quantity, by item id
+   */
+  @MapKey("itemId")
+  Map<String, Item> getInventoryQuantities(@Param("itemIds") Collection<String> itemIds);
+
   List<Item> getItemListByProduct(String productId);
 
+  List<Item> getItemPageByProduct(@Param("productId") String productId, @Param("lastItemId") String lastItemId,
+      @Param("pageSize") int pageSize);
+
   Item getItem(String itemId);
 
+  /**
+   * Gets several items in one query, without their inventory quantity.
+   *
+   * @param itemIds
+   *          the item ids, must not be empty
+   *
+   * @return the items found, by item id
+   */
+  @MapKey("itemId")
+  Map<String, Item> getItems(@Param("itemIds") Collection<String> itemIds);
+
 }
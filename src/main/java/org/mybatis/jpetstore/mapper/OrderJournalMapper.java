@@ -0,0 +1,34 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.mapper;
+
+import java.util.List;
+
+/**
+ * The Interface OrderJournalMapper.
+ * <p>
+ * Persistence of the orders held by {@code OrderJournal}: an order is listed in ORDERJOURNAL by the transaction that
+ * takes its inventory, and unlisted by the transaction that writes it to ORDERS.
+ */
+public interface OrderJournalMapper {
+
+  void insertJournaledOrder(int orderId);
+
+  void deleteJournaledOrder(int orderId);
+
+  List<Integer> getJournaledOrderIds();
+
+}
@@ -30,6 +30,8 @@ public interface OrderMapper {
 
   Order getOrder(int orderId);
 
+  Order getOrderWithLineItems(int orderId);
+
   void insertOrder(Order order);
 
   void insertOrderStatus(Order order);
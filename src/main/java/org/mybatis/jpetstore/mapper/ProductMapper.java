@@ -17,6 +17,7 @@ package org.mybatis.jpetstore.mapper;
 
 import java.util.List;
 
+import org.apache.ibatis.annotations.Param;
 import org.mybatis.jpetstore.domain.Product;
 
 /**
@@ -26,10 +27,18 @@ import org.mybatis.jpetstore.domain.Product;
  */
 public interface ProductMapper {
 
+  List<Product> getProductList();
+
   List<Product> getProductListByCategory(String categoryId);
 
+  List<Product> getProductPageByCategory(@Param("categoryId") String categoryId,
+      @Param("lastProductId") String lastProductId, @Param("pageSize") int pageSize);
+
   Product getProduct(String productId);
 
   List<Product> searchProductList(String keywords);
 
+  List<Product> searchProductListByKeywords(@Param("keywords") List<String> keywords,
+      @Param("matchAll") boolean matchAll, @Param("offset") int offset, @Param("limit") int limit);
+
 }
@@ -15,6 +15,7 @@
  */
 package org.mybatis.jpetstore.mapper;
 
+import org.apache.ibatis.annotations.Param;
 import org.mybatis.jpetstore.domain.Sequence;
 
 /**
@@ -27,4 +28,8 @@ public interface SequenceMapper {
   Sequence getSequence(Sequence sequence);
 
   void updateSequence(Sequence sequence);
+
+  int reserveSequenceRange(@Param("name") String name, @Param("blockSize") int blockSize);
+
+  Long getSequenceNextId(String name);
 }
@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms of the requests handled by one action event, e.g. {@code CatalogActionBean.viewCategory}.
+ */
+public class ActionMetrics {
+
+  private final String action;
+  private final LatencyHistogram total = new LatencyHistogram();
+  private final LatencyHistogram handler = new LatencyHistogram();
+  private final LatencyHistogram database = new LatencyHistogram();
+  private final LatencyHistogram render = new LatencyHistogram();
+  private final LongAdder errors = new LongAdder();
+
+  public ActionMetrics(String action) {
+    this.action = action;
+  }
+
+  void record(RequestTiming timing, long totalNanos, boolean failed) {
+    total.record(totalNanos);
+    handler.record(timing.getHandlerNanos());
+    database.record(timing.getDatabaseNanos());
+    render.record(timing.getRenderNanos());
+    if (failed) {
+      errors.increment();
+    }
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  public LatencyHistogram getTotal() {
+    return total;
+  }
+
+  public LatencyHistogram getHandler() {
+    return handler;
+  }
+
+  public LatencyHistogram getDatabase() {
+    return database;
+  }
+
+  public LatencyHistogram getRender() {
+    return render;
+  }
+
+  public long getErrors() {
+    return errors.sum();
+  }
+
+}
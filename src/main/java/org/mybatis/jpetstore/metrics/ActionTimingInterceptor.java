@@ -0,0 +1,62 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.lang.reflect.Method;
+
+import net.sourceforge.stripes.action.Resolution;
+import net.sourceforge.stripes.controller.ExecutionContext;
+import net.sourceforge.stripes.controller.Interceptor;
+import net.sourceforge.stripes.controller.Intercepts;
+import net.sourceforge.stripes.controller.LifecycleStage;
+
+/**
+ * Times the handler and the resolution of a Stripes event into the {@link RequestTiming} of the request, and names the
+ * request after the action bean and handler, e.g. {@code CartActionBean.addItemToCart}. The timing is bound to the
+ * thread for both stages, so the statements they run add their database time to it; that time is not counted as handler
+ * or render time.
+ */
+@Intercepts({ LifecycleStage.EventHandling, LifecycleStage.ResolutionExecution })
+public class ActionTimingInterceptor implements Interceptor {
+
+  @Override
+  public Resolution intercept(ExecutionContext context) throws Exception {
+    RequestTiming timing = (RequestTiming) context.getActionBeanContext().getRequest()
+        .getAttribute(RequestTiming.ATTRIBUTE);
+    if (timing == null) {
+      return context.proceed();
+    }
+    Method handler = context.getHandler();
+    if (handler != null && timing.getAction() == null) {
+      timing.setAction(context.getActionBean().getClass().getSimpleName() + "." + handler.getName());
+    }
+    RequestTiming previous = RequestTiming.bind(timing);
+    long databaseBefore = timing.getDatabaseNanos();
+    long start = System.nanoTime();
+    try {
+      return context.proceed();
+    } finally {
+      long elapsed = Math.max(System.nanoTime() - start - (timing.getDatabaseNanos() - databaseBefore), 0);
+      if (context.getLifecycleStage() == LifecycleStage.EventHandling) {
+        timing.addHandlerNanos(elapsed);
+      } else {
+        timing.addRenderNanos(elapsed);
+      }
+      RequestTiming.restore(previous);
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+/**
+ * Serves the statement and request metrics as plain text in the Prometheus exposition format.
+ * <p>
+ * Every {@link StatementMetricsInterceptor} and {@link RequestMetrics} bean of the root application context is
+ * reported; the statement id is the {@code statement} label and the action event the {@code action} label. Latencies
+ * are summaries in seconds with the 0.5, 0.99 and 0.999 quantiles.
+ */
+public class MetricsServlet extends HttpServlet {
+
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final long serialVersionUID = 1L;
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+  private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    WebApplicationContext context = WebApplicationContextUtils.getRequiredWebApplicationContext(getServletContext());
+    Collection<StatementMetricsInterceptor> interceptors = context.getBeansOfType(StatementMetricsInterceptor.class)
+        .values();
+    response.setContentType(CONTENT_TYPE);
+    response.setHeader("Cache-Control", "no-store");
+    PrintWriter writer = response.getWriter();
+    for (StatementMetricsInterceptor interceptor : interceptors) {
+      write(interceptor.getStatementMetrics(), writer);
+    }
+    for (RequestMetrics requestMetrics : context.getBeansOfType(RequestMetrics.class).values()) {
+      writeRequests(requestMetrics.getActionMetrics(), writer);
+    }
+  }
+
+  static void write(List<StatementMetrics> statements, PrintWriter writer) {
+    counter(writer, statements, "jpetstore_statement_calls_total", "Mapped statement executions",
+        StatementMetrics::getCalls);
+    counter(writer, statements, "jpetstore_statement_errors_total", "Mapped statement executions that threw",
+        StatementMetrics::getErrors);
+    counter(writer, statements, "jpetstore_statement_rows_total", "Rows returned by selects or changed by updates",
+        StatementMetrics::getRows);
+    counter(writer, statements, "jpetstore_statement_cache_hits_total", "Selects answered by the second-level cache",
+        StatementMetrics::getCacheHits);
+    counter(writer, statements, "jpetstore_statement_cache_misses_total", "Cacheable selects that went to the database",
+        StatementMetrics::getCacheMisses);
+    counter(writer, statements, "jpetstore_statement_local_cache_hits_total",
+        "Cacheable selects answered by the local cache of their session", StatementMetrics::getLocalCacheHits);
+
+    String name = "jpetstore_statement_latency_seconds";
+    writer.printf("# HELP %s Mapped statement latency%n# TYPE %s summary%n", name, name);
+    for (StatementMetrics metrics : statements) {
+      summary(writer, name, label("statement", metrics.getStatement()), metrics.getLatency());
+    }
+  }
+
+  static void writeRequests(List<ActionMetrics> actions, PrintWriter writer) {
+    String name = "jpetstore_request_errors_total";
+    writer.printf("# HELP %s Requests that threw or ended with a server error%n# TYPE %s counter%n", name, name);
+    for (ActionMetrics metrics : actions) {
+      writer.printf("%s{%s} %d%n", name, label("action", metrics.getAction()), metrics.getErrors());
+    }
+
+    name = "jpetstore_request_seconds";
+    writer.printf("# HELP %s Request latency by action event: total, and its handler, database and render parts%n"
+        + "# TYPE %s summary%n", name, name);
+    for (ActionMetrics metrics : actions) {
+      String action = label("action", metrics.getAction());
+      summary(writer, name, action + ",part=\"total\"", metrics.getTotal());
+      summary(writer, name, action + ",part=\"handler\"", metrics.getHandler());
+      summary(writer, name, action + ",part=\"database\"", metrics.getDatabase());
+      summary(writer, name, action + ",part=\"render\"", metrics.getRender());
+    }
+  }
+
+  private static void summary(PrintWriter writer, String name, String labels, LatencyHistogram latency) {
+    for (double quantile : QUANTILES) {
+      writer.printf("%s{%s,quantile=\"%s\"} %s%n", name, labels, quantile,
+          seconds(latency.getValueAtPercentile(quantile * 100)));
+    }
+    writer.printf("%s_sum{%s} %s%n", name, labels, seconds(latency.getSum()));
+    writer.printf("%s_count{%s} %d%n", name, labels, latency.getCount());
+  }
+
+  private static void counter(PrintWriter writer, List<StatementMetrics> statements, String name, String help,
+      ToLongFunction<StatementMetrics> value) {
+    writer.printf("# HELP %s %s%n# TYPE %s counter%n", name, help, name);
+    for (StatementMetrics metrics : statements) {
+      writer.printf("%s{%s} %d%n", name, label("statement", metrics.getStatement()), value.applyAsLong(metrics));
+    }
+  }
+
+  private static String label(String name, String value) {
+    return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+  }
+
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / NANOS_PER_SECOND);
+  }
+
+}
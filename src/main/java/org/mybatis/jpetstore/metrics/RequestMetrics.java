@@ -0,0 +1,130 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates the {@link RequestTiming} of finished requests per action event and logs a sample of the slow ones.
+ * <p>
+ * A request slower than the slow request threshold is logged with the probability of the sample rate, together with its
+ * breakdown and the SQL of the statements it ran, to the {@code org.mybatis.jpetstore.metrics.SlowRequests} logger.
+ * Requests that never reached an action handler are aggregated as {@value #UNRESOLVED}.
+ */
+public class RequestMetrics {
+
+  static final String UNRESOLVED = "unresolved";
+
+  private static final Logger slowRequests = LoggerFactory.getLogger("org.mybatis.jpetstore.metrics.SlowRequests");
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private final ConcurrentMap<String, ActionMetrics> actions = new ConcurrentHashMap<>();
+
+  private long slowRequestThresholdMillis = 1000;
+  private double slowRequestSampleRate = 0.1;
+
+  public long getSlowRequestThresholdMillis() {
+    return slowRequestThresholdMillis;
+  }
+
+  public void setSlowRequestThresholdMillis(long slowRequestThresholdMillis) {
+    this.slowRequestThresholdMillis = slowRequestThresholdMillis;
+  }
+
+  public double getSlowRequestSampleRate() {
+    return slowRequestSampleRate;
+  }
+
+  /**
+   * Sets the share of slow requests that are logged, from 0 (none) to 1 (all).
+   *
+   * @param slowRequestSampleRate
+   *          the sample rate
+   */
+  public void setSlowRequestSampleRate(double slowRequestSampleRate) {
+    if (slowRequestSampleRate < 0 || slowRequestSampleRate > 1) {
+      throw new IllegalArgumentException("The sample rate must be between 0 and 1: " + slowRequestSampleRate);
+    }
+    this.slowRequestSampleRate = slowRequestSampleRate;
+  }
+
+  /**
+   * Records a finished request.
+   *
+   * @param timing
+   *          the timing of the request
+   * @param end
+   *          the {@link System#nanoTime()} the request finished at
+   * @param failed
+   *          whether the request ended with an exception or a server error
+   *
+   * @return whether the request was logged as slow
+   */
+  public boolean record(RequestTiming timing, long end, boolean failed) {
+    long totalNanos = end - timing.getStart();
+    String action = timing.getAction() != null ? timing.getAction() : UNRESOLVED;
+    ActionMetrics metrics = actions.get(action);
+    if (metrics == null) {
+      metrics = actions.computeIfAbsent(action, ActionMetrics::new);
+    }
+    metrics.record(timing, totalNanos, failed);
+    if (totalNanos < TimeUnit.MILLISECONDS.toNanos(slowRequestThresholdMillis)
+        || ThreadLocalRandom.current().nextDouble() >= slowRequestSampleRate || !slowRequests.isWarnEnabled()) {
+      return false;
+    }
+    StringBuilder message = new StringBuilder();
+    message.append(action).append(" took ").append(millis(totalNanos)).append(" ms (handler ")
+        .append(millis(timing.getHandlerNanos())).append(" ms, database ").append(millis(timing.getDatabaseNanos()))
+        .append(" ms in ").append(timing.getStatementCount()).append(" statements, render ")
+        .append(millis(timing.getRenderNanos())).append(" ms)");
+    for (RequestTiming.ExecutedStatement statement : timing.getStatements()) {
+      message.append(System.lineSeparator()).append("  ").append(millis(statement.getNanos())).append(" ms: ")
+          .append(statement.getSql().replaceAll("\\s+", " ").trim());
+    }
+    if (timing.getStatementCount() > RequestTiming.MAX_STATEMENTS) {
+      message.append(System.lineSeparator()).append("  ... ")
+          .append(timing.getStatementCount() - RequestTiming.MAX_STATEMENTS).append(" more");
+    }
+    slowRequests.warn("{}", message);
+    return true;
+  }
+
+  /**
+   * Gets the metrics of every action that has handled a request, ordered by action.
+   *
+   * @return the metrics
+   */
+  public List<ActionMetrics> getActionMetrics() {
+    List<ActionMetrics> metrics = new ArrayList<>(actions.values());
+    metrics.sort(Comparator.comparing(ActionMetrics::getAction));
+    return metrics;
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.1f", nanos / NANOS_PER_MILLI);
+  }
+
+}
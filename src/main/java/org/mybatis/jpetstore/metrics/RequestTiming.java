@@ -0,0 +1,156 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The timings of one request: end to end, in the action handler, in the database and rendering the resolution.
+ * <p>
+ * The {@link RequestTimingFilter} creates it and keeps it in a request attribute. The {@link ActionTimingInterceptor}
+ * binds it to the thread that runs the Stripes lifecycle, which is not the filter's thread when requests run on virtual
+ * threads, and the {@link StatementMetricsInterceptor} adds the database time and the SQL of the statements that run
+ * while it is bound. Handler and render time do not include the database time spent inside them.
+ */
+public class RequestTiming {
+
+  static final String ATTRIBUTE = RequestTiming.class.getName();
+  static final int MAX_STATEMENTS = 64;
+
+  private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+  private final long start;
+  private volatile String action;
+  private volatile long handlerNanos;
+  private volatile long databaseNanos;
+  private volatile long renderNanos;
+  private volatile int statementCount;
+  private final List<ExecutedStatement> statements = Collections.synchronizedList(new ArrayList<>());
+
+  public RequestTiming(long start) {
+    this.start = start;
+  }
+
+  /**
+   * Gets the timing bound to the current thread.
+   *
+   * @return the timing, or null outside of a timed stage of a request
+   */
+  public static RequestTiming current() {
+    return CURRENT.get();
+  }
+
+  static RequestTiming bind(RequestTiming timing) {
+    RequestTiming previous = CURRENT.get();
+    CURRENT.set(timing);
+    return previous;
+  }
+
+  static void restore(RequestTiming previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  void setAction(String action) {
+    this.action = action;
+  }
+
+  public long getHandlerNanos() {
+    return handlerNanos;
+  }
+
+  synchronized void addHandlerNanos(long nanos) {
+    handlerNanos += nanos;
+  }
+
+  public long getDatabaseNanos() {
+    return databaseNanos;
+  }
+
+  public long getRenderNanos() {
+    return renderNanos;
+  }
+
+  synchronized void addRenderNanos(long nanos) {
+    renderNanos += nanos;
+  }
+
+  /**
+   * Adds a statement that reached the database. The SQL of the first {@value #MAX_STATEMENTS} is kept for the slow
+   * request log.
+   *
+   * @param sql
+   *          the SQL
+   * @param nanos
+   *          the time spent executing it
+   */
+  public void addStatement(String sql, long nanos) {
+    synchronized (this) {
+      databaseNanos += nanos;
+      statementCount++;
+    }
+    if (statements.size() < MAX_STATEMENTS) {
+      statements.add(new ExecutedStatement(sql, nanos));
+    }
+  }
+
+  public int getStatementCount() {
+    return statementCount;
+  }
+
+  public List<ExecutedStatement> getStatements() {
+    synchronized (statements) {
+      return new ArrayList<>(statements);
+    }
+  }
+
+  /**
+   * A statement executed during the request.
+   */
+  public static final class ExecutedStatement {
+
+    private final String sql;
+    private final long nanos;
+
+    ExecutedStatement(String sql, long nanos) {
+      this.sql = sql;
+      this.nanos = nanos;
+    }
+
+    public String getSql() {
+      return sql;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+/**
+ * Times each request end to end and hands the {@link RequestTiming} to the {@link RequestMetrics} bean when it
+ * finishes. A request put in async mode, as the virtual thread dispatcher does, finishes when its async context
+ * completes rather than when the filter chain returns.
+ */
+public class RequestTimingFilter implements Filter {
+
+  private RequestMetrics requestMetrics;
+
+  public RequestTimingFilter() {
+  }
+
+  RequestTimingFilter(RequestMetrics requestMetrics) {
+    this.requestMetrics = requestMetrics;
+  }
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    if (requestMetrics == null) {
+      requestMetrics = WebApplicationContextUtils.getRequiredWebApplicationContext(filterConfig.getServletContext())
+          .getBean(RequestMetrics.class);
+    }
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    RequestTiming timing = new RequestTiming(System.nanoTime());
+    request.setAttribute(RequestTiming.ATTRIBUTE, timing);
+    boolean failed = true;
+    try {
+      chain.doFilter(request, response);
+      failed = false;
+    } finally {
+      if (!failed && request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new Completion(timing));
+      } else {
+        requestMetrics.record(timing, System.nanoTime(), failed || isServerError(response));
+      }
+    }
+  }
+
+  private static boolean isServerError(ServletResponse response) {
+    return response instanceof HttpServletResponse && ((HttpServletResponse) response).getStatus() >= 500;
+  }
+
+  private final class Completion implements AsyncListener {
+
+    private final RequestTiming timing;
+
+    Completion(RequestTiming timing) {
+      this.timing = timing;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      requestMetrics.record(timing, System.nanoTime(), isServerError(event.getSuppliedResponse()));
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // onComplete follows
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      // onComplete follows
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+
+  }
+
+}
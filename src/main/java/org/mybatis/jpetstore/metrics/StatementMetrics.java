@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, errors, rows, second-level and local cache hits and latency of one mapped statement, recorded by the
+ * {@link StatementMetricsInterceptor}.
+ */
+public class StatementMetrics implements StatementMetricsMXBean {
+
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private final String statement;
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder rows = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
+  private final LongAdder localCacheHits = new LongAdder();
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  public StatementMetrics(String statement) {
+    this.statement = statement;
+  }
+
+  void record(long nanos, int rowCount, boolean failed) {
+    calls.increment();
+    latency.record(nanos);
+    if (failed) {
+      errors.increment();
+    } else if (rowCount > 0) {
+      rows.add(rowCount);
+    }
+  }
+
+  void recordCacheLookup(boolean hit) {
+    if (hit) {
+      cacheHits.increment();
+    } else {
+      cacheMisses.increment();
+    }
+  }
+
+  void recordLocalCacheHit() {
+    localCacheHits.increment();
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  @Override
+  public String getStatement() {
+    return statement;
+  }
+
+  @Override
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getRows() {
+    return rows.sum();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return cacheHits.sum();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return cacheMisses.sum();
+  }
+
+  @Override
+  public long getLocalCacheHits() {
+    return localCacheHits.sum();
+  }
+
+  @Override
+  public double getMeanMillis() {
+    return latency.getMean() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP50Millis() {
+    return latency.getValueAtPercentile(50) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP99Millis() {
+    return latency.getValueAtPercentile(99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP999Millis() {
+    return latency.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getMaxMillis() {
+    return latency.getMax() / NANOS_PER_MILLI;
+  }
+
+}
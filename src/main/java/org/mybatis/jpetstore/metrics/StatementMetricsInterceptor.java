@@ -0,0 +1,259 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Records {@link StatementMetrics} for every mapped statement run through the session factory it is plugged into.
+ * <p>
+ * Calls, rows and latency are taken around {@link Executor#query} and {@link Executor#update}, so the latency of a
+ * query includes the second-level cache lookup. A cacheable select that reaches {@link StatementHandler#query} on its
+ * thread counts as a miss. One that does not was answered either by the second-level cache or by the local cache of its
+ * session, which MyBatis checks next: the cache keys each session loaded from the database since its local cache was
+ * last cleared (by an update, commit, rollback or close) are kept per thread, and a select answered without the
+ * database under one of them counts as a local cache hit, any other as a second-level cache hit. With
+ * {@code localCacheScope=STATEMENT} no key is kept. Telling them apart costs a cache key computation per cacheable
+ * select. The rest of the hot path is a map lookup by statement id, a thread-local flag and a few adders.
+ * <p>
+ * While a {@link RequestTiming} is bound to the thread, the time of each query and update sent to the database through
+ * a {@link StatementHandler} is added to it with its SQL. Statements queued in a JDBC batch are not timed.
+ * <p>
+ * With a JMX domain each statement is registered as a {@link StatementMetricsMXBean} named
+ * {@code <domain>:type=Statement,name="<statement id>"} the first time it runs.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class, RowBounds.class,
+        ResultHandler.class }),
+    @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class, RowBounds.class,
+        ResultHandler.class, CacheKey.class, BoundSql.class }),
+    @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+    @Signature(type = Executor.class, method = "commit", args = { boolean.class }),
+    @Signature(type = Executor.class, method = "rollback", args = { boolean.class }),
+    @Signature(type = Executor.class, method = "close", args = { boolean.class }),
+    @Signature(type = Executor.class, method = "clearLocalCache", args = {}),
+    @Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }),
+    @Signature(type = StatementHandler.class, method = "update", args = { Statement.class }) })
+public class StatementMetricsInterceptor implements Interceptor, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(StatementMetricsInterceptor.class);
+
+  /** Beyond this many sessions seen on a thread, the ones never closed are forgotten. */
+  private static final int MAX_SESSIONS_PER_THREAD = 16;
+
+  private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+  private final ThreadLocal<DatabaseAccess> databaseAccess = ThreadLocal.withInitial(DatabaseAccess::new);
+  private final List<ObjectName> registered = new ArrayList<>();
+
+  private String jmxDomain;
+
+  public String getJmxDomain() {
+    return jmxDomain;
+  }
+
+  /**
+   * Sets the JMX domain the statement MBeans are registered under; none are registered without one.
+   *
+   * @param jmxDomain
+   *          the domain, e.g. org.mybatis.jpetstore
+   */
+  public void setJmxDomain(String jmxDomain) {
+    this.jmxDomain = jmxDomain;
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if (invocation.getTarget() instanceof StatementHandler) {
+      return interceptDatabaseAccess(invocation);
+    }
+    DatabaseAccess access = databaseAccess.get();
+    Object[] args = invocation.getArgs();
+    if (!"query".equals(invocation.getMethod().getName())) {
+      // the local cache is cleared by all of these, and by an update
+      access.loadedKeys.remove(invocation.getTarget());
+      if (!"update".equals(invocation.getMethod().getName())) {
+        return invocation.proceed();
+      }
+    }
+    MappedStatement mappedStatement = (MappedStatement) args[0];
+    if (mappedStatement.isFlushCacheRequired()) {
+      access.loadedKeys.remove(invocation.getTarget());
+    }
+    StatementMetrics metrics = getStatementMetrics(mappedStatement.getId());
+    boolean outerReached = access.reached;
+    access.reached = false;
+    Object result = null;
+    boolean failed = true;
+    long start = System.nanoTime();
+    try {
+      result = invocation.proceed();
+      failed = false;
+      return result;
+    } finally {
+      metrics.record(System.nanoTime() - start, rowCount(result), failed);
+      if (!failed && isCacheable(mappedStatement, args)) {
+        recordCacheLookup(metrics, access, (Executor) invocation.getTarget(), mappedStatement, args);
+      }
+      access.reached |= outerReached;
+    }
+  }
+
+  private static void recordCacheLookup(StatementMetrics metrics, DatabaseAccess access, Executor executor,
+      MappedStatement mappedStatement, Object[] args) {
+    if (mappedStatement.getConfiguration().getLocalCacheScope() == LocalCacheScope.STATEMENT) {
+      metrics.recordCacheLookup(!access.reached);
+      return;
+    }
+    CacheKey key = args.length > 4 ? (CacheKey) args[4]
+        : executor.createCacheKey(mappedStatement, args[1], (RowBounds) args[2], mappedStatement.getBoundSql(args[1]));
+    if (access.reached) {
+      metrics.recordCacheLookup(false);
+      if (access.loadedKeys.size() >= MAX_SESSIONS_PER_THREAD && !access.loadedKeys.containsKey(executor)) {
+        access.loadedKeys.clear();
+      }
+      access.loadedKeys.computeIfAbsent(executor, session -> new HashSet<>()).add(key);
+    } else {
+      Set<CacheKey> loaded = access.loadedKeys.get(executor);
+      if (loaded != null && loaded.contains(key)) {
+        metrics.recordLocalCacheHit();
+      } else {
+        metrics.recordCacheLookup(true);
+      }
+    }
+  }
+
+  private Object interceptDatabaseAccess(Invocation invocation) throws Throwable {
+    if ("query".equals(invocation.getMethod().getName())) {
+      databaseAccess.get().reached = true;
+    }
+    RequestTiming timing = RequestTiming.current();
+    if (timing == null) {
+      return invocation.proceed();
+    }
+    long start = System.nanoTime();
+    try {
+      return invocation.proceed();
+    } finally {
+      timing.addStatement(((StatementHandler) invocation.getTarget()).getBoundSql().getSql(),
+          System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Gets the metrics of a statement, creating them on first use.
+   *
+   * @param statementId
+   *          the mapped statement id
+   *
+   * @return the metrics
+   */
+  public StatementMetrics getStatementMetrics(String statementId) {
+    StatementMetrics metrics = statements.get(statementId);
+    return metrics != null ? metrics : statements.computeIfAbsent(statementId, this::register);
+  }
+
+  /**
+   * Gets the metrics of every statement that has run, ordered by statement id.
+   *
+   * @return the metrics
+   */
+  public List<StatementMetrics> getStatementMetrics() {
+    List<StatementMetrics> metrics = new ArrayList<>(statements.values());
+    metrics.sort(Comparator.comparing(StatementMetrics::getStatement));
+    return metrics;
+  }
+
+  @Override
+  public void destroy() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    synchronized (registered) {
+      for (ObjectName name : registered) {
+        try {
+          server.unregisterMBean(name);
+        } catch (JMException e) {
+          log.debug("Could not unregister {}", name, e);
+        }
+      }
+      registered.clear();
+    }
+  }
+
+  private StatementMetrics register(String statementId) {
+    StatementMetrics metrics = new StatementMetrics(statementId);
+    if (jmxDomain != null) {
+      try {
+        ObjectName name = new ObjectName(jmxDomain + ":type=Statement,name=" + ObjectName.quote(statementId));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+        synchronized (registered) {
+          registered.add(name);
+        }
+      } catch (JMException e) {
+        log.warn("Could not register the metrics of {} with JMX", statementId, e);
+      }
+    }
+    return metrics;
+  }
+
+  private static boolean isCacheable(MappedStatement mappedStatement, Object[] args) {
+    return mappedStatement.getSqlCommandType() == SqlCommandType.SELECT && mappedStatement.getCache() != null
+        && mappedStatement.isUseCache() && args[3] == null;
+  }
+
+  private static int rowCount(Object result) {
+    if (result instanceof List) {
+      return ((List<?>) result).size();
+    }
+    // batched updates report a negative placeholder until the batch is flushed
+    return result instanceof Integer ? Math.max((Integer) result, 0) : 0;
+  }
+
+  private static final class DatabaseAccess {
+    boolean reached;
+    final Map<Object, Set<CacheKey>> loadedKeys = new IdentityHashMap<>();
+  }
+
+}
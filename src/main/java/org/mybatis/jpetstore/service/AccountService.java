@@ -31,17 +31,49 @@ import org.springframework.transaction.annotation.Transactional;
 public class AccountService {
 
   private final AccountMapper accountMapper;
+  private final PasswordHasher passwordHasher;
+  private final SignonThrottle signonThrottle;
 
-  public AccountService(AccountMapper accountMapper) {
+  public AccountService(AccountMapper accountMapper, PasswordHasher passwordHasher, SignonThrottle signonThrottle) {
     this.accountMapper = accountMapper;
+    this.passwordHasher = passwordHasher;
+    this.signonThrottle = signonThrottle;
   }
 
   public Account getAccount(String username) {
     return accountMapper.getAccountByUsername(username);
   }
 
-  public Account getAccount(String username, String password) {
-    return accountMapper.getAccountByUsernameAndPassword(username, password);
+  public boolean isSignonLocked(String username) {
+    return signonThrottle.isLocked(username);
+  }
+
+  /**
+   * Checks the credentials of a user against SIGNON alone; the account is not loaded. A password kept in clear or
+   * hashed with another cost is hashed again on success. Fails without checking the password while the user is locked
+   * out.
+   *
+   * @param username
+   *          the username
+   * @param password
+   *          the password
+   *
+   * @return true if the password is the one of the user
+   */
+  public boolean authenticate(String username, String password) {
+    if (signonThrottle.isLocked(username)) {
+      return false;
+    }
+    String stored = accountMapper.getPassword(username);
+    if (!passwordHasher.matches(password, stored)) {
+      signonThrottle.recordFailure(username);
+      return false;
+    }
+    signonThrottle.recordSuccess(username);
+    if (passwordHasher.needsRehash(stored)) {
+      accountMapper.updateSignon(signon(username, password));
+    }
+    return true;
   }
 
   /**
@@ -54,7 +86,7 @@ public class AccountService {
   public void insertAccount(Account account) {
     accountMapper.insertAccount(account);
     accountMapper.insertProfile(account);
-    accountMapper.insertSignon(account);
+    accountMapper.insertSignon(signon(account.getUsername(), account.getPassword()));
   }
 
   /**
@@ -71,7 +103,14 @@ public class AccountService {
     // [REFACTOR (java:S7158)] 22/06/25 - "Use isEmpty() to check whether a string is empty or not.".
     // "String.isEmpty()" should be used to test for emptiness" [M]
     Optional.ofNullable(account.getPassword()).filter(password -> !password.isEmpty())
-        .ifPresent(password -> accountMapper.updateSignon(account));
+        .ifPresent(password -> accountMapper.updateSignon(signon(account.getUsername(), password)));
+  }
+
+  private Account signon(String username, String password) {
+    Account signon = new Account();
+    signon.setUsername(username);
+    signon.setPassword(passwordHasher.hash(password));
+    return signon;
   }
 
 }
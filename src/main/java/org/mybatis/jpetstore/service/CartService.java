@@ -0,0 +1,290 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.mybatis.jpetstore.cart.CartStore;
+import org.mybatis.jpetstore.cart.HeapCartStore;
+import org.mybatis.jpetstore.cart.MappedFileCartStore;
+import org.mybatis.jpetstore.cart.RedisCartStore;
+import org.mybatis.jpetstore.domain.Cart;
+import org.mybatis.jpetstore.domain.CartItem;
+import org.mybatis.jpetstore.domain.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Loads and saves the carts in a {@link CartStore}, in the compact form of {@link Cart}.
+ * <p>
+ * The store is a {@link CartStore} bean when the context defines one, otherwise the one named by
+ * {@code jpetstore.cart.store}: {@code heap} (the default), {@code mmap} or {@code redis}. A loaded cart fetches its
+ * items from the catalog on first access, all at once.
+ * <p>
+ * There is no default location for the {@code mmap} store: {@code jpetstore.cart.file} must name a file in a directory
+ * that only the application can write.
+ */
+@Service
+public class CartService implements InitializingBean, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(CartService.class);
+
+  private static final long DEFAULT_TTL_SECONDS = 7 * 24 * 3600L;
+  private static final long DEFAULT_HEAP_MAX_SIZE = 100_000;
+  private static final int DEFAULT_FILE_CAPACITY = 64 * 1024 * 1024;
+
+  private final CatalogService catalogService;
+
+  private CartStore cartStore;
+  private boolean ownsCartStore;
+  private String store = "heap";
+  private Duration timeToLive = Duration.ofSeconds(DEFAULT_TTL_SECONDS);
+  private long heapMaxSize = DEFAULT_HEAP_MAX_SIZE;
+  private Path file;
+  private int fileCapacity = DEFAULT_FILE_CAPACITY;
+  private String redisHost = "localhost";
+  private int redisPort = 6379;
+  private String redisPassword = "";
+  private int redisDatabase;
+  private Duration redisTimeout = Duration.ofSeconds(2);
+  private int redisPoolSize = 16;
+
+  public CartService(CatalogService catalogService) {
+    this.catalogService = catalogService;
+  }
+
+  @Autowired(required = false)
+  public void setCartStore(CartStore cartStore) {
+    this.cartStore = cartStore;
+  }
+
+  @Value("${jpetstore.cart.store:heap}")
+  public void setStore(String store) {
+    this.store = store;
+  }
+
+  @Value("${jpetstore.cart.ttl-seconds:" + DEFAULT_TTL_SECONDS + "}")
+  public void setTimeToLiveSeconds(long seconds) {
+    this.timeToLive = Duration.ofSeconds(seconds);
+  }
+
+  @Value("${jpetstore.cart.heap.max-size:" + DEFAULT_HEAP_MAX_SIZE + "}")
+  public void setHeapMaxSize(long heapMaxSize) {
+    this.heapMaxSize = heapMaxSize;
+  }
+
+  @Value("${jpetstore.cart.file:}")
+  public void setFile(String file) {
+    if (!file.isEmpty()) {
+      this.file = Paths.get(file);
+    }
+  }
+
+  @Value("${jpetstore.cart.file.capacity:" + DEFAULT_FILE_CAPACITY + "}")
+  public void setFileCapacity(int fileCapacity) {
+    this.fileCapacity = fileCapacity;
+  }
+
+  @Value("${jpetstore.cart.redis.host:localhost}")
+  public void setRedisHost(String redisHost) {
+    this.redisHost = redisHost;
+  }
+
+  @Value("${jpetstore.cart.redis.port:6379}")
+  public void setRedisPort(int redisPort) {
+    this.redisPort = redisPort;
+  }
+
+  @Value("${jpetstore.cart.redis.password:}")
+  public void setRedisPassword(String redisPassword) {
+    this.redisPassword = redisPassword;
+  }
+
+  @Value("${jpetstore.cart.redis.database:0}")
+  public void setRedisDatabase(int redisDatabase) {
+    this.redisDatabase = redisDatabase;
+  }
+
+  @Value("${jpetstore.cart.redis.timeout-ms:2000}")
+  public void setRedisTimeoutMillis(long millis) {
+    this.redisTimeout = Duration.ofMillis(millis);
+  }
+
+  @Value("${jpetstore.cart.redis.pool-size:16}")
+  public void setRedisPoolSize(int redisPoolSize) {
+    this.redisPoolSize = redisPoolSize;
+  }
+
+  @Override
+  public void afterPropertiesSet() throws IOException {
+    if (cartStore != null) {
+      return;
+    }
+    switch (store) {
+      case "heap":
+        cartStore = new HeapCartStore(timeToLive, heapMaxSize);
+        break;
+      case "mmap":
+        if (file == null) {
+          throw new IllegalStateException("jpetstore.cart.file must be set when jpetstore.cart.store is mmap");
+        }
+        cartStore = new MappedFileCartStore(file, fileCapacity, timeToLive);
+        break;
+      case "redis":
+        cartStore = new RedisCartStore(redisHost, redisPort, redisPassword, redisDatabase, redisTimeout, redisPoolSize,
+            "jpetstore:cart:", timeToLive);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown cart store '" + store + "', expected heap, mmap or redis");
+    }
+    ownsCartStore = true;
+    log.info("Carts are kept in a {} store", store);
+  }
+
+  @Override
+  public void destroy() {
+    if (ownsCartStore) {
+      cartStore.close();
+    }
+  }
+
+  /**
+   * Gets a cart. The items are not loaded until one of them is asked for.
+   *
+   * @param key
+   *          the cart key, may be null
+   *
+   * @return the cart, empty if there is none under the key or if it cannot be read
+   */
+  public Cart getCart(String key) {
+    Cart cart = new Cart();
+    byte[] bytes = key == null ? null : cartStore.get(key);
+    if (bytes != null) {
+      try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+        cart.readExternal(in);
+      } catch (IOException e) {
+        log.warn("Dropping unreadable cart {}", key, e);
+        cart = new Cart();
+      }
+    }
+    cart.setItemLoader(new BatchItemLoader(cart.getItemIds()));
+    return cart;
+  }
+
+  /**
+   * Saves a cart, removing it from the store when it is empty.
+   *
+   * @param key
+   *          the cart key
+   * @param cart
+   *          the cart
+   */
+  public void saveCart(String key, Cart cart) {
+    if (cart.getNumberOfItems() == 0) {
+      cartStore.remove(key);
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      cart.writeExternal(out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    cartStore.put(key, bytes.toByteArray());
+  }
+
+  public void removeCart(String key) {
+    cartStore.remove(key);
+  }
+
+  /**
+   * Moves the lines of a cart into another, adding up the quantities of the items found in both, and removes the first.
+   * Used when a visitor with a cart signs on.
+   *
+   * @param fromKey
+   *          the key of the cart to move, may be null
+   * @param toKey
+   *          the key of the cart receiving the lines
+   */
+  public void mergeCart(String fromKey, String toKey) {
+    if (fromKey == null || fromKey.equals(toKey)) {
+      return;
+    }
+    Cart from = getCart(fromKey);
+    if (from.getNumberOfItems() == 0) {
+      return;
+    }
+    Cart to = getCart(toKey);
+    Map<String, CartItem> lines = new HashMap<>();
+    to.getCartItems().forEachRemaining(line -> lines.put(line.getItemId(), line));
+    for (Iterator<CartItem> cartItems = from.getCartItems(); cartItems.hasNext();) {
+      CartItem cartItem = cartItems.next();
+      String itemId = cartItem.getItemId();
+      CartItem line = lines.get(itemId);
+      if (line != null) {
+        to.setQuantityByItemId(itemId, line.getQuantity() + cartItem.getQuantity());
+      } else if (cartItem.getItem() != null) {
+        to.addItem(cartItem.getItem(), cartItem.isInStock());
+        to.setQuantityByItemId(itemId, cartItem.getQuantity());
+      }
+    }
+    saveCart(toKey, to);
+    cartStore.remove(fromKey);
+  }
+
+  /**
+   * Loads every item of a cart with one call to the catalog the first time one of them is asked for.
+   */
+  private final class BatchItemLoader implements Function<String, Item> {
+
+    private final Set<String> itemIds;
+    private volatile Map<String, Item> items;
+
+    BatchItemLoader(Set<String> itemIds) {
+      this.itemIds = itemIds;
+    }
+
+    @Override
+    public Item apply(String itemId) {
+      Map<String, Item> loaded = items;
+      if (loaded == null) {
+        loaded = catalogService.getItems(itemIds);
+        items = loaded;
+      }
+      return loaded.get(itemId);
+    }
+
+  }
+
+}
@@ -0,0 +1,389 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.mybatis.jpetstore.domain.Category;
+import org.mybatis.jpetstore.domain.Item;
+import org.mybatis.jpetstore.domain.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded read-through caches for the catalog reads of {@link CatalogService}.
+ * <p>
+ * Every cache is a Caffeine cache (W-TinyLFU admission and eviction) configured with a {@link CaffeineSpec} string,
+ * e.g. {@code maximumSize=10000,expireAfterWrite=10m}, through the {@code jpetstore.cache.*} properties. Statistics are
+ * always recorded. Cached objects are shared between requests and must not be modified; items are cached without their
+ * inventory quantity. The {@link ProductSearchIndex}, when there is one, is refreshed with the products invalidated
+ * here.
+ */
+@Component
+public class CatalogCache {
+
+  static final String CATEGORIES = "categories";
+  static final String PRODUCTS = "products";
+  static final String ITEMS = "items";
+  static final String PRODUCTS_BY_CATEGORY = "productsByCategory";
+  static final String ITEMS_BY_PRODUCT = "itemsByProduct";
+  static final String MY_LISTS = "myLists";
+  static final String STOCK = "stock";
+
+  private static final String DEFAULT_CATEGORY_SPEC = "maximumSize=1000,expireAfterWrite=1h";
+  private static final String DEFAULT_PRODUCT_SPEC = "maximumSize=10000,expireAfterWrite=10m";
+  private static final String DEFAULT_ITEM_SPEC = "maximumSize=50000,expireAfterWrite=10m";
+  private static final String DEFAULT_LIST_SPEC = "maximumSize=5000,expireAfterWrite=10m";
+  private static final String DEFAULT_STOCK_SPEC = "maximumSize=50000,expireAfterWrite=30s";
+  private static final String DEFAULT_MY_LIST_SPEC = "maximumSize=1000,expireAfterWrite=1h";
+
+  private Cache<String, List<Category>> categoryList = build(DEFAULT_CATEGORY_SPEC);
+  private Cache<String, Category> categories = build(DEFAULT_CATEGORY_SPEC);
+  private Cache<String, Product> products = build(DEFAULT_PRODUCT_SPEC);
+  private Cache<String, Item> items = build(DEFAULT_ITEM_SPEC);
+  private Cache<PageKey, List<Product>> productsByCategory = build(DEFAULT_LIST_SPEC);
+  private Cache<PageKey, List<Item>> itemsByProduct = build(DEFAULT_LIST_SPEC);
+  private Cache<String, Integer> stock = build(DEFAULT_STOCK_SPEC);
+  private Cache<String, List<Product>> myLists = build(DEFAULT_MY_LIST_SPEC);
+  private ProductSearchIndex productSearchIndex;
+
+  @Autowired(required = false)
+  public void setProductSearchIndex(ProductSearchIndex productSearchIndex) {
+    this.productSearchIndex = productSearchIndex;
+  }
+
+  @Value("${jpetstore.cache.categories:" + DEFAULT_CATEGORY_SPEC + "}")
+  public void setCategorySpec(String spec) {
+    categoryList = build(spec);
+    categories = build(spec);
+  }
+
+  @Value("${jpetstore.cache.products:" + DEFAULT_PRODUCT_SPEC + "}")
+  public void setProductSpec(String spec) {
+    products = build(spec);
+  }
+
+  @Value("${jpetstore.cache.items:" + DEFAULT_ITEM_SPEC + "}")
+  public void setItemSpec(String spec) {
+    items = build(spec);
+  }
+
+  @Value("${jpetstore.cache.lists:" + DEFAULT_LIST_SPEC + "}")
+  public void setListSpec(String spec) {
+    productsByCategory = build(spec);
+    itemsByProduct = build(spec);
+  }
+
+  @Value("${jpetstore.cache.stock:" + DEFAULT_STOCK_SPEC + "}")
+  public void setStockSpec(String spec) {
+    stock = build(spec);
+  }
+
+  @Value("${jpetstore.cache.my-lists:" + DEFAULT_MY_LIST_SPEC + "}")
+  public void setMyListSpec(String spec) {
+    myLists = build(spec);
+  }
+
+  public List<Category> getCategoryList(Supplier<List<Category>> loader) {
+    return categoryList.get(CATEGORIES, key -> loader.get());
+  }
+
+  public Category getCategory(String categoryId, Function<String, Category> loader) {
+    return categories.get(categoryId, loader);
+  }
+
+  public Product getProduct(String productId, Function<String, Product> loader) {
+    return products.get(productId, loader);
+  }
+
+  /**
+   * Gets an item. The loader must return an item without inventory quantity.
+   *
+   * @param itemId
+   *          the item id
+   * @param loader
+   *          the loader called on a miss
+   *
+   * @return the cached item, or null if the loader returned null
+   */
+  public Item getItem(String itemId, Function<String, Item> loader) {
+    return items.get(itemId, loader);
+  }
+
+  /**
+   * Gets the inventory quantity of an item.
+   *
+   * @param itemId
+   *          the item id
+   * @param loader
+   *          the loader called on a miss
+   *
+   * @return the cached quantity
+   */
+  public int getQuantity(String itemId, Function<String, Integer> loader) {
+    return stock.get(itemId, loader);
+  }
+
+  /**
+   * Gets the inventory quantities of several items, loading all the missing ones with a single call.
+   *
+   * @param itemIds
+   *          the item ids
+   * @param loader
+   *          the loader called with the ids missing from the cache
+   *
+   * @return the quantities found, by item id
+   */
+  public Map<String, Integer> getQuantities(Collection<String> itemIds,
+      Function<Set<String>, Map<String, Integer>> loader) {
+    return stock.getAll(itemIds, missing -> loader.apply(Set.copyOf(missing)));
+  }
+
+  /**
+   * Gets several items, loading all the missing ones with a single call. The loader must return items without inventory
+   * quantity.
+   *
+   * @param itemIds
+   *          the item ids
+   * @param loader
+   *          the loader called with the ids missing from the cache
+   *
+   * @return the items found, by item id
+   */
+  public Map<String, Item> getItems(Collection<String> itemIds, Function<Set<String>, Map<String, Item>> loader) {
+    return items.getAll(itemIds, missing -> loader.apply(Set.copyOf(missing)));
+  }
+
+  /**
+   * Gets a page of the products of a category. A page size of 0 stands for the whole list.
+   *
+   * @param categoryId
+   *          the category id
+   * @param lastProductId
+   *          the last product id of the previous page, or null
+   * @param pageSize
+   *          the page size
+   * @param loader
+   *          the loader called on a miss
+   *
+   * @return the cached products
+   */
+  public List<Product> getProductListByCategory(String categoryId, String lastProductId, int pageSize,
+      Supplier<List<Product>> loader) {
+    return productsByCategory.get(new PageKey(categoryId, lastProductId, pageSize), key -> loader.get());
+  }
+
+  /**
+   * Gets a page of the items of a product. A page size of 0 stands for the whole list.
+   *
+   * @param productId
+   *          the product id
+   * @param lastItemId
+   *          the last item id of the previous page, or null
+   * @param pageSize
+   *          the page size
+   * @param loader
+   *          the loader called on a miss
+   *
+   * @return the cached items
+   */
+  public List<Item> getItemListByProduct(String productId, String lastItemId, int pageSize,
+      Supplier<List<Item>> loader) {
+    return itemsByProduct.get(new PageKey(productId, lastItemId, pageSize), key -> loader.get());
+  }
+
+  /**
+   * Gets the MyList of a category, the whole product list shown to every user whose favourite category it is. The list
+   * is copied once into an immutable list, so that all the users share it by reference.
+   *
+   * @param categoryId
+   *          the category id
+   * @param loader
+   *          the loader called on a miss
+   *
+   * @return the cached, unmodifiable products
+   */
+  public List<Product> getMyList(String categoryId, Function<String, List<Product>> loader) {
+    return myLists.get(categoryId, key -> List.copyOf(loader.apply(key)));
+  }
+
+  /**
+   * Invalidates a category, the category list and the product lists of the category.
+   *
+   * @param categoryId
+   *          the category id
+   */
+  public void invalidateCategory(String categoryId) {
+    categories.invalidate(categoryId);
+    categoryList.invalidateAll();
+    productsByCategory.asMap().keySet().removeIf(key -> key.parentId.equals(categoryId));
+    myLists.invalidate(categoryId);
+  }
+
+  /**
+   * Invalidates a product, the product lists it may appear in and its item lists. The product is re-indexed for search
+   * once the current transaction, if any, has committed.
+   *
+   * @param productId
+   *          the product id
+   */
+  public void invalidateProduct(String productId) {
+    Product product = products.asMap().remove(productId);
+    if (product == null || product.getCategoryId() == null) {
+      productsByCategory.invalidateAll();
+      myLists.invalidateAll();
+    } else {
+      productsByCategory.asMap().keySet().removeIf(key -> key.parentId.equals(product.getCategoryId()));
+      myLists.invalidate(product.getCategoryId());
+    }
+    itemsByProduct.asMap().keySet().removeIf(key -> key.parentId.equals(productId));
+    if (productSearchIndex != null) {
+      afterCommit(() -> productSearchIndex.refresh(productId));
+    }
+  }
+
+  /**
+   * Invalidates an item and the item lists it may appear in.
+   *
+   * @param itemId
+   *          the item id
+   */
+  public void invalidateItem(String itemId) {
+    Item item = items.asMap().remove(itemId);
+    if (item == null || item.getProduct() == null) {
+      itemsByProduct.invalidateAll();
+    } else {
+      String productId = item.getProduct().getProductId();
+      itemsByProduct.asMap().keySet().removeIf(key -> key.parentId.equals(productId));
+    }
+  }
+
+  /**
+   * Invalidates the inventory quantity of an item. Inside a transaction the entry is dropped once the transaction
+   * completes, so that no reader can cache the quantity as it was before the commit; a load still running at that point
+   * is waited for and dropped as well.
+   *
+   * @param itemId
+   *          the item id
+   */
+  public void invalidateQuantity(String itemId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      stock.invalidate(itemId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        stock.invalidate(itemId);
+      }
+    });
+  }
+
+  public void invalidateAll() {
+    categoryList.invalidateAll();
+    categories.invalidateAll();
+    products.invalidateAll();
+    items.invalidateAll();
+    productsByCategory.invalidateAll();
+    itemsByProduct.invalidateAll();
+    stock.invalidateAll();
+    myLists.invalidateAll();
+    if (productSearchIndex != null) {
+      afterCommit(productSearchIndex::reset);
+    }
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  /**
+   * Gets the hit and miss statistics of every cache.
+   *
+   * @return the statistics by cache name
+   */
+  public Map<String, CacheStats> getStats() {
+    Map<String, CacheStats> stats = new LinkedHashMap<>();
+    stats.put(CATEGORIES, categoryList.stats().plus(categories.stats()));
+    stats.put(PRODUCTS, products.stats());
+    stats.put(ITEMS, items.stats());
+    stats.put(PRODUCTS_BY_CATEGORY, productsByCategory.stats());
+    stats.put(ITEMS_BY_PRODUCT, itemsByProduct.stats());
+    stats.put(STOCK, stock.stats());
+    stats.put(MY_LISTS, myLists.stats());
+    return stats;
+  }
+
+  private static <K, V> Cache<K, V> build(String spec) {
+    return Caffeine.from(spec).recordStats().build();
+  }
+
+  private static final class PageKey {
+
+    private final String parentId;
+    private final String lastId;
+    private final int pageSize;
+
+    PageKey(String parentId, String lastId, int pageSize) {
+      this.parentId = parentId;
+      this.lastId = lastId;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PageKey)) {
+        return false;
+      }
+      PageKey other = (PageKey) o;
+      return pageSize == other.pageSize && parentId.equals(other.parentId) && Objects.equals(lastId, other.lastId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(parentId, lastId, pageSize);
+    }
+
+  }
+
+}
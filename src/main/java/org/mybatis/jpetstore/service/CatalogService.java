@@ -15,8 +15,12 @@
  */
 package org.mybatis.jpetstore.service;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.mybatis.jpetstore.domain.Category;
 import org.mybatis.jpetstore.domain.Item;
@@ -37,27 +41,68 @@ public class CatalogService {
   private final CategoryMapper categoryMapper;
   private final ItemMapper itemMapper;
   private final ProductMapper productMapper;
+  private final ProductSearchIndex productSearchIndex;
+  private final CatalogCache catalogCache;
+  private final InventoryLedger inventoryLedger;
 
-  public CatalogService(CategoryMapper categoryMapper, ItemMapper itemMapper, ProductMapper productMapper) {
+  public CatalogService(CategoryMapper categoryMapper, ItemMapper itemMapper, ProductMapper productMapper,
+      ProductSearchIndex productSearchIndex, CatalogCache catalogCache, InventoryLedger inventoryLedger) {
     this.categoryMapper = categoryMapper;
     this.itemMapper = itemMapper;
     this.productMapper = productMapper;
+    this.productSearchIndex = productSearchIndex;
+    this.catalogCache = catalogCache;
+    this.inventoryLedger = inventoryLedger;
   }
 
   public List<Category> getCategoryList() {
-    return categoryMapper.getCategoryList();
+    return catalogCache.getCategoryList(categoryMapper::getCategoryList);
   }
 
   public Category getCategory(String categoryId) {
-    return categoryMapper.getCategory(categoryId);
+    return catalogCache.getCategory(categoryId, categoryMapper::getCategory);
   }
 
   public Product getProduct(String productId) {
-    return productMapper.getProduct(productId);
+    return catalogCache.getProduct(productId, productMapper::getProduct);
   }
 
   public List<Product> getProductListByCategory(String categoryId) {
-    return productMapper.getProductListByCategory(categoryId);
+    return catalogCache.getProductListByCategory(categoryId, null, 0,
+        () -> productMapper.getProductListByCategory(categoryId));
+  }
+
+  /**
+   * Gets the MyList of a favourite category. The list is shared by all the users who chose the category and must not be
+   * modified.
+   *
+   * @param categoryId
+   *          the favourite category id, may be null
+   *
+   * @return the products of the category, empty when there is no favourite category
+   */
+  public List<Product> getMyList(String categoryId) {
+    if (categoryId == null || categoryId.isEmpty()) {
+      return List.of();
+    }
+    return catalogCache.getMyList(categoryId, productMapper::getProductListByCategory);
+  }
+
+  /**
+   * Gets a page of the products of a category, ordered by product id.
+   *
+   * @param categoryId
+   *          the category id
+   * @param lastProductId
+   *          the last product id of the previous page, or null for the first page
+   * @param pageSize
+   *          the maximum number of products to return
+   *
+   * @return the products following lastProductId
+   */
+  public List<Product> getProductListByCategory(String categoryId, String lastProductId, int pageSize) {
+    return catalogCache.getProductListByCategory(categoryId, lastProductId, pageSize,
+        () -> productMapper.getProductPageByCategory(categoryId, lastProductId, pageSize));
   }
 
   /**
@@ -69,22 +114,134 @@ public class CatalogService {
    * @return the list
    */
   public List<Product> searchProductList(String keywords) {
-    List<Product> products = new ArrayList<>();
-    for (String keyword : keywords.split("\\s+")) {
-      products.addAll(productMapper.searchProductList("%" + keyword.toLowerCase() + "%"));
+    return searchProductList(keywords, false);
+  }
+
+  /**
+   * Search product list. The index and the database match the same products, the name or the description without its
+   * markup containing the keywords; the index ranks them by relevance, the database by product id.
+   *
+   * @param keywords
+   *          the keywords
+   * @param matchAll
+   *          true if every keyword must match, false if any keyword is enough
+   *
+   * @return the list, empty when there is no keyword
+   */
+  public List<Product> searchProductList(String keywords, boolean matchAll) {
+    if (productSearchIndex.isEnabled()) {
+      return productSearchIndex.search(keywords, matchAll);
     }
-    return products;
+
+    List<String> patterns = ProductSearchIndex.keywords(keywords).stream().map(keyword -> "%" + keyword + "%")
+        .collect(Collectors.toList());
+    if (patterns.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return productMapper.searchProductListByKeywords(patterns, matchAll, 0, 0);
   }
 
   public List<Item> getItemListByProduct(String productId) {
-    return itemMapper.getItemListByProduct(productId);
+    return catalogCache.getItemListByProduct(productId, null, 0, () -> itemMapper.getItemListByProduct(productId));
   }
 
+  /**
+   * Gets a page of the items of a product, ordered by item id.
+   *
+   * @param productId
+   *          the product id
+   * @param lastItemId
+   *          the last item id of the previous page, or null for the first page
+   * @param pageSize
+   *          the maximum number of items to return
+   *
+   * @return the items following lastItemId
+   */
+  public List<Item> getItemListByProduct(String productId, String lastItemId, int pageSize) {
+    return catalogCache.getItemListByProduct(productId, lastItemId, pageSize,
+        () -> itemMapper.getItemPageByProduct(productId, lastItemId, pageSize));
+  }
+
+  /**
+   * Gets an item with its inventory quantity. The item and the quantity are cached separately, and the quantity entry
+   * is invalidated whenever an order changes the inventory of the item.
+   *
+   * @param itemId
+   *          the item id
+   *
+   * @return a copy of the cached item carrying the live quantity, or null if the item does not exist
+   */
   public Item getItem(String itemId) {
-    return itemMapper.getItem(itemId);
+    Item cached = catalogCache.getItem(itemId, itemMapper::getItem);
+    return cached == null ? null : copyOf(cached, getQuantity(itemId));
   }
 
   public boolean isItemInStock(String itemId) {
-    return itemMapper.getInventoryQuantity(itemId) > 0;
+    return getQuantity(itemId) > 0;
+  }
+
+  /**
+   * Gets the inventory quantities of several items with at most one query.
+   *
+   * @param itemIds
+   *          the item ids
+   *
+   * @return the quantities of the items found, by item id
+   */
+  public Map<String, Integer> getInventoryQuantities(Collection<String> itemIds) {
+    if (itemIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    if (inventoryLedger.isEnabled()) {
+      return inventoryLedger.getQuantities(itemIds);
+    }
+    return catalogCache.getQuantities(itemIds, missing -> {
+      Map<String, Integer> quantities = new HashMap<>();
+      itemMapper.getInventoryQuantities(missing).forEach((itemId, item) -> quantities.put(itemId, item.getQuantity()));
+      return quantities;
+    });
+  }
+
+  /**
+   * Gets several items with their inventory quantity, with at most one query for the items and one for the quantities.
+   *
+   * @param itemIds
+   *          the item ids
+   *
+   * @return copies of the items found carrying their quantity, by item id
+   */
+  public Map<String, Item> getItems(Collection<String> itemIds) {
+    if (itemIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, Item> cached = catalogCache.getItems(itemIds, itemMapper::getItems);
+    Map<String, Integer> quantities = getInventoryQuantities(cached.keySet());
+    Map<String, Item> result = new HashMap<>();
+    cached.forEach((itemId, item) -> result.put(itemId, copyOf(item, quantities.getOrDefault(itemId, 0))));
+    return result;
+  }
+
+  private int getQuantity(String itemId) {
+    if (inventoryLedger.isEnabled()) {
+      return inventoryLedger.getQuantity(itemId);
+    }
+    return catalogCache.getQuantity(itemId, itemMapper::getInventoryQuantity);
+  }
+
+  private static Item copyOf(Item item, int quantity) {
+    Item copy = new Item();
+    copy.setItemId(item.getItemId());
+    copy.setListPrice(item.getListPrice());
+    copy.setUnitCost(item.getUnitCost());
+    copy.setSupplierId(item.getSupplierId());
+    copy.setStatus(item.getStatus());
+    copy.setAttribute1(item.getAttribute1());
+    copy.setAttribute2(item.getAttribute2());
+    copy.setAttribute3(item.getAttribute3());
+    copy.setAttribute4(item.getAttribute4());
+    copy.setAttribute5(item.getAttribute5());
+    copy.setProduct(item.getProduct());
+    copy.setQuantity(quantity);
+    return copy;
   }
 }
@@ -0,0 +1,319 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.jpetstore.domain.LineItem;
+import org.mybatis.jpetstore.domain.Order;
+import org.mybatis.jpetstore.exception.InsufficientInventoryException;
+import org.mybatis.jpetstore.mapper.InventoryLedgerMapper;
+import org.mybatis.jpetstore.mapper.ItemMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory inventory reservations, used by {@link OrderService} instead of decrementing INVENTORY inside the order
+ * transaction when {@code jpetstore.inventory.ledger.enabled} is true.
+ * <p>
+ * Every item has an available counter, loaded from INVENTORY on first use and kept in a {@link ConcurrentHashMap}, so
+ * items are striped over the map bins and a reservation is a compare-and-set on the counter of each line. The order
+ * transaction only inserts the order id into INVENTORYLEDGER. Once it commits, a background task applies the decrements
+ * of all the committed orders, coalesced per item, and removes their ids from INVENTORYLEDGER in one transaction. At
+ * startup the orders still listed in INVENTORYLEDGER are applied from their line items, so a crash loses no decrement.
+ * <p>
+ * The counters assume that this ledger is the only writer of INVENTORY, i.e. a single application instance.
+ */
+@Component
+public class InventoryLedger implements InitializingBean, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+
+  private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+
+  private final ItemMapper itemMapper;
+  private final InventoryLedgerMapper inventoryLedgerMapper;
+  private final SqlSessionFactory sqlSessionFactory;
+  private final TransactionTemplate transactionTemplate;
+
+  private final ConcurrentMap<String, AtomicInteger> available = new ConcurrentHashMap<>();
+  private final Queue<PendingOrder> committed = new ConcurrentLinkedQueue<>();
+  private final Object flushLock = new Object();
+
+  private boolean enabled;
+  private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+  private ScheduledExecutorService flusher;
+
+  public InventoryLedger(ItemMapper itemMapper, InventoryLedgerMapper inventoryLedgerMapper,
+      SqlSessionFactory sqlSessionFactory, PlatformTransactionManager transactionManager) {
+    this.itemMapper = itemMapper;
+    this.inventoryLedgerMapper = inventoryLedgerMapper;
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Value("${jpetstore.inventory.ledger.enabled:false}")
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getFlushIntervalMillis() {
+    return flushIntervalMillis;
+  }
+
+  @Value("${jpetstore.inventory.ledger.flush-interval-ms:" + DEFAULT_FLUSH_INTERVAL_MILLIS + "}")
+  public void setFlushIntervalMillis(long flushIntervalMillis) {
+    this.flushIntervalMillis = flushIntervalMillis;
+  }
+
+  /**
+   * Applies the orders left in INVENTORYLEDGER by a previous run and, when enabled, starts the background flush.
+   */
+  @Override
+  public void afterPropertiesSet() {
+    recover();
+    if (enabled) {
+      flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-ledger-flush");
+        thread.setDaemon(true);
+        return thread;
+      });
+      flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    if (flusher != null) {
+      flusher.shutdown();
+      flusher.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    flush();
+  }
+
+  /**
+   * Reserves the quantities of every line of an order and records the order in INVENTORYLEDGER. Inside a transaction
+   * the reservation is handed to the background flush when the transaction commits and released when it rolls back.
+   *
+   * @param order
+   *          the order, with its id
+   *
+   * @throws InsufficientInventoryException
+   *           if some items have fewer units available than ordered, in which case nothing is reserved
+   */
+  public void reserve(Order order) {
+    Map<String, Integer> quantities = order.getLineItems().stream()
+        .collect(Collectors.toMap(LineItem::getItemId, LineItem::getQuantity, Integer::sum, LinkedHashMap::new));
+
+    Map<String, Integer> reserved = new HashMap<>();
+    List<String> unavailable = new ArrayList<>();
+    quantities.forEach((itemId, quantity) -> {
+      if (take(itemId, quantity)) {
+        reserved.put(itemId, quantity);
+      } else {
+        unavailable.add(itemId);
+      }
+    });
+    if (!unavailable.isEmpty()) {
+      reserved.forEach(this::release);
+      throw new InsufficientInventoryException(unavailable);
+    }
+
+    PendingOrder pending = new PendingOrder(order.getOrderId(), reserved);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      try {
+        inventoryLedgerMapper.insertPendingOrder(pending.orderId);
+      } catch (RuntimeException e) {
+        reserved.forEach(this::release);
+        throw e;
+      }
+      committed.add(pending);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          committed.add(pending);
+        } else {
+          pending.quantities.forEach(InventoryLedger.this::release);
+        }
+      }
+    });
+    inventoryLedgerMapper.insertPendingOrder(pending.orderId);
+  }
+
+  /**
+   * Gets the number of units of an item that can still be reserved.
+   *
+   * @param itemId
+   *          the item id
+   *
+   * @return the available quantity, 0 for an unknown item
+   */
+  public int getQuantity(String itemId) {
+    return getQuantities(Set.of(itemId)).getOrDefault(itemId, 0);
+  }
+
+  /**
+   * Gets the number of units of several items that can still be reserved, loading the unknown ones with one query.
+   *
+   * @param itemIds
+   *          the item ids
+   *
+   * @return the available quantities of the items found, by item id
+   */
+  public Map<String, Integer> getQuantities(Collection<String> itemIds) {
+    Set<String> missing = itemIds.stream().filter(itemId -> !available.containsKey(itemId)).collect(Collectors.toSet());
+    if (!missing.isEmpty()) {
+      itemMapper.getInventoryQuantities(missing)
+          .forEach((itemId, item) -> available.putIfAbsent(itemId, new AtomicInteger(item.getQuantity())));
+    }
+    Map<String, Integer> quantities = new HashMap<>();
+    for (String itemId : itemIds) {
+      AtomicInteger counter = available.get(itemId);
+      if (counter != null) {
+        quantities.put(itemId, counter.get());
+      }
+    }
+    return quantities;
+  }
+
+  /**
+   * Applies the decrements of the committed reservations to INVENTORY, coalesced per item, and removes their orders
+   * from INVENTORYLEDGER in one transaction. If that fails the reservations are kept for the next flush.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      List<PendingOrder> orders = new ArrayList<>();
+      for (PendingOrder order = committed.poll(); order != null; order = committed.poll()) {
+        orders.add(order);
+      }
+      if (orders.isEmpty()) {
+        return;
+      }
+
+      Map<String, Integer> decrements = new HashMap<>();
+      orders.forEach(
+          order -> order.quantities.forEach((itemId, quantity) -> decrements.merge(itemId, quantity, Integer::sum)));
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          try (SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            InventoryLedgerMapper batchMapper = batchSession.getMapper(InventoryLedgerMapper.class);
+            decrements.forEach(batchMapper::decrementInventoryQuantity);
+            orders.forEach(order -> batchMapper.deletePendingOrder(order.orderId));
+            batchSession.commit();
+          }
+        });
+      } catch (RuntimeException e) {
+        committed.addAll(orders);
+        throw e;
+      }
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Could not write the inventory reservations, retrying on the next flush", e);
+    }
+  }
+
+  private void recover() {
+    transactionTemplate.executeWithoutResult(status -> {
+      List<LineItem> pending = inventoryLedgerMapper.getPendingQuantities();
+      if (pending.isEmpty()) {
+        return;
+      }
+      pending.forEach(line -> inventoryLedgerMapper.decrementInventoryQuantity(line.getItemId(), line.getQuantity()));
+      inventoryLedgerMapper.deleteAllPendingOrders();
+      log.info("Applied the inventory reservations of a previous run to {} items", pending.size());
+    });
+  }
+
+  private boolean take(String itemId, int quantity) {
+    AtomicInteger counter = counter(itemId);
+    while (true) {
+      int current = counter.get();
+      if (current < quantity) {
+        return false;
+      }
+      if (counter.compareAndSet(current, current - quantity)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(String itemId, int quantity) {
+    counter(itemId).addAndGet(quantity);
+  }
+
+  private AtomicInteger counter(String itemId) {
+    AtomicInteger counter = available.get(itemId);
+    if (counter == null) {
+      getQuantities(Set.of(itemId));
+      counter = available.computeIfAbsent(itemId, id -> new AtomicInteger());
+    }
+    return counter;
+  }
+
+  private static final class PendingOrder {
+
+    private final int orderId;
+    private final Map<String, Integer> quantities;
+
+    PendingOrder(int orderId, Map<String, Integer> quantities) {
+      this.orderId = orderId;
+      this.quantities = quantities;
+    }
+
+  }
+
+}
@@ -0,0 +1,789 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.jpetstore.domain.LineItem;
+import org.mybatis.jpetstore.domain.Order;
+import org.mybatis.jpetstore.mapper.LineItemMapper;
+import org.mybatis.jpetstore.mapper.OrderJournalMapper;
+import org.mybatis.jpetstore.mapper.OrderMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind persistence of orders, used by {@link OrderService} when {@code jpetstore.order.write-behind.enabled} is
+ * true.
+ * <p>
+ * An order is appended to a memory-mapped, append-only journal file and forced to disk before the transaction that took
+ * its inventory commits, so that a failure to journal it rolls that transaction back. If the transaction rolls back
+ * anyway, a cancel record follows the order. The same transaction lists the order in ORDERJOURNAL, and the drain that
+ * writes the order to the database unlists it, like {@link InventoryLedger} does with INVENTORYLEDGER. A background
+ * task drains the committed orders into ORDERS, ORDERSTATUS and LINEITEM through one JDBC batch per drain, stopping at
+ * the first order whose transaction is still open, and records the drained offset in the file header. Until then the
+ * order is served from memory by {@link #getPendingOrder(int)}. At startup the entries after the drained offset are
+ * replayed if they are listed in ORDERJOURNAL: the others either belong to a transaction that a crash rolled back, or
+ * were written before a crash prevented the header update. The space of the order and of its cancel record is reserved
+ * when it is submitted; when the journal is full, the order is written to the database directly in the caller's
+ * transaction instead.
+ * <p>
+ * Once the drained records take more than half of the file, the records after them are copied to the start of a new
+ * file that replaces the journal, so that the space is reclaimed under steady load too. When the database rejects a
+ * drain, its orders are written one by one so that the others get through, and an order rejected
+ * {@code jpetstore.order.write-behind.max-attempts} times is appended to a dead-letter file next to the journal, in the
+ * same record layout, and logged. Failures to reach the database do not count as attempts.
+ * <p>
+ * Layout: an 8 byte header holding the drained offset, then records made of the payload length, its CRC-32 and the
+ * payload, the last record being followed by a zero length. The payload is a record type followed by the fields of the
+ * order and of its lines, strings in modified UTF-8 after a presence flag; nothing in the file is read through Java
+ * serialization.
+ * <p>
+ * There is no default location for the journal: {@code jpetstore.order.journal.file} must name a file in a directory
+ * that only the application can write.
+ */
+@Component
+public class OrderJournal implements InitializingBean, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(OrderJournal.class);
+
+  private static final int HEADER_SIZE = Long.BYTES;
+  private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+  private static final int ORDER_RECORD = 1;
+  private static final int CANCEL_RECORD = 2;
+  private static final int CANCEL_RECORD_SIZE = RECORD_HEADER_SIZE + Byte.BYTES + Integer.BYTES;
+  private static final int DEFAULT_CAPACITY = 16 * 1024 * 1024;
+  private static final long DEFAULT_DRAIN_INTERVAL_MILLIS = 200;
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+  private final OrderJournalMapper orderJournalMapper;
+  private final SqlSessionFactory sqlSessionFactory;
+  private final TransactionTemplate transactionTemplate;
+
+  private final ConcurrentMap<Integer, Order> pending = new ConcurrentHashMap<>();
+  private final Queue<Entry> undrained = new ConcurrentLinkedQueue<>();
+  private final Object appendLock = new Object();
+  private final Object drainLock = new Object();
+
+  private boolean enabled;
+  private Path file;
+  private int capacity = DEFAULT_CAPACITY;
+  private long drainIntervalMillis = DEFAULT_DRAIN_INTERVAL_MILLIS;
+  private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int writePosition;
+  private int reserved;
+  private ScheduledExecutorService drainer;
+
+  public OrderJournal(OrderJournalMapper orderJournalMapper, SqlSessionFactory sqlSessionFactory,
+      PlatformTransactionManager transactionManager) {
+    this.orderJournalMapper = orderJournalMapper;
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Value("${jpetstore.order.write-behind.enabled:false}")
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Value("${jpetstore.order.journal.file:}")
+  public void setFile(String file) {
+    if (!file.isEmpty()) {
+      this.file = Paths.get(file);
+    }
+  }
+
+  @Value("${jpetstore.order.journal.capacity:" + DEFAULT_CAPACITY + "}")
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  @Value("${jpetstore.order.write-behind.drain-interval-ms:" + DEFAULT_DRAIN_INTERVAL_MILLIS + "}")
+  public void setDrainIntervalMillis(long drainIntervalMillis) {
+    this.drainIntervalMillis = drainIntervalMillis;
+  }
+
+  @Value("${jpetstore.order.write-behind.max-attempts:" + DEFAULT_MAX_ATTEMPTS + "}")
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  /**
+   * Gets the file that receives the orders the database kept rejecting.
+   *
+   * @return the dead-letter file
+   */
+  public Path getDeadLetterFile() {
+    return file.resolveSibling(file.getFileName() + ".dead");
+  }
+
+  /**
+   * Opens the journal, replays the entries a previous run did not drain and starts the background drain.
+   *
+   * @throws IOException
+   *           if the journal file cannot be opened
+   */
+  @Override
+  public void afterPropertiesSet() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    if (file == null) {
+      throw new IllegalStateException(
+          "jpetstore.order.journal.file must be set when jpetstore.order.write-behind.enabled is true");
+    }
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    recover();
+
+    drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "order-journal-drain");
+      thread.setDaemon(true);
+      return thread;
+    });
+    drainer.scheduleWithFixedDelay(this::drainQuietly, drainIntervalMillis, drainIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() throws IOException, InterruptedException {
+    if (drainer == null) {
+      return;
+    }
+    drainer.shutdown();
+    drainer.awaitTermination(10, TimeUnit.SECONDS);
+    drain();
+    channel.close();
+  }
+
+  /**
+   * Submits an order with its id and line numbers set. Inside a transaction the order is listed in ORDERJOURNAL at once
+   * and journaled just before the transaction commits, and a failure to journal it rolls the transaction back.
+   *
+   * @param order
+   *          the order
+   */
+  public void submit(Order order) {
+    byte[] payload = encode(order);
+    boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+    int reservation = RECORD_HEADER_SIZE + payload.length + (inTransaction ? CANCEL_RECORD_SIZE : 0);
+    if (!reserve(reservation)) {
+      log.warn("Order journal {} is full, writing order {} directly", file, order.getOrderId());
+      if (inTransaction) {
+        insert(List.of(order), false);
+      } else {
+        write(List.of(order), false);
+      }
+      return;
+    }
+    orderJournalMapper.insertJournaledOrder(order.getOrderId());
+    if (!inTransaction) {
+      commit(append(order, payload));
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      private Entry entry;
+
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        entry = append(order, payload);
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        if (entry == null) {
+          release(reservation);
+        } else if (status == STATUS_ROLLED_BACK) {
+          cancel(entry);
+        } else {
+          release(CANCEL_RECORD_SIZE);
+          commit(entry);
+        }
+      }
+    });
+  }
+
+  /**
+   * Gets an order that is journaled but not yet written to the database.
+   *
+   * @param orderId
+   *          the order id
+   *
+   * @return the order, or null if it is not pending
+   */
+  public Order getPendingOrder(int orderId) {
+    return pending.get(orderId);
+  }
+
+  /**
+   * Gets the orders of a user that are journaled but not yet written to the database.
+   *
+   * @param username
+   *          the username
+   *
+   * @return the pending orders, by order id
+   */
+  public List<Order> getPendingOrders(String username) {
+    return pending.values().stream().filter(order -> username.equals(order.getUsername()))
+        .sorted((a, b) -> Integer.compare(a.getOrderId(), b.getOrderId())).collect(Collectors.toList());
+  }
+
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  private boolean reserve(int bytes) {
+    synchronized (appendLock) {
+      if (writePosition + reserved + bytes + Integer.BYTES > capacity) {
+        return false;
+      }
+      reserved += bytes;
+      return true;
+    }
+  }
+
+  private void release(int bytes) {
+    synchronized (appendLock) {
+      reserved -= bytes;
+    }
+  }
+
+  private Entry append(Order order, byte[] payload) {
+    synchronized (appendLock) {
+      Entry entry = new Entry(order, writeRecord(payload), Entry.UNCOMMITTED);
+      undrained.add(entry);
+      return entry;
+    }
+  }
+
+  private void commit(Entry entry) {
+    // pending first, so that a drain cannot remove the order before it is added
+    pending.put(entry.order.getOrderId(), entry.order);
+    entry.state = Entry.COMMITTED;
+  }
+
+  private void cancel(Entry entry) {
+    byte[] payload = new byte[Byte.BYTES + Integer.BYTES];
+    ByteBuffer.wrap(payload).put((byte) CANCEL_RECORD).putInt(entry.order.getOrderId());
+    synchronized (appendLock) {
+      entry.state = Entry.CANCELLED;
+      undrained.add(new Entry(null, writeRecord(payload), Entry.CANCELLED));
+    }
+  }
+
+  /**
+   * Writes a record in space reserved beforehand and forces it to disk. Called with the append lock held.
+   *
+   * @return the offset after the record
+   */
+  private int writeRecord(byte[] payload) {
+    int size = RECORD_HEADER_SIZE + payload.length;
+    int end = writePosition + size;
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    buffer.putInt(end, 0);
+    buffer.put(writePosition + RECORD_HEADER_SIZE, payload);
+    buffer.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+    buffer.putInt(writePosition, payload.length);
+    buffer.force();
+    writePosition = end;
+    reserved -= size;
+    return end;
+  }
+
+  /**
+   * Writes every committed order to the database in one transaction and advances the drained offset. If the database
+   * cannot be reached the orders stay in the journal for the next drain.
+   */
+  public void drain() {
+    synchronized (drainLock) {
+      List<Entry> entries = new ArrayList<>();
+      for (Entry entry = undrained.poll(); entry != null; entry = undrained.poll()) {
+        entries.add(entry);
+      }
+      if (entries.isEmpty()) {
+        return;
+      }
+
+      List<Entry> committed = new ArrayList<>();
+      for (Entry entry : entries) {
+        int state = entry.state;
+        if (state == Entry.UNCOMMITTED) {
+          // its transaction may still roll back
+          break;
+        }
+        if (state == Entry.COMMITTED) {
+          committed.add(entry);
+        }
+      }
+
+      try {
+        writeEntries(committed);
+      } catch (RuntimeException e) {
+        requeue(entries);
+        throw e;
+      }
+
+      int drained = 0;
+      while (drained < entries.size() && entries.get(drained).isDrained()) {
+        drained++;
+      }
+      requeue(entries.subList(drained, entries.size()));
+      if (drained > 0) {
+        synchronized (appendLock) {
+          advance(entries.get(drained - 1).end);
+        }
+      }
+      entries.subList(0, drained).stream().filter(entry -> entry.order != null)
+          .forEach(entry -> pending.remove(entry.order.getOrderId()));
+    }
+  }
+
+  /**
+   * Writes the entries in one batch. If the database rejects it they are written one by one, counting an attempt for
+   * each order that fails and moving it to the dead-letter file after the last one.
+   *
+   * @throws RuntimeException
+   *           if the database cannot be reached
+   */
+  private void writeEntries(List<Entry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    try {
+      write(entries.stream().map(entry -> entry.order).collect(Collectors.toList()), true);
+      entries.forEach(entry -> entry.state = Entry.DRAINED);
+      return;
+    } catch (RuntimeException e) {
+      if (isUnavailable(e)) {
+        throw e;
+      }
+    }
+    for (Entry entry : entries) {
+      try {
+        write(List.of(entry.order), true);
+        entry.state = Entry.DRAINED;
+      } catch (RuntimeException e) {
+        if (isUnavailable(e)) {
+          throw e;
+        }
+        if (++entry.attempts < maxAttempts) {
+          log.warn("Could not write journaled order {}, attempt {} of {}", entry.order.getOrderId(), entry.attempts,
+              maxAttempts, e);
+        } else {
+          deadLetter(entry.order, e);
+          entry.state = Entry.DRAINED;
+        }
+      }
+    }
+  }
+
+  /**
+   * Records the drained offset, starting over from the beginning of the file when nothing is left after it and
+   * compacting the file when the drained records take more than half of it. Called with the append lock held.
+   */
+  private void advance(int drained) {
+    if (drained == writePosition) {
+      buffer.putInt(HEADER_SIZE, 0);
+      writePosition = HEADER_SIZE;
+      buffer.putLong(0, HEADER_SIZE);
+      buffer.force();
+      return;
+    }
+    buffer.putLong(0, drained);
+    buffer.force();
+    if (drained - HEADER_SIZE > capacity / 2) {
+      compact(drained);
+    }
+  }
+
+  /**
+   * Copies the records after the drained offset to the start of a new file and swaps it in. If that fails the journal
+   * goes on in the current file.
+   */
+  private void compact(int drained) {
+    Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+    int length = writePosition - drained;
+    try {
+      Files.deleteIfExists(compacted);
+      FileChannel compactedChannel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      MappedByteBuffer compactedBuffer;
+      try {
+        compactedBuffer = compactedChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        compactedBuffer.putLong(0, HEADER_SIZE);
+        compactedBuffer.put(HEADER_SIZE, buffer, drained, length);
+        compactedBuffer.putInt(HEADER_SIZE + length, 0);
+        compactedBuffer.force();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException | RuntimeException e) {
+        compactedChannel.close();
+        throw e;
+      }
+      channel.close();
+      channel = compactedChannel;
+      buffer = compactedBuffer;
+    } catch (IOException e) {
+      log.warn("Could not compact order journal {}", file, e);
+      return;
+    }
+    int shift = drained - HEADER_SIZE;
+    writePosition -= shift;
+    undrained.forEach(entry -> entry.end -= shift);
+    log.debug("Compacted order journal {}, reclaiming {} bytes", file, shift);
+  }
+
+  private void deadLetter(Order order, RuntimeException failure) {
+    Path deadLetterFile = getDeadLetterFile();
+    byte[] payload = encode(order);
+    CRC32 crc = new CRC32();
+    crc.update(payload);
+    ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+    record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+    try (FileChannel deadLetters = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND)) {
+      while (record.hasRemaining()) {
+        deadLetters.write(record);
+      }
+      deadLetters.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    orderJournalMapper.deleteJournaledOrder(order.getOrderId());
+    log.error("Moved order {} to {} after {} failed attempts", order.getOrderId(), deadLetterFile, maxAttempts,
+        failure);
+  }
+
+  /**
+   * Tells a database that cannot be reached, which every order would fail on, from one that rejects an order.
+   */
+  private static boolean isUnavailable(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TransactionException || cause instanceof DataAccessResourceFailureException
+          || cause instanceof TransientDataAccessException || cause instanceof SQLTransientException
+          || cause instanceof SQLRecoverableException || cause instanceof SQLNonTransientConnectionException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Puts entries back in front of the entries appended meanwhile.
+   */
+  private void requeue(List<Entry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    synchronized (appendLock) {
+      List<Entry> retry = new ArrayList<>(entries);
+      for (Entry entry = undrained.poll(); entry != null; entry = undrained.poll()) {
+        retry.add(entry);
+      }
+      undrained.addAll(retry);
+    }
+  }
+
+  private void drainQuietly() {
+    try {
+      drain();
+    } catch (RuntimeException e) {
+      log.warn("Could not write the journaled orders, retrying on the next drain", e);
+    }
+  }
+
+  private void write(List<Order> orders, boolean journaled) {
+    transactionTemplate.executeWithoutResult(status -> insert(orders, journaled));
+  }
+
+  /**
+   * Inserts orders through one JDBC batch, in the current transaction, unlisting them from ORDERJOURNAL if they were
+   * journaled.
+   */
+  private void insert(List<Order> orders, boolean journaled) {
+    try (SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      OrderMapper batchOrderMapper = batchSession.getMapper(OrderMapper.class);
+      LineItemMapper batchLineItemMapper = batchSession.getMapper(LineItemMapper.class);
+      OrderJournalMapper batchOrderJournalMapper = batchSession.getMapper(OrderJournalMapper.class);
+      for (Order order : orders) {
+        if (journaled) {
+          batchOrderJournalMapper.deleteJournaledOrder(order.getOrderId());
+        }
+        batchOrderMapper.insertOrder(order);
+        batchOrderMapper.insertOrderStatus(order);
+        for (LineItem lineItem : order.getLineItems()) {
+          batchLineItemMapper.insertLineItem(lineItem);
+        }
+      }
+      batchSession.commit();
+    }
+  }
+
+  private void recover() {
+    long drained = buffer.getLong(0);
+    int position = drained < HEADER_SIZE || drained > capacity ? HEADER_SIZE : (int) drained;
+    while (position + RECORD_HEADER_SIZE <= capacity) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || position + RECORD_HEADER_SIZE + length > capacity) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      buffer.get(position + RECORD_HEADER_SIZE, payload);
+      CRC32 crc = new CRC32();
+      crc.update(payload);
+      if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+        // torn write of the last record, it was never acknowledged
+        break;
+      }
+      int start = position;
+      position += RECORD_HEADER_SIZE + length;
+      if (payload[0] == CANCEL_RECORD) {
+        Order cancelled = pending.remove(ByteBuffer.wrap(payload, 1, Integer.BYTES).getInt());
+        if (cancelled != null) {
+          undrained.stream().filter(entry -> entry.order == cancelled).forEach(entry -> entry.state = Entry.CANCELLED);
+        }
+        undrained.add(new Entry(null, position, Entry.CANCELLED));
+      } else {
+        Order order = decode(payload, start);
+        pending.put(order.getOrderId(), order);
+        undrained.add(new Entry(order, position, Entry.COMMITTED));
+      }
+    }
+    writePosition = position;
+    buffer.putInt(writePosition, 0);
+
+    Set<Integer> listed = new HashSet<>(orderJournalMapper.getJournaledOrderIds());
+    for (Entry entry : undrained) {
+      if (entry.state == Entry.COMMITTED && !listed.remove(entry.order.getOrderId())) {
+        // rolled back by a crash before its transaction committed, or already written
+        entry.state = Entry.CANCELLED;
+        pending.remove(entry.order.getOrderId());
+      }
+    }
+    // listed orders missing from the journal, whose record was torn
+    listed.forEach(orderJournalMapper::deleteJournaledOrder);
+
+    if (!undrained.isEmpty()) {
+      log.info("Replaying {} orders from journal {}", pending.size(), file);
+      drain();
+    } else if (drained != writePosition) {
+      buffer.putLong(0, writePosition);
+      buffer.force();
+    }
+  }
+
+  private static byte[] encode(Order order) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(ORDER_RECORD);
+      out.writeInt(order.getOrderId());
+      writeString(out, order.getUsername());
+      out.writeBoolean(order.getOrderDate() != null);
+      if (order.getOrderDate() != null) {
+        out.writeLong(order.getOrderDate().getTime());
+      }
+      writeString(out, order.getShipAddress1());
+      writeString(out, order.getShipAddress2());
+      writeString(out, order.getShipCity());
+      writeString(out, order.getShipState());
+      writeString(out, order.getShipZip());
+      writeString(out, order.getShipCountry());
+      writeString(out, order.getBillAddress1());
+      writeString(out, order.getBillAddress2());
+      writeString(out, order.getBillCity());
+      writeString(out, order.getBillState());
+      writeString(out, order.getBillZip());
+      writeString(out, order.getBillCountry());
+      writeString(out, order.getCourier());
+      writeDecimal(out, order.getTotalPrice());
+      writeString(out, order.getBillToFirstName());
+      writeString(out, order.getBillToLastName());
+      writeString(out, order.getShipToFirstName());
+      writeString(out, order.getShipToLastName());
+      writeString(out, order.getCreditCard());
+      writeString(out, order.getExpiryDate());
+      writeString(out, order.getCardType());
+      writeString(out, order.getLocale());
+      writeString(out, order.getStatus());
+      out.writeInt(order.getLineItems().size());
+      for (LineItem lineItem : order.getLineItems()) {
+        out.writeInt(lineItem.getLineNumber());
+        out.writeInt(lineItem.getQuantity());
+        writeString(out, lineItem.getItemId());
+        writeDecimal(out, lineItem.getUnitPrice());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Reads an order back. The lines come back without their items, which the drain does not need.
+   */
+  private Order decode(byte[] payload, int position) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+      int type = in.readUnsignedByte();
+      if (type != ORDER_RECORD) {
+        throw new IllegalStateException("Unsupported record type " + type + " at " + position + " of journal " + file);
+      }
+      Order order = new Order();
+      order.setOrderId(in.readInt());
+      order.setUsername(readString(in));
+      order.setOrderDate(in.readBoolean() ? new Date(in.readLong()) : null);
+      order.setShipAddress1(readString(in));
+      order.setShipAddress2(readString(in));
+      order.setShipCity(readString(in));
+      order.setShipState(readString(in));
+      order.setShipZip(readString(in));
+      order.setShipCountry(readString(in));
+      order.setBillAddress1(readString(in));
+      order.setBillAddress2(readString(in));
+      order.setBillCity(readString(in));
+      order.setBillState(readString(in));
+      order.setBillZip(readString(in));
+      order.setBillCountry(readString(in));
+      order.setCourier(readString(in));
+      order.setTotalPrice(readDecimal(in));
+      order.setBillToFirstName(readString(in));
+      order.setBillToLastName(readString(in));
+      order.setShipToFirstName(readString(in));
+      order.setShipToLastName(readString(in));
+      order.setCreditCard(readString(in));
+      order.setExpiryDate(readString(in));
+      order.setCardType(readString(in));
+      order.setLocale(readString(in));
+      order.setStatus(readString(in));
+      int lines = in.readInt();
+      for (int i = 0; i < lines; i++) {
+        LineItem lineItem = new LineItem();
+        lineItem.setOrderId(order.getOrderId());
+        lineItem.setLineNumber(in.readInt());
+        lineItem.setQuantity(in.readInt());
+        lineItem.setItemId(readString(in));
+        lineItem.setUnitPrice(readDecimal(in));
+        order.addLineItem(lineItem);
+      }
+      return order;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+    writeString(out, value == null ? null : value.toPlainString());
+  }
+
+  private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+    String value = readString(in);
+    return value == null ? null : new BigDecimal(value);
+  }
+
+  /**
+   * A record of the journal: an order, or a cancel record when the order is null.
+   */
+  private static final class Entry {
+
+    static final int UNCOMMITTED = 0;
+    static final int COMMITTED = 1;
+    static final int CANCELLED = 2;
+    static final int DRAINED = 3;
+
+    private final Order order;
+    private int end;
+    private volatile int state;
+    private int attempts;
+
+    Entry(Order order, int end, int state) {
+      this.order = order;
+      this.end = end;
+      this.state = state;
+    }
+
+    boolean isDrained() {
+      return state == CANCELLED || state == DRAINED;
+    }
+
+  }
+
+}
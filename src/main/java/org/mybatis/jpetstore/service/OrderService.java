@@ -15,18 +15,25 @@
  */
 package org.mybatis.jpetstore.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-import org.mybatis.jpetstore.domain.Item;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.jpetstore.domain.LineItem;
 import org.mybatis.jpetstore.domain.Order;
-import org.mybatis.jpetstore.domain.Sequence;
-import org.mybatis.jpetstore.exception.SequenceNotFoundException;
+import org.mybatis.jpetstore.exception.InsufficientInventoryException;
 import org.mybatis.jpetstore.mapper.ItemMapper;
 import org.mybatis.jpetstore.mapper.LineItemMapper;
 import org.mybatis.jpetstore.mapper.OrderMapper;
-import org.mybatis.jpetstore.mapper.SequenceMapper;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,38 +43,97 @@ import org.springframework.transaction.annotation.Transactional;
  * @author Eduardo Macarron
  */
 @Service
-public class OrderService {
+public class OrderService implements InitializingBean {
+
+  private static final int DEFAULT_BATCH_FLUSH_SIZE = 100;
 
   private final ItemMapper itemMapper;
   private final OrderMapper orderMapper;
-  private final SequenceMapper sequenceMapper;
+  private final SequenceBlockAllocator sequenceBlockAllocator;
   private final LineItemMapper lineItemMapper;
+  private final SqlSessionFactory sqlSessionFactory;
+  private final CatalogCache catalogCache;
+  private final InventoryLedger inventoryLedger;
+  private final OrderJournal orderJournal;
+
+  private int batchFlushSize = DEFAULT_BATCH_FLUSH_SIZE;
 
-  public OrderService(ItemMapper itemMapper, OrderMapper orderMapper, SequenceMapper sequenceMapper,
-      LineItemMapper lineItemMapper) {
+  public OrderService(ItemMapper itemMapper, OrderMapper orderMapper, SequenceBlockAllocator sequenceBlockAllocator,
+      LineItemMapper lineItemMapper, SqlSessionFactory sqlSessionFactory, CatalogCache catalogCache,
+      InventoryLedger inventoryLedger, OrderJournal orderJournal) {
     this.itemMapper = itemMapper;
     this.orderMapper = orderMapper;
-    this.sequenceMapper = sequenceMapper;
+    this.sequenceBlockAllocator = sequenceBlockAllocator;
     this.lineItemMapper = lineItemMapper;
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.catalogCache = catalogCache;
+    this.inventoryLedger = inventoryLedger;
+    this.orderJournal = orderJournal;
+  }
+
+  /**
+   * Rejects enabling both the inventory ledger and write-behind: the ledger recovers its reservations from LINEITEM at
+   * startup, before the journal has replayed the orders it still holds.
+   */
+  @Override
+  public void afterPropertiesSet() {
+    if (inventoryLedger.isEnabled() && orderJournal.isEnabled()) {
+      throw new IllegalStateException(
+          "jpetstore.inventory.ledger.enabled and jpetstore.order.write-behind.enabled cannot both be true");
+    }
+  }
+
+  public int getBatchFlushSize() {
+    return batchFlushSize;
+  }
+
+  /**
+   * Sets the number of statements queued by {@link #insertOrder(Order)} before they are sent as a JDBC batch. A value
+   * of 0 or less disables batching and executes every statement on its own.
+   *
+   * @param batchFlushSize
+   *          the batch flush size
+   */
+  @Value("${jpetstore.order.batch-flush-size:" + DEFAULT_BATCH_FLUSH_SIZE + "}")
+  public void setBatchFlushSize(int batchFlushSize) {
+    this.batchFlushSize = batchFlushSize;
   }
 
   /**
-   * Insert order.
+   * Insert order. The inventory of every line is decremented only if it holds enough units; otherwise nothing is
+   * written and the transaction is rolled back. When the {@link InventoryLedger} is enabled the units are reserved in
+   * memory and INVENTORY is updated after the commit. When write-behind is enabled the order itself is journaled by the
+   * {@link OrderJournal} as the inventory update commits.
    *
    * @param order
    *          the order
+   *
+   * @throws InsufficientInventoryException
+   *           if the inventory of some lines is too low, listing their item ids
    */
   @Transactional
   public void insertOrder(Order order) {
     order.setOrderId(getNextId("ordernum"));
-    order.getLineItems().forEach(lineItem -> {
-      String itemId = lineItem.getItemId();
-      Integer increment = lineItem.getQuantity();
-      Map<String, Object> param = new HashMap<>(2);
-      param.put("itemId", itemId);
-      param.put("increment", increment);
-      itemMapper.updateInventoryQuantity(param);
-    });
+    boolean useLedger = inventoryLedger.isEnabled();
+    if (useLedger) {
+      inventoryLedger.reserve(order);
+    } else {
+      order.getLineItems().forEach(lineItem -> catalogCache.invalidateQuantity(lineItem.getItemId()));
+    }
+    if (orderJournal.isEnabled()) {
+      updateInventory(order);
+      order.getLineItems().forEach(lineItem -> lineItem.setOrderId(order.getOrderId()));
+      orderJournal.submit(order);
+      return;
+    }
+    if (batchFlushSize > 0) {
+      insertOrderInBatch(order, !useLedger);
+      return;
+    }
+
+    if (!useLedger) {
+      updateInventory(order);
+    }
 
     orderMapper.insertOrder(order);
     orderMapper.insertOrderStatus(order);
@@ -77,6 +143,88 @@ public class OrderService {
     });
   }
 
+  /**
+   * Runs the statements of {@link #insertOrder(Order)} through a BATCH executor. The session is bound to the JDBC
+   * connection of the current Spring transaction, so committing or closing it does not end that transaction.
+   */
+  private void insertOrderInBatch(Order order, boolean updateInventory) {
+    try (SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      OrderMapper batchOrderMapper = batchSession.getMapper(OrderMapper.class);
+      LineItemMapper batchLineItemMapper = batchSession.getMapper(LineItemMapper.class);
+
+      if (updateInventory) {
+        // the inventory updates are sent first so that their row counts are known before the order is written
+        ItemMapper batchItemMapper = batchSession.getMapper(ItemMapper.class);
+        List<String> unavailable = new ArrayList<>();
+        int pending = 0;
+        for (LineItem lineItem : order.getLineItems()) {
+          batchItemMapper.updateInventoryQuantity(inventoryParam(lineItem));
+          if (++pending >= batchFlushSize) {
+            collectUnavailable(batchSession.flushStatements(), unavailable);
+            pending = 0;
+          }
+        }
+        collectUnavailable(batchSession.flushStatements(), unavailable);
+        checkInventory(unavailable);
+      }
+      int pending = 0;
+
+      batchOrderMapper.insertOrder(order);
+      batchOrderMapper.insertOrderStatus(order);
+      pending += 2;
+
+      for (LineItem lineItem : order.getLineItems()) {
+        lineItem.setOrderId(order.getOrderId());
+        batchLineItemMapper.insertLineItem(lineItem);
+        pending = flushIfFull(batchSession, pending + 1);
+      }
+
+      batchSession.commit();
+    }
+  }
+
+  private int flushIfFull(SqlSession batchSession, int pending) {
+    if (pending < batchFlushSize) {
+      return pending;
+    }
+    batchSession.flushStatements();
+    return 0;
+  }
+
+  private void updateInventory(Order order) {
+    List<String> unavailable = new ArrayList<>();
+    order.getLineItems().forEach(lineItem -> {
+      if (itemMapper.updateInventoryQuantity(inventoryParam(lineItem)) == 0) {
+        unavailable.add(lineItem.getItemId());
+      }
+    });
+    checkInventory(unavailable);
+  }
+
+  private static void collectUnavailable(List<BatchResult> results, List<String> unavailable) {
+    for (BatchResult result : results) {
+      int[] updateCounts = result.getUpdateCounts();
+      for (int i = 0; i < updateCounts.length; i++) {
+        if (updateCounts[i] == 0) {
+          unavailable.add((String) ((Map<?, ?>) result.getParameterObjects().get(i)).get("itemId"));
+        }
+      }
+    }
+  }
+
+  private static void checkInventory(List<String> unavailable) {
+    if (!unavailable.isEmpty()) {
+      throw new InsufficientInventoryException(unavailable);
+    }
+  }
+
+  private static Map<String, Object> inventoryParam(LineItem lineItem) {
+    Map<String, Object> param = new HashMap<>(2);
+    param.put("itemId", lineItem.getItemId());
+    param.put("increment", lineItem.getQuantity());
+    return param;
+  }
+
   /**
    * Gets the order.
    *
@@ -85,18 +233,9 @@ public class OrderService {
    *
    * @return the order
    */
-  @Transactional
   public Order getOrder(int orderId) {
-    Order order = orderMapper.getOrder(orderId);
-    order.setLineItems(lineItemMapper.getLineItemsByOrderId(orderId));
-
-    order.getLineItems().forEach(lineItem -> {
-      Item item = itemMapper.getItem(lineItem.getItemId());
-      item.setQuantity(itemMapper.getInventoryQuantity(lineItem.getItemId()));
-      lineItem.setItem(item);
-    });
-
-    return order;
+    Order pending = orderJournal.getPendingOrder(orderId);
+    return pending != null ? pending : orderMapper.getOrderWithLineItems(orderId);
   }
 
   /**
@@ -108,7 +247,16 @@ public class OrderService {
    * @return the orders by username
    */
   public List<Order> getOrdersByUsername(String username) {
-    return orderMapper.getOrdersByUsername(username);
+    // pending orders are read first: an order leaves the journal only after it is committed
+    List<Order> pending = orderJournal.getPendingCount() == 0 ? List.of() : orderJournal.getPendingOrders(username);
+    List<Order> orders = orderMapper.getOrdersByUsername(username);
+    if (pending.isEmpty()) {
+      return orders;
+    }
+    Set<Integer> written = orders.stream().map(Order::getOrderId).collect(Collectors.toSet());
+    List<Order> all = new ArrayList<>(orders);
+    pending.stream().filter(order -> !written.contains(order.getOrderId())).forEach(all::add);
+    return all;
   }
 
   /**
@@ -118,16 +266,11 @@ public class OrderService {
    *          the name
    *
    * @return the next id
+   *
+   * @see SequenceBlockAllocator
    */
-  // [REFACTOR (java:S112)] 22/06/25 - "Define and throw a dedicated exception instead of using a generic one." [M]
   public int getNextId(String name) {
-    Sequence sequence = sequenceMapper.getSequence(new Sequence(name, -1));
-    if (sequence == null) {
-      throw new SequenceNotFoundException(name);
-    }
-    Sequence parameterObject = new Sequence(name, sequence.getNextId() + 1);
-    sequenceMapper.updateSequence(parameterObject);
-    return sequence.getNextId();
+    return Math.toIntExact(sequenceBlockAllocator.nextId(name));
   }
 
 }
@@ -0,0 +1,147 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes, stored as {@code $pbkdf2-sha256$<iterations>$<salt>$<hash>} with the salt
+ * and hash in unpadded Base64.
+ * <p>
+ * The iteration count is the cost of a signon: each check takes time proportional to it, on one core. It is set with
+ * {@code jpetstore.signon.pbkdf2-iterations} and can be raised later, a hash made with another count being verified
+ * with the count it was made with and reported by {@link #needsRehash(String)}. A stored value without the prefix is a
+ * password of the original data set kept in clear, compared as is and reported as needing a rehash as well.
+ */
+@Component
+public class PasswordHasher {
+
+  private static final String PREFIX = "$pbkdf2-sha256$";
+  private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+  private static final int SALT_BYTES = 16;
+  private static final int HASH_BITS = 256;
+  private static final int DEFAULT_ITERATIONS = 100_000;
+
+  private final SecureRandom random = new SecureRandom();
+
+  private int iterations = DEFAULT_ITERATIONS;
+  private volatile String unknownUserHash;
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  @Value("${jpetstore.signon.pbkdf2-iterations:" + DEFAULT_ITERATIONS + "}")
+  public void setIterations(int iterations) {
+    if (iterations < 1) {
+      throw new IllegalArgumentException("The PBKDF2 iteration count must be positive");
+    }
+    this.iterations = iterations;
+    this.unknownUserHash = null;
+  }
+
+  /**
+   * Hashes a password with a new random salt.
+   *
+   * @param password
+   *          the password
+   *
+   * @return the encoded hash
+   */
+  public String hash(String password) {
+    byte[] salt = new byte[SALT_BYTES];
+    random.nextBytes(salt);
+    Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+    return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$"
+        + base64.encodeToString(pbkdf2(password, salt, iterations));
+  }
+
+  /**
+   * Checks a password against a stored value. A null stored value, for an unknown user, costs as much as a real check
+   * so that the response time does not tell which users exist.
+   *
+   * @param password
+   *          the password
+   * @param stored
+   *          the stored hash or clear password, may be null
+   *
+   * @return true if the password matches
+   */
+  public boolean matches(String password, String stored) {
+    if (stored == null) {
+      matches(password, getUnknownUserHash());
+      return false;
+    }
+    if (!stored.startsWith(PREFIX)) {
+      return MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
+    }
+    String[] parts = stored.substring(PREFIX.length()).split("\\$");
+    if (parts.length != 3) {
+      return false;
+    }
+    try {
+      Base64.Decoder base64 = Base64.getDecoder();
+      byte[] expected = base64.decode(parts[2]);
+      byte[] actual = pbkdf2(password, base64.decode(parts[1]), Integer.parseInt(parts[0]));
+      return MessageDigest.isEqual(expected, actual);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Tells whether a stored value should be replaced by a new hash, being in clear or made with another iteration count.
+   *
+   * @param stored
+   *          the stored hash or clear password
+   *
+   * @return true if it should be hashed again
+   */
+  public boolean needsRehash(String stored) {
+    return !stored.startsWith(PREFIX + iterations + "$");
+  }
+
+  private String getUnknownUserHash() {
+    String hash = unknownUserHash;
+    if (hash == null) {
+      hash = hash("");
+      unknownUserHash = hash;
+    }
+    return hash;
+  }
+
+  private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+    PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+    try {
+      return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(ALGORITHM + " is not available", e);
+    } finally {
+      spec.clearPassword();
+    }
+  }
+
+}
@@ -0,0 +1,271 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.mybatis.jpetstore.domain.Product;
+import org.mybatis.jpetstore.mapper.ProductMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over the product name and description.
+ * <p>
+ * Every token is indexed under all of its suffixes, so a prefix lookup on the suffix map gives the same substring
+ * semantics as the {@code searchProductListByKeywords} query it replaces, provided both are given the keywords split by
+ * {@link #keywords(String)}. The index is built lazily on the first search and is maintained by {@link CatalogCache}
+ * through {@link #refresh(String)} and {@link #reset()} whenever a product is invalidated.
+ */
+@Component
+public class ProductSearchIndex {
+
+  private static final Pattern MARKUP = Pattern.compile("<[^>]*>");
+  private static final Pattern WHITE_SPACE = Pattern.compile("\\s+");
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private static final int NAME_WEIGHT = 2;
+  private static final int DESCRIPTION_WEIGHT = 1;
+
+  private final ProductMapper productMapper;
+
+  private boolean enabled = true;
+  private volatile Index index;
+
+  public ProductSearchIndex(ProductMapper productMapper) {
+    this.productMapper = productMapper;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Value("${jpetstore.search.index.enabled:true}")
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Search the products matching the keywords.
+   *
+   * @param keywords
+   *          the keywords, separated by white spaces
+   * @param matchAll
+   *          true if a product must match every keyword, false if any keyword is enough
+   *
+   * @return the matching products, most relevant first
+   */
+  public List<Product> search(String keywords, boolean matchAll) {
+    Set<String> terms = keywords(keywords);
+    if (terms.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Index current = getIndex();
+
+    Map<String, Integer> scores = null;
+    for (String term : terms) {
+      Map<String, Integer> matches = current.match(term);
+      if (scores == null) {
+        scores = matches;
+      } else if (matchAll) {
+        scores.keySet().retainAll(matches.keySet());
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+          entry.setValue(entry.getValue() + matches.get(entry.getKey()));
+        }
+      } else {
+        for (Map.Entry<String, Integer> entry : matches.entrySet()) {
+          scores.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+      }
+      if (matchAll && scores.isEmpty()) {
+        return Collections.emptyList();
+      }
+    }
+
+    Map<String, Integer> ranking = scores;
+    List<Product> products = new ArrayList<>(ranking.size());
+    ranking.keySet().forEach(productId -> {
+      Product product = current.products.get(productId);
+      if (product != null) {
+        products.add(product);
+      }
+    });
+    products.sort(Comparator.<Product>comparingInt(product -> ranking.get(product.getProductId())).reversed()
+        .thenComparing(Product::getProductId));
+    return products;
+  }
+
+  /**
+   * Split search keywords the way products are tokenized: lower-cased, at white spaces and punctuation. A keyword made
+   * of word characters only can never span two tokens, so a substring match on the text and a match on the tokens
+   * agree.
+   *
+   * @param keywords
+   *          the keywords, separated by white spaces
+   *
+   * @return the distinct non-empty keywords, in their original order
+   */
+  static Set<String> keywords(String keywords) {
+    Set<String> terms = new LinkedHashSet<>();
+    for (String keyword : WHITE_SPACE.split(keywords.toLowerCase(Locale.ENGLISH))) {
+      for (String term : NON_WORD.split(keyword)) {
+        if (!term.isEmpty()) {
+          terms.add(term);
+        }
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * Rebuild the whole index from the database.
+   */
+  public synchronized void rebuild() {
+    Index rebuilt = new Index();
+    productMapper.getProductList().forEach(rebuilt::add);
+    index = rebuilt;
+  }
+
+  /**
+   * Add or re-index a product that has been inserted or modified.
+   *
+   * @param product
+   *          the product
+   */
+  public void update(Product product) {
+    Index current = index;
+    if (current != null) {
+      current.remove(product.getProductId());
+      current.add(product);
+    }
+  }
+
+  /**
+   * Reload a product from the database and re-index it, or drop it if it no longer exists. Nothing is read while the
+   * index has not been built yet, the first search will see the product as it is.
+   *
+   * @param productId
+   *          the product id
+   */
+  public void refresh(String productId) {
+    if (index == null) {
+      return;
+    }
+    Product product = productMapper.getProduct(productId);
+    if (product == null) {
+      remove(productId);
+    } else {
+      update(product);
+    }
+  }
+
+  public void remove(String productId) {
+    Index current = index;
+    if (current != null) {
+      current.remove(productId);
+    }
+  }
+
+  /**
+   * Drop the whole index, it is rebuilt from the database on the next search.
+   */
+  public synchronized void reset() {
+    index = null;
+  }
+
+  private Index getIndex() {
+    Index current = index;
+    if (current == null) {
+      synchronized (this) {
+        if (index == null) {
+          rebuild();
+        }
+        current = index;
+      }
+    }
+    return current;
+  }
+
+  private static Map<String, Integer> tokenize(Product product) {
+    Map<String, Integer> tokens = new HashMap<>();
+    addTokens(tokens, product.getName(), NAME_WEIGHT);
+    if (product.getDescription() != null) {
+      addTokens(tokens, MARKUP.matcher(product.getDescription()).replaceAll(" "), DESCRIPTION_WEIGHT);
+    }
+    return tokens;
+  }
+
+  private static void addTokens(Map<String, Integer> tokens, String text, int weight) {
+    if (text == null) {
+      return;
+    }
+    for (String token : NON_WORD.split(text.toLowerCase(Locale.ENGLISH))) {
+      for (int i = 0; i < token.length(); i++) {
+        tokens.merge(token.substring(i), weight, Math::max);
+      }
+    }
+  }
+
+  private static class Index {
+
+    private final ConcurrentSkipListMap<String, Map<String, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, Product> products = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> suffixesByProduct = new ConcurrentHashMap<>();
+
+    void add(Product product) {
+      String productId = product.getProductId();
+      Map<String, Integer> tokens = tokenize(product);
+      products.put(productId, product);
+      suffixesByProduct.put(productId, tokens.keySet());
+      tokens.forEach((suffix, weight) -> postings.compute(suffix, (k, posting) -> {
+        Map<String, Integer> updated = posting == null ? new ConcurrentHashMap<>() : posting;
+        updated.put(productId, weight);
+        return updated;
+      }));
+    }
+
+    void remove(String productId) {
+      products.remove(productId);
+      Set<String> suffixes = suffixesByProduct.remove(productId);
+      if (suffixes != null) {
+        suffixes.forEach(suffix -> postings.computeIfPresent(suffix, (k, posting) -> {
+          posting.remove(productId);
+          return posting.isEmpty() ? null : posting;
+        }));
+      }
+    }
+
+    Map<String, Integer> match(String term) {
+      Map<String, Integer> matches = new HashMap<>();
+      postings.subMap(term, true, term + Character.MAX_VALUE, true).values()
+          .forEach(posting -> posting.forEach((productId, weight) -> matches.merge(productId, weight, Math::max)));
+      return matches;
+    }
+
+  }
+
+}
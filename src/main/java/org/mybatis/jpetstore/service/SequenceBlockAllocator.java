@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mybatis.jpetstore.exception.SequenceNotFoundException;
+import org.mybatis.jpetstore.mapper.SequenceMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out sequence ids from blocks reserved in the SEQUENCE table.
+ * <p>
+ * A block is reserved with a single {@code UPDATE SEQUENCE SET NEXTID = NEXTID + blockSize} committed in its own
+ * transaction, so the row lock is held only for that statement and every JVM sharing the database gets a disjoint
+ * range. Ids inside a block are handed out from an {@link AtomicLong}; only the thread that exhausts a block reserves
+ * the next one. Ids left in a block when the JVM stops are never used.
+ */
+@Component
+public class SequenceBlockAllocator {
+
+  private static final int DEFAULT_BLOCK_SIZE = 1000;
+
+  private final SequenceMapper sequenceMapper;
+  private final TransactionTemplate transactionTemplate;
+  private final ConcurrentMap<String, SequenceBlocks> sequences = new ConcurrentHashMap<>();
+
+  private int blockSize = DEFAULT_BLOCK_SIZE;
+
+  public SequenceBlockAllocator(SequenceMapper sequenceMapper, PlatformTransactionManager transactionManager) {
+    this.sequenceMapper = sequenceMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  @Value("${jpetstore.sequence.block-size:" + DEFAULT_BLOCK_SIZE + "}")
+  public void setBlockSize(int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("The sequence block size must be positive: " + blockSize);
+    }
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * Gets the next id of a sequence.
+   *
+   * @param name
+   *          the sequence name
+   *
+   * @return the next id
+   *
+   * @throws SequenceNotFoundException
+   *           if the SEQUENCE table has no row with that name
+   */
+  public long nextId(String name) {
+    return sequences.computeIfAbsent(name, SequenceBlocks::new).next();
+  }
+
+  private Block reserve(String name) {
+    int size = blockSize;
+    Block block = transactionTemplate.execute(status -> {
+      if (sequenceMapper.reserveSequenceRange(name, size) == 0) {
+        throw new SequenceNotFoundException(name);
+      }
+      long limit = sequenceMapper.getSequenceNextId(name);
+      return new Block(limit - size, limit);
+    });
+    if (block == null) {
+      throw new SequenceNotFoundException(name);
+    }
+    return block;
+  }
+
+  private final class SequenceBlocks {
+
+    private final String name;
+    private volatile Block block = Block.EMPTY;
+
+    SequenceBlocks(String name) {
+      this.name = name;
+    }
+
+    long next() {
+      while (true) {
+        Block current = block;
+        long id = current.next.getAndIncrement();
+        if (id < current.limit) {
+          return id;
+        }
+        synchronized (this) {
+          if (block == current) {
+            block = reserve(name);
+          }
+        }
+      }
+    }
+
+  }
+
+  private static final class Block {
+
+    static final Block EMPTY = new Block(0, 0);
+
+    final AtomicLong next;
+    final long limit;
+
+    Block(long first, long limit) {
+      this.next = new AtomicLong(first);
+      this.limit = limit;
+    }
+
+  }
+
+}
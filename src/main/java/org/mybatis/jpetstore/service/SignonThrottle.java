@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Locks a username out of signon for a while after too many failed attempts in a row. Failures are counted for unknown
+ * usernames too, so that a lockout does not tell which users exist.
+ * <p>
+ * The counters are kept in memory, in stripes that each hold a small access-ordered map under their own lock, so that
+ * signons of different users seldom contend and the memory used stays bounded: when a stripe is full its least recently
+ * used counter is dropped. A failure count older than the lockout duration starts over. The counters are per JVM; with
+ * several nodes the limit applies to each of them.
+ */
+@Component
+public class SignonThrottle {
+
+  private static final int STRIPES = 64;
+  private static final int DEFAULT_MAX_FAILURES = 5;
+  private static final long DEFAULT_LOCKOUT_SECONDS = 900;
+  private static final int DEFAULT_MAX_ENTRIES = 64 * 1024;
+
+  private final Clock clock;
+
+  private int maxFailures = DEFAULT_MAX_FAILURES;
+  private long lockoutMillis = Duration.ofSeconds(DEFAULT_LOCKOUT_SECONDS).toMillis();
+  private Stripe[] stripes = stripes(DEFAULT_MAX_ENTRIES);
+
+  public SignonThrottle() {
+    this(Clock.systemUTC());
+  }
+
+  SignonThrottle(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Value("${jpetstore.signon.max-failures:" + DEFAULT_MAX_FAILURES + "}")
+  public void setMaxFailures(int maxFailures) {
+    this.maxFailures = maxFailures;
+  }
+
+  @Value("${jpetstore.signon.lockout-seconds:" + DEFAULT_LOCKOUT_SECONDS + "}")
+  public void setLockoutSeconds(long seconds) {
+    this.lockoutMillis = Duration.ofSeconds(seconds).toMillis();
+  }
+
+  @Value("${jpetstore.signon.throttle.max-entries:" + DEFAULT_MAX_ENTRIES + "}")
+  public void setMaxEntries(int maxEntries) {
+    this.stripes = stripes(maxEntries);
+  }
+
+  /**
+   * Tells whether a username is locked out.
+   *
+   * @param username
+   *          the username
+   *
+   * @return true if signon must be refused without checking the password
+   */
+  public boolean isLocked(String username) {
+    Stripe stripe = stripe(username);
+    long now = clock.millis();
+    synchronized (stripe) {
+      Attempts attempts = stripe.attempts.get(username);
+      return attempts != null && attempts.lockedUntil > now;
+    }
+  }
+
+  /**
+   * Counts a failed signon, locking the username out when it reaches the maximum.
+   *
+   * @param username
+   *          the username
+   */
+  public void recordFailure(String username) {
+    Stripe stripe = stripe(username);
+    long now = clock.millis();
+    synchronized (stripe) {
+      Attempts attempts = stripe.attempts.computeIfAbsent(username, key -> new Attempts());
+      if (attempts.lastFailure + lockoutMillis <= now) {
+        attempts.failures = 0;
+      }
+      attempts.lastFailure = now;
+      if (++attempts.failures >= maxFailures) {
+        attempts.failures = 0;
+        attempts.lockedUntil = now + lockoutMillis;
+      }
+    }
+  }
+
+  /**
+   * Forgets the failures of a username after a successful signon.
+   *
+   * @param username
+   *          the username
+   */
+  public void recordSuccess(String username) {
+    Stripe stripe = stripe(username);
+    synchronized (stripe) {
+      stripe.attempts.remove(username);
+    }
+  }
+
+  private Stripe stripe(String username) {
+    Stripe[] current = stripes;
+    int hash = username.hashCode();
+    return current[(hash ^ (hash >>> 16)) & (current.length - 1)];
+  }
+
+  private static Stripe[] stripes(int maxEntries) {
+    Stripe[] stripes = new Stripe[STRIPES];
+    int maxEntriesPerStripe = Math.max(maxEntries / STRIPES, 1);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(maxEntriesPerStripe);
+    }
+    return stripes;
+  }
+
+  private static final class Stripe {
+
+    final Map<String, Attempts> attempts;
+
+    Stripe(int maxEntries) {
+      this.attempts = new LinkedHashMap<>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Attempts> eldest) {
+          return size() > maxEntries;
+        }
+
+      };
+    }
+
+  }
+
+  private static final class Attempts {
+
+    int failures;
+    long lastFailure;
+    long lockedUntil;
+
+  }
+
+}
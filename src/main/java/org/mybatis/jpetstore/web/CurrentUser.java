@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.web;
+
+import java.util.List;
+
+import org.mybatis.jpetstore.domain.Account;
+import org.mybatis.jpetstore.domain.Product;
+import org.mybatis.jpetstore.service.AccountService;
+import org.mybatis.jpetstore.service.CatalogService;
+
+/**
+ * The signed on user as seen by the pages of one request. The account and the favourite products are loaded on first
+ * use from the services, whose caches make this cheap, instead of being kept in the session.
+ */
+public class CurrentUser {
+
+  private final String username;
+  private final AccountService accountService;
+  private final CatalogService catalogService;
+
+  private Account account;
+  private List<Product> myList;
+
+  public CurrentUser(String username, AccountService accountService, CatalogService catalogService) {
+    this.username = username;
+    this.accountService = accountService;
+    this.catalogService = catalogService;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public boolean isAuthenticated() {
+    return username != null;
+  }
+
+  /**
+   * Gets the account of the user.
+   *
+   * @return the account, or null if nobody is signed on
+   */
+  public Account getAccount() {
+    if (account == null && isAuthenticated()) {
+      account = accountService.getAccount(username);
+    }
+    return account;
+  }
+
+  /**
+   * Gets the products of the favourite category of the user, a list shared with the other users of the category.
+   *
+   * @return the products, or null if nobody is signed on
+   */
+  public List<Product> getMyList() {
+    if (myList == null && getAccount() != null) {
+      myList = catalogService.getMyList(account.getFavouriteCategoryId());
+    }
+    return myList;
+  }
+
+}
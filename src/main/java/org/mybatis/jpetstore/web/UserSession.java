@@ -0,0 +1,199 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.web;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * The only state kept in the HTTP session: who is signed on, the id of the cart of a visitor, the last order placed
+ * and, during a checkout, the payment details entered. Everything shown on a page is loaded per request from the
+ * (cached) services and the cart store, so the session stays a few hundred bytes whatever the user browsed, and is
+ * cheap to replicate or persist.
+ * <p>
+ * Requests of the same session may run concurrently, so the record is guarded by its own monitor. Changes are published
+ * with {@link #save(HttpServletRequest)}, which sets the attribute again so that containers replicating on
+ * {@code setAttribute} see them.
+ */
+public class UserSession implements Serializable {
+
+  private static final long serialVersionUID = 2930917432165378601L;
+
+  public static final String ATTRIBUTE = "userSession";
+
+  private String username;
+  private String cartId;
+  private int orderId;
+  private PaymentDraft paymentDraft;
+
+  /**
+   * Finds the record of the session of a request, without creating a session.
+   *
+   * @param request
+   *          the request
+   *
+   * @return the record, or null if the session does not exist or has no record yet
+   */
+  public static UserSession find(HttpServletRequest request) {
+    HttpSession session = request.getSession(false);
+    return session == null ? null : (UserSession) session.getAttribute(ATTRIBUTE);
+  }
+
+  /**
+   * Gets the record of the session of a request, creating the session and the record if needed.
+   *
+   * @param request
+   *          the request
+   *
+   * @return the record
+   */
+  public static UserSession get(HttpServletRequest request) {
+    UserSession userSession = find(request);
+    if (userSession == null) {
+      userSession = new UserSession();
+      request.getSession().setAttribute(ATTRIBUTE, userSession);
+    }
+    return userSession;
+  }
+
+  public void save(HttpServletRequest request) {
+    request.getSession().setAttribute(ATTRIBUTE, this);
+  }
+
+  public synchronized String getUsername() {
+    return username;
+  }
+
+  public synchronized boolean isAuthenticated() {
+    return username != null;
+  }
+
+  /**
+   * Gets the key of the cart in the cart store: the username once signed on, so that the cart follows the user across
+   * sessions and nodes, otherwise a random id kept for the session.
+   *
+   * @return the cart key, or null if a visitor has no cart yet
+   */
+  public synchronized String getCartKey() {
+    if (username != null) {
+      return "user:" + username;
+    }
+    return cartId == null ? null : "visitor:" + cartId;
+  }
+
+  /**
+   * Gets the key of the cart in the cart store, giving a visitor a cart id if needed.
+   *
+   * @return the cart key
+   */
+  public synchronized String getOrCreateCartKey() {
+    if (username == null && cartId == null) {
+      cartId = UUID.randomUUID().toString();
+    }
+    return getCartKey();
+  }
+
+  /**
+   * Signs on, forgetting the visitor cart id.
+   *
+   * @param username
+   *          the username
+   */
+  public synchronized void signon(String username) {
+    this.username = username;
+    this.cartId = null;
+    this.paymentDraft = null;
+  }
+
+  public synchronized int getOrderId() {
+    return orderId;
+  }
+
+  public synchronized void setOrderId(int orderId) {
+    this.orderId = orderId;
+  }
+
+  /**
+   * Keeps the payment details of a checkout, so that the following checkout steps only carry a token instead of the
+   * card number. Replaces the draft of any earlier checkout of the session.
+   *
+   * @param cardType
+   *          the card type
+   * @param creditCard
+   *          the card number
+   * @param expiryDate
+   *          the expiry date
+   *
+   * @return the token of the draft
+   */
+  public synchronized String startCheckout(String cardType, String creditCard, String expiryDate) {
+    paymentDraft = new PaymentDraft(UUID.randomUUID().toString(), cardType, creditCard, expiryDate);
+    return paymentDraft.token;
+  }
+
+  /**
+   * Gets the payment details of the checkout a token was given for.
+   *
+   * @param token
+   *          the token, may be null
+   *
+   * @return the draft, or null if the token is not the one of the current checkout
+   */
+  public synchronized PaymentDraft getPaymentDraft(String token) {
+    return paymentDraft != null && paymentDraft.token.equals(token) ? paymentDraft : null;
+  }
+
+  public synchronized void endCheckout() {
+    paymentDraft = null;
+  }
+
+  /**
+   * The payment details of a checkout in progress.
+   */
+  public static final class PaymentDraft implements Serializable {
+
+    private static final long serialVersionUID = -3517713880963286870L;
+
+    private final String token;
+    private final String cardType;
+    private final String creditCard;
+    private final String expiryDate;
+
+    PaymentDraft(String token, String cardType, String creditCard, String expiryDate) {
+      this.token = token;
+      this.cardType = cardType;
+      this.creditCard = creditCard;
+      this.expiryDate = expiryDate;
+    }
+
+    public String getCardType() {
+      return cardType;
+    }
+
+    public String getCreditCard() {
+      return creditCard;
+    }
+
+    public String getExpiryDate() {
+      return expiryDate;
+    }
+
+  }
+
+}
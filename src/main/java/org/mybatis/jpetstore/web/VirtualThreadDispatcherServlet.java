@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.web;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import net.sourceforge.stripes.controller.DispatcherServlet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Stripes dispatcher that can hand each request over to a virtual thread.
+ * <p>
+ * Off by default. It is switched on with the {@code virtualThreads} init parameter or the {@value #ENABLED_PROPERTY}
+ * system property, and only takes effect on a Java 21 runtime; on older runtimes, and for requests whose filter chain
+ * does not support async, the request runs on the container thread as before. While enabled, the container thread is
+ * returned to Tomcat as soon as the request is put in async mode, and the blocking MyBatis and JDBC work runs on a
+ * virtual thread that completes the request when it is done. The number of those threads holding a database connection
+ * at once is capped by the {@link org.mybatis.jpetstore.jdbc.ConnectionLimitingDataSource}.
+ */
+public class VirtualThreadDispatcherServlet extends DispatcherServlet {
+
+  static final String ENABLED_PROPERTY = "jpetstore.web.virtual-threads";
+  static final String ENABLED_PARAM = "virtualThreads";
+  static final String ASYNC_TIMEOUT_PARAM = "asyncTimeout";
+
+  private static final long serialVersionUID = 1L;
+  private static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 60_000;
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadDispatcherServlet.class);
+
+  private transient ExecutorService executor;
+  private long asyncTimeoutMillis = DEFAULT_ASYNC_TIMEOUT_MILLIS;
+
+  @Override
+  public void init() throws ServletException {
+    super.init();
+    String asyncTimeout = getInitParameter(ASYNC_TIMEOUT_PARAM);
+    if (asyncTimeout != null) {
+      asyncTimeoutMillis = Long.parseLong(asyncTimeout.trim());
+    }
+    if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, getInitParameter(ENABLED_PARAM)))) {
+      return;
+    }
+    executor = newExecutor();
+    if (executor == null) {
+      log.warn("Virtual threads were requested but Java {} has none; requests run on container threads",
+          Runtime.version().feature());
+    } else {
+      log.info("Running Stripes requests on virtual threads");
+    }
+  }
+
+  /**
+   * Create the executor requests are handed over to.
+   *
+   * @return a virtual thread per task executor, or null if the runtime has no virtual threads
+   */
+  ExecutorService newExecutor() {
+    return VirtualThreads.newThreadPerTaskExecutor().orElse(null);
+  }
+
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+    super.destroy();
+  }
+
+  @Override
+  protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException {
+    ExecutorService current = executor;
+    if (current == null || !request.isAsyncSupported() || request.isAsyncStarted()) {
+      super.service(request, response);
+      return;
+    }
+    AsyncContext async = request.startAsync(request, response);
+    async.setTimeout(asyncTimeoutMillis);
+    try {
+      current.execute(() -> serviceAsync(async, request, response));
+    } catch (RejectedExecutionException e) {
+      async.complete();
+      throw new ServletException("The dispatcher is shutting down", e);
+    }
+  }
+
+  private void serviceAsync(AsyncContext async, HttpServletRequest request, HttpServletResponse response) {
+    try {
+      super.service(request, response);
+    } catch (ServletException | RuntimeException e) {
+      log.error("Request {} failed on a virtual thread", request.getRequestURI(), e);
+      if (!response.isCommitted()) {
+        try {
+          response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } catch (IOException ignored) {
+          // the client is gone
+        }
+      }
+    } finally {
+      async.complete();
+    }
+  }
+
+}
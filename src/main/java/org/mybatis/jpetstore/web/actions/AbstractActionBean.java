@@ -16,10 +16,22 @@
 package org.mybatis.jpetstore.web.actions;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.sourceforge.stripes.action.ActionBean;
 import net.sourceforge.stripes.action.ActionBeanContext;
+import net.sourceforge.stripes.action.Message;
 import net.sourceforge.stripes.action.SimpleMessage;
+import net.sourceforge.stripes.controller.StripesConstants;
+import net.sourceforge.stripes.integration.spring.SpringBean;
+
+import org.mybatis.jpetstore.domain.Cart;
+import org.mybatis.jpetstore.service.AccountService;
+import org.mybatis.jpetstore.service.CartService;
+import org.mybatis.jpetstore.service.CatalogService;
+import org.mybatis.jpetstore.web.CurrentUser;
+import org.mybatis.jpetstore.web.UserSession;
 
 /**
  * The Class AbstractActionBean.
@@ -32,10 +44,98 @@ public abstract class AbstractActionBean implements ActionBean, Serializable {
 
   protected static final String ERROR = "/WEB-INF/jsp/common/Error.jsp";
 
+  private static final String CART_ATTRIBUTE = AbstractActionBean.class.getName() + ".cart";
+
   protected transient ActionBeanContext context;
 
+  @SpringBean
+  protected transient AccountService accountService;
+  @SpringBean
+  protected transient CatalogService catalogService;
+  @SpringBean
+  protected transient CartService cartService;
+
+  private transient CurrentUser currentUser;
+
+  /**
+   * Adds a message for the page this request forwards to. Stripes would keep it in a flash scope, which stays in the
+   * session for two minutes; every message here is rendered by a forward, so the request is enough.
+   *
+   * @param value
+   *          the message
+   */
+  @SuppressWarnings("unchecked")
   protected void setMessage(String value) {
-    context.getMessages().add(new SimpleMessage(value));
+    List<Message> messages = (List<Message>) context.getRequest().getAttribute(StripesConstants.REQ_ATTR_MESSAGES);
+    if (messages == null) {
+      messages = new ArrayList<>();
+      context.getRequest().setAttribute(StripesConstants.REQ_ATTR_MESSAGES, messages);
+    }
+    messages.add(new SimpleMessage(value));
+  }
+
+  /**
+   * Finds the session record without creating a session, so that anonymous browsing stays sessionless.
+   *
+   * @return the session record, or null
+   */
+  protected UserSession findUserSession() {
+    return context == null ? null : UserSession.find(context.getRequest());
+  }
+
+  protected UserSession getUserSession() {
+    return UserSession.get(context.getRequest());
+  }
+
+  protected void saveUserSession(UserSession userSession) {
+    userSession.save(context.getRequest());
+  }
+
+  /**
+   * Gets the signed on user for the pages, loading the account and the favourite list only when a page shows them.
+   *
+   * @return the current user, never null
+   */
+  public CurrentUser getCurrentUser() {
+    if (currentUser == null) {
+      UserSession userSession = findUserSession();
+      currentUser = new CurrentUser(userSession == null ? null : userSession.getUsername(), accountService,
+          catalogService);
+    }
+    return currentUser;
+  }
+
+  /**
+   * Gets the cart of the session, read through from the cart store once per request and shared by the action beans a
+   * request is forwarded to.
+   *
+   * @return the cart, empty if the session has none
+   */
+  protected Cart getCurrentCart() {
+    Cart cart = (Cart) context.getRequest().getAttribute(CART_ATTRIBUTE);
+    if (cart == null) {
+      UserSession userSession = findUserSession();
+      cart = cartService.getCart(userSession == null ? null : userSession.getCartKey());
+      context.getRequest().setAttribute(CART_ATTRIBUTE, cart);
+    }
+    return cart;
+  }
+
+  /**
+   * Writes the cart of the session back to the cart store.
+   *
+   * @param cart
+   *          the cart
+   */
+  protected void saveCurrentCart(Cart cart) {
+    UserSession userSession = getUserSession();
+    String cartKey = userSession.getCartKey();
+    if (cartKey == null) {
+      cartKey = userSession.getOrCreateCartKey();
+      saveUserSession(userSession);
+    }
+    cartService.saveCart(cartKey, cart);
+    context.getRequest().setAttribute(CART_ATTRIBUTE, cart);
   }
 
   @Override
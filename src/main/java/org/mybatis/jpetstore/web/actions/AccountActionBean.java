@@ -19,27 +19,23 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import javax.servlet.http.HttpSession;
-
+import net.sourceforge.stripes.action.Before;
 import net.sourceforge.stripes.action.DefaultHandler;
 import net.sourceforge.stripes.action.ForwardResolution;
 import net.sourceforge.stripes.action.RedirectResolution;
 import net.sourceforge.stripes.action.Resolution;
-import net.sourceforge.stripes.action.SessionScope;
-import net.sourceforge.stripes.integration.spring.SpringBean;
+import net.sourceforge.stripes.controller.LifecycleStage;
 import net.sourceforge.stripes.validation.Validate;
 
 import org.mybatis.jpetstore.domain.Account;
 import org.mybatis.jpetstore.domain.Product;
-import org.mybatis.jpetstore.service.AccountService;
-import org.mybatis.jpetstore.service.CatalogService;
+import org.mybatis.jpetstore.web.UserSession;
 
 /**
  * The Class AccountActionBean.
  *
  * @author Eduardo Macarron
  */
-@SessionScope
 public class AccountActionBean extends AbstractActionBean {
 
   private static final long serialVersionUID = 5499663666155758178L;
@@ -51,14 +47,7 @@ public class AccountActionBean extends AbstractActionBean {
   private static final List<String> LANGUAGE_LIST;
   private static final List<String> CATEGORY_LIST;
 
-  @SpringBean
-  private transient AccountService accountService;
-  @SpringBean
-  private transient CatalogService catalogService;
-
   private Account account = new Account();
-  private List<Product> myList;
-  private boolean authenticated;
 
   static {
     LANGUAGE_LIST = Collections.unmodifiableList(Arrays.asList("english", "japanese"));
@@ -73,7 +62,7 @@ public class AccountActionBean extends AbstractActionBean {
     return account.getUsername();
   }
 
-  @Validate(required = true, on = { "signon", "newAccount", "editAccount" })
+  @Validate(required = true, on = { "signon", "newAccount" })
   public void setUsername(String username) {
     account.setUsername(username);
   }
@@ -88,11 +77,7 @@ public class AccountActionBean extends AbstractActionBean {
   }
 
   public List<Product> getMyList() {
-    return myList;
-  }
-
-  public void setMyList(List<Product> myList) {
-    this.myList = myList;
+    return getCurrentUser().getMyList();
   }
 
   public List<String> getLanguages() {
@@ -114,9 +99,7 @@ public class AccountActionBean extends AbstractActionBean {
    */
   public Resolution newAccount() {
     accountService.insertAccount(account);
-    account = accountService.getAccount(account.getUsername());
-    myList = catalogService.getProductListByCategory(account.getFavouriteCategoryId());
-    authenticated = true;
+    signon(account.getUsername());
     return new RedirectResolution(CatalogActionBean.class);
   }
 
@@ -126,18 +109,34 @@ public class AccountActionBean extends AbstractActionBean {
    * @return the resolution
    */
   public Resolution editAccountForm() {
+    if (!isAuthenticated()) {
+      return new ForwardResolution(SIGNON);
+    }
     return new ForwardResolution(EDIT_ACCOUNT);
   }
 
+  /**
+   * Loads the account of the signed on user before the form fields are bound onto it, so that the fields the form does
+   * not post keep their stored values.
+   */
+  @Before(stages = LifecycleStage.BindingAndValidation, on = { "editAccountForm", "editAccount" })
+  public void loadAccount() {
+    if (isAuthenticated()) {
+      account = accountService.getAccount(getCurrentUser().getUsername());
+    }
+  }
+
   /**
    * Edits the account.
    *
    * @return the resolution
    */
   public Resolution editAccount() {
+    if (!isAuthenticated()) {
+      return new ForwardResolution(SIGNON);
+    }
+    account.setUsername(getCurrentUser().getUsername());
     accountService.updateAccount(account);
-    account = accountService.getAccount(account.getUsername());
-    myList = catalogService.getProductListByCategory(account.getFavouriteCategoryId());
     return new RedirectResolution(CatalogActionBean.class);
   }
 
@@ -158,24 +157,29 @@ public class AccountActionBean extends AbstractActionBean {
    */
   public Resolution signon() {
 
-    account = accountService.getAccount(getUsername(), getPassword());
-
-    if (account == null) {
+    if (accountService.isSignonLocked(getUsername())) {
+      setMessage("Too many failed attempts.  Signon is locked for a while, please try again later.");
+      account = new Account();
+      return new ForwardResolution(SIGNON);
+    } else if (!accountService.authenticate(getUsername(), getPassword())) {
       String value = "Invalid username or password.  Signon failed.";
       setMessage(value);
-      clear();
+      account = new Account();
       return new ForwardResolution(SIGNON);
     } else {
-      account.setPassword(null);
-      myList = catalogService.getProductListByCategory(account.getFavouriteCategoryId());
-      authenticated = true;
-      HttpSession s = context.getRequest().getSession();
-      // this bean is already registered as /actions/Account.action
-      s.setAttribute("accountBean", this);
+      signon(getUsername());
       return new RedirectResolution(CatalogActionBean.class);
     }
   }
 
+  private void signon(String username) {
+    UserSession userSession = getUserSession();
+    String visitorCartKey = userSession.getCartKey();
+    userSession.signon(username);
+    saveUserSession(userSession);
+    cartService.mergeCart(visitorCartKey, userSession.getCartKey());
+  }
+
   /**
    * Signoff.
    *
@@ -183,7 +187,6 @@ public class AccountActionBean extends AbstractActionBean {
    */
   public Resolution signoff() {
     context.getRequest().getSession().invalidate();
-    clear();
     return new RedirectResolution(CatalogActionBean.class);
   }
 
@@ -193,16 +196,7 @@ public class AccountActionBean extends AbstractActionBean {
    * @return true, if is authenticated
    */
   public boolean isAuthenticated() {
-    return authenticated && account != null && account.getUsername() != null;
-  }
-
-  /**
-   * Clear.
-   */
-  public void clear() {
-    account = new Account();
-    myList = null;
-    authenticated = false;
+    return getCurrentUser().isAuthenticated();
   }
 
 }
@@ -21,20 +21,16 @@ import javax.servlet.http.HttpServletRequest;
 
 import net.sourceforge.stripes.action.ForwardResolution;
 import net.sourceforge.stripes.action.Resolution;
-import net.sourceforge.stripes.action.SessionScope;
-import net.sourceforge.stripes.integration.spring.SpringBean;
 
 import org.mybatis.jpetstore.domain.Cart;
 import org.mybatis.jpetstore.domain.CartItem;
 import org.mybatis.jpetstore.domain.Item;
-import org.mybatis.jpetstore.service.CatalogService;
 
 /**
  * The Class CartActionBean.
  *
  * @author Eduardo Macarron
  */
-@SessionScope
 public class CartActionBean extends AbstractActionBean {
 
   private static final long serialVersionUID = -4038684592582714235L;
@@ -42,9 +38,6 @@ public class CartActionBean extends AbstractActionBean {
   private static final String VIEW_CART = "/WEB-INF/jsp/cart/Cart.jsp";
   private static final String CHECK_OUT = "/WEB-INF/jsp/cart/Checkout.jsp";
 
-  @SpringBean
-  private transient CatalogService catalogService;
-
   private Cart cart = new Cart();
   private String workingItemId;
 
@@ -66,18 +59,23 @@ public class CartActionBean extends AbstractActionBean {
    * @return the resolution
    */
   public Resolution addItemToCart() {
-    if (cart.containsItemId(workingItemId)) {
-      cart.incrementQuantityByItemId(workingItemId);
+    Cart currentCart = getCurrentCart();
+    if (currentCart.containsItemId(workingItemId)) {
+      currentCart.incrementQuantityByItemId(workingItemId);
     } else {
-      // isInStock is a "real-time" property that must be updated
-      // every time an item is added to the cart, even if other
-      // item details are cached.
-      boolean isInStock = catalogService.isItemInStock(workingItemId);
+      // getItem reads the quantity from the stock cache, which is
+      // invalidated by every order, so isInStock stays "real-time"
+      // while the other item details are cached.
       Item item = catalogService.getItem(workingItemId);
-      cart.addItem(item, isInStock);
+      if (item == null) {
+        setMessage("Attempted to add an unknown item to the Cart.");
+        return new ForwardResolution(ERROR);
+      }
+      currentCart.addItem(item, item.getQuantity() > 0);
     }
+    saveCurrentCart(currentCart);
 
-    return new ForwardResolution(VIEW_CART);
+    return viewCart();
   }
 
   /**
@@ -86,14 +84,15 @@ public class CartActionBean extends AbstractActionBean {
    * @return the resolution
    */
   public Resolution removeItemFromCart() {
+    Cart currentCart = getCurrentCart();
 
-    Item item = cart.removeItemById(workingItemId);
-
-    if (item == null) {
+    if (!currentCart.containsItemId(workingItemId)) {
       setMessage("Attempted to remove null CartItem from Cart.");
       return new ForwardResolution(ERROR);
     } else {
-      return new ForwardResolution(VIEW_CART);
+      currentCart.removeItemById(workingItemId);
+      saveCurrentCart(currentCart);
+      return viewCart();
     }
   }
 
@@ -104,14 +103,15 @@ public class CartActionBean extends AbstractActionBean {
    */
   public Resolution updateCartQuantities() {
     HttpServletRequest request = context.getRequest();
+    Cart currentCart = getCurrentCart();
 
-    Iterator<CartItem> cartItems = getCart().getAllCartItems();
+    Iterator<CartItem> cartItems = currentCart.getAllCartItems();
     while (cartItems.hasNext()) {
       CartItem cartItem = cartItems.next();
-      String itemId = cartItem.getItem().getItemId();
+      String itemId = cartItem.getItemId();
       try {
         int quantity = Integer.parseInt(request.getParameter(itemId));
-        getCart().setQuantityByItemId(itemId, quantity);
+        currentCart.setQuantityByItemId(itemId, quantity);
         if (quantity < 1) {
           cartItems.remove();
         }
@@ -119,21 +119,31 @@ public class CartActionBean extends AbstractActionBean {
         // ignore parse exceptions on purpose
       }
     }
+    saveCurrentCart(currentCart);
 
-    return new ForwardResolution(VIEW_CART);
+    return viewCart();
   }
 
   public ForwardResolution viewCart() {
+    cart = getCurrentCart();
+    refreshStock();
     return new ForwardResolution(VIEW_CART);
   }
 
   public ForwardResolution checkOut() {
+    cart = getCurrentCart();
+    if (cart.reprice()) {
+      saveCurrentCart(cart);
+    }
+    refreshStock();
     return new ForwardResolution(CHECK_OUT);
   }
 
-  public void clear() {
-    cart = new Cart();
-    workingItemId = null;
+  /**
+   * Refreshes the in stock flag of every cart item with one query for the whole cart.
+   */
+  private void refreshStock() {
+    cart.updateStock(catalogService.getInventoryQuantities(cart.getItemIds()));
   }
 
 }
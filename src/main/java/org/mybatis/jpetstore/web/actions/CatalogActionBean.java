@@ -15,24 +15,21 @@
  */
 package org.mybatis.jpetstore.web.actions;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import net.sourceforge.stripes.action.DefaultHandler;
 import net.sourceforge.stripes.action.ForwardResolution;
-import net.sourceforge.stripes.action.SessionScope;
-import net.sourceforge.stripes.integration.spring.SpringBean;
 
 import org.mybatis.jpetstore.domain.Category;
 import org.mybatis.jpetstore.domain.Item;
 import org.mybatis.jpetstore.domain.Product;
-import org.mybatis.jpetstore.service.CatalogService;
 
 /**
  * The Class CatalogActionBean.
  *
  * @author Eduardo Macarron
  */
-@SessionScope
 public class CatalogActionBean extends AbstractActionBean {
 
   private static final long serialVersionUID = 5849523372175050635L;
@@ -43,8 +40,7 @@ public class CatalogActionBean extends AbstractActionBean {
   private static final String VIEW_ITEM = "/WEB-INF/jsp/catalog/Item.jsp";
   private static final String SEARCH_PRODUCTS = "/WEB-INF/jsp/catalog/SearchProducts.jsp";
 
-  @SpringBean
-  private transient CatalogService catalogService;
+  private static final int PAGE_SIZE = 20;
 
   private String keyword;
 
@@ -55,10 +51,14 @@ public class CatalogActionBean extends AbstractActionBean {
   private String productId;
   private Product product;
   private List<Product> productList;
+  private String lastProductId;
+  private String nextProductId;
 
   private String itemId;
   private Item item;
   private List<Item> itemList;
+  private String lastItemId;
+  private String nextItemId;
 
   public String getKeyword() {
     return keyword;
@@ -140,6 +140,22 @@ public class CatalogActionBean extends AbstractActionBean {
     this.itemList = itemList;
   }
 
+  public void setLastProductId(String lastProductId) {
+    this.lastProductId = lastProductId;
+  }
+
+  public String getNextProductId() {
+    return nextProductId;
+  }
+
+  public void setLastItemId(String lastItemId) {
+    this.lastItemId = lastItemId;
+  }
+
+  public String getNextItemId() {
+    return nextItemId;
+  }
+
   @DefaultHandler
   public ForwardResolution viewMain() {
     return new ForwardResolution(MAIN);
@@ -152,7 +168,15 @@ public class CatalogActionBean extends AbstractActionBean {
    */
   public ForwardResolution viewCategory() {
     if (categoryId != null) {
-      productList = catalogService.getProductListByCategory(categoryId);
+      // one extra row tells whether there is a next page without counting the category
+      List<Product> page = catalogService.getProductListByCategory(categoryId, lastProductId, PAGE_SIZE + 1);
+      if (page.size() > PAGE_SIZE) {
+        productList = new ArrayList<>(page.subList(0, PAGE_SIZE));
+        nextProductId = productList.get(PAGE_SIZE - 1).getProductId();
+      } else {
+        productList = page;
+        nextProductId = null;
+      }
       category = catalogService.getCategory(categoryId);
     }
     return new ForwardResolution(VIEW_CATEGORY);
@@ -165,7 +189,14 @@ public class CatalogActionBean extends AbstractActionBean {
    */
   public ForwardResolution viewProduct() {
     if (productId != null) {
-      itemList = catalogService.getItemListByProduct(productId);
+      List<Item> page = catalogService.getItemListByProduct(productId, lastItemId, PAGE_SIZE + 1);
+      if (page.size() > PAGE_SIZE) {
+        itemList = new ArrayList<>(page.subList(0, PAGE_SIZE));
+        nextItemId = itemList.get(PAGE_SIZE - 1).getItemId();
+      } else {
+        itemList = page;
+        nextItemId = null;
+      }
       product = catalogService.getProduct(productId);
     }
     return new ForwardResolution(VIEW_PRODUCT);
@@ -200,23 +231,4 @@ public class CatalogActionBean extends AbstractActionBean {
     }
   }
 
-  /**
-   * Clear.
-   */
-  public void clear() {
-    keyword = null;
-
-    categoryId = null;
-    category = null;
-    categoryList = null;
-
-    productId = null;
-    product = null;
-    productList = null;
-
-    itemId = null;
-    item = null;
-    itemList = null;
-  }
-
 }
@@ -19,22 +19,36 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import javax.servlet.http.HttpSession;
-
+import net.sourceforge.stripes.action.Before;
 import net.sourceforge.stripes.action.ForwardResolution;
+import net.sourceforge.stripes.action.RedirectResolution;
 import net.sourceforge.stripes.action.Resolution;
-import net.sourceforge.stripes.action.SessionScope;
+import net.sourceforge.stripes.action.StrictBinding;
+import net.sourceforge.stripes.controller.LifecycleStage;
 import net.sourceforge.stripes.integration.spring.SpringBean;
 
+import org.mybatis.jpetstore.domain.Cart;
 import org.mybatis.jpetstore.domain.Order;
+import org.mybatis.jpetstore.exception.InsufficientInventoryException;
 import org.mybatis.jpetstore.service.OrderService;
+import org.mybatis.jpetstore.web.CurrentUser;
+import org.mybatis.jpetstore.web.UserSession;
 
 /**
  * The Class OrderActionBean.
+ * <p>
+ * The order being checked out is not kept between requests: it is rebuilt from the account and the cart before binding,
+ * and the checkout pages post back the billing and shipping fields. The payment details are posted once, then kept in
+ * the {@link UserSession} under a checkout token that the following steps post instead. Only those fields may be bound,
+ * so the totals and lines always come from the server side cart.
  *
  * @author Eduardo Macarron
  */
-@SessionScope
+@StrictBinding(allow = { "orderId", "placed", "shippingAddressRequired", "confirmed", "checkoutToken", "order.cardType",
+    "order.creditCard", "order.expiryDate", "order.billToFirstName", "order.billToLastName", "order.billAddress1",
+    "order.billAddress2", "order.billCity", "order.billState", "order.billZip", "order.billCountry",
+    "order.shipToFirstName", "order.shipToLastName", "order.shipAddress1", "order.shipAddress2", "order.shipCity",
+    "order.shipState", "order.shipZip", "order.shipCountry" })
 public class OrderActionBean extends AbstractActionBean {
 
   private static final long serialVersionUID = -6171288227470176272L;
@@ -43,7 +57,11 @@ public class OrderActionBean extends AbstractActionBean {
   private static final String LIST_ORDERS = "/WEB-INF/jsp/order/ListOrders.jsp";
   private static final String NEW_ORDER = "/WEB-INF/jsp/order/NewOrderForm.jsp";
   private static final String SHIPPING = "/WEB-INF/jsp/order/ShippingForm.jsp";
+  private static final String SIGNON_REQUIRED = "You must sign on before attempting to check out.  "
+      + "Please sign on and try checking out again.";
   private static final String VIEW_ORDER = "/WEB-INF/jsp/order/ViewOrder.jsp";
+  private static final String CHECKOUT_EXPIRED = "Your payment details are no longer available.  "
+      + "Please enter them again.";
 
   private static final List<String> CARD_TYPE_LIST;
 
@@ -53,6 +71,8 @@ public class OrderActionBean extends AbstractActionBean {
   private Order order = new Order();
   private boolean shippingAddressRequired;
   private boolean confirmed;
+  private String checkoutToken;
+  private boolean placed;
   private List<Order> orderList;
 
   static {
@@ -91,6 +111,18 @@ public class OrderActionBean extends AbstractActionBean {
     this.confirmed = confirmed;
   }
 
+  public String getCheckoutToken() {
+    return checkoutToken;
+  }
+
+  public void setCheckoutToken(String checkoutToken) {
+    this.checkoutToken = checkoutToken;
+  }
+
+  public void setPlaced(boolean placed) {
+    this.placed = placed;
+  }
+
   public List<String> getCreditCardTypes() {
     return CARD_TYPE_LIST;
   }
@@ -105,32 +137,44 @@ public class OrderActionBean extends AbstractActionBean {
    * @return the resolution
    */
   public Resolution listOrders() {
-    HttpSession session = context.getRequest().getSession();
-    AccountActionBean accountBean = (AccountActionBean) session.getAttribute("/actions/Account.action");
-    orderList = orderService.getOrdersByUsername(accountBean.getAccount().getUsername());
+    if (!getCurrentUser().isAuthenticated()) {
+      return new ForwardResolution(AccountActionBean.class);
+    }
+    orderList = orderService.getOrdersByUsername(getCurrentUser().getUsername());
     return new ForwardResolution(LIST_ORDERS);
   }
 
+  /**
+   * Builds the draft order from the account and the cart of the session, repriced at the current list prices, before
+   * the posted fields are bound onto it.
+   */
+  @Before(stages = LifecycleStage.BindingAndValidation, on = { "newOrderForm", "newOrder" })
+  public void initOrder() {
+    if (getCurrentUser().isAuthenticated()) {
+      Cart cart = getCurrentCart();
+      if (cart.reprice()) {
+        saveCurrentCart(cart);
+      }
+      if (cart.getNumberOfItems() > 0) {
+        order.initOrder(getCurrentUser().getAccount(), cart);
+      }
+    }
+  }
+
   /**
    * New order form.
    *
    * @return the resolution
    */
   public Resolution newOrderForm() {
-    HttpSession session = context.getRequest().getSession();
-    AccountActionBean accountBean = (AccountActionBean) session.getAttribute("/actions/Account.action");
-    CartActionBean cartBean = (CartActionBean) session.getAttribute("/actions/Cart.action");
-
-    clear();
-    if (accountBean == null || !accountBean.isAuthenticated()) {
-      setMessage("You must sign on before attempting to check out.  Please sign on and try checking out again.");
+    if (!getCurrentUser().isAuthenticated()) {
+      setMessage(SIGNON_REQUIRED);
       return new ForwardResolution(AccountActionBean.class);
-    } else if (cartBean != null) {
-      order.initOrder(accountBean.getAccount(), cartBean.getCart());
-      return new ForwardResolution(NEW_ORDER);
-    } else {
+    } else if (order.getLineItems().isEmpty()) {
       setMessage("An order could not be created because a cart could not be found.");
       return new ForwardResolution(ERROR);
+    } else {
+      return new ForwardResolution(NEW_ORDER);
     }
   }
 
@@ -140,27 +184,64 @@ public class OrderActionBean extends AbstractActionBean {
    * @return the resolution
    */
   public Resolution newOrder() {
-    HttpSession session = context.getRequest().getSession();
-
-    if (shippingAddressRequired) {
+    if (!getCurrentUser().isAuthenticated()) {
+      setMessage(SIGNON_REQUIRED);
+      return new ForwardResolution(AccountActionBean.class);
+    } else if (order.getLineItems().isEmpty()) {
+      setMessage("An order could not be created because a cart could not be found.");
+      return new ForwardResolution(ERROR);
+    } else if (!keepPaymentDetails()) {
+      setMessage(CHECKOUT_EXPIRED);
+      return new ForwardResolution(NEW_ORDER);
+    } else if (shippingAddressRequired) {
       shippingAddressRequired = false;
       return new ForwardResolution(SHIPPING);
     } else if (!isConfirmed()) {
       return new ForwardResolution(CONFIRM_ORDER);
-    } else if (getOrder() != null) {
+    }
 
+    try {
       orderService.insertOrder(order);
+    } catch (InsufficientInventoryException e) {
+      setMessage("Sorry, there is not enough stock left for " + String.join(", ", e.getItemIds())
+          + ".  Please update your cart and check out again.");
+      return new ForwardResolution(CartActionBean.class, "viewCart");
+    }
 
-      CartActionBean cartBean = (CartActionBean) session.getAttribute("/actions/Cart.action");
-      cartBean.clear();
+    UserSession userSession = getUserSession();
+    cartService.removeCart(userSession.getCartKey());
+    userSession.endCheckout();
+    userSession.setOrderId(order.getOrderId());
+    saveUserSession(userSession);
 
-      setMessage("Thank you, your order has been submitted.");
+    // redirect so that reloading the page shows the order instead of placing it again; the thank you message is shown
+    // by viewOrder, a message set here would go through a flash scope that Stripes leaves behind in the session
+    return new RedirectResolution(OrderActionBean.class, "viewOrder").addParameter("orderId", order.getOrderId())
+        .addParameter("placed", true);
+  }
 
-      return new ForwardResolution(VIEW_ORDER);
-    } else {
-      setMessage("An error occurred processing your order (order was null).");
-      return new ForwardResolution(ERROR);
+  /**
+   * Keeps the payment details posted by the new order form in the session, or puts those kept for the posted checkout
+   * token back on the order.
+   *
+   * @return false if the posted token is not the one of the current checkout
+   */
+  private boolean keepPaymentDetails() {
+    UserSession userSession = getUserSession();
+    if (checkoutToken == null) {
+      checkoutToken = userSession.startCheckout(order.getCardType(), order.getCreditCard(), order.getExpiryDate());
+      saveUserSession(userSession);
+      return true;
     }
+    UserSession.PaymentDraft draft = userSession.getPaymentDraft(checkoutToken);
+    if (draft == null) {
+      checkoutToken = null;
+      return false;
+    }
+    order.setCardType(draft.getCardType());
+    order.setCreditCard(draft.getCreditCard());
+    order.setExpiryDate(draft.getExpiryDate());
+    return true;
   }
 
   /**
@@ -169,13 +250,19 @@ public class OrderActionBean extends AbstractActionBean {
    * @return the resolution
    */
   public Resolution viewOrder() {
-    HttpSession session = context.getRequest().getSession();
-
-    AccountActionBean accountBean = (AccountActionBean) session.getAttribute("accountBean");
+    CurrentUser user = getCurrentUser();
+    int orderId = order.getOrderId();
+    if (orderId == 0) {
+      UserSession userSession = findUserSession();
+      orderId = userSession == null ? 0 : userSession.getOrderId();
+    }
 
-    order = orderService.getOrder(order.getOrderId());
+    order = user.isAuthenticated() ? orderService.getOrder(orderId) : null;
 
-    if (accountBean.getAccount().getUsername().equals(order.getUsername())) {
+    if (order != null && user.getUsername().equals(order.getUsername())) {
+      if (placed) {
+        setMessage("Thank you, your order has been submitted.");
+      }
       return new ForwardResolution(VIEW_ORDER);
     } else {
       order = null;
@@ -184,14 +271,4 @@ public class OrderActionBean extends AbstractActionBean {
     }
   }
 
-  /**
-   * Clear.
-   */
-  public void clear() {
-    order = new Order();
-    shippingAddressRequired = false;
-    confirmed = false;
-    orderList = null;
-  }
-
 }
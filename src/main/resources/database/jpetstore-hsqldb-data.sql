@@ -29,7 +29,7 @@ create table SUPPLIER (
 
 create table SIGNON (
     username varchar(25) not null,
-    password varchar(25)  not null,
+    password varchar(128)  not null,
     constraint pk_signon primary key (username)
 );
 
@@ -29,7 +29,7 @@ create table supplier (
 
 create table signon (
     username varchar(25) not null,
-    password varchar(25)  not null,
+    password varchar(128)  not null,
     constraint pk_signon primary key (username)
 );
 
@@ -157,6 +157,16 @@ create table inventory (
     constraint pk_inventory primary key (itemid)
 );
 
+create table inventoryledger (
+    orderid int not null,
+    constraint pk_inventoryledger primary key (orderid)
+);
+
+create table orderjournal (
+    orderid int not null,
+    constraint pk_orderjournal primary key (orderid)
+);
+
 CREATE TABLE sequence
 (
     name               varchar(30)  not null,
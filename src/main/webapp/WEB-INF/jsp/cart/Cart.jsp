@@ -90,11 +90,9 @@
 </c:if></div>
 
 <div id="MyList">
-  <c:if test="${sessionScope.accountBean != null}">
-	<c:if test="${!sessionScope.accountBean.authenticated}">
-	  <c:if test="${!empty sessionScope.accountBean.account.listOption}">
-	    <%@ include file="IncludeMyList.jsp"%>
-      </c:if>
+  <c:if test="${actionBean.currentUser.authenticated}">
+	<c:if test="${actionBean.currentUser.account.listOption}">
+	  <%@ include file="IncludeMyList.jsp"%>
 	</c:if>
   </c:if>
 </div>
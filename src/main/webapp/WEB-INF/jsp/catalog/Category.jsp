@@ -41,6 +41,25 @@
 			<td>${product.name}</td>
 		</tr>
 	</c:forEach>
+	<tr>
+		<td><c:if test="${not empty param.lastProductId}">
+			<stripes:link
+				beanclass="org.mybatis.jpetstore.web.actions.CatalogActionBean"
+				event="viewCategory">
+				<stripes:param name="categoryId" value="${actionBean.categoryId}" />
+				&lt;&lt; First Page
+			</stripes:link>
+		</c:if></td>
+		<td><c:if test="${actionBean.nextProductId != null}">
+			<stripes:link
+				beanclass="org.mybatis.jpetstore.web.actions.CatalogActionBean"
+				event="viewCategory">
+				<stripes:param name="categoryId" value="${actionBean.categoryId}" />
+				<stripes:param name="lastProductId" value="${actionBean.nextProductId}" />
+				Next Page &gt;&gt;
+			</stripes:link>
+		</c:if></td>
+	</tr>
 </table>
 
 </div>
@@ -19,10 +19,8 @@
 
 <div id="Welcome">
 <div id="WelcomeContent"><c:if
-	test="${sessionScope.accountBean != null }">
-	<c:if test="${sessionScope.accountBean.authenticated}">
-        Welcome ${sessionScope.accountBean.account.firstName}!
-      </c:if>
+	test="${actionBean.currentUser.authenticated}">
+        Welcome ${actionBean.currentUser.account.firstName}!
 </c:if></div>
 </div>
 
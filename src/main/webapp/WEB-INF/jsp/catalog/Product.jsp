@@ -62,8 +62,25 @@
 		</tr>
 	</c:forEach>
 	<tr>
-		<td>
+		<td><c:if test="${not empty param.lastItemId}">
+			<stripes:link
+				beanclass="org.mybatis.jpetstore.web.actions.CatalogActionBean"
+				event="viewProduct">
+				<stripes:param name="productId" value="${actionBean.productId}" />
+				&lt;&lt; First Page
+			</stripes:link>
+		</c:if></td>
+		<td colspan="3">
 		</td>
+		<td><c:if test="${actionBean.nextItemId != null}">
+			<stripes:link
+				beanclass="org.mybatis.jpetstore.web.actions.CatalogActionBean"
+				event="viewProduct">
+				<stripes:param name="productId" value="${actionBean.productId}" />
+				<stripes:param name="lastItemId" value="${actionBean.nextItemId}" />
+				Next Page &gt;&gt;
+			</stripes:link>
+		</c:if></td>
 	</tr>
 </table>
 
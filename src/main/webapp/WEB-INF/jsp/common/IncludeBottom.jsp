@@ -22,12 +22,10 @@
 <div id="PoweredBy">&nbsp;<a href="http://www.mybatis.org">www.mybatis.org</a>
 </div>
 
-<div id="Banner"><c:if test="${sessionScope.accountBean != null }">
-	<c:if test="${sessionScope.accountBean.authenticated}">
-		<c:if test="${sessionScope.accountBean.account.bannerOption}">
-          ${sessionScope.accountBean.account.bannerName}
+<div id="Banner"><c:if test="${actionBean.currentUser.authenticated}">
+	<c:if test="${actionBean.currentUser.account.bannerOption}">
+          ${actionBean.currentUser.account.bannerName}
         </c:if>
-	</c:if>
 </c:if></div>
 
 </div>
@@ -59,34 +59,24 @@
 	event="viewCart">
 	<img align="middle" name="img_cart" src="../images/cart.gif" />
 </stripes:link> <img align="middle" src="../images/separator.gif" /> <c:if
-	test="${sessionScope.accountBean == null}">
+	test="${!actionBean.currentUser.authenticated}">
 	<stripes:link
 		beanclass="org.mybatis.jpetstore.web.actions.AccountActionBean"
 		event="signonForm">
           Sign In
 	    </stripes:link>
-</c:if> <c:if test="${sessionScope.accountBean != null}">
-	<c:if test="${!sessionScope.accountBean.authenticated}">
-		<stripes:link
-			beanclass="org.mybatis.jpetstore.web.actions.AccountActionBean"
-			event="signonForm">
-            Sign In
-	      </stripes:link>
-	</c:if>
-</c:if> <c:if test="${sessionScope.accountBean != null}">
-	<c:if test="${sessionScope.accountBean.authenticated}">
-		<stripes:link
-			beanclass="org.mybatis.jpetstore.web.actions.AccountActionBean"
-			event="signoff">
-            Sign Out
-	      </stripes:link>
-		<img align="middle" src="../images/separator.gif" />
-		<stripes:link
-			beanclass="org.mybatis.jpetstore.web.actions.AccountActionBean"
-			event="editAccountForm">
-            My Account
-	      </stripes:link>
-	</c:if>
+</c:if> <c:if test="${actionBean.currentUser.authenticated}">
+	<stripes:link
+		beanclass="org.mybatis.jpetstore.web.actions.AccountActionBean"
+		event="signoff">
+          Sign Out
+	    </stripes:link>
+	<img align="middle" src="../images/separator.gif" />
+	<stripes:link
+		beanclass="org.mybatis.jpetstore.web.actions.AccountActionBean"
+		event="editAccountForm">
+          My Account
+	    </stripes:link>
 </c:if> <img align="middle" src="../images/separator.gif" /> <a
 	href="../help.html">?</a></div>
 </div>
@@ -107,12 +107,13 @@ press continue...
 
 </table>
 
-<stripes:link class="Button"
-	beanclass="org.mybatis.jpetstore.web.actions.OrderActionBean"
-	event="newOrder">
-	<stripes:param name="confirmed" value="true" />
-Confirm
-</stripes:link></div>
+<stripes:form
+	beanclass="org.mybatis.jpetstore.web.actions.OrderActionBean">
+	<%@ include file="IncludeBillingFields.jsp"%>
+	<%@ include file="IncludeShippingFields.jsp"%>
+	<input type="hidden" name="confirmed" value="true" />
+	<stripes:submit class="Button" name="newOrder" value="Confirm" />
+</stripes:form></div>
 
 <%@ include file="../common/IncludeBottom.jsp"%>
 
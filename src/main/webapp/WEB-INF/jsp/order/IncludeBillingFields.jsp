@@ -0,0 +1,28 @@
+<%--
+
+       Copyright 2010-2026 the original author or authors.
+
+       Licensed under the Apache License, Version 2.0 (the "License");
+       you may not use this file except in compliance with the License.
+       You may obtain a copy of the License at
+
+          https://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing, software
+       distributed under the License is distributed on an "AS IS" BASIS,
+       WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+       See the License for the specific language governing permissions and
+       limitations under the License.
+
+--%>
+<%-- The order is rebuilt on every request, so the checkout steps carry the fields entered so far.
+     The payment details stay in the session, only the token of the checkout is sent back. --%>
+<stripes:hidden name="checkoutToken" />
+<stripes:hidden name="order.billToFirstName" />
+<stripes:hidden name="order.billToLastName" />
+<stripes:hidden name="order.billAddress1" />
+<stripes:hidden name="order.billAddress2" />
+<stripes:hidden name="order.billCity" />
+<stripes:hidden name="order.billState" />
+<stripes:hidden name="order.billZip" />
+<stripes:hidden name="order.billCountry" />
@@ -0,0 +1,25 @@
+<%--
+
+       Copyright 2010-2026 the original author or authors.
+
+       Licensed under the Apache License, Version 2.0 (the "License");
+       you may not use this file except in compliance with the License.
+       You may obtain a copy of the License at
+
+          https://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing, software
+       distributed under the License is distributed on an "AS IS" BASIS,
+       WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+       See the License for the specific language governing permissions and
+       limitations under the License.
+
+--%>
+<stripes:hidden name="order.shipToFirstName" />
+<stripes:hidden name="order.shipToLastName" />
+<stripes:hidden name="order.shipAddress1" />
+<stripes:hidden name="order.shipAddress2" />
+<stripes:hidden name="order.shipCity" />
+<stripes:hidden name="order.shipState" />
+<stripes:hidden name="order.shipZip" />
+<stripes:hidden name="order.shipCountry" />
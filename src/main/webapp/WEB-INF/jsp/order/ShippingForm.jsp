@@ -61,6 +61,8 @@
 
 	</table>
 
+	<%@ include file="IncludeBillingFields.jsp"%>
+
 	<stripes:submit name="newOrder" value="Continue" />
 
 </stripes:form></div>
@@ -145,7 +145,7 @@ class ScreenTransitionIT {
     $(By.cssSelector("#Catalog")).shouldBe(text("Please confirm the information below and then press continue..."));
 
     // Submit order
-    $(By.linkText("Confirm")).click();
+    $(By.name("newOrder")).click();
     $(By.cssSelector(".messages li")).shouldBe(text("Thank you, your order has been submitted."));
     String orderId = extractOrderId($(By.cssSelector(CSS_CATALOG_TABLE_TR)).text());
 
@@ -0,0 +1,206 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.cart;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A local stand-in for Redis speaking enough RESP2 for {@link RedisCartStore}: PING, AUTH, SELECT, GET, SET with EX,
+ * DEL and EXPIRE. Keys never expire, the time to live of the last SET of each key is recorded instead.
+ */
+class FakeRedisServer implements Closeable {
+
+  private final ServerSocket serverSocket;
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+  private final Map<String, Long> timesToLive = new ConcurrentHashMap<>();
+  private final Queue<Socket> clients = new ConcurrentLinkedQueue<>();
+  private final Queue<String> commands = new ConcurrentLinkedQueue<>();
+  private final String password;
+
+  FakeRedisServer(String password) throws IOException {
+    this.password = password;
+    this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    executor.execute(this::accept);
+  }
+
+  int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  Map<String, byte[]> getValues() {
+    return values;
+  }
+
+  Long getTimeToLive(String key) {
+    return timesToLive.get(key);
+  }
+
+  List<String> getCommands() {
+    return new ArrayList<>(commands);
+  }
+
+  /**
+   * Closes the client connections, as a server restart or an idle timeout would.
+   */
+  void disconnectClients() throws IOException {
+    for (Socket client = clients.poll(); client != null; client = clients.poll()) {
+      client.close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    disconnectClients();
+    executor.shutdownNow();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket client = serverSocket.accept();
+        clients.add(client);
+        executor.execute(() -> serve(client));
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void serve(Socket client) {
+    boolean authenticated = password == null;
+    try (Socket socket = client) {
+      InputStream in = new BufferedInputStream(socket.getInputStream());
+      OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+      for (List<byte[]> command = readCommand(in); command != null; command = readCommand(in)) {
+        String name = text(command.get(0)).toUpperCase();
+        commands.add(name);
+        if (!authenticated && !"AUTH".equals(name)) {
+          writeLine(out, "-NOAUTH Authentication required.");
+        } else {
+          switch (name) {
+            case "PING":
+              writeLine(out, "+PONG");
+              break;
+            case "AUTH":
+              authenticated = text(command.get(1)).equals(password);
+              writeLine(out, authenticated ? "+OK" : "-WRONGPASS invalid password");
+              break;
+            case "SELECT":
+              writeLine(out, "+OK");
+              break;
+            case "GET":
+              writeBulk(out, values.get(text(command.get(1))));
+              break;
+            case "SET":
+              String key = text(command.get(1));
+              values.put(key, command.get(2));
+              if (command.size() == 5 && "EX".equalsIgnoreCase(text(command.get(3)))) {
+                timesToLive.put(key, Long.valueOf(text(command.get(4))));
+              } else {
+                timesToLive.remove(key);
+              }
+              writeLine(out, "+OK");
+              break;
+            case "DEL":
+              writeLine(out, ":" + (values.remove(text(command.get(1))) == null ? 0 : 1));
+              break;
+            case "EXPIRE":
+              timesToLive.put(text(command.get(1)), Long.valueOf(text(command.get(2))));
+              writeLine(out, ":1");
+              break;
+            default:
+              writeLine(out, "-ERR unknown command '" + name + "'");
+          }
+        }
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the client went away
+    }
+  }
+
+  private static List<byte[]> readCommand(InputStream in) throws IOException {
+    int type = in.read();
+    if (type == -1) {
+      return null;
+    }
+    if (type != '*') {
+      throw new IOException("Expected an array, got " + (char) type);
+    }
+    int count = Integer.parseInt(readLine(in));
+    List<byte[]> command = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      if (in.read() != '$') {
+        throw new IOException("Expected a bulk string");
+      }
+      int length = Integer.parseInt(readLine(in));
+      command.add(in.readNBytes(length));
+      readLine(in);
+    }
+    return command;
+  }
+
+  private static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    for (int b = in.read(); b != '\r'; b = in.read()) {
+      if (b == -1) {
+        throw new IOException("Connection closed");
+      }
+      line.write(b);
+    }
+    in.read();
+    return line.toString(StandardCharsets.UTF_8);
+  }
+
+  private static void writeLine(OutputStream out, String line) throws IOException {
+    out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+    if (value == null) {
+      writeLine(out, "$-1");
+      return;
+    }
+    writeLine(out, "$" + value.length);
+    out.write(value);
+    out.write(new byte[] { '\r', '\n' });
+  }
+
+  private static String text(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.cart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileCartStoreTest {
+
+  private static final int CAPACITY = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldPutGetAndRemoveCarts() throws Exception {
+    // given
+    MappedFileCartStore store = open(Clock.systemUTC());
+
+    // when
+    store.put("user:j2ee", new byte[] { 1, 2, 3 });
+    store.put("visitor:1", new byte[] { 4 });
+    store.put("user:j2ee", new byte[] { 5, 6 });
+    store.remove("visitor:1");
+
+    // then
+    assertThat(store.get("user:j2ee")).containsExactly(5, 6);
+    assertThat(store.get("visitor:1")).isNull();
+    assertThat(store.get("visitor:2")).isNull();
+    store.close();
+  }
+
+  @Test
+  void shouldKeepTheCartsAcrossRestarts() throws Exception {
+    // given
+    MappedFileCartStore store = open(Clock.systemUTC());
+    store.put("user:j2ee", new byte[] { 1, 2, 3 });
+    store.put("visitor:1", new byte[] { 4 });
+    store.remove("visitor:1");
+    store.close();
+
+    // when
+    MappedFileCartStore reopened = open(Clock.systemUTC());
+
+    // then
+    assertThat(reopened.get("user:j2ee")).containsExactly(1, 2, 3);
+    assertThat(reopened.get("visitor:1")).isNull();
+    reopened.put("visitor:2", new byte[] { 7 });
+    assertThat(reopened.get("visitor:2")).containsExactly(7);
+    reopened.close();
+  }
+
+  @Test
+  void shouldIgnoreATornRecordAtRestart() throws Exception {
+    // given
+    MappedFileCartStore store = open(Clock.systemUTC());
+    store.put("user:j2ee", new byte[] { 1, 2, 3 });
+    int tornRecord = store.getUsedBytes() - Integer.BYTES;
+    store.put("user:ACID", new byte[] { 4, 5, 6 });
+    store.close();
+    try (RandomAccessFile file = new RandomAccessFile(directory.resolve("carts").toFile(), "rw")) {
+      file.seek(tornRecord + 2 * Integer.BYTES + 9);
+      file.write(0x7F);
+    }
+
+    // when
+    MappedFileCartStore reopened = open(Clock.systemUTC());
+
+    // then
+    assertThat(reopened.get("user:j2ee")).containsExactly(1, 2, 3);
+    assertThat(reopened.get("user:ACID")).isNull();
+    assertThat(reopened.getUsedBytes()).isEqualTo(tornRecord + Integer.BYTES);
+    reopened.close();
+  }
+
+  @Test
+  void shouldCompactWhenFull() throws Exception {
+    // given
+    MappedFileCartStore store = open(Clock.systemUTC());
+    byte[] cart = new byte[100];
+
+    // when: far more writes than the file holds, on few keys
+    for (int i = 0; i < 500; i++) {
+      cart[0] = (byte) i;
+      store.put("visitor:" + i % 5, cart.clone());
+    }
+
+    // then
+    assertThat(store.getUsedBytes()).isLessThan(CAPACITY);
+    for (int i = 495; i < 500; i++) {
+      assertThat(store.get("visitor:" + i % 5)[0]).isEqualTo((byte) i);
+    }
+    store.close();
+    MappedFileCartStore reopened = open(Clock.systemUTC());
+    assertThat(reopened.get("visitor:4")[0]).isEqualTo((byte) 499);
+    reopened.close();
+  }
+
+  @Test
+  void shouldEvictTheCartsThatExpireSoonestWhenTheLiveCartsDoNotFit() throws Exception {
+    // given
+    MutableClock clock = new MutableClock();
+    MappedFileCartStore store = open(clock);
+    int compactions = 0;
+
+    // when: far more live carts than the file holds
+    for (int i = 0; i < 100; i++) {
+      int usedBefore = store.getUsedBytes();
+      store.put("visitor:" + i, new byte[100]);
+      if (store.getUsedBytes() < usedBefore) {
+        compactions++;
+      }
+      clock.advance(Duration.ofSeconds(1));
+    }
+
+    // then
+    assertThat(store.getUsedBytes()).isLessThanOrEqualTo(CAPACITY);
+    assertThat(store.get("visitor:0")).isNull();
+    assertThat(store.get("visitor:98")).hasSize(100);
+    assertThat(store.get("visitor:99")).hasSize(100);
+    // each compaction leaves a quarter of the file free
+    assertThat(compactions).isBetween(1, 15);
+    store.close();
+    MappedFileCartStore reopened = open(clock);
+    assertThat(reopened.get("visitor:0")).isNull();
+    assertThat(reopened.get("visitor:99")).hasSize(100);
+    reopened.close();
+  }
+
+  @Test
+  void shouldDropACartTooLargeForTheStore() throws Exception {
+    // given
+    MappedFileCartStore store = open(Clock.systemUTC());
+    store.put("visitor:1", new byte[] { 1 });
+    store.put("visitor:2", new byte[] { 2 });
+
+    // when
+    store.put("visitor:1", new byte[CAPACITY]);
+
+    // then
+    assertThat(store.get("visitor:1")).isNull();
+    assertThat(store.get("visitor:2")).containsExactly(2);
+    store.close();
+  }
+
+  @Test
+  void shouldExpireCartsNotWrittenForTheTimeToLive() throws Exception {
+    // given
+    MutableClock clock = new MutableClock();
+    MappedFileCartStore store = open(clock);
+    store.put("visitor:1", new byte[] { 1 });
+    clock.advance(Duration.ofMinutes(30));
+    store.put("visitor:2", new byte[] { 2 });
+
+    // when
+    clock.advance(Duration.ofMinutes(45));
+
+    // then
+    assertThat(store.get("visitor:1")).isNull();
+    assertThat(store.get("visitor:2")).containsExactly(2);
+    store.close();
+  }
+
+  private MappedFileCartStore open(Clock clock) throws Exception {
+    return new MappedFileCartStore(directory.resolve("carts"), CAPACITY, Duration.ofHours(1), clock);
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.cart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RedisCartStoreTest {
+
+  private FakeRedisServer server;
+  private RedisCartStore store;
+
+  @BeforeEach
+  void startServer() throws Exception {
+    server = new FakeRedisServer("secret");
+    store = new RedisCartStore("localhost", server.getPort(), "secret", 2, Duration.ofSeconds(2), 4, "cart:",
+        Duration.ofHours(1));
+  }
+
+  @AfterEach
+  void stopServer() throws Exception {
+    store.close();
+    server.close();
+  }
+
+  @Test
+  void shouldPutGetAndRemoveCartsUnderThePrefixedKey() {
+    // given
+    byte[] cart = { 1, 2, 0, '\r', '\n', (byte) 0xFF };
+
+    // when
+    store.put("user:j2ee", cart);
+    byte[] read = store.get("user:j2ee");
+    store.remove("user:j2ee");
+
+    // then
+    assertThat(read).containsExactly(cart);
+    assertThat(store.get("user:j2ee")).isNull();
+    assertThat(server.getTimeToLive("cart:user:j2ee")).isEqualTo(3600L);
+    assertThat(server.getCommands()).containsSubsequence("AUTH", "SELECT", "SET", "GET", "DEL", "GET");
+  }
+
+  @Test
+  void shouldReuseConnections() {
+    // when
+    for (int i = 0; i < 10; i++) {
+      store.put("visitor:" + i, new byte[] { (byte) i });
+    }
+
+    // then
+    assertThat(server.getCommands()).filteredOn("AUTH"::equals).hasSize(1);
+    assertThat(server.getValues()).hasSize(10);
+  }
+
+  @Test
+  void shouldReconnectWhenTheServerClosedTheConnection() throws Exception {
+    // given
+    store.put("user:j2ee", new byte[] { 1 });
+    server.disconnectClients();
+
+    // when
+    byte[] read = store.get("user:j2ee");
+
+    // then
+    assertThat(read).containsExactly(1);
+    assertThat(server.getCommands()).filteredOn("AUTH"::equals).hasSize(2);
+  }
+
+  @Test
+  void shouldReportErrorRepliesWithoutRetrying() {
+    // given
+    RedisCartStore unauthenticated = new RedisCartStore("localhost", server.getPort(), null, 0, Duration.ofSeconds(2),
+        4, "cart:", Duration.ofHours(1));
+
+    // when, then
+    assertThatThrownBy(() -> unauthenticated.get("user:j2ee")).isInstanceOf(RedisCartStore.RedisException.class)
+        .hasMessageStartingWith("NOAUTH");
+    assertThat(server.getCommands()).filteredOn("GET"::equals).hasSize(1);
+    unauthenticated.close();
+  }
+
+  @Test
+  void shouldFailWhenTheServerIsDown() throws Exception {
+    // given
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    RedisCartStore down = new RedisCartStore("localhost", port, null, 0, Duration.ofMillis(200), 4, "cart:",
+        Duration.ofHours(1));
+
+    // when, then
+    assertThatThrownBy(() -> down.put("user:j2ee", new byte[] { 1 })).isInstanceOf(UncheckedIOException.class)
+        .hasMessageContaining("SET");
+  }
+
+}
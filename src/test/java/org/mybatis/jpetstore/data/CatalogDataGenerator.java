@@ -0,0 +1,500 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.hsqldb.jdbc.JDBCDriver;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Generates a large synthetic JPetStore database: categories, products, items, inventory, accounts, orders and line
+ * items, on top of the demo data. The same settings and seed always produce the same rows.
+ * <p>
+ * {@link #openOrGenerate(Path)} keeps the result as an HSQLDB file database named after the settings and opens a copy
+ * of it, so benchmarks and tests generate it once and always start from the same data. The copy is deleted when it is
+ * closed.
+ * <p>
+ * Run {@code mvn -Pdatagen test-compile exec:java@datagen -Ddatagen.products=1000000} to generate one from the command
+ * line; every setting can be given as a {@code datagen.*} system property.
+ */
+public class CatalogDataGenerator {
+
+  private static final String[] DEMO_CATEGORIES = { "FISH", "DOGS", "REPTILES", "CATS", "BIRDS" };
+  private static final String[] WORDS = { "dog", "cat", "fish", "bird", "snake", "lizard", "parrot", "poodle", "koi",
+      "iguana", "friendly", "tiny", "spotted", "striped", "golden", "green", "salt", "water", "fresh", "long", "haired",
+      "large", "small", "adult", "young", "male", "female" };
+  private static final int BATCH_SIZE = 1000;
+  private static final int COMMIT_SIZE = 50_000;
+  private static final int FIRST_ORDER_ID = 1000;
+
+  private int categories = 5;
+  private int products = 10_000;
+  private int itemsPerProduct = 4;
+  private int accounts = 1000;
+  private int orders = 10_000;
+  private int linesPerOrder = 5;
+  private long seed = 42;
+
+  /**
+   * Creates a generator configured from the {@code datagen.*} system properties.
+   *
+   * @return the generator
+   */
+  public static CatalogDataGenerator fromSystemProperties() {
+    CatalogDataGenerator generator = new CatalogDataGenerator();
+    generator.setCategories(Integer.getInteger("datagen.categories", generator.categories));
+    generator.setProducts(Integer.getInteger("datagen.products", generator.products));
+    generator.setItemsPerProduct(Integer.getInteger("datagen.itemsPerProduct", generator.itemsPerProduct));
+    generator.setAccounts(Integer.getInteger("datagen.accounts", generator.accounts));
+    generator.setOrders(Integer.getInteger("datagen.orders", generator.orders));
+    generator.setLinesPerOrder(Integer.getInteger("datagen.linesPerOrder", generator.linesPerOrder));
+    generator.setSeed(Long.getLong("datagen.seed", generator.seed));
+    return generator;
+  }
+
+  public static void main(String[] args) throws Exception {
+    CatalogDataGenerator generator = fromSystemProperties();
+    Path directory = Paths.get(System.getProperty("datagen.directory", "target/datagen"));
+    long start = System.nanoTime();
+    generator.openOrGenerate(directory);
+    System.out.printf("%s ready in %d ms%n", generator.databaseFile(directory),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  public int getCategories() {
+    return categories;
+  }
+
+  public void setCategories(int categories) {
+    this.categories = categories;
+  }
+
+  public int getProducts() {
+    return products;
+  }
+
+  public void setProducts(int products) {
+    this.products = products;
+  }
+
+  public int getItemsPerProduct() {
+    return itemsPerProduct;
+  }
+
+  public void setItemsPerProduct(int itemsPerProduct) {
+    this.itemsPerProduct = itemsPerProduct;
+  }
+
+  public int getItems() {
+    return products * itemsPerProduct;
+  }
+
+  public int getAccounts() {
+    return accounts;
+  }
+
+  public void setAccounts(int accounts) {
+    this.accounts = accounts;
+  }
+
+  public int getOrders() {
+    return orders;
+  }
+
+  public void setOrders(int orders) {
+    this.orders = orders;
+  }
+
+  public int getLinesPerOrder() {
+    return linesPerOrder;
+  }
+
+  public void setLinesPerOrder(int linesPerOrder) {
+    this.linesPerOrder = linesPerOrder;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public static String categoryId(int index) {
+    return index < DEMO_CATEGORIES.length ? DEMO_CATEGORIES[index] : String.format("CAT-%05d", index);
+  }
+
+  public static String productId(int index) {
+    return String.format("P%09d", index);
+  }
+
+  public static String itemId(int index) {
+    return String.format("I%09d", index);
+  }
+
+  public static String username(int index) {
+    return String.format("user%07d", index);
+  }
+
+  public static int orderId(int index) {
+    return FIRST_ORDER_ID + index;
+  }
+
+  /**
+   * Opens the file database generated with these settings in {@code directory}, generating it first if needed.
+   *
+   * @param directory
+   *          the directory holding the generated databases
+   *
+   * @return a fresh working copy of the database, to close once done with it
+   *
+   * @throws SQLException
+   *           if the database cannot be generated
+   * @throws IOException
+   *           if the directory cannot be written
+   */
+  public WorkingCopy openOrGenerate(Path directory) throws SQLException, IOException {
+    Path file = databaseFile(directory);
+    Path complete = Paths.get(file + ".complete");
+    if (!Files.exists(complete)) {
+      Files.createDirectories(directory);
+      SimpleDriverDataSource dataSource = dataSource("jdbc:hsqldb:file:" + file);
+      try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+        statement.execute("SET DATABASE DEFAULT TABLE TYPE CACHED");
+        statement.execute("SET FILES LOG FALSE");
+      }
+      generate(dataSource);
+      try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+        statement.execute("SET FILES LOG TRUE");
+        statement.execute("SHUTDOWN COMPACT");
+      }
+      Files.createFile(complete);
+    }
+
+    Path work = Files.createTempDirectory(directory, "work-");
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path source : (Iterable<Path>) files::iterator) {
+        String name = source.getFileName().toString();
+        if (name.startsWith(file.getFileName() + ".") && !source.equals(complete) && Files.isRegularFile(source)) {
+          Files.copy(source, work.resolve(name));
+        }
+      }
+    }
+    return new WorkingCopy(work, dataSource("jdbc:hsqldb:file:" + work.resolve(file.getFileName())));
+  }
+
+  /**
+   * Creates the schema and the demo data in an empty database, then adds the synthetic rows.
+   *
+   * @param dataSource
+   *          the data source of an empty database
+   *
+   * @throws SQLException
+   *           if an insert fails
+   */
+  public void generate(DataSource dataSource) throws SQLException {
+    ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+        new ClassPathResource("database/jpetstore-hsqldb-schema.sql"),
+        new ClassPathResource("database/jpetstore-hsqldb-dataload.sql"));
+    populator.setSqlScriptEncoding("UTF-8");
+    populator.setIgnoreFailedDrops(true);
+    populator.execute(dataSource);
+
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      insertCategories(connection);
+      insertProducts(connection);
+      insertItems(connection);
+      insertAccounts(connection);
+      insertOrders(connection);
+      try (PreparedStatement statement = connection
+          .prepareStatement("UPDATE SEQUENCE SET NEXTID = ? WHERE NAME = 'ordernum'")) {
+        statement.setInt(1, orderId(orders));
+        statement.executeUpdate();
+      }
+      connection.commit();
+    }
+  }
+
+  Path databaseFile(Path directory) {
+    return directory.resolve(String.format("jpetstore-c%d-p%d-i%d-a%d-o%d-l%d-s%d", categories, products,
+        itemsPerProduct, accounts, orders, linesPerOrder, seed));
+  }
+
+  private void insertCategories(Connection connection) throws SQLException {
+    try (Batch batch = new Batch(connection, "INSERT INTO CATEGORY (CATID, NAME, DESCN) VALUES (?, ?, ?)")) {
+      for (int i = DEMO_CATEGORIES.length; i < categories; i++) {
+        batch.statement.setString(1, categoryId(i));
+        batch.statement.setString(2, "Category " + i);
+        batch.statement.setString(3, "Synthetic category " + i);
+        batch.add();
+      }
+    }
+  }
+
+  private void insertProducts(Connection connection) throws SQLException {
+    SplittableRandom random = new SplittableRandom(seed);
+    try (Batch batch = new Batch(connection,
+        "INSERT INTO PRODUCT (PRODUCTID, CATEGORY, NAME, DESCN) VALUES (?, ?, ?, ?)")) {
+      for (int i = 0; i < products; i++) {
+        batch.statement.setString(1, productId(i));
+        batch.statement.setString(2, categoryId(i % categories));
+        batch.statement.setString(3, words(random, 2));
+        batch.statement.setString(4, words(random, 6));
+        batch.add();
+      }
+    }
+  }
+
+  private void insertItems(Connection connection) throws SQLException {
+    SplittableRandom random = new SplittableRandom(seed + 1);
+    try (
+        Batch items = new Batch(connection,
+            "INSERT INTO ITEM (ITEMID, PRODUCTID, LISTPRICE, UNITCOST, SUPPLIER, "
+                + "STATUS, ATTR1, ATTR2) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        Batch inventory = new Batch(connection, "INSERT INTO INVENTORY (ITEMID, QTY) VALUES (?, ?)")) {
+      for (int i = 0; i < getItems(); i++) {
+        BigDecimal price = listPrice(i);
+        items.statement.setString(1, itemId(i));
+        items.statement.setString(2, productId(i / itemsPerProduct));
+        items.statement.setBigDecimal(3, price);
+        items.statement.setBigDecimal(4, price.divide(BigDecimal.valueOf(2)).setScale(2, RoundingMode.DOWN));
+        items.statement.setInt(5, 1 + random.nextInt(2));
+        items.statement.setString(6, "P");
+        items.statement.setString(7, words(random, 1));
+        items.statement.setString(8, words(random, 1));
+        items.add();
+        inventory.statement.setString(1, itemId(i));
+        inventory.statement.setInt(2, 10_000 + random.nextInt(10_000));
+        inventory.add();
+      }
+    }
+  }
+
+  private void insertAccounts(Connection connection) throws SQLException {
+    try (Batch signon = new Batch(connection, "INSERT INTO SIGNON (USERNAME, PASSWORD) VALUES (?, ?)");
+        Batch account = new Batch(connection,
+            "INSERT INTO ACCOUNT (USERID, EMAIL, FIRSTNAME, LASTNAME, STATUS, "
+                + "ADDR1, ADDR2, CITY, STATE, ZIP, COUNTRY, PHONE) VALUES (?, ?, ?, ?, 'OK', ?, NULL, ?, ?, ?, ?, ?)");
+        Batch profile = new Batch(connection, "INSERT INTO PROFILE (USERID, LANGPREF, FAVCATEGORY, MYLISTOPT, "
+            + "BANNEROPT) VALUES (?, 'english', ?, 1, 1)")) {
+      for (int i = 0; i < accounts; i++) {
+        String username = username(i);
+        signon.statement.setString(1, username);
+        signon.statement.setString(2, username);
+        signon.add();
+        account.statement.setString(1, username);
+        account.statement.setString(2, username + "@example.com");
+        account.statement.setString(3, "First" + i);
+        account.statement.setString(4, "Last" + i);
+        account.statement.setString(5, i + " Main Street");
+        account.statement.setString(6, "Palo Alto");
+        account.statement.setString(7, "CA");
+        account.statement.setString(8, "94303");
+        account.statement.setString(9, "USA");
+        account.statement.setString(10, "555-555-5555");
+        account.add();
+        profile.statement.setString(1, username);
+        profile.statement.setString(2, categoryId(i % Math.min(categories, DEMO_CATEGORIES.length)));
+        profile.add();
+      }
+    }
+  }
+
+  private void insertOrders(Connection connection) throws SQLException {
+    if (accounts == 0 || getItems() == 0) {
+      return;
+    }
+    SplittableRandom random = new SplittableRandom(seed + 2);
+    Date firstDay = Date.valueOf("2020-01-01");
+    try (
+        Batch order = new Batch(connection,
+            "INSERT INTO ORDERS (ORDERID, USERID, ORDERDATE, SHIPADDR1, SHIPCITY, "
+                + "SHIPSTATE, SHIPZIP, SHIPCOUNTRY, BILLADDR1, BILLCITY, BILLSTATE, BILLZIP, BILLCOUNTRY, COURIER, "
+                + "TOTALPRICE, BILLTOFIRSTNAME, BILLTOLASTNAME, SHIPTOFIRSTNAME, SHIPTOLASTNAME, CREDITCARD, EXPRDATE, "
+                + "CARDTYPE, LOCALE) VALUES (?, ?, ?, ?, 'Palo Alto', 'CA', '94303', 'USA', ?, 'Palo Alto', 'CA', "
+                + "'94303', 'USA', 'UPS', ?, ?, ?, ?, ?, '999 9999 9999 9999', '12/03', 'Visa', 'CA')");
+        Batch status = new Batch(connection,
+            "INSERT INTO ORDERSTATUS (ORDERID, LINENUM, TIMESTAMP, STATUS) VALUES (?, ?, ?, 'P')");
+        Batch line = new Batch(connection,
+            "INSERT INTO LINEITEM (ORDERID, LINENUM, ITEMID, QUANTITY, UNITPRICE) VALUES (?, ?, ?, ?, ?)")) {
+      for (int i = 0; i < orders; i++) {
+        int orderId = orderId(i);
+        int customer = random.nextInt(accounts);
+        Date orderDate = new Date(firstDay.getTime() + random.nextInt(2000) * 86_400_000L);
+        BigDecimal total = BigDecimal.ZERO;
+        int lines = 1 + random.nextInt(linesPerOrder);
+        for (int lineNumber = 1; lineNumber <= lines; lineNumber++) {
+          int item = random.nextInt(getItems());
+          int quantity = 1 + random.nextInt(3);
+          BigDecimal price = listPrice(item);
+          total = total.add(price.multiply(BigDecimal.valueOf(quantity)));
+          line.statement.setInt(1, orderId);
+          line.statement.setInt(2, lineNumber);
+          line.statement.setString(3, itemId(item));
+          line.statement.setInt(4, quantity);
+          line.statement.setBigDecimal(5, price);
+          line.add();
+        }
+        order.statement.setInt(1, orderId);
+        order.statement.setString(2, username(customer));
+        order.statement.setDate(3, orderDate);
+        order.statement.setString(4, customer + " Main Street");
+        order.statement.setString(5, customer + " Main Street");
+        order.statement.setBigDecimal(6, total);
+        order.statement.setString(7, "First" + customer);
+        order.statement.setString(8, "Last" + customer);
+        order.statement.setString(9, "First" + customer);
+        order.statement.setString(10, "Last" + customer);
+        order.add();
+        status.statement.setInt(1, orderId);
+        status.statement.setInt(2, orderId);
+        status.statement.setDate(3, orderDate);
+        status.add();
+      }
+    }
+  }
+
+  /**
+   * The list price of an item, derived from the seed and the item index so that line items need no lookup.
+   */
+  private BigDecimal listPrice(int item) {
+    long hash = new SplittableRandom(seed * 31 + item).nextLong();
+    return BigDecimal.valueOf(100 + Math.floorMod(hash, 20_000), 2);
+  }
+
+  private static String words(SplittableRandom random, int count) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        builder.append(' ');
+      }
+      builder.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return builder.toString();
+  }
+
+  private static SimpleDriverDataSource dataSource(String url) {
+    return new SimpleDriverDataSource(new JDBCDriver(), url, "sa", "");
+  }
+
+  /**
+   * A prepared statement executed every {@value #BATCH_SIZE} rows and committed every {@value #COMMIT_SIZE} rows.
+   */
+  private static final class Batch implements AutoCloseable {
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private int pending;
+    private int uncommitted;
+
+    Batch(Connection connection, String sql) throws SQLException {
+      this.connection = connection;
+      this.statement = connection.prepareStatement(sql);
+    }
+
+    void add() throws SQLException {
+      statement.addBatch();
+      if (++pending == BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    private void flush() throws SQLException {
+      if (pending > 0) {
+        statement.executeBatch();
+        uncommitted += pending;
+        pending = 0;
+      }
+      if (uncommitted >= COMMIT_SIZE) {
+        connection.commit();
+        uncommitted = 0;
+      }
+    }
+
+    @Override
+    public void close() throws SQLException {
+      try {
+        flush();
+        connection.commit();
+      } finally {
+        statement.close();
+      }
+    }
+
+  }
+
+  /**
+   * A copy of a generated database in its own directory, shut down and deleted on close.
+   */
+  public static final class WorkingCopy implements Closeable {
+
+    private final Path directory;
+    private final SimpleDriverDataSource dataSource;
+
+    WorkingCopy(Path directory, SimpleDriverDataSource dataSource) {
+      this.directory = directory;
+      this.dataSource = dataSource;
+    }
+
+    public DataSource getDataSource() {
+      return dataSource;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+        statement.execute("SHUTDOWN");
+      } catch (SQLException e) {
+        throw new IOException("Could not shut the working copy in " + directory + " down", e);
+      }
+      try (Stream<Path> files = Files.walk(directory)) {
+        files.sorted(Comparator.reverseOrder()).forEach(path -> {
+          try {
+            Files.delete(path);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class CatalogDataGeneratorTest {
+
+  private CatalogDataGenerator generator;
+
+  @BeforeEach
+  void setup() {
+    generator = new CatalogDataGenerator();
+    generator.setCategories(8);
+    generator.setProducts(300);
+    generator.setItemsPerProduct(3);
+    generator.setAccounts(20);
+    generator.setOrders(150);
+    generator.setLinesPerOrder(4);
+  }
+
+  @Test
+  void shouldAddTheSyntheticRowsToTheDemoData() throws Exception {
+    // given
+    EmbeddedDatabase database = emptyDatabase();
+    try {
+      // when
+      generator.generate(database);
+
+      // then
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+      assertThat(count(jdbcTemplate, "CATEGORY")).isEqualTo(8);
+      assertThat(count(jdbcTemplate, "PRODUCT")).isEqualTo(16 + 300);
+      assertThat(count(jdbcTemplate, "ITEM")).isEqualTo(28 + 900);
+      assertThat(count(jdbcTemplate, "INVENTORY")).isEqualTo(28 + 900);
+      assertThat(count(jdbcTemplate, "ACCOUNT")).isEqualTo(2 + 20);
+      assertThat(count(jdbcTemplate, "SIGNON")).isEqualTo(2 + 20);
+      assertThat(count(jdbcTemplate, "ORDERS")).isEqualTo(150);
+      assertThat(count(jdbcTemplate, "ORDERSTATUS")).isEqualTo(150);
+      assertThat(count(jdbcTemplate, "LINEITEM")).isBetween(150, 600);
+      assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ORDERS O WHERE TOTALPRICE <> "
+          + "(SELECT SUM(QUANTITY * UNITPRICE) FROM LINEITEM L WHERE L.ORDERID = O.ORDERID)", Integer.class)).isZero();
+      assertThat(jdbcTemplate.queryForObject("SELECT NEXTID FROM SEQUENCE WHERE NAME = 'ordernum'", Integer.class))
+          .isEqualTo(CatalogDataGenerator.orderId(150));
+    } finally {
+      database.shutdown();
+    }
+  }
+
+  @Test
+  void shouldGenerateTheSameRowsForTheSameSeed() throws Exception {
+    assertThat(snapshot()).isEqualTo(snapshot());
+  }
+
+  @Test
+  void shouldReuseTheGeneratedFileDatabase(@TempDir Path directory) throws Exception {
+    // given
+    CatalogDataGenerator.WorkingCopy generated = generator.openOrGenerate(directory);
+    new JdbcTemplate(generated.getDataSource()).update("DELETE FROM LINEITEM");
+    long modified = Files.getLastModifiedTime(
+        generator.databaseFile(directory).resolveSibling(generator.databaseFile(directory).getFileName() + ".script"))
+        .toMillis();
+
+    // when
+    CatalogDataGenerator.WorkingCopy reused = generator.openOrGenerate(directory);
+
+    // then
+    assertThat(Files.getLastModifiedTime(
+        generator.databaseFile(directory).resolveSibling(generator.databaseFile(directory).getFileName() + ".script"))
+        .toMillis()).isEqualTo(modified);
+    assertThat(count(new JdbcTemplate(reused.getDataSource()), "ORDERS")).isEqualTo(150);
+    assertThat(count(new JdbcTemplate(reused.getDataSource()), "LINEITEM")).isPositive();
+    assertThat(count(new JdbcTemplate(generated.getDataSource()), "LINEITEM")).isZero();
+    generated.close();
+    reused.close();
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files.filter(Files::isDirectory)).isEmpty();
+    }
+  }
+
+  private List<Map<String, Object>> snapshot() throws Exception {
+    EmbeddedDatabase database = emptyDatabase();
+    try {
+      generator.generate(database);
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+      List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT * FROM PRODUCT ORDER BY PRODUCTID");
+      rows.addAll(jdbcTemplate.queryForList("SELECT * FROM ITEM ORDER BY ITEMID"));
+      rows.addAll(jdbcTemplate.queryForList("SELECT * FROM LINEITEM ORDER BY ORDERID, LINENUM"));
+      return rows;
+    } finally {
+      database.shutdown();
+    }
+  }
+
+  private static EmbeddedDatabase emptyDatabase() {
+    return new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.HSQL).build();
+  }
+
+  private static int count(JdbcTemplate jdbcTemplate, String table) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CartConcurrencyTest {
+
+  private static final int THREADS = 16;
+  private static final int ITEMS = 8;
+  private static final int OPERATIONS = 20_000;
+
+  private ExecutorService executor;
+  private List<Item> items;
+
+  @BeforeEach
+  void setup() {
+    executor = Executors.newFixedThreadPool(THREADS);
+    items = new ArrayList<>();
+    for (int i = 0; i < ITEMS; i++) {
+      Item item = new Item();
+      item.setItemId("I0" + i);
+      item.setListPrice(new BigDecimal("1.0" + i));
+      items.add(item);
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldCountEveryConcurrentAdd() throws Exception {
+    // given
+    Cart cart = new Cart();
+
+    // when
+    runConcurrently(() -> {
+      for (int i = 0; i < OPERATIONS; i++) {
+        cart.addItem(items.get(i % ITEMS), true);
+      }
+    });
+
+    // then
+    assertThat(cart.getNumberOfItems()).isEqualTo(ITEMS);
+    assertThat(cart.getCartItemList()).extracting(CartItem::getQuantity).containsOnly(THREADS * OPERATIONS / ITEMS);
+    assertThat(cart.getSubTotal()).isEqualTo(expectedSubTotal(cart));
+  }
+
+  @Test
+  void shouldKeepTheSubTotalConsistentUnderMixedOperations() throws Exception {
+    // given
+    Cart cart = new Cart();
+
+    // when
+    runConcurrently(() -> {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      for (int i = 0; i < OPERATIONS; i++) {
+        Item item = items.get(random.nextInt(ITEMS));
+        switch (random.nextInt(5)) {
+          case 0:
+            cart.addItem(item, true);
+            break;
+          case 1:
+            cart.incrementQuantityByItemId(item.getItemId());
+            break;
+          case 2:
+            cart.setQuantityByItemId(item.getItemId(), random.nextInt(10));
+            break;
+          case 3:
+            cart.removeItemById(item.getItemId());
+            break;
+          default:
+            Iterator<CartItem> cartItems = cart.getAllCartItems();
+            while (cartItems.hasNext()) {
+              if (cartItems.next().getQuantity() > 5) {
+                cartItems.remove();
+              }
+            }
+        }
+      }
+    });
+
+    // then
+    List<CartItem> cartItems = cart.getCartItemList();
+    assertThat(cartItems).hasSize(cart.getNumberOfItems());
+    assertThat(cartItems).extracting(cartItem -> cartItem.getItem().getItemId()).doesNotHaveDuplicates()
+        .allMatch(cart::containsItemId);
+    assertThat(cart.getSubTotal()).isEqualByComparingTo(expectedSubTotal(cart));
+  }
+
+  @Test
+  void shouldIterateWhileTheCartIsModified() throws Exception {
+    // given
+    Cart cart = new Cart();
+    items.forEach(item -> cart.addItem(item, true));
+
+    // when
+    runConcurrently(() -> {
+      for (int i = 0; i < OPERATIONS / 10; i++) {
+        Item item = items.get(i % ITEMS);
+        cart.removeItemById(item.getItemId());
+        cart.addItem(item, true);
+        Iterator<CartItem> cartItems = cart.getCartItems();
+        while (cartItems.hasNext()) {
+          assertThat(cartItems.next().getItem()).isNotNull();
+        }
+      }
+    });
+
+    // then
+    assertThat(cart.getCartItemList()).hasSizeLessThanOrEqualTo(ITEMS);
+    assertThat(cart.getSubTotal()).isEqualByComparingTo(expectedSubTotal(cart));
+  }
+
+  private void runConcurrently(Runnable task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      Callable<Void> callable = () -> {
+        start.await();
+        task.run();
+        return null;
+      };
+      futures.add(executor.submit(callable));
+    }
+    start.countDown();
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+  }
+
+  private static BigDecimal expectedSubTotal(Cart cart) {
+    return cart.getCartItemList().stream()
+        .map(cartItem -> cartItem.getItem().getListPrice().multiply(new BigDecimal(cartItem.getQuantity())))
+        .reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
+}
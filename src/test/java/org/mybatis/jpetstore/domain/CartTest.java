@@ -17,8 +17,16 @@ package org.mybatis.jpetstore.domain;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
@@ -184,4 +192,152 @@ class CartTest {
     assertThat(subTotal).isEqualTo(new BigDecimal("28.61"));
   }
 
+  @Test
+  void totalsFollowQuantityChangesAfterBeingRead() {
+    // given
+    Cart cart = new Cart();
+    Item item = new Item();
+    item.setItemId("I01");
+    item.setListPrice(new BigDecimal("2.05"));
+    cart.addItem(item, true);
+    CartItem cartItem = cart.getCartItemList().get(0);
+    assertThat(cartItem.getTotal()).isEqualTo(new BigDecimal("2.05"));
+    assertThat(cart.getSubTotal()).isEqualTo(new BigDecimal("2.05"));
+
+    // when
+    cart.setQuantityByItemId("I01", 3);
+
+    // then
+    assertThat(cartItem.getTotal()).isEqualTo(new BigDecimal("6.15"));
+    assertThat(cart.getSubTotal()).isEqualTo(new BigDecimal("6.15"));
+    assertThat(cart.getSubTotal()).isSameAs(cart.getSubTotal());
+  }
+
+  @Test
+  void updateStock() {
+    // given
+    Cart cart = new Cart();
+    for (String itemId : new String[] { "I01", "I02", "I03" }) {
+      Item item = new Item();
+      item.setItemId(itemId);
+      item.setListPrice(new BigDecimal("1.00"));
+      cart.addItem(item, true);
+    }
+
+    // when
+    cart.updateStock(Map.of("I01", 3, "I02", 0));
+
+    // then
+    assertThat(cart.getItemIds()).containsExactlyInAnyOrder("I01", "I02", "I03");
+    assertThat(cart.getCartItemList()).extracting(CartItem::isInStock).containsExactly(true, false, false);
+  }
+
+  @Test
+  void serializesOnlyTheIdQuantityAndPriceOfTheItems() throws Exception {
+    // given
+    Cart cart = new Cart();
+    List<Item> items = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      Item item = catalogItem("EST-" + i, new BigDecimal(i + "6.50"));
+      items.add(item);
+      cart.addItem(item, i != 2);
+    }
+    cart.setQuantityByItemId("EST-3", 300);
+    cart.removeItemById("EST-1");
+
+    // when
+    byte[] bytes = serialize(cart);
+    Cart read = (Cart) deserialize(bytes);
+
+    // then
+    assertThat(read.getItemIds()).containsExactlyInAnyOrder("EST-2", "EST-3");
+    assertThat(read.getCartItemList()).extracting(CartItem::getItemId).containsExactly("EST-2", "EST-3");
+    assertThat(read.getCartItemList()).extracting(CartItem::getQuantity).containsExactly(1, 300);
+    assertThat(read.getCartItemList()).extracting(CartItem::isInStock).containsExactly(false, true);
+    assertThat(read.getCartItemList().get(1).getTotal()).isEqualTo(new BigDecimal("10950.00"));
+    assertThat(read.getSubTotal()).isEqualTo(cart.getSubTotal());
+    assertThat(bytes.length).isLessThan(serialize(new ArrayList<>(items)).length / 5);
+  }
+
+  @Test
+  void loadsTheItemsOfADeserializedCartOnFirstAccess() throws Exception {
+    // given
+    Cart cart = new Cart();
+    cart.addItem(catalogItem("EST-1", new BigDecimal("16.50")), true);
+    cart.addItem(catalogItem("EST-2", new BigDecimal("26.50")), true);
+    Cart read = (Cart) deserialize(serialize(cart));
+    List<String> loaded = new ArrayList<>();
+
+    // when
+    read.setItemLoader(itemId -> {
+      loaded.add(itemId);
+      return catalogItem(itemId, new BigDecimal("99.99"));
+    });
+    BigDecimal subTotal = read.getSubTotal();
+    BigDecimal total = read.getCartItemList().get(0).getTotal();
+    List<String> loadedBeforeAccess = new ArrayList<>(loaded);
+    Item first = read.getCartItemList().get(0).getItem();
+    Item firstAgain = read.getCartItemList().get(0).getItem();
+
+    // then
+    assertThat(loadedBeforeAccess).isEmpty();
+    assertThat(subTotal).isEqualTo(new BigDecimal("43.00"));
+    assertThat(total).isEqualTo(new BigDecimal("16.50"));
+    assertThat(first.getItemId()).isEqualTo("EST-1");
+    assertThat(first.getProduct().getDescription()).isNotNull();
+    assertThat(firstAgain).isSameAs(first);
+    assertThat(loaded).containsExactly("EST-1");
+  }
+
+  @Test
+  void keepsAcceptingChangesAfterBeingDeserialized() throws Exception {
+    // given
+    Cart cart = new Cart();
+    cart.addItem(catalogItem("EST-1", new BigDecimal("16.50")), true);
+    Cart read = (Cart) deserialize(serialize(cart));
+
+    // when
+    read.addItem(catalogItem("EST-2", new BigDecimal("1.00")), true);
+    read.incrementQuantityByItemId("EST-1");
+    read.getCartItems().next();
+    Iterator<CartItem> cartItems = read.getAllCartItems();
+    cartItems.next();
+    cartItems.remove();
+
+    // then
+    assertThat(read.getCartItemList()).extracting(CartItem::getItemId).containsExactly("EST-2");
+    assertThat(read.getSubTotal()).isEqualTo(new BigDecimal("1.00"));
+  }
+
+  private static Item catalogItem(String itemId, BigDecimal listPrice) {
+    Product product = new Product();
+    product.setProductId("FI-SW-01");
+    product.setCategoryId("FISH");
+    product.setName("Angelfish");
+    product.setDescription("<image src=\"../images/fish1.gif\">Salt Water fish from Australia");
+    Item item = new Item();
+    item.setItemId(itemId);
+    item.setProduct(product);
+    item.setListPrice(listPrice);
+    item.setUnitCost(new BigDecimal("10.00"));
+    item.setSupplierId(1);
+    item.setStatus("P");
+    item.setAttribute1("Large");
+    return item;
+  }
+
+  private static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readObject();
+    }
+  }
+
 }
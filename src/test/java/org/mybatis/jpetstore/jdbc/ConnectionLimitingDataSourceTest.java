@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionLimitingDataSourceTest {
+
+  @Mock
+  private DataSource target;
+
+  @Test
+  void shouldLetAThreadOpenNestedConnectionsOnOnePermit() throws Exception {
+    // given
+    Connection outer = mock(Connection.class);
+    Connection inner = mock(Connection.class);
+    given(target.getConnection()).willReturn(outer, inner);
+    ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1);
+    dataSource.setAcquireTimeoutMillis(0);
+
+    // when
+    Connection first = dataSource.getConnection();
+    Connection second = dataSource.getConnection();
+    int availableWhileOpen = dataSource.getAvailablePermits();
+    second.close();
+    int availableAfterInnerClose = dataSource.getAvailablePermits();
+    first.close();
+
+    // then
+    assertThat(availableWhileOpen).isZero();
+    assertThat(availableAfterInnerClose).isZero();
+    assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    verify(outer).close();
+    verify(inner).close();
+  }
+
+  @Test
+  void shouldFailWhenNoPermitFreesUpInTime() throws Exception {
+    // given
+    given(target.getConnection()).willReturn(mock(Connection.class));
+    ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1);
+    dataSource.setAcquireTimeoutMillis(50);
+    Connection held = dataSource.getConnection();
+
+    // when
+    CompletableFuture<Connection> other = CompletableFuture.supplyAsync(() -> {
+      try {
+        return dataSource.getConnection();
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    // then
+    assertThatThrownBy(() -> other.get(5, TimeUnit.SECONDS))
+        .hasRootCauseInstanceOf(SQLTransientConnectionException.class);
+    held.close();
+    assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    verify(target, times(1)).getConnection();
+  }
+
+  @Test
+  void shouldReleaseThePermitOnlyOnceForARepeatedClose() throws Exception {
+    // given
+    Connection connection = mock(Connection.class);
+    given(target.getConnection()).willReturn(connection);
+    ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2);
+
+    // when
+    Connection limited = dataSource.getConnection();
+    limited.close();
+    limited.close();
+
+    // then
+    assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+    verify(connection, times(1)).close();
+  }
+
+  @Test
+  void shouldReleaseThePermitWhenTheTargetFails() throws Exception {
+    // given
+    given(target.getConnection()).willThrow(new SQLException("database is down"));
+    ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1);
+
+    // when
+    assertThatThrownBy(dataSource::getConnection).hasMessage("database is down");
+
+    // then
+    assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNeverHandOutMoreConnectionsThanTheLimit() throws Exception {
+    // given
+    AtomicInteger open = new AtomicInteger();
+    AtomicInteger maxOpen = new AtomicInteger();
+    given(target.getConnection()).willAnswer(invocation -> {
+      maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+      Connection connection = mock(Connection.class);
+      doAnswer(close -> open.decrementAndGet()).when(connection).close();
+      return connection;
+    });
+    ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 4);
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    // when
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      futures.add(executor.submit(() -> {
+        try (Connection connection = dataSource.getConnection()) {
+          Thread.sleep(1);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    // then
+    assertThat(maxOpen.get()).isBetween(1, 4);
+    assertThat(open).hasValue(0);
+    assertThat(dataSource.getAvailablePermits()).isEqualTo(4);
+  }
+
+}
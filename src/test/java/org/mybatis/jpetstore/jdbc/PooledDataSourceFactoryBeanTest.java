@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.DelegatingPreparedStatement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.jpetstore.service.CatalogService;
+import org.springframework.context.support.GenericXmlApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class PooledDataSourceFactoryBeanTest {
+
+  private final PooledDataSourceFactoryBean factoryBean = new PooledDataSourceFactoryBean();
+  private final String name = UUID.randomUUID().toString();
+
+  @AfterEach
+  void closePool() throws Exception {
+    factoryBean.destroy();
+  }
+
+  @Test
+  void shouldRunTheScriptsBeforeHandingOutThePool() throws Exception {
+    // when
+    BasicDataSource dataSource = newPool(2, null);
+
+    // then
+    assertThat(new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM CATEGORY", Integer.class))
+        .isEqualTo(5);
+    assertThat(dataSource.getNumIdle()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReuseAPreparedStatementOnTheSameConnection() throws Exception {
+    // given
+    BasicDataSource dataSource = newPool(1, null);
+
+    // when
+    Object first;
+    Object second;
+    try (Connection connection = dataSource.getConnection()) {
+      first = prepareAndRun(connection);
+      second = prepareAndRun(connection);
+    }
+
+    // then
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  void shouldLeaveAConnectionHeldPastTheLeakThresholdToItsBorrower() throws Exception {
+    // given
+    factoryBean.setLeakDetectionThresholdSeconds(1);
+    factoryBean.setEvictionRunIntervalMillis(100);
+    BasicDataSource dataSource = newPool(2, null);
+
+    // when
+    try (Connection connection = dataSource.getConnection()) {
+      Thread.sleep(1500);
+
+      // then
+      assertThat(connection.isClosed()).isFalse();
+      assertThat(prepareAndRun(connection)).isNotNull();
+      assertThat(dataSource.getNumActive()).isEqualTo(1);
+    }
+    assertThat(dataSource.getNumActive()).isZero();
+  }
+
+  @Test
+  void shouldExportSaturationOverJmx() throws Exception {
+    // given
+    String jmxName = "org.mybatis.jpetstore:type=DataSource,name=" + name;
+    BasicDataSource dataSource = newPool(2, jmxName);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    // when
+    try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+      // then
+      assertThat(server.getAttribute(new ObjectName(jmxName), "NumActive")).isEqualTo(2);
+      assertThat(server.getAttribute(new ObjectName(jmxName), "MaxTotal")).isEqualTo(2);
+      assertThat(server.getAttribute(new ObjectName(jmxName + ",connectionpool=connections"), "NumWaiters"))
+          .isEqualTo(0);
+    }
+    factoryBean.destroy();
+    assertThat(server.isRegistered(new ObjectName(jmxName))).isFalse();
+  }
+
+  @Test
+  void shouldWireThePoolForThePooledProfile() {
+    try (GenericXmlApplicationContext context = new GenericXmlApplicationContext()) {
+      // given
+      context.getEnvironment().setActiveProfiles("pooled");
+      context.getEnvironment().getSystemProperties().put("jpetstore.pool.url", "jdbc:hsqldb:mem:" + name);
+      context.load("file:src/main/webapp/WEB-INF/applicationContext.xml");
+
+      // when
+      context.refresh();
+
+      // then
+      assertThat(context.getBean("targetDataSource", DataSource.class)).isInstanceOf(BasicDataSource.class);
+      assertThat(context.getBean(CatalogService.class).getCategory("FISH").getName()).isEqualTo("Fish");
+    } finally {
+      System.clearProperty("jpetstore.pool.url");
+    }
+  }
+
+  private BasicDataSource newPool(int maxTotal, String jmxName) throws Exception {
+    factoryBean.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+    factoryBean.setUrl("jdbc:hsqldb:mem:" + name);
+    factoryBean.setUsername("sa");
+    factoryBean.setPassword("");
+    factoryBean.setMinIdle(1);
+    factoryBean.setMaxTotal(maxTotal);
+    factoryBean.setJmxName(jmxName);
+    factoryBean.setScripts(new ClassPathResource("database/jpetstore-hsqldb-schema.sql"),
+        new ClassPathResource("database/jpetstore-hsqldb-dataload.sql"));
+    factoryBean.afterPropertiesSet();
+    return factoryBean.getObject();
+  }
+
+  private static Object prepareAndRun(Connection connection) throws Exception {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT NAME FROM CATEGORY WHERE CATID = ?")) {
+      statement.setString(1, "FISH");
+      try (ResultSet resultSet = statement.executeQuery()) {
+        assertThat(resultSet.next()).isTrue();
+      }
+      return ((DelegatingPreparedStatement) statement).getInnermostDelegate();
+    }
+  }
+
+}
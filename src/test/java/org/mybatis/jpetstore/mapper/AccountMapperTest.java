@@ -74,33 +74,14 @@ class AccountMapperTest {
   }
 
   @Test
-  void getAccountByUsernameAndPassword() {
-    // given
-    String username = "ACID";
-    String password = "ACID";
-
+  void getPassword() {
     // when
-    Account account = mapper.getAccountByUsernameAndPassword(username, password);
+    String password = mapper.getPassword("ACID");
+    String unknown = mapper.getPassword("nobody");
 
     // then
-    assertThat(account.getUsername()).isEqualTo("ACID");
-    assertThat(account.getEmail()).isEqualTo("acid@yourdomain.com");
-    assertThat(account.getFirstName()).isEqualTo("ABC");
-    assertThat(account.getLastName()).isEqualTo("XYX");
-    assertThat(account.getStatus()).isEqualTo("OK");
-    assertThat(account.getAddress1()).isEqualTo("901 San Antonio Road");
-    assertThat(account.getAddress2()).isEqualTo("MS UCUP02-206");
-    assertThat(account.getCity()).isEqualTo("Palo Alto");
-    assertThat(account.getState()).isEqualTo("CA");
-    assertThat(account.getZip()).isEqualTo("94303");
-    assertThat(account.getCountry()).isEqualTo("USA");
-    assertThat(account.getPhone()).isEqualTo("555-555-5555");
-    assertThat(account.getLanguagePreference()).isEqualTo("english");
-    assertThat(account.getFavouriteCategoryId()).isEqualTo("CATS");
-    assertThat(account.isListOption()).isTrue();
-    assertThat(account.isBannerOption()).isTrue();
-    assertThat(account.getBannerName()).isEqualTo("<image src=\"../images/banner_cats.gif\">");
-
+    assertThat(password).isEqualTo("ACID");
+    assertThat(unknown).isNull();
   }
 
   @Test
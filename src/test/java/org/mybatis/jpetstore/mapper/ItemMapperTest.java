@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mybatis.jpetstore.domain.Item;
@@ -52,6 +54,9 @@ class ItemMapperTest {
   @Autowired
   private JdbcTemplate jdbcTemplate;
 
+  @Autowired
+  private SqlSessionFactory sqlSessionFactory;
+
   @Test
   void getItemListByProduct() {
     // given
@@ -93,6 +98,23 @@ class ItemMapperTest {
     assertThat(items.get(1).getProduct().getCategoryId()).isEqualTo("FISH");
   }
 
+  @Test
+  void getItemPageByProduct() {
+    // given
+    String productId = PRODUCT_ID_FI_SW_01;
+
+    // when
+    List<Item> firstPage = mapper.getItemPageByProduct(productId, null, 1);
+    List<Item> secondPage = mapper.getItemPageByProduct(productId, ITEM_ID_EST_1, 1);
+
+    // then
+    assertThat(firstPage).hasSize(1);
+    assertThat(firstPage.get(0).getItemId()).isEqualTo(ITEM_ID_EST_1);
+    assertThat(firstPage.get(0).getProduct().getName()).isEqualTo(PRODUCT_NAME_ANGELFISH);
+    assertThat(secondPage).hasSize(1);
+    assertThat(secondPage.get(0).getItemId()).isEqualTo("EST-2");
+  }
+
   @Test
   void getItem() {
     // given
@@ -116,6 +138,7 @@ class ItemMapperTest {
     assertThat(item.getProduct().getName()).isEqualTo(PRODUCT_NAME_ANGELFISH);
     assertThat(item.getProduct().getDescription()).isEqualTo(PRODUCT_DESCRIPTION_AUS);
     assertThat(item.getProduct().getCategoryId()).isEqualTo("FISH");
+    assertThat(item.getQuantity()).isZero();
   }
 
   @Test
@@ -140,12 +163,79 @@ class ItemMapperTest {
     params.put("increment", 10);
 
     // when
-    mapper.updateInventoryQuantity(params);
+    int updated = mapper.updateInventoryQuantity(params);
 
     // then
     Integer quantity = jdbcTemplate.queryForObject("SELECT QTY FROM inventory WHERE itemid = ?", Integer.class, itemId);
+    assertThat(updated).isEqualTo(1);
     assertThat(quantity).isEqualTo(9990);
 
   }
 
+  @Test
+  void updateInventoryQuantityWhenStockIsTooLow() {
+    // given
+    String itemId = ITEM_ID_EST_1;
+    jdbcTemplate.update("UPDATE inventory SET qty = 5 WHERE itemid = ?", itemId);
+    Map<String, Object> params = new HashMap<>();
+    params.put("itemId", itemId);
+    params.put("increment", 6);
+
+    // when
+    int updated = mapper.updateInventoryQuantity(params);
+
+    // then
+    Integer quantity = jdbcTemplate.queryForObject("SELECT QTY FROM inventory WHERE itemid = ?", Integer.class, itemId);
+    assertThat(updated).isZero();
+    assertThat(quantity).isEqualTo(5);
+
+  }
+
+  @Test
+  void getItems() {
+    // given
+    List<String> itemIds = List.of(ITEM_ID_EST_1, "EST-2", "NONE");
+
+    // when
+    Map<String, Item> items = mapper.getItems(itemIds);
+
+    // then
+    assertThat(items).containsOnlyKeys(ITEM_ID_EST_1, "EST-2");
+    assertThat(items.get(ITEM_ID_EST_1).getListPrice()).isEqualTo(new BigDecimal(PRICE_16_50));
+    assertThat(items.get(ITEM_ID_EST_1).getProduct().getProductId()).isEqualTo(PRODUCT_ID_FI_SW_01);
+    assertThat(items.get(ITEM_ID_EST_1).getQuantity()).isZero();
+  }
+
+  @Test
+  void getInventoryQuantities() {
+    // given
+    jdbcTemplate.update("UPDATE inventory SET qty = 7 WHERE itemid = ?", "EST-2");
+
+    // when
+    Map<String, Item> quantities = mapper.getInventoryQuantities(List.of(ITEM_ID_EST_1, "EST-2", "NONE"));
+
+    // then
+    assertThat(quantities).containsOnlyKeys(ITEM_ID_EST_1, "EST-2");
+    assertThat(quantities.get(ITEM_ID_EST_1).getQuantity()).isEqualTo(10000);
+    assertThat(quantities.get("EST-2").getQuantity()).isEqualTo(7);
+  }
+
+  @Test
+  void inventoryStatementsBypassTheItemCache() {
+    // given
+    String namespace = ItemMapper.class.getName();
+
+    // when
+    MappedStatement select = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(namespace + ".getInventoryQuantity");
+    MappedStatement update = sqlSessionFactory.getConfiguration()
+        .getMappedStatement(namespace + ".updateInventoryQuantity");
+
+    // then
+    assertThat(select.isUseCache()).isFalse();
+    assertThat(update.isFlushCacheRequired()).isFalse();
+    assertThat(update.getCache()).isNotNull();
+
+  }
+
 }
@@ -48,9 +48,15 @@ public class MapperTestContext {
     SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
     factoryBean.setDataSource(dataSource());
     factoryBean.setTypeAliasesPackage("org.mybatis.jpetstore.domain");
+    factoryBean.setPlugins(statementCounter());
     return factoryBean;
   }
 
+  @Bean
+  StatementCounter statementCounter() {
+    return new StatementCounter();
+  }
+
   @Bean
   JdbcTemplate jdbcTemplate() {
     return new JdbcTemplate(dataSource());
@@ -16,6 +16,7 @@
 package org.mybatis.jpetstore.mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -25,6 +26,7 @@ import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mybatis.jpetstore.domain.LineItem;
 import org.mybatis.jpetstore.domain.Order;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -265,4 +267,82 @@ class OrderMapperTest {
     assertThat(order.getShipToLastName()).isEqualTo(newOrder.getShipToLastName());
   }
 
+  @Test
+  void getOrderWithLineItems() {
+    // given
+    Order newOrder = new Order();
+    newOrder.setOrderId(1);
+    newOrder.setOrderDate(java.sql.Timestamp.valueOf(LocalDateTime.of(2018, 12, 31, 23, 59, 59)));
+    newOrder.setStatus("OK");
+    newOrder.setUsername("j2ee");
+    newOrder.setCardType("Visa");
+    newOrder.setCreditCard(TEST_CREDIT_CARD);
+    newOrder.setExpiryDate(TEST_EXPIRY_DATE);
+    newOrder.setCourier(TEST_COURIER);
+    newOrder.setLocale("ja");
+    newOrder.setTotalPrice(new BigDecimal(TEST_TOTAL_PRICE));
+    newOrder.setBillAddress1(TEST_BILL_ADDR1);
+    newOrder.setBillCity(TEST_BILL_CITY);
+    newOrder.setBillState(TEST_BILL_STATE);
+    newOrder.setBillCountry("USA");
+    newOrder.setBillZip(TEST_BILL_ZIP);
+    newOrder.setBillToFirstName(TEST_BILL_FIRST_NAME);
+    newOrder.setBillToLastName(TEST_BILL_LAST_NAME);
+    newOrder.setShipAddress1(TEST_SHIP_ADDR1);
+    newOrder.setShipCity(TEST_SHIP_CITY);
+    newOrder.setShipState(TEST_SHIP_STATE);
+    newOrder.setShipCountry("JPN");
+    newOrder.setShipZip(TEST_SHIP_ZIP);
+    newOrder.setShipToFirstName(TEST_SHIP_FIRST_NAME);
+    newOrder.setShipToLastName(TEST_SHIP_LAST_NAME);
+    mapper.insertOrder(newOrder);
+    mapper.insertOrderStatus(newOrder);
+    jdbcTemplate.update(
+        "INSERT INTO LINEITEM (ORDERID, LINENUM, ITEMID, QUANTITY, UNITPRICE) VALUES (1, 2, 'EST-2', 3, 16.50)");
+    jdbcTemplate.update(
+        "INSERT INTO LINEITEM (ORDERID, LINENUM, ITEMID, QUANTITY, UNITPRICE) VALUES (1, 1, 'EST-1', 2, 16.50)");
+
+    // when
+    Order order = mapper.getOrderWithLineItems(1);
+
+    // then
+    assertThat(order.getOrderId()).isEqualTo(newOrder.getOrderId());
+    assertThat(order.getUsername()).isEqualTo(newOrder.getUsername());
+    assertThat(order.getStatus()).isEqualTo(newOrder.getStatus());
+    assertThat(order.getTotalPrice()).isEqualTo(newOrder.getTotalPrice());
+    assertThat(order.getExpiryDate()).isEqualTo(newOrder.getExpiryDate());
+    assertThat(order.getBillAddress2()).isNull();
+    assertThat(order.getLineItems()).extracting(LineItem::getLineNumber, LineItem::getItemId, LineItem::getQuantity)
+        .containsExactly(tuple(1, "EST-1", 2), tuple(2, "EST-2", 3));
+    LineItem lineItem = order.getLineItems().get(0);
+    assertThat(lineItem.getOrderId()).isEqualTo(1);
+    assertThat(lineItem.getUnitPrice()).isEqualTo(new BigDecimal("16.50"));
+    assertThat(lineItem.getTotal()).isEqualTo(new BigDecimal("33.00"));
+    assertThat(lineItem.getItem().getItemId()).isEqualTo("EST-1");
+    assertThat(lineItem.getItem().getAttribute1()).isEqualTo("Large");
+    assertThat(lineItem.getItem().getQuantity()).isEqualTo(10000);
+    assertThat(lineItem.getItem().getProduct().getProductId()).isEqualTo("FI-SW-01");
+    assertThat(lineItem.getItem().getProduct().getName()).isEqualTo("Angelfish");
+  }
+
+  @Test
+  void getOrderWithLineItemsWhenOrderHasNoLines() {
+    // given
+    jdbcTemplate.update("INSERT INTO ORDERS (ORDERID, USERID, ORDERDATE, SHIPADDR1, SHIPCITY, SHIPSTATE, SHIPZIP, "
+        + "SHIPCOUNTRY, BILLADDR1, BILLCITY, BILLSTATE, BILLZIP, BILLCOUNTRY, COURIER, TOTALPRICE, BILLTOFIRSTNAME, "
+        + "BILLTOLASTNAME, SHIPTOFIRSTNAME, SHIPTOLASTNAME, CREDITCARD, EXPRDATE, CARDTYPE, LOCALE) VALUES "
+        + "(1, 'j2ee', '2018-12-31', 'a', 'c', 's', 'z', 'USA', 'a', 'c', 's', 'z', 'USA', 'UPS', 0, 'f', 'l', 'f', "
+        + "'l', 'cc', 'ex', 'Visa', 'CA')");
+    jdbcTemplate
+        .update("INSERT INTO ORDERSTATUS (ORDERID, LINENUM, TIMESTAMP, STATUS) VALUES (1, 1, '2018-12-31', 'P')");
+
+    // when
+    Order order = mapper.getOrderWithLineItems(1);
+
+    // then
+    assertThat(order.getOrderId()).isEqualTo(1);
+    assertThat(order.getLineItems()).isEmpty();
+    assertThat(mapper.getOrderWithLineItems(2)).isNull();
+  }
+
 }
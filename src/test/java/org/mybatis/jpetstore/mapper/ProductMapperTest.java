@@ -36,6 +36,21 @@ class ProductMapperTest {
   @Autowired
   private ProductMapper mapper;
 
+  @Autowired
+  private StatementCounter statementCounter;
+
+  @Test
+  void getProductList() {
+    // given
+
+    // when
+    List<Product> products = mapper.getProductList();
+
+    // then
+    assertThat(products).hasSize(16);
+    assertThat(products).extracting(Product::getProductId).contains("FI-SW-01", "K9-BD-01", "AV-SB-02");
+  }
+
   @Test
   void getProductListByCategory() {
     // given
@@ -69,6 +84,22 @@ class ProductMapperTest {
         .isEqualTo("<image src=\"../images/fish4.gif\">Salt Water fish from Australia");
   }
 
+  @Test
+  void getProductPageByCategory() {
+    // given
+    String categoryId = "FISH";
+
+    // when
+    List<Product> firstPage = mapper.getProductPageByCategory(categoryId, null, 2);
+    List<Product> secondPage = mapper.getProductPageByCategory(categoryId, "FI-FW-02", 2);
+    List<Product> lastPage = mapper.getProductPageByCategory(categoryId, "FI-SW-02", 2);
+
+    // then
+    assertThat(firstPage).extracting(Product::getProductId).containsExactly("FI-FW-01", "FI-FW-02");
+    assertThat(secondPage).extracting(Product::getProductId).containsExactly("FI-SW-01", "FI-SW-02");
+    assertThat(lastPage).isEmpty();
+  }
+
   @Test
   void getProduct() {
     // given
@@ -110,4 +141,73 @@ class ProductMapperTest {
     assertThat(products.get(7).getName()).isEqualTo("Labrador Retriever");
   }
 
+  @Test
+  void searchProductListByKeywords() {
+    // given
+    List<String> keywords = List.of("%dog%", "%fish%", "%o%");
+
+    // when
+    List<Product> products = mapper.searchProductListByKeywords(keywords, false, 0, 0);
+
+    // then
+    assertThat(products).extracting(Product::getProductId).containsExactly("AV-CB-01", "FI-FW-01", "FI-FW-02",
+        "FI-SW-01", "FI-SW-02", "FL-DLH-02", "FL-DSH-01", "K9-BD-01", "K9-CW-01", "K9-DL-01", "K9-PO-02", "K9-RT-01",
+        "K9-RT-02", "RP-SN-01");
+  }
+
+  @Test
+  void searchProductListByKeywordsIgnoresTheMarkupOfTheDescription() {
+    // given
+    List<String> keywords = List.of("%image%");
+
+    // when
+    List<Product> products = mapper.searchProductListByKeywords(keywords, false, 0, 0);
+
+    // then
+    assertThat(products).isEmpty();
+  }
+
+  @Test
+  void searchProductListByKeywordsMatchingAll() {
+    // given
+    List<String> keywords = List.of("%retriever%", "%lab%");
+
+    // when
+    List<Product> products = mapper.searchProductListByKeywords(keywords, true, 0, 0);
+
+    // then
+    assertThat(products).extracting(Product::getName).containsExactly("Labrador Retriever");
+  }
+
+  @Test
+  void searchProductListByKeywordsWithLimitAndOffset() {
+    // given
+    List<String> keywords = List.of("%dog%", "%fish%", "%o%");
+
+    // when
+    List<Product> products = mapper.searchProductListByKeywords(keywords, false, 2, 3);
+
+    // then
+    assertThat(products).extracting(Product::getProductId).containsExactly("FI-FW-02", "FI-SW-01", "FI-SW-02");
+  }
+
+  @Test
+  void searchProductListByKeywordsIssuesOneQuery() {
+    // given
+    List<String> keywords = List.of("%big%", "%koi%", "%shark%");
+
+    // when
+    statementCounter.reset();
+    keywords.forEach(mapper::searchProductList);
+    int queriesPerKeyword = statementCounter.getQueries();
+
+    statementCounter.reset();
+    mapper.searchProductListByKeywords(keywords, false, 0, 0);
+    int queriesForAllKeywords = statementCounter.getQueries();
+
+    // then
+    assertThat(queriesPerKeyword).isEqualTo(keywords.size());
+    assertThat(queriesForAllKeywords).isEqualTo(1);
+  }
+
 }
@@ -62,4 +62,28 @@ class SequenceMapperTest {
     assertThat(id).isEqualTo(1001);
   }
 
+  @Test
+  void reserveSequenceRange() {
+    // given
+
+    // when
+    int updated = mapper.reserveSequenceRange("ordernum", 50);
+
+    // then
+    assertThat(updated).isEqualTo(1);
+    assertThat(mapper.getSequenceNextId("ordernum")).isEqualTo(1050);
+  }
+
+  @Test
+  void reserveSequenceRangeWhenSequenceNotFound() {
+    // given
+
+    // when
+    int updated = mapper.reserveSequenceRange("unknown", 50);
+
+    // then
+    assertThat(updated).isZero();
+    assertThat(mapper.getSequenceNextId("unknown")).isNull();
+  }
+
 }
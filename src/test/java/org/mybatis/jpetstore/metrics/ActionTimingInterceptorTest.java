@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.http.HttpServletRequest;
+
+import net.sourceforge.stripes.action.ActionBeanContext;
+import net.sourceforge.stripes.action.ForwardResolution;
+import net.sourceforge.stripes.action.Resolution;
+import net.sourceforge.stripes.controller.ExecutionContext;
+import net.sourceforge.stripes.controller.LifecycleStage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mybatis.jpetstore.web.actions.CatalogActionBean;
+
+@ExtendWith(MockitoExtension.class)
+class ActionTimingInterceptorTest {
+
+  @Mock
+  private ExecutionContext context;
+
+  @Mock
+  private ActionBeanContext actionBeanContext;
+
+  @Mock
+  private HttpServletRequest request;
+
+  private final ActionTimingInterceptor interceptor = new ActionTimingInterceptor();
+  private final RequestTiming timing = new RequestTiming(System.nanoTime());
+
+  @BeforeEach
+  void setup() {
+    given(context.getActionBeanContext()).willReturn(actionBeanContext);
+    given(actionBeanContext.getRequest()).willReturn(request);
+  }
+
+  @Test
+  void shouldNameTheRequestAndKeepDatabaseTimeOutOfTheHandler() throws Exception {
+    // given
+    given(request.getAttribute(RequestTiming.ATTRIBUTE)).willReturn(timing);
+    given(context.getHandler()).willReturn(CatalogActionBean.class.getMethod("viewCategory"));
+    given(context.getActionBean()).willReturn(new CatalogActionBean());
+    given(context.getLifecycleStage()).willReturn(LifecycleStage.EventHandling);
+    AtomicReference<RequestTiming> bound = new AtomicReference<>();
+    Resolution resolution = new ForwardResolution("/WEB-INF/jsp/catalog/Category.jsp");
+    given(context.proceed()).willAnswer(invocation -> {
+      bound.set(RequestTiming.current());
+      RequestTiming.current().addStatement("SELECT * FROM PRODUCT WHERE CATEGORY = ?", 60_000_000_000L);
+      return resolution;
+    });
+
+    // when
+    Resolution result = interceptor.intercept(context);
+
+    // then
+    assertThat(result).isSameAs(resolution);
+    assertThat(bound).hasValue(timing);
+    assertThat(RequestTiming.current()).isNull();
+    assertThat(timing.getAction()).isEqualTo("CatalogActionBean.viewCategory");
+    assertThat(timing.getDatabaseNanos()).isEqualTo(60_000_000_000L);
+    assertThat(timing.getHandlerNanos()).isZero();
+    assertThat(timing.getRenderNanos()).isZero();
+  }
+
+  @Test
+  void shouldCountTheResolutionAsRenderTime() throws Exception {
+    // given
+    given(request.getAttribute(RequestTiming.ATTRIBUTE)).willReturn(timing);
+    given(context.getLifecycleStage()).willReturn(LifecycleStage.ResolutionExecution);
+    given(context.proceed()).willAnswer(invocation -> {
+      Thread.sleep(5);
+      return null;
+    });
+
+    // when
+    interceptor.intercept(context);
+
+    // then
+    assertThat(timing.getRenderNanos()).isGreaterThanOrEqualTo(5_000_000);
+    assertThat(timing.getHandlerNanos()).isZero();
+    assertThat(timing.getAction()).isNull();
+  }
+
+  @Test
+  void shouldPassThroughUntimedRequests() throws Exception {
+    // given
+    given(context.proceed()).willAnswer(invocation -> {
+      assertThat(RequestTiming.current()).isNull();
+      return null;
+    });
+
+    // when
+    interceptor.intercept(context);
+
+    // then
+    assertThat(RequestTiming.current()).isNull();
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  @Test
+  void shouldReportZeroWhenEmpty() {
+    assertThat(histogram.getCount()).isZero();
+    assertThat(histogram.getMean()).isZero();
+    assertThat(histogram.getValueAtPercentile(99)).isZero();
+  }
+
+  @Test
+  void shouldReportPercentilesWithinTwoPercent() {
+    // given
+    for (long micros = 1; micros <= 100_000; micros++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    // then
+    assertThat(histogram.getCount()).isEqualTo(100_000);
+    assertThat(histogram.getMax()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(histogram.getMean()).isCloseTo(TimeUnit.MICROSECONDS.toNanos(50_000), within(1000.0));
+    assertThat(histogram.getValueAtPercentile(50)).isCloseTo(50_000_000L, within(1_000_000L));
+    assertThat(histogram.getValueAtPercentile(99)).isCloseTo(99_000_000L, within(1_980_000L));
+    assertThat(histogram.getValueAtPercentile(99.9)).isCloseTo(99_900_000L, within(1_998_000L));
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(histogram.getMax());
+  }
+
+  @Test
+  void shouldCountSmallValuesExactly() {
+    // given
+    histogram.record(3);
+    histogram.record(3);
+    histogram.record(127);
+
+    // then
+    assertThat(histogram.getValueAtPercentile(50)).isEqualTo(3);
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(127);
+  }
+
+  @Test
+  void shouldKeepEveryBucketAboveTheValuesItHolds() {
+    for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      assertThat(LatencyHistogram.highestValueIn(bucket)).isGreaterThanOrEqualTo(Math.min(value, (1L << 47) - 1));
+      assertThat(LatencyHistogram.bucketOf(LatencyHistogram.highestValueIn(bucket))).isEqualTo(bucket);
+    }
+  }
+
+  @Test
+  void shouldClampHugeAndNegativeValues() {
+    // given
+    histogram.record(Long.MAX_VALUE);
+    histogram.record(-5);
+
+    // then
+    assertThat(histogram.getCount()).isEqualTo(2);
+    assertThat(histogram.getValueAtPercentile(50)).isZero();
+    assertThat(histogram.getValueAtPercentile(100)).isEqualTo(Long.MAX_VALUE);
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsServletTest {
+
+  @Test
+  void shouldWriteThePrometheusTextFormat() {
+    // given
+    StatementMetrics getItem = new StatementMetrics("ItemMapper.getItem");
+    getItem.record(2_000_000, 1, false);
+    getItem.record(4_000_000, 0, true);
+    getItem.recordCacheLookup(true);
+    StringWriter text = new StringWriter();
+
+    // when
+    MetricsServlet.write(List.of(getItem), new PrintWriter(text));
+
+    // then
+    assertThat(text.toString()).contains("# TYPE jpetstore_statement_calls_total counter",
+        "jpetstore_statement_calls_total{statement=\"ItemMapper.getItem\"} 2",
+        "jpetstore_statement_errors_total{statement=\"ItemMapper.getItem\"} 1",
+        "jpetstore_statement_rows_total{statement=\"ItemMapper.getItem\"} 1",
+        "jpetstore_statement_cache_hits_total{statement=\"ItemMapper.getItem\"} 1",
+        "jpetstore_statement_cache_misses_total{statement=\"ItemMapper.getItem\"} 0",
+        "jpetstore_statement_local_cache_hits_total{statement=\"ItemMapper.getItem\"} 0",
+        "# TYPE jpetstore_statement_latency_seconds summary",
+        "jpetstore_statement_latency_seconds{statement=\"ItemMapper.getItem\",quantile=\"0.999\"} 0.004",
+        "jpetstore_statement_latency_seconds_sum{statement=\"ItemMapper.getItem\"} 0.006",
+        "jpetstore_statement_latency_seconds_count{statement=\"ItemMapper.getItem\"} 2");
+  }
+
+  @Test
+  void shouldWriteEachPartOfTheRequestLatency() {
+    // given
+    RequestMetrics requestMetrics = new RequestMetrics();
+    RequestTiming timing = new RequestTiming(0);
+    timing.setAction("CartActionBean.addItemToCart");
+    timing.addStatement("SELECT 1", 1_000_000);
+    requestMetrics.record(timing, 3_000_000, false);
+    StringWriter text = new StringWriter();
+
+    // when
+    MetricsServlet.writeRequests(requestMetrics.getActionMetrics(), new PrintWriter(text));
+
+    // then
+    assertThat(text.toString()).contains("jpetstore_request_errors_total{action=\"CartActionBean.addItemToCart\"} 0",
+        "# TYPE jpetstore_request_seconds summary",
+        "jpetstore_request_seconds_sum{action=\"CartActionBean.addItemToCart\",part=\"total\"} 0.003",
+        "jpetstore_request_seconds{action=\"CartActionBean.addItemToCart\",part=\"database\",quantile=\"0.5\"} 0.001",
+        "jpetstore_request_seconds_count{action=\"CartActionBean.addItemToCart\",part=\"render\"} 1");
+  }
+
+  @Test
+  void shouldEscapeTheStatementLabel() {
+    // given
+    StringWriter text = new StringWriter();
+
+    // when
+    MetricsServlet.write(List.of(new StatementMetrics("a\"b\\c")), new PrintWriter(text));
+
+    // then
+    assertThat(text.toString()).contains("jpetstore_statement_calls_total{statement=\"a\\\"b\\\\c\"} 0");
+  }
+
+}
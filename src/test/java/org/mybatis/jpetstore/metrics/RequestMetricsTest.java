@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class RequestMetricsTest {
+
+  private final RequestMetrics requestMetrics = new RequestMetrics();
+
+  @Test
+  void shouldAggregateEachPartPerAction() {
+    // given
+    RequestTiming timing = new RequestTiming(0);
+    timing.setAction("CatalogActionBean.viewCategory");
+    timing.addHandlerNanos(1_000_000);
+    timing.addStatement("SELECT * FROM PRODUCT", 3_000_000);
+    timing.addRenderNanos(2_000_000);
+
+    // when
+    requestMetrics.record(timing, 7_000_000, false);
+    requestMetrics.record(new RequestTiming(0), 1_000_000, true);
+
+    // then
+    assertThat(requestMetrics.getActionMetrics()).extracting(ActionMetrics::getAction)
+        .containsExactly("CatalogActionBean.viewCategory", RequestMetrics.UNRESOLVED);
+    ActionMetrics viewCategory = requestMetrics.getActionMetrics().get(0);
+    assertThat(viewCategory.getTotal().getMax()).isEqualTo(7_000_000);
+    assertThat(viewCategory.getHandler().getMax()).isEqualTo(1_000_000);
+    assertThat(viewCategory.getDatabase().getMax()).isEqualTo(3_000_000);
+    assertThat(viewCategory.getRender().getMax()).isEqualTo(2_000_000);
+    assertThat(viewCategory.getErrors()).isZero();
+    assertThat(requestMetrics.getActionMetrics().get(1).getErrors()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldLogOnlySampledSlowRequests() {
+    // given
+    requestMetrics.setSlowRequestThresholdMillis(100);
+    RequestTiming timing = new RequestTiming(0);
+    timing.addStatement("SELECT * FROM ITEM WHERE ITEMID = ?", TimeUnit.MILLISECONDS.toNanos(150));
+    long slow = TimeUnit.MILLISECONDS.toNanos(200);
+    long fast = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // when
+    requestMetrics.setSlowRequestSampleRate(1);
+    boolean slowLogged = requestMetrics.record(timing, slow, false);
+    boolean fastLogged = requestMetrics.record(timing, fast, false);
+    requestMetrics.setSlowRequestSampleRate(0);
+    boolean unsampledLogged = requestMetrics.record(timing, slow, false);
+
+    // then
+    assertThat(slowLogged).isTrue();
+    assertThat(fastLogged).isFalse();
+    assertThat(unsampledLogged).isFalse();
+    assertThat(requestMetrics.getActionMetrics().get(0).getTotal().getCount()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldKeepTheSqlOfTheFirstStatementsOnly() {
+    // given
+    RequestTiming timing = new RequestTiming(0);
+
+    // when
+    for (int i = 0; i < RequestTiming.MAX_STATEMENTS + 10; i++) {
+      timing.addStatement("SELECT " + i, 1);
+    }
+
+    // then
+    assertThat(timing.getStatementCount()).isEqualTo(RequestTiming.MAX_STATEMENTS + 10);
+    assertThat(timing.getStatements()).hasSize(RequestTiming.MAX_STATEMENTS);
+    assertThat(timing.getDatabaseNanos()).isEqualTo(RequestTiming.MAX_STATEMENTS + 10);
+  }
+
+}
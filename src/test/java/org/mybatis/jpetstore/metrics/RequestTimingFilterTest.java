@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.verify;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RequestTimingFilterTest {
+
+  @Mock
+  private HttpServletRequest request;
+
+  @Mock
+  private HttpServletResponse response;
+
+  @Mock
+  private FilterChain chain;
+
+  @Mock
+  private AsyncContext asyncContext;
+
+  private final RequestMetrics requestMetrics = new RequestMetrics();
+  private final RequestTimingFilter filter = new RequestTimingFilter(requestMetrics);
+
+  @Test
+  void shouldRecordTheRequestWhenTheChainReturns() throws Exception {
+    // given
+    given(response.getStatus()).willReturn(200);
+
+    // when
+    filter.doFilter(request, response, chain);
+
+    // then
+    verify(request).setAttribute(eq(RequestTiming.ATTRIBUTE), any(RequestTiming.class));
+    assertThat(requestMetrics.getActionMetrics()).singleElement()
+        .satisfies(metrics -> assertThat(metrics.getTotal().getCount()).isEqualTo(1))
+        .satisfies(metrics -> assertThat(metrics.getErrors()).isZero());
+  }
+
+  @Test
+  void shouldCountAFailedChainAsAnError() throws Exception {
+    // given
+    willThrow(new ServletException("boom")).given(chain).doFilter(request, response);
+
+    // when
+    assertThatThrownBy(() -> filter.doFilter(request, response, chain)).hasMessage("boom");
+
+    // then
+    assertThat(requestMetrics.getActionMetrics().get(0).getErrors()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRecordAnAsyncRequestWhenItCompletes() throws Exception {
+    // given
+    given(request.isAsyncStarted()).willReturn(true);
+    given(request.getAsyncContext()).willReturn(asyncContext);
+    given(response.getStatus()).willReturn(500);
+
+    // when
+    filter.doFilter(request, response, chain);
+    assertThat(requestMetrics.getActionMetrics()).isEmpty();
+    ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    verify(asyncContext).addListener(listener.capture());
+    listener.getValue().onComplete(new AsyncEvent(asyncContext, request, response));
+
+    // then
+    assertThat(requestMetrics.getActionMetrics().get(0).getErrors()).isEqualTo(1);
+  }
+
+}
@@ -0,0 +1,234 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.jpetstore.domain.Account;
+import org.mybatis.jpetstore.mapper.AccountMapper;
+import org.mybatis.jpetstore.mapper.CategoryMapper;
+import org.mybatis.jpetstore.mapper.ItemMapper;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class StatementMetricsInterceptorTest {
+
+  private static final String GET_ITEM = ItemMapper.class.getName() + ".getItem";
+
+  private final StatementMetricsInterceptor interceptor = new StatementMetricsInterceptor();
+  private EmbeddedDatabase dataSource;
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setup() {
+    dataSource = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.HSQL)
+        .setScriptEncoding("UTF-8").addScript("database/jpetstore-hsqldb-schema.sql")
+        .addScripts("database/jpetstore-hsqldb-dataload.sql").build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    interceptor.destroy();
+    dataSource.shutdown();
+  }
+
+  @Test
+  void shouldCountCallsRowsAndLatencyOfASelect() {
+    // given
+    build(dataSource);
+
+    // when
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      session.getMapper(CategoryMapper.class).getCategoryList();
+      session.getMapper(CategoryMapper.class).getCategory("FISH");
+    }
+
+    // then
+    StatementMetrics list = interceptor.getStatementMetrics(CategoryMapper.class.getName() + ".getCategoryList");
+    assertThat(list.getCalls()).isEqualTo(1);
+    assertThat(list.getRows()).isEqualTo(5);
+    assertThat(list.getErrors()).isZero();
+    assertThat(list.getLatency().getCount()).isEqualTo(1);
+    assertThat(list.getMaxMillis()).isPositive();
+    assertThat(interceptor.getStatementMetrics()).extracting(StatementMetrics::getStatement).containsExactly(
+        CategoryMapper.class.getName() + ".getCategory", CategoryMapper.class.getName() + ".getCategoryList");
+  }
+
+  @Test
+  void shouldTellSecondLevelCacheHitsFromMisses() {
+    // given
+    build(dataSource);
+
+    // when
+    for (int i = 0; i < 3; i++) {
+      try (SqlSession session = sqlSessionFactory.openSession()) {
+        session.getMapper(ItemMapper.class).getItem("EST-1");
+      }
+    }
+
+    // then
+    StatementMetrics getItem = interceptor.getStatementMetrics(GET_ITEM);
+    assertThat(getItem.getCalls()).isEqualTo(3);
+    assertThat(getItem.getCacheMisses()).isEqualTo(1);
+    assertThat(getItem.getCacheHits()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldTellLocalCacheHitsFromSecondLevelCacheHits() {
+    // given
+    build(dataSource);
+
+    // when: the first session's result reaches the second-level cache on commit only
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      session.getMapper(ItemMapper.class).getItem("EST-1");
+      session.getMapper(ItemMapper.class).getItem("EST-1");
+      session.commit();
+      session.getMapper(ItemMapper.class).getItem("EST-1");
+    }
+
+    // then
+    StatementMetrics getItem = interceptor.getStatementMetrics(GET_ITEM);
+    assertThat(getItem.getCalls()).isEqualTo(3);
+    assertThat(getItem.getCacheMisses()).isEqualTo(1);
+    assertThat(getItem.getLocalCacheHits()).isEqualTo(1);
+    assertThat(getItem.getCacheHits()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCountRowsChangedByAnUpdateAndNoCacheLookups() {
+    // given
+    build(dataSource);
+    Map<String, Object> param = new HashMap<>();
+    param.put("itemId", "EST-1");
+    param.put("increment", 1);
+
+    // when
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      session.getMapper(ItemMapper.class).updateInventoryQuantity(param);
+      session.getMapper(ItemMapper.class).getInventoryQuantity("EST-1");
+      session.rollback(true);
+    }
+
+    // then
+    StatementMetrics update = interceptor.getStatementMetrics(ItemMapper.class.getName() + ".updateInventoryQuantity");
+    assertThat(update.getCalls()).isEqualTo(1);
+    assertThat(update.getRows()).isEqualTo(1);
+    StatementMetrics quantity = interceptor.getStatementMetrics(ItemMapper.class.getName() + ".getInventoryQuantity");
+    assertThat(quantity.getCacheHits() + quantity.getCacheMisses()).isZero();
+  }
+
+  @Test
+  void shouldCountFailures() {
+    // given
+    build(dataSource);
+    Account account = new Account();
+    account.setUsername("j2ee");
+    account.setPassword("j2ee");
+
+    // when
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      assertThatThrownBy(() -> session.getMapper(AccountMapper.class).insertSignon(account))
+          .hasMessageContaining("integrity constraint violation");
+    }
+
+    // then
+    StatementMetrics insert = interceptor.getStatementMetrics(AccountMapper.class.getName() + ".insertSignon");
+    assertThat(insert.getCalls()).isEqualTo(1);
+    assertThat(insert.getErrors()).isEqualTo(1);
+    assertThat(insert.getRows()).isZero();
+  }
+
+  @Test
+  void shouldAddDatabaseTimeAndSqlToTheBoundRequest() {
+    // given
+    build(dataSource);
+    RequestTiming timing = new RequestTiming(System.nanoTime());
+    Map<String, Object> param = new HashMap<>();
+    param.put("itemId", "EST-2");
+    param.put("increment", 1);
+
+    // when
+    RequestTiming previous = RequestTiming.bind(timing);
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      session.getMapper(ItemMapper.class).getItem("EST-2");
+      session.getMapper(ItemMapper.class).updateInventoryQuantity(param);
+      session.rollback(true);
+    } finally {
+      RequestTiming.restore(previous);
+    }
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      session.getMapper(ItemMapper.class).getInventoryQuantity("EST-2");
+    }
+
+    // then
+    assertThat(timing.getStatementCount()).isEqualTo(2);
+    assertThat(timing.getDatabaseNanos()).isPositive();
+    assertThat(timing.getStatements()).extracting(RequestTiming.ExecutedStatement::getSql)
+        .anySatisfy(sql -> assertThat(sql).contains("from ITEM I"))
+        .anySatisfy(sql -> assertThat(sql).contains("UPDATE INVENTORY"));
+  }
+
+  @Test
+  void shouldRegisterEachStatementWithJmx() throws Exception {
+    // given
+    String domain = "jpetstore-test-" + UUID.randomUUID();
+    interceptor.setJmxDomain(domain);
+    build(dataSource);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(domain + ":type=Statement,name=" + ObjectName.quote(GET_ITEM));
+
+    // when
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      session.getMapper(ItemMapper.class).getItem("EST-1");
+    }
+
+    // then
+    assertThat(server.getAttribute(name, "Calls")).isEqualTo(1L);
+    assertThat(server.getAttribute(name, "CacheMisses")).isEqualTo(1L);
+    assertThat((Double) server.getAttribute(name, "P99Millis")).isPositive();
+    interceptor.destroy();
+    assertThat(server.isRegistered(name)).isFalse();
+  }
+
+  private void build(DataSource dataSource) {
+    Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.getTypeAliasRegistry().registerAliases("org.mybatis.jpetstore.domain");
+    configuration.addInterceptor(interceptor);
+    configuration.addMappers("org.mybatis.jpetstore.mapper");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+  }
+
+}
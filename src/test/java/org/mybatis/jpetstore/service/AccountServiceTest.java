@@ -16,14 +16,21 @@
 package org.mybatis.jpetstore.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mybatis.jpetstore.domain.Account;
 import org.mybatis.jpetstore.mapper.AccountMapper;
@@ -36,14 +43,27 @@ class AccountServiceTest {
 
   @Mock
   private AccountMapper accountMapper;
+  @Spy
+  private PasswordHasher passwordHasher = new PasswordHasher();
+  @Mock
+  private SignonThrottle signonThrottle;
+  @Captor
+  private ArgumentCaptor<Account> signon;
 
   @InjectMocks
   private AccountService accountService;
 
+  @BeforeEach
+  void setup() {
+    passwordHasher.setIterations(1000);
+  }
+
   @Test
   void shouldCallTheMapperToInsertAnAccount() {
     // given
     Account account = new Account();
+    account.setUsername("bar");
+    account.setPassword("foo");
 
     // when
     accountService.insertAccount(account);
@@ -51,13 +71,17 @@ class AccountServiceTest {
     // then
     verify(accountMapper).insertAccount(eq(account));
     verify(accountMapper).insertProfile(eq(account));
-    verify(accountMapper).insertSignon(eq(account));
+    verify(accountMapper).insertSignon(signon.capture());
+    assertThat(signon.getValue().getUsername()).isEqualTo("bar");
+    assertThat(passwordHasher.matches("foo", signon.getValue().getPassword())).isTrue();
+    assertThat(account.getPassword()).isEqualTo("foo");
   }
 
   @Test
   void shouldCallTheMapperToUpdateAnAccount() {
     // given
     Account account = new Account();
+    account.setUsername("bar");
     account.setPassword("foo");
 
     // when
@@ -66,7 +90,9 @@ class AccountServiceTest {
     // then
     verify(accountMapper).updateAccount(eq(account));
     verify(accountMapper).updateProfile(eq(account));
-    verify(accountMapper).updateSignon(eq(account));
+    verify(accountMapper).updateSignon(signon.capture());
+    assertThat(signon.getValue().getUsername()).isEqualTo("bar");
+    assertThat(signon.getValue().getPassword()).startsWith("$pbkdf2-sha256$1000$");
   }
 
   @Test
@@ -84,18 +110,63 @@ class AccountServiceTest {
   }
 
   @Test
-  void shouldCallTheMapperToGetAccountAnUsernameAndPassword() {
+  void shouldAuthenticateAgainstTheHashedPassword() {
     // given
-    String username = "bar";
-    String password = "foo";
+    String hash = passwordHasher.hash("foo");
+    when(accountMapper.getPassword("bar")).thenReturn(hash);
 
     // when
-    Account expectedAccount = new Account();
-    when(accountMapper.getAccountByUsernameAndPassword(username, password)).thenReturn(expectedAccount);
-    Account account = accountService.getAccount(username, password);
+    boolean authenticated = accountService.authenticate("bar", "foo");
 
     // then
-    assertThat(account).isSameAs(expectedAccount);
+    assertThat(authenticated).isTrue();
+    verify(signonThrottle).recordSuccess("bar");
+    verify(accountMapper, never()).getAccountByUsername(anyString());
+    verify(accountMapper, never()).updateSignon(any());
+  }
+
+  @Test
+  void shouldHashAPasswordKeptInClearOnSignon() {
+    // given
+    when(accountMapper.getPassword("bar")).thenReturn("foo");
+
+    // when
+    boolean authenticated = accountService.authenticate("bar", "foo");
+
+    // then
+    assertThat(authenticated).isTrue();
+    verify(accountMapper).updateSignon(signon.capture());
+    assertThat(passwordHasher.matches("foo", signon.getValue().getPassword())).isTrue();
+  }
+
+  @Test
+  void shouldCountAWrongPasswordOrUnknownUserAsAFailure() {
+    // given
+    String hash = passwordHasher.hash("foo");
+    when(accountMapper.getPassword("bar")).thenReturn(hash);
+
+    // when
+    boolean wrongPassword = accountService.authenticate("bar", "baz");
+    boolean unknownUser = accountService.authenticate("qux", "foo");
+
+    // then
+    assertThat(wrongPassword).isFalse();
+    assertThat(unknownUser).isFalse();
+    verify(signonThrottle).recordFailure("bar");
+    verify(signonThrottle).recordFailure("qux");
+  }
+
+  @Test
+  void shouldNotCheckThePasswordOfALockedUser() {
+    // given
+    when(signonThrottle.isLocked("bar")).thenReturn(true);
+
+    // when
+    boolean authenticated = accountService.authenticate("bar", "foo");
+
+    // then
+    assertThat(authenticated).isFalse();
+    verify(accountMapper, never()).getPassword(anyString());
   }
 
 }
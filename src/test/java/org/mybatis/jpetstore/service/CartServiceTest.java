@@ -0,0 +1,208 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mybatis.jpetstore.cart.HeapCartStore;
+import org.mybatis.jpetstore.domain.Account;
+import org.mybatis.jpetstore.domain.Cart;
+import org.mybatis.jpetstore.domain.CartItem;
+import org.mybatis.jpetstore.domain.Item;
+import org.mybatis.jpetstore.domain.LineItem;
+import org.mybatis.jpetstore.domain.Order;
+
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+  @Mock
+  private CatalogService catalogService;
+
+  private final HeapCartStore cartStore = new HeapCartStore(Duration.ofHours(1), 100);
+  private final Map<String, Item> items = new HashMap<>();
+
+  private CartService cartService;
+
+  @BeforeEach
+  void setup() throws Exception {
+    cartService = new CartService(catalogService);
+    cartService.setCartStore(cartStore);
+    cartService.afterPropertiesSet();
+    items.put("EST-1", item("EST-1", "16.50"));
+    items.put("EST-2", item("EST-2", "10.00"));
+    items.put("EST-3", item("EST-3", "18.50"));
+  }
+
+  @Test
+  void shouldLoadTheItemsOfASavedCartWithOneCall() {
+    // given
+    when(catalogService.getItems(anyCollection())).thenReturn(items);
+    Cart cart = new Cart();
+    cart.addItem(items.get("EST-1"), true);
+    cart.addItem(items.get("EST-2"), false);
+    cart.setQuantityByItemId("EST-2", 3);
+    cartService.saveCart("user:j2ee", cart);
+
+    // when
+    Cart loaded = cartService.getCart("user:j2ee");
+
+    // then
+    assertThat(loaded.getNumberOfItems()).isEqualTo(2);
+    assertThat(loaded.getSubTotal()).isEqualByComparingTo("46.50");
+    assertThat(loaded.getCartItemList()).extracting(CartItem::getItem).containsExactly(items.get("EST-1"),
+        items.get("EST-2"));
+    verify(catalogService, times(1)).getItems(anyCollection());
+  }
+
+  @Test
+  void shouldRequireAFileForTheMappedStore() {
+    // given
+    CartService mappedCartService = new CartService(catalogService);
+    mappedCartService.setStore("mmap");
+
+    // when / then
+    assertThatThrownBy(mappedCartService::afterPropertiesSet).isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("jpetstore.cart.file");
+  }
+
+  @Test
+  void shouldNotLoadTheItemsForTheTotals() {
+    // given
+    Cart cart = new Cart();
+    cart.addItem(items.get("EST-1"), true);
+    cartService.saveCart("user:j2ee", cart);
+
+    // when
+    Cart loaded = cartService.getCart("user:j2ee");
+
+    // then
+    assertThat(loaded.getSubTotal()).isEqualByComparingTo("16.50");
+    verify(catalogService, times(0)).getItems(anyCollection());
+  }
+
+  @Test
+  void shouldGetAnEmptyCartForAMissingOrUnreadableOne() {
+    // given
+    cartStore.put("visitor:1", new byte[] { 1, 2, 3 });
+
+    // when
+    Cart unreadable = cartService.getCart("visitor:1");
+    Cart missing = cartService.getCart("visitor:2");
+    Cart noKey = cartService.getCart(null);
+
+    // then
+    assertThat(unreadable.getNumberOfItems()).isZero();
+    assertThat(missing.getNumberOfItems()).isZero();
+    assertThat(noKey.getNumberOfItems()).isZero();
+  }
+
+  @Test
+  void shouldRemoveEmptyCarts() {
+    // given
+    Cart cart = new Cart();
+    cart.addItem(items.get("EST-1"), true);
+    cartService.saveCart("user:j2ee", cart);
+
+    // when
+    cart.removeItemById("EST-1");
+    cartService.saveCart("user:j2ee", cart);
+
+    // then
+    assertThat(cartStore.get("user:j2ee")).isNull();
+  }
+
+  @Test
+  void shouldMergeTheVisitorCartIntoTheUserCart() {
+    // given
+    when(catalogService.getItems(anyCollection())).thenReturn(items);
+    Cart visitor = new Cart();
+    visitor.addItem(items.get("EST-1"), true);
+    visitor.addItem(items.get("EST-3"), true);
+    cartService.saveCart("visitor:1", visitor);
+    Cart user = new Cart();
+    user.addItem(items.get("EST-1"), true);
+    user.addItem(items.get("EST-2"), true);
+    cartService.saveCart("user:j2ee", user);
+
+    // when
+    cartService.mergeCart("visitor:1", "user:j2ee");
+
+    // then
+    Cart merged = cartService.getCart("user:j2ee");
+    assertThat(merged.getCartItemList()).extracting(CartItem::getItemId, CartItem::getQuantity)
+        .containsExactly(tuple("EST-1", 2), tuple("EST-2", 1), tuple("EST-3", 1));
+    assertThat(cartStore.get("visitor:1")).isNull();
+  }
+
+  @Test
+  void shouldRepriceASavedCartForCheckout() {
+    // given
+    Cart cart = new Cart();
+    cart.addItem(items.get("EST-1"), true);
+    cart.addItem(items.get("EST-2"), true);
+    cart.addItem(items.get("EST-3"), true);
+    cart.setQuantityByItemId("EST-2", 2);
+    cartService.saveCart("user:j2ee", cart);
+    Map<String, Item> current = new HashMap<>();
+    current.put("EST-1", items.get("EST-1"));
+    current.put("EST-2", item("EST-2", "12.25"));
+    when(catalogService.getItems(anyCollection())).thenReturn(current);
+
+    // when
+    Cart loaded = cartService.getCart("user:j2ee");
+    BigDecimal subTotalBeforeRepricing = loaded.getSubTotal();
+    boolean repriced = loaded.reprice();
+    Account account = new Account();
+    account.setUsername("j2ee");
+    Order order = new Order();
+    order.initOrder(account, loaded);
+
+    // then
+    assertThat(subTotalBeforeRepricing).isEqualByComparingTo("55.00");
+    assertThat(repriced).isTrue();
+    assertThat(loaded.getItemIds()).containsExactlyInAnyOrder("EST-1", "EST-2");
+    assertThat(loaded.getSubTotal()).isEqualByComparingTo("41.00");
+    assertThat(order.getTotalPrice()).isEqualByComparingTo("41.00");
+    assertThat(order.getLineItems()).extracting(LineItem::getItemId, LineItem::getUnitPrice, LineItem::getTotal)
+        .containsExactly(tuple("EST-1", new BigDecimal("16.50"), new BigDecimal("16.50")),
+            tuple("EST-2", new BigDecimal("12.25"), new BigDecimal("24.50")));
+    assertThat(loaded.reprice()).isFalse();
+  }
+
+  private static Item item(String itemId, String listPrice) {
+    Item item = new Item();
+    item.setItemId(itemId);
+    item.setListPrice(new BigDecimal(listPrice));
+    return item;
+  }
+
+}
@@ -0,0 +1,213 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.mybatis.jpetstore.domain.Category;
+import org.mybatis.jpetstore.domain.Item;
+import org.mybatis.jpetstore.domain.Product;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class CatalogCacheTest {
+
+  private final CatalogCache cache = new CatalogCache();
+
+  @Test
+  void shouldCacheEachPageSeparately() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    List<Product> first = cache.getProductListByCategory("FISH", null, 2, () -> page(loads));
+    List<Product> second = cache.getProductListByCategory("FISH", "FI-SW-02", 2, () -> page(loads));
+    List<Product> firstAgain = cache.getProductListByCategory("FISH", null, 2, () -> page(loads));
+    List<Product> whole = cache.getProductListByCategory("FISH", null, 0, () -> page(loads));
+
+    // then
+    assertThat(loads).hasValue(3);
+    assertThat(firstAgain).isSameAs(first);
+    assertThat(second).isNotSameAs(first);
+    assertThat(whole).isNotSameAs(first);
+  }
+
+  @Test
+  void shouldInvalidateTheProductListsOfACategory() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+    cache.getProductListByCategory("FISH", null, 0, () -> page(loads));
+    cache.getProductListByCategory("DOGS", null, 0, () -> page(loads));
+    cache.getCategory("FISH", id -> new Category());
+
+    // when
+    cache.invalidateCategory("FISH");
+    cache.getProductListByCategory("FISH", null, 0, () -> page(loads));
+    cache.getProductListByCategory("DOGS", null, 0, () -> page(loads));
+
+    // then
+    assertThat(loads).hasValue(3);
+    assertThat(cache.getStats().get(CatalogCache.PRODUCTS_BY_CATEGORY).hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldInvalidateTheItemListsOfAnItemsProduct() {
+    // given
+    Product product = new Product();
+    product.setProductId("FI-SW-01");
+    Item item = new Item();
+    item.setItemId("EST-1");
+    item.setProduct(product);
+    AtomicInteger loads = new AtomicInteger();
+    cache.getItem("EST-1", id -> item);
+    cache.getItemListByProduct("FI-SW-01", null, 0, () -> items(loads));
+
+    // when
+    cache.invalidateItem("EST-1");
+    cache.getItemListByProduct("FI-SW-01", null, 0, () -> items(loads));
+    Item reloaded = cache.getItem("EST-1", id -> new Item());
+
+    // then
+    assertThat(loads).hasValue(2);
+    assertThat(reloaded).isNotSameAs(item);
+  }
+
+  @Test
+  void shouldInvalidateQuantityOnceTheTransactionCompletes() {
+    // given
+    cache.getQuantity("EST-1", id -> 10);
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+
+      // when
+      cache.invalidateQuantity("EST-1");
+      int duringTransaction = cache.getQuantity("EST-1", id -> 9);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+      // then
+      assertThat(duringTransaction).isEqualTo(10);
+      assertThat(cache.getQuantity("EST-1", id -> 9)).isEqualTo(9);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void shouldRecordHitsAndMisses() {
+    // when
+    cache.getProduct("FI-SW-01", id -> new Product());
+    cache.getProduct("FI-SW-01", id -> new Product());
+    cache.getProduct("FI-SW-02", id -> new Product());
+
+    // then
+    assertThat(cache.getStats().get(CatalogCache.PRODUCTS).hitCount()).isEqualTo(1);
+    assertThat(cache.getStats().get(CatalogCache.PRODUCTS).missCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldNotCacheMissingEntries() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    cache.getProduct("NONE", id -> {
+      loads.incrementAndGet();
+      return null;
+    });
+    cache.getProduct("NONE", id -> {
+      loads.incrementAndGet();
+      return null;
+    });
+
+    // then
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldApplyTheConfiguredSpec() {
+    // given
+    cache.setProductSpec("expireAfterWrite=0s");
+
+    // when
+    cache.getProduct("FI-SW-01", id -> new Product());
+    cache.getProduct("FI-SW-01", id -> new Product());
+
+    // then
+    assertThat(cache.getStats().get(CatalogCache.PRODUCTS).hitCount()).isZero();
+  }
+
+  @Test
+  void shouldShareAnImmutableMyListPerCategory() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+    List<Product> loaded = new ArrayList<>(List.of(new Product()));
+
+    // when
+    List<Product> first = cache.getMyList("FISH", id -> {
+      loads.incrementAndGet();
+      return loaded;
+    });
+    List<Product> second = cache.getMyList("FISH", id -> page(loads));
+    loaded.clear();
+
+    // then
+    assertThat(loads).hasValue(1);
+    assertThat(second).isSameAs(first).hasSize(1);
+    assertThatThrownBy(() -> first.add(new Product())).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldRefreshTheMyListWhenItsCategoryOrAProductChanges() {
+    // given
+    Product product = new Product();
+    product.setProductId("FI-SW-01");
+    product.setCategoryId("FISH");
+    cache.getProduct("FI-SW-01", id -> product);
+    AtomicInteger loads = new AtomicInteger();
+    cache.getMyList("FISH", id -> page(loads));
+    cache.getMyList("DOGS", id -> page(loads));
+
+    // when
+    cache.invalidateProduct("FI-SW-01");
+    cache.getMyList("FISH", id -> page(loads));
+    cache.getMyList("DOGS", id -> page(loads));
+    cache.invalidateCategory("DOGS");
+    cache.getMyList("FISH", id -> page(loads));
+    cache.getMyList("DOGS", id -> page(loads));
+
+    // then
+    assertThat(loads).hasValue(4);
+    assertThat(cache.getStats().get(CatalogCache.MY_LISTS).hitCount()).isEqualTo(2);
+  }
+
+  private static List<Product> page(AtomicInteger loads) {
+    loads.incrementAndGet();
+    return new ArrayList<>();
+  }
+
+  private static List<Item> items(AtomicInteger loads) {
+    loads.incrementAndGet();
+    return new ArrayList<>();
+  }
+
+}
@@ -16,15 +16,26 @@
 package org.mybatis.jpetstore.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mybatis.jpetstore.domain.Category;
 import org.mybatis.jpetstore.domain.Item;
@@ -32,6 +43,12 @@ import org.mybatis.jpetstore.domain.Product;
 import org.mybatis.jpetstore.mapper.CategoryMapper;
 import org.mybatis.jpetstore.mapper.ItemMapper;
 import org.mybatis.jpetstore.mapper.ProductMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Eduardo Macarron
@@ -45,28 +62,59 @@ class CatalogServiceTest {
   private CategoryMapper categoryMapper;
   @Mock
   private ItemMapper itemMapper;
+  @Mock
+  private ProductSearchIndex productSearchIndex;
+  @Spy
+  private CatalogCache catalogCache = new CatalogCache();
+  @Mock
+  private InventoryLedger inventoryLedger;
 
   @InjectMocks
   private CatalogService catalogService;
 
   @Test
-  void shouldCallTheSearchMapperTwice() {
+  void shouldCallTheSearchMapperOnce() {
     // given
     String keywords = "a b";
-    List<Product> l1 = new ArrayList<>();
-    l1.add(new Product());
-    List<Product> l2 = new ArrayList<>();
-    l2.add(new Product());
+    List<Product> expectedProducts = new ArrayList<>();
+    expectedProducts.add(new Product());
 
     // when
-    when(productMapper.searchProductList("%a%")).thenReturn(l1);
-    when(productMapper.searchProductList("%b%")).thenReturn(l2);
+    when(productMapper.searchProductListByKeywords(List.of("%a%", "%b%"), false, 0, 0)).thenReturn(expectedProducts);
     List<Product> r = catalogService.searchProductList(keywords);
 
     // then
-    assertThat(r).hasSize(2);
-    assertThat(r.get(0)).isSameAs(l1.get(0));
-    assertThat(r.get(1)).isSameAs(l2.get(0));
+    assertThat(r).isSameAs(expectedProducts);
+    verify(productMapper, never()).searchProductList(anyString());
+  }
+
+  @Test
+  void shouldSearchTheIndexWhenEnabled() {
+    // given
+    String keywords = "a b";
+    List<Product> expectedProducts = new ArrayList<>();
+
+    // when
+    when(productSearchIndex.isEnabled()).thenReturn(true);
+    when(productSearchIndex.search(keywords, false)).thenReturn(expectedProducts);
+    List<Product> products = catalogService.searchProductList(keywords);
+
+    // then
+    assertThat(products).isSameAs(expectedProducts);
+    verifyNoInteractions(productMapper);
+  }
+
+  @Test
+  void shouldAskTheSearchMapperToMatchAllKeywords() {
+    // given
+    List<Product> expectedProducts = new ArrayList<>();
+
+    // when
+    when(productMapper.searchProductListByKeywords(List.of("%a%", "%b%"), true, 0, 0)).thenReturn(expectedProducts);
+    List<Product> r = catalogService.searchProductList("a b", true);
+
+    // then
+    assertThat(r).isSameAs(expectedProducts);
   }
 
   @Test
@@ -129,6 +177,36 @@ class CatalogServiceTest {
 
   }
 
+  @Test
+  void shouldReturnProductPage() {
+    // given
+    String categoryId = "C01";
+    List<Product> expectedProducts = new ArrayList<>();
+
+    // when
+    when(productMapper.getProductPageByCategory(categoryId, "P01", 20)).thenReturn(expectedProducts);
+    List<Product> products = catalogService.getProductListByCategory(categoryId, "P01", 20);
+
+    // then
+    assertThat(products).isSameAs(expectedProducts);
+
+  }
+
+  @Test
+  void shouldReturnItemPage() {
+    // given
+    String productId = "P01";
+    List<Item> expectedItems = new ArrayList<>();
+
+    // when
+    when(itemMapper.getItemPageByProduct(productId, null, 20)).thenReturn(expectedItems);
+    List<Item> items = catalogService.getItemListByProduct(productId, null, 20);
+
+    // then
+    assertThat(items).isSameAs(expectedItems);
+
+  }
+
   @Test
   void shouldReturnItemList() {
     // given
@@ -150,13 +228,139 @@ class CatalogServiceTest {
     // given
     String itemCode = "I01";
     Item expectedItem = new Item();
+    expectedItem.setItemId(itemCode);
+    expectedItem.setQuantity(10);
 
     // when
     when(itemMapper.getItem(itemCode)).thenReturn(expectedItem);
+    when(itemMapper.getInventoryQuantity(itemCode)).thenReturn(7);
     Item item = catalogService.getItem(itemCode);
 
     // then
-    assertThat(item).isSameAs(expectedItem);
+    assertThat(item.getItemId()).isEqualTo(itemCode);
+    assertThat(item.getQuantity()).isEqualTo(7);
+
+  }
+
+  @Test
+  void shouldCacheItemAndQuantitySeparately() {
+
+    // given
+    String itemCode = "I01";
+    Item expectedItem = new Item();
+    expectedItem.setItemId(itemCode);
+    when(itemMapper.getItem(itemCode)).thenReturn(expectedItem);
+    when(itemMapper.getInventoryQuantity(itemCode)).thenReturn(5, 4);
+
+    // when
+    Item first = catalogService.getItem(itemCode);
+    first.setQuantity(100);
+    Item cached = catalogService.getItem(itemCode);
+    catalogCache.invalidateQuantity(itemCode);
+    Item refreshed = catalogService.getItem(itemCode);
+
+    // then
+    verify(itemMapper).getItem(itemCode);
+    verify(itemMapper, times(2)).getInventoryQuantity(itemCode);
+    assertThat(cached).isNotSameAs(first);
+    assertThat(cached.getQuantity()).isEqualTo(5);
+    assertThat(refreshed.getQuantity()).isEqualTo(4);
+    assertThat(expectedItem.getQuantity()).isZero();
+
+  }
+
+  @Test
+  void shouldLoadOnlyTheMissingQuantitiesInOneQuery() {
+
+    // given
+    Item first = new Item();
+    first.setQuantity(3);
+    Item second = new Item();
+    second.setQuantity(0);
+    when(itemMapper.getInventoryQuantity("I01")).thenReturn(5);
+    when(itemMapper.getInventoryQuantities(Set.of("I02", "I03", "I04")))
+        .thenReturn(Map.of("I02", first, "I03", second));
+
+    // when
+    catalogService.isItemInStock("I01");
+    Map<String, Integer> quantities = catalogService.getInventoryQuantities(List.of("I01", "I02", "I03", "I04"));
+
+    // then
+    verify(itemMapper).getInventoryQuantities(Set.of("I02", "I03", "I04"));
+    assertThat(quantities).containsOnly(entry("I01", 5), entry("I02", 3), entry("I03", 0));
+
+  }
+
+  @Test
+  void shouldReturnItemsWithTheirQuantities() {
+
+    // given
+    Item item = new Item();
+    item.setItemId("I01");
+    Item quantity = new Item();
+    quantity.setQuantity(4);
+    when(itemMapper.getItems(Set.of("I01", "I02"))).thenReturn(Map.of("I01", item));
+    when(itemMapper.getInventoryQuantities(Set.of("I01"))).thenReturn(Map.of("I01", quantity));
+
+    // when
+    Map<String, Item> items = catalogService.getItems(List.of("I01", "I02"));
+
+    // then
+    assertThat(items).containsOnlyKeys("I01");
+    assertThat(items.get("I01").getQuantity()).isEqualTo(4);
+    assertThat(item.getQuantity()).isZero();
+
+  }
+
+  @Test
+  void shouldReadQuantitiesFromTheLedgerWhenEnabled() {
+
+    // given
+    Item item = new Item();
+    item.setItemId("I01");
+    when(inventoryLedger.isEnabled()).thenReturn(true);
+    when(itemMapper.getItem("I01")).thenReturn(item);
+    when(inventoryLedger.getQuantity("I01")).thenReturn(6);
+
+    // when
+    Item result = catalogService.getItem("I01");
+
+    // then
+    assertThat(result.getQuantity()).isEqualTo(6);
+    verify(itemMapper, never()).getInventoryQuantity(anyString());
+
+  }
+
+  @Test
+  void shouldNotQueryForAnEmptyCart() {
+
+    // when
+    Map<String, Integer> quantities = catalogService.getInventoryQuantities(Set.of());
+
+    // then
+    assertThat(quantities).isEmpty();
+    verifyNoInteractions(itemMapper);
+
+  }
+
+  @Test
+  void shouldReadProductFromTheDatabaseOnceUntilInvalidated() {
+
+    // given
+    String productId = "P01";
+    Product expectedProduct = new Product();
+    expectedProduct.setProductId(productId);
+    when(productMapper.getProduct(productId)).thenReturn(expectedProduct);
+
+    // when
+    catalogService.getProduct(productId);
+    catalogService.getProduct(productId);
+    catalogCache.invalidateProduct(productId);
+    Product product = catalogService.getProduct(productId);
+
+    // then
+    verify(productMapper, times(2)).getProduct(productId);
+    assertThat(product).isSameAs(expectedProduct);
 
   }
 
@@ -190,4 +394,89 @@ class CatalogServiceTest {
 
   }
 
+  @Test
+  void shouldLoadEachMyListOnce() {
+    // given
+    List<Product> products = new ArrayList<>();
+    products.add(new Product());
+
+    // when
+    when(productMapper.getProductListByCategory("FISH")).thenReturn(products);
+    List<Product> first = catalogService.getMyList("FISH");
+    List<Product> second = catalogService.getMyList("FISH");
+
+    // then
+    assertThat(second).isSameAs(first).containsExactlyElementsOf(products);
+    verify(productMapper, times(1)).getProductListByCategory("FISH");
+  }
+
+  @Test
+  void shouldReturnAnEmptyMyListWithoutFavouriteCategory() {
+    // when
+    List<Product> myList = catalogService.getMyList(null);
+
+    // then
+    assertThat(myList).isEmpty();
+    verifyNoInteractions(productMapper);
+  }
+
+  @Nested
+  @SpringJUnitConfig(ServiceTestContext.class)
+  @DirtiesContext
+  class WithDatabase {
+
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private CatalogCache catalogCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldFindTheSameProductsWithAndWithoutTheIndex() {
+      for (String keywords : List.of("dog", " dog", "DOG ", "fish australia", "great-dog", "images", "gif", "  ",
+          "o")) {
+        for (boolean matchAll : new boolean[] { false, true }) {
+          // when
+          productSearchIndex.setEnabled(true);
+          List<String> indexed = productIds(catalogService.searchProductList(keywords, matchAll));
+          productSearchIndex.setEnabled(false);
+          List<String> queried = productIds(catalogService.searchProductList(keywords, matchAll));
+
+          // then
+          assertThat(indexed).as("'%s', matchAll=%s", keywords, matchAll).containsExactlyInAnyOrderElementsOf(queried);
+        }
+      }
+      productSearchIndex.setEnabled(true);
+    }
+
+    @Test
+    void shouldReindexAProductOnceItsChangeCommits() {
+      // given
+      assertThat(catalogService.searchProductList("dalmation")).extracting(Product::getProductId)
+          .containsExactly("K9-DL-01");
+
+      // when
+      new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+        jdbcTemplate.update("UPDATE PRODUCT SET NAME = 'Dalmatian' WHERE PRODUCTID = 'K9-DL-01'");
+        catalogCache.invalidateProduct("K9-DL-01");
+        assertThat(catalogService.searchProductList("dalmatian")).isEmpty();
+      });
+
+      // then
+      assertThat(catalogService.searchProductList("dalmatian")).extracting(Product::getProductId)
+          .containsExactly("K9-DL-01");
+      assertThat(catalogService.searchProductList("dalmation")).isEmpty();
+    }
+
+    private List<String> productIds(List<Product> products) {
+      return products.stream().map(Product::getProductId).collect(Collectors.toList());
+    }
+
+  }
+
 }
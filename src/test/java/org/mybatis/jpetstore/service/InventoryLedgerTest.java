@@ -0,0 +1,268 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mybatis.jpetstore.domain.Item;
+import org.mybatis.jpetstore.domain.LineItem;
+import org.mybatis.jpetstore.domain.Order;
+import org.mybatis.jpetstore.exception.InsufficientInventoryException;
+import org.mybatis.jpetstore.mapper.InventoryLedgerMapper;
+import org.mybatis.jpetstore.mapper.ItemMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerTest {
+
+  @Mock
+  private ItemMapper itemMapper;
+  @Mock
+  private InventoryLedgerMapper inventoryLedgerMapper;
+  @Mock
+  private SqlSessionFactory sqlSessionFactory;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private InventoryLedger ledger;
+
+  @BeforeEach
+  void setup() {
+    ledger = new InventoryLedger(itemMapper, inventoryLedgerMapper, sqlSessionFactory, transactionManager);
+  }
+
+  @Test
+  void shouldReserveNothingWhenOneLineIsShort() {
+    // given
+    when(itemMapper.getInventoryQuantities(any())).thenReturn(Map.of("I01", item(5)), Map.of("I02", item(1)));
+
+    // when
+    InsufficientInventoryException exception = Assertions.assertThrows(InsufficientInventoryException.class,
+        () -> ledger.reserve(order(1, Map.of("I01", 3), Map.of("I02", 2))));
+
+    // then
+    assertThat(exception.getItemIds()).containsExactly("I02");
+    assertThat(ledger.getQuantity("I01")).isEqualTo(5);
+    assertThat(ledger.getQuantity("I02")).isEqualTo(1);
+    verify(inventoryLedgerMapper, never()).insertPendingOrder(anyInt());
+  }
+
+  @Test
+  void shouldLoadEachItemFromTheDatabaseOnce() {
+    // given
+    when(itemMapper.getInventoryQuantities(any())).thenReturn(Map.of("I01", item(5)));
+
+    // when
+    ledger.reserve(order(1, Map.of("I01", 2)));
+    ledger.reserve(order(2, Map.of("I01", 2)));
+
+    // then
+    assertThat(ledger.getQuantity("I01")).isEqualTo(1);
+    verify(itemMapper).getInventoryQuantities(any());
+    verify(inventoryLedgerMapper).insertPendingOrder(1);
+    verify(inventoryLedgerMapper).insertPendingOrder(2);
+  }
+
+  private static Item item(int quantity) {
+    Item item = new Item();
+    item.setQuantity(quantity);
+    return item;
+  }
+
+  @SafeVarargs
+  private static Order order(int orderId, Map<String, Integer>... lines) {
+    Order order = new Order();
+    order.setOrderId(orderId);
+    for (Map<String, Integer> line : lines) {
+      line.forEach((itemId, quantity) -> {
+        LineItem lineItem = new LineItem();
+        lineItem.setItemId(itemId);
+        lineItem.setQuantity(quantity);
+        order.addLineItem(lineItem);
+      });
+    }
+    return order;
+  }
+
+  @Nested
+  @SpringJUnitConfig(ServiceTestContext.class)
+  @DirtiesContext
+  class WithDatabase {
+
+    private static final int THREADS = 32;
+    private static final int ORDERS = 400;
+    private static final int STOCK = 150;
+
+    @Autowired
+    private ItemMapper itemMapper;
+    @Autowired
+    private InventoryLedgerMapper inventoryLedgerMapper;
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private InventoryLedger ledger;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setup() {
+      ledger = new InventoryLedger(itemMapper, inventoryLedgerMapper, sqlSessionFactory, transactionManager);
+      transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void shouldWriteCoalescedDecrementsAfterCommit() {
+      // given
+      int quantity = quantity("EST-10");
+
+      // when
+      for (int orderId = 900001; orderId <= 900003; orderId++) {
+        Order order = order(orderId, Map.of("EST-10", 2));
+        transactionTemplate.executeWithoutResult(status -> ledger.reserve(order));
+      }
+      int beforeFlush = quantity("EST-10");
+      int pendingBeforeFlush = pendingOrders();
+      ledger.flush();
+
+      // then
+      assertThat(beforeFlush).isEqualTo(quantity);
+      assertThat(pendingBeforeFlush).isEqualTo(3);
+      assertThat(ledger.getQuantity("EST-10")).isEqualTo(quantity - 6);
+      assertThat(quantity("EST-10")).isEqualTo(quantity - 6);
+      assertThat(pendingOrders()).isZero();
+    }
+
+    @Test
+    void shouldReleaseTheReservationOnRollback() {
+      // given
+      int quantity = quantity("EST-11");
+
+      // when
+      transactionTemplate.executeWithoutResult(status -> {
+        ledger.reserve(order(900011, Map.of("EST-11", 4)));
+        status.setRollbackOnly();
+      });
+      ledger.flush();
+
+      // then
+      assertThat(ledger.getQuantity("EST-11")).isEqualTo(quantity);
+      assertThat(quantity("EST-11")).isEqualTo(quantity);
+      assertThat(pendingOrders()).isZero();
+    }
+
+    @Test
+    void shouldApplyThePendingOrdersOfAPreviousRunOnStartup() {
+      // given
+      int quantity = quantity("EST-12");
+      jdbcTemplate.update("INSERT INTO LINEITEM VALUES (900021, 1, 'EST-12', 3, 10.00)");
+      jdbcTemplate.update("INSERT INTO LINEITEM VALUES (900022, 1, 'EST-12', 2, 10.00)");
+      jdbcTemplate.update("INSERT INTO INVENTORYLEDGER VALUES (900021)");
+      jdbcTemplate.update("INSERT INTO INVENTORYLEDGER VALUES (900022)");
+
+      // when
+      ledger.afterPropertiesSet();
+
+      // then
+      assertThat(quantity("EST-12")).isEqualTo(quantity - 5);
+      assertThat(ledger.getQuantity("EST-12")).isEqualTo(quantity - 5);
+      assertThat(pendingOrders()).isZero();
+    }
+
+    @Test
+    void shouldNeverOversellAnItem() throws Exception {
+      // given
+      jdbcTemplate.update("UPDATE INVENTORY SET QTY = ? WHERE ITEMID = ?", STOCK, "EST-13");
+      AtomicInteger orderIds = new AtomicInteger(910000);
+
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      CountDownLatch ready = new CountDownLatch(1);
+      List<Future<Boolean>> futures = new ArrayList<>();
+      try {
+        for (int i = 0; i < ORDERS; i++) {
+          Callable<Boolean> task = () -> {
+            ready.await();
+            try {
+              ledger.reserve(order(orderIds.incrementAndGet(), Map.of("EST-13", 1)));
+              return true;
+            } catch (InsufficientInventoryException e) {
+              return false;
+            }
+          };
+          futures.add(executor.submit(task));
+        }
+
+        // when
+        ready.countDown();
+        int accepted = 0;
+        for (Future<Boolean> future : futures) {
+          if (future.get()) {
+            accepted++;
+          }
+        }
+        ledger.flush();
+
+        // then
+        assertThat(accepted).isEqualTo(STOCK);
+        assertThat(ledger.getQuantity("EST-13")).isZero();
+        assertThat(quantity("EST-13")).isZero();
+        assertThat(pendingOrders()).isZero();
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    private int quantity(String itemId) {
+      return jdbcTemplate.queryForObject("SELECT QTY FROM INVENTORY WHERE ITEMID = ?", Integer.class, itemId);
+    }
+
+    private int pendingOrders() {
+      return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INVENTORYLEDGER", Integer.class);
+    }
+
+  }
+
+}
@@ -0,0 +1,448 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.jpetstore.domain.LineItem;
+import org.mybatis.jpetstore.domain.Order;
+import org.mybatis.jpetstore.mapper.OrderJournalMapper;
+import org.mybatis.jpetstore.mapper.OrderMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringJUnitConfig(ServiceTestContext.class)
+@DirtiesContext
+class OrderJournalTest {
+
+  private static final int CAPACITY = 64 * 1024;
+
+  @Autowired
+  private OrderMapper orderMapper;
+  @Autowired
+  private OrderJournalMapper orderJournalMapper;
+  @Autowired
+  private SqlSessionFactory sqlSessionFactory;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @TempDir
+  Path directory;
+
+  private final List<OrderJournal> journals = new ArrayList<>();
+
+  @AfterEach
+  void closeJournals() throws Exception {
+    for (OrderJournal journal : journals) {
+      journal.destroy();
+    }
+  }
+
+  @Test
+  void shouldServeTheOrderFromMemoryUntilItIsDrained() throws Exception {
+    // given
+    OrderJournal journal = open(CAPACITY);
+    Order order = order(950001);
+
+    // when
+    journal.submit(order);
+    Order pending = journal.getPendingOrder(950001);
+    int rowsBeforeDrain = lineItems(950001);
+    journal.drain();
+
+    // then
+    assertThat(pending).isSameAs(order);
+    assertThat(rowsBeforeDrain).isZero();
+    assertThat(journal.getPendingOrder(950001)).isNull();
+    assertThat(lineItems(950001)).isEqualTo(2);
+    assertThat(orderMapper.getOrderWithLineItems(950001).getUsername()).isEqualTo("j2ee");
+  }
+
+  @Test
+  void shouldReplayUndrainedOrdersAfterACrash() throws Exception {
+    // given
+    OrderJournal crashed = openWithoutClosing(CAPACITY);
+    Order written = order(950011);
+    crashed.submit(written);
+    crashed.submit(order(950012));
+    // the first order reached the database but the drained offset was not updated
+    orderMapper.insertOrder(written);
+    orderMapper.insertOrderStatus(written);
+    orderJournalMapper.deleteJournaledOrder(950011);
+
+    // when
+    open(CAPACITY);
+
+    // then
+    assertThat(orderMapper.getOrderWithLineItems(950011)).isNotNull();
+    assertThat(lineItems(950011)).isZero();
+    Order replayed = orderMapper.getOrderWithLineItems(950012);
+    assertThat(replayed.getUsername()).isEqualTo("j2ee");
+    assertThat(replayed.getBillCity()).isEqualTo("Palo Alto");
+    assertThat(replayed.getTotalPrice()).isEqualByComparingTo(order(950012).getTotalPrice());
+    assertThat(lineItems(950012)).isEqualTo(2);
+  }
+
+  @Test
+  void shouldIgnoreATornLastRecord() throws Exception {
+    // given
+    OrderJournal crashed = openWithoutClosing(CAPACITY);
+    crashed.submit(order(950021));
+    int secondRecord = journalLength();
+    crashed.submit(order(950022));
+    try (RandomAccessFile file = new RandomAccessFile(journalFile().toFile(), "rw")) {
+      // corrupt the last byte of the second payload
+      int length = readInt(file, secondRecord);
+      long lastByte = secondRecord + 8L + length - 1;
+      file.seek(lastByte);
+      int value = file.read();
+      file.seek(lastByte);
+      file.write(value ^ 0xFF);
+    }
+
+    // when
+    open(CAPACITY);
+
+    // then
+    assertThat(orderMapper.getOrderWithLineItems(950021)).isNotNull();
+    assertThat(orderMapper.getOrderWithLineItems(950022)).isNull();
+  }
+
+  @Test
+  void shouldJournalTheOrderWhenTheTransactionCommits() throws Exception {
+    // given
+    OrderJournal journal = open(CAPACITY);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+    // when
+    int lengthBeforeCommit = transactionTemplate.execute(status -> {
+      journal.submit(order(950041));
+      return journalLengthUnchecked();
+    });
+
+    // then
+    assertThat(lengthBeforeCommit).isEqualTo(8);
+    assertThat(journalLength()).isGreaterThan(8);
+    assertThat(journal.getPendingOrder(950041)).isNotNull();
+  }
+
+  @Test
+  void shouldCancelTheOrderWhenTheCommitFails() throws Exception {
+    // given
+    OrderJournal crashed = openWithoutClosing(CAPACITY);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+    // when
+    assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+      crashed.submit(order(950051));
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+          throw new IllegalStateException("commit failed");
+        }
+      });
+    })).hasMessage("commit failed");
+    crashed.submit(order(950052));
+    Order cancelled = crashed.getPendingOrder(950051);
+    open(CAPACITY);
+
+    // then
+    assertThat(cancelled).isNull();
+    assertThat(orderMapper.getOrderWithLineItems(950051)).isNull();
+    assertThat(orderMapper.getOrderWithLineItems(950052)).isNotNull();
+  }
+
+  @Test
+  void shouldNotReplayAnOrderWhoseTransactionDidNotCommitBeforeACrash() throws Exception {
+    // given
+    OrderJournal crashed = openWithoutClosing(CAPACITY);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    int[] cancelRecord = new int[1];
+    assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+      crashed.submit(order(950121));
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+          cancelRecord[0] = journalLengthUnchecked();
+          throw new IllegalStateException("crashed");
+        }
+      });
+    })).hasMessage("crashed");
+    // the JVM died before the rollback could be journaled
+    try (RandomAccessFile file = new RandomAccessFile(journalFile().toFile(), "rw")) {
+      file.seek(cancelRecord[0]);
+      file.writeInt(0);
+    }
+
+    // when
+    OrderJournal journal = open(CAPACITY);
+
+    // then
+    assertThat(journal.getPendingOrder(950121)).isNull();
+    assertThat(orderMapper.getOrderWithLineItems(950121)).isNull();
+  }
+
+  @Test
+  void shouldWriteDirectlyInTheCallersTransactionWhenTheJournalIsFull() throws Exception {
+    // given
+    OrderJournal journal = open(64);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+    // when
+    assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+      journal.submit(order(950061));
+      throw new IllegalStateException("rolled back");
+    })).hasMessage("rolled back");
+    transactionTemplate.executeWithoutResult(status -> journal.submit(order(950062)));
+
+    // then
+    assertThat(orderMapper.getOrderWithLineItems(950061)).isNull();
+    assertThat(journal.getPendingOrder(950062)).isNull();
+    assertThat(lineItems(950062)).isEqualTo(2);
+  }
+
+  @Test
+  void shouldReclaimTheDrainedSpaceUnderSteadyLoad() throws Exception {
+    // given
+    int recordSize = journalRecordSize() - 8;
+    int capacity = 8 + 6 * recordSize;
+    OrderJournal crashed = openWithoutClosing(capacity);
+    List<Order> journaled = new ArrayList<>();
+
+    // when
+    for (int orderId = 950081; orderId <= 950100; orderId++) {
+      // every drain leaves the order being committed behind, so the journal is never empty
+      submitWhileDraining(crashed, order(orderId));
+      journaled.add(crashed.getPendingOrder(orderId));
+    }
+    open(capacity);
+
+    // then
+    assertThat(journaled).doesNotContainNull();
+    assertThat(journalLength()).isLessThanOrEqualTo(8 + recordSize);
+    for (int orderId = 950081; orderId <= 950100; orderId++) {
+      assertThat(lineItems(orderId)).as("order %d", orderId).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void shouldMoveAnOrderThatKeepsFailingToTheDeadLetterFile() throws Exception {
+    // given
+    OrderJournal journal = open(CAPACITY);
+    journal.setMaxAttempts(2);
+    Order duplicate = order(950111);
+    orderMapper.insertOrder(duplicate);
+    orderMapper.insertOrderStatus(duplicate);
+    journal.submit(duplicate);
+    journal.submit(order(950112));
+
+    // when
+    journal.drain();
+    Order retried = journal.getPendingOrder(950111);
+    boolean deadLetteredOnFirstAttempt = Files.exists(journal.getDeadLetterFile());
+    journal.drain();
+    journal.submit(order(950113));
+    journal.drain();
+
+    // then
+    assertThat(retried).isSameAs(duplicate);
+    assertThat(deadLetteredOnFirstAttempt).isFalse();
+    assertThat(journal.getPendingOrder(950111)).isNull();
+    assertThat(Files.size(journal.getDeadLetterFile())).isGreaterThan(8);
+    assertThat(lineItems(950111)).isZero();
+    assertThat(lineItems(950112)).isEqualTo(2);
+    assertThat(lineItems(950113)).isEqualTo(2);
+    assertThat(journalLength()).isEqualTo(8);
+    assertThat(orderJournalMapper.getJournaledOrderIds()).isEmpty();
+  }
+
+  @Test
+  void shouldRejectARecordOfAnotherFormat() throws Exception {
+    // given
+    byte[] serialized = { (byte) 0xAC, (byte) 0xED, 0x00, 0x05 };
+    CRC32 crc = new CRC32();
+    crc.update(serialized);
+    try (RandomAccessFile file = new RandomAccessFile(journalFile().toFile(), "rw")) {
+      file.writeLong(8);
+      file.writeInt(serialized.length);
+      file.writeInt((int) crc.getValue());
+      file.write(serialized);
+      file.writeInt(0);
+    }
+
+    // when / then
+    assertThatThrownBy(() -> open(CAPACITY)).isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Unsupported record type 172 at 8");
+  }
+
+  @Test
+  void shouldRequireAJournalFile() {
+    // given
+    OrderJournal journal = new OrderJournal(orderJournalMapper, sqlSessionFactory, transactionManager);
+    journal.setEnabled(true);
+
+    // when / then
+    assertThatThrownBy(journal::afterPropertiesSet).isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("jpetstore.order.journal.file");
+  }
+
+  @Test
+  void shouldWriteDirectlyWhenTheJournalIsFull() throws Exception {
+    // given
+    OrderJournal journal = open(journalRecordSize() + 16);
+
+    // when
+    journal.submit(order(950031));
+    journal.submit(order(950032));
+
+    // then
+    assertThat(journal.getPendingOrder(950031)).isNotNull();
+    assertThat(journal.getPendingOrder(950032)).isNull();
+    assertThat(lineItems(950032)).isEqualTo(2);
+
+    journal.drain();
+    journal.submit(order(950033));
+    assertThat(journal.getPendingOrder(950033)).isNotNull();
+  }
+
+  private OrderJournal open(int capacity) throws Exception {
+    OrderJournal journal = openWithoutClosing(capacity);
+    journals.add(journal);
+    return journal;
+  }
+
+  /**
+   * Opens a journal that is never closed, like one whose JVM crashed.
+   */
+  private OrderJournal openWithoutClosing(int capacity) throws Exception {
+    OrderJournal journal = new OrderJournal(orderJournalMapper, sqlSessionFactory, transactionManager);
+    journal.setEnabled(true);
+    journal.setFile(journalFile().toString());
+    journal.setCapacity(capacity);
+    journal.setDrainIntervalMillis(3_600_000);
+    journal.afterPropertiesSet();
+    return journal;
+  }
+
+  /**
+   * Submits an order in a transaction that starts draining the journal just after the order is appended, as the
+   * background drain would under load.
+   */
+  private void submitWhileDraining(OrderJournal journal, Order order) throws InterruptedException {
+    Thread[] drainer = new Thread[1];
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      int lengthBefore = journalLengthUnchecked();
+      journal.submit(order);
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void beforeCommit(boolean readOnly) {
+          // a full journal writes the order directly instead
+          if (journalLengthUnchecked() > lengthBefore) {
+            drainer[0] = startDrain(journal);
+          }
+        }
+      });
+    });
+    if (drainer[0] != null) {
+      drainer[0].join();
+    }
+  }
+
+  /**
+   * Starts a drain in another thread and returns once it has taken the entries and waits for this transaction to
+   * release ORDERJOURNAL, or is done.
+   */
+  private static Thread startDrain(OrderJournal journal) {
+    Thread thread = new Thread(journal::drain, "test-drain");
+    thread.start();
+    while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING
+        && thread.getState() != Thread.State.TERMINATED) {
+      Thread.onSpinWait();
+    }
+    return thread;
+  }
+
+  private Path journalFile() {
+    return directory.resolve("orders.journal");
+  }
+
+  private int journalLength() throws Exception {
+    try (RandomAccessFile file = new RandomAccessFile(journalFile().toFile(), "r")) {
+      int position = 8;
+      for (int length = readInt(file, position); length > 0; length = readInt(file, position)) {
+        position += 8 + length;
+      }
+      return position;
+    }
+  }
+
+  private int journalLengthUnchecked() {
+    try {
+      return journalLength();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private int journalRecordSize() throws Exception {
+    OrderJournal probe = open(CAPACITY);
+    int start = journalLength();
+    probe.submit(order(950030));
+    int size = journalLength() - start;
+    probe.drain();
+    return start + size;
+  }
+
+  private static int readInt(RandomAccessFile file, long position) throws Exception {
+    file.seek(position);
+    return file.readInt();
+  }
+
+  private int lineItems(int orderId) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LINEITEM WHERE ORDERID = ?", Integer.class, orderId);
+  }
+
+  private static Order order(int orderId) {
+    Order order = OrderServiceTest.newOrder(Map.of("EST-1", 1, "EST-2", 2));
+    order.setOrderId(orderId);
+    for (LineItem lineItem : order.getLineItems()) {
+      lineItem.setOrderId(orderId);
+    }
+    return order;
+  }
+
+}
@@ -16,31 +16,54 @@
 package org.mybatis.jpetstore.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.math.BigDecimal;
+import java.sql.Date;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mybatis.jpetstore.domain.Account;
+import org.mybatis.jpetstore.domain.Cart;
 import org.mybatis.jpetstore.domain.Item;
 import org.mybatis.jpetstore.domain.LineItem;
 import org.mybatis.jpetstore.domain.Order;
-import org.mybatis.jpetstore.domain.Sequence;
+import org.mybatis.jpetstore.exception.InsufficientInventoryException;
 import org.mybatis.jpetstore.exception.SequenceNotFoundException;
 import org.mybatis.jpetstore.mapper.ItemMapper;
 import org.mybatis.jpetstore.mapper.LineItemMapper;
 import org.mybatis.jpetstore.mapper.OrderMapper;
-import org.mybatis.jpetstore.mapper.SequenceMapper;
+import org.mybatis.jpetstore.mapper.StatementCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * @author coderliux
@@ -48,6 +71,8 @@ import org.mybatis.jpetstore.mapper.SequenceMapper;
 @ExtendWith(MockitoExtension.class)
 class OrderServiceTest {
 
+  private static final List<String> ITEM_IDS = List.of("EST-1", "EST-2", "EST-3", "EST-4", "EST-5");
+
   @Mock
   private ItemMapper itemMapper;
   @Mock
@@ -55,7 +80,17 @@ class OrderServiceTest {
   @Mock
   private LineItemMapper lineItemMapper;
   @Mock
-  private SequenceMapper sequenceMapper;
+  private SequenceBlockAllocator sequenceBlockAllocator;
+  @Mock
+  private SqlSessionFactory sqlSessionFactory;
+  @Mock
+  private SqlSession batchSession;
+  @Mock
+  private CatalogCache catalogCache;
+  @Mock
+  private InventoryLedger inventoryLedger;
+  @Mock
+  private OrderJournal orderJournal;
 
   @InjectMocks
   private OrderService orderService;
@@ -67,9 +102,10 @@ class OrderServiceTest {
     Order order = new Order();
     List<LineItem> lineItems = new ArrayList<>();
 
+    order.setLineItems(lineItems);
+
     // when
-    when(orderMapper.getOrder(orderId)).thenReturn(order);
-    when(lineItemMapper.getLineItemsByOrderId(orderId)).thenReturn(lineItems);
+    when(orderMapper.getOrderWithLineItems(orderId)).thenReturn(order);
 
     // then
     assertThat(orderService.getOrder(orderId)).isEqualTo(order);
@@ -85,19 +121,21 @@ class OrderServiceTest {
     LineItem item = new LineItem();
     String itemId = "abc";
     item.setItemId(itemId);
+    Item inventoryItem = new Item();
+    inventoryItem.setQuantity(5);
+    item.setItem(inventoryItem);
     lineItems.add(item);
+    order.setLineItems(lineItems);
 
     // when
-    when(orderMapper.getOrder(orderId)).thenReturn(order);
-    when(lineItemMapper.getLineItemsByOrderId(orderId)).thenReturn(lineItems);
-    when(itemMapper.getItem(itemId)).thenReturn(new Item());
-    when(itemMapper.getInventoryQuantity(itemId)).thenReturn(5);
+    when(orderMapper.getOrderWithLineItems(orderId)).thenReturn(order);
 
     // then
     Order expectedOrder = orderService.getOrder(orderId);
     assertThat(expectedOrder).isEqualTo(order);
     assertThat(expectedOrder.getLineItems()).hasSize(1);
     assertThat(expectedOrder.getLineItems().get(0).getItem().getQuantity()).isEqualTo(5);
+    verifyNoInteractions(lineItemMapper, itemMapper);
   }
 
   @Test
@@ -120,35 +158,14 @@ class OrderServiceTest {
   void shouldReturnNextId() {
 
     // given
-    Sequence expectedSequence = new Sequence("order", 100);
 
     // when
-    when(sequenceMapper.getSequence(any())).thenReturn(expectedSequence);
+    when(sequenceBlockAllocator.nextId("order")).thenReturn(100L);
     int nextId = orderService.getNextId("order");
 
     // then
     assertThat(nextId).isEqualTo(100);
-    verify(sequenceMapper).getSequence(argThat(v -> v.getName().equals("order") && v.getNextId() == -1));
-    verify(sequenceMapper).updateSequence(argThat(v -> v.getName().equals("order") && v.getNextId() == 101));
-
-  }
-
-  @Test
-  void shouldThrowExceptionWhenSequenceNotFound() {
-
-    // given
-
-    // when
-    when(sequenceMapper.getSequence(any())).thenReturn(null);
-    try {
-      orderService.getNextId("order");
-      fail("Should throw an exception when sequence not found.");
-    } catch (RuntimeException e) {
-      // then
-      assertThat(e.getMessage())
-          .isEqualTo("Error: A null sequence was returned from the database (could not get next order sequence).");
-      verify(sequenceMapper).getSequence(argThat(v -> v.getName().equals("order") && v.getNextId() == -1));
-    }
+    verify(sequenceBlockAllocator).nextId("order");
 
   }
 
@@ -163,14 +180,16 @@ class OrderServiceTest {
     item.setQuantity(quantity);
     order.addLineItem(item);
 
-    Sequence orderNumSequence = new Sequence("ordernum", 100);
-
     Map<String, Object> expectedItemParam = new HashMap<>(2);
     expectedItemParam.put("itemId", itemId);
     expectedItemParam.put("increment", quantity);
 
     // when
-    when(sequenceMapper.getSequence(any())).thenReturn(orderNumSequence);
+    when(sequenceBlockAllocator.nextId("ordernum")).thenReturn(100L);
+    when(sqlSessionFactory.openSession(ExecutorType.BATCH)).thenReturn(batchSession);
+    when(batchSession.getMapper(ItemMapper.class)).thenReturn(itemMapper);
+    when(batchSession.getMapper(OrderMapper.class)).thenReturn(orderMapper);
+    when(batchSession.getMapper(LineItemMapper.class)).thenReturn(lineItemMapper);
     orderService.insertOrder(order);
 
     // then
@@ -178,6 +197,185 @@ class OrderServiceTest {
     verify(orderMapper).insertOrderStatus(eq(order));
     verify(lineItemMapper).insertLineItem(argThat(v -> v == item && v.getOrderId() == 100));
     verify(itemMapper).updateInventoryQuantity(eq(expectedItemParam));
+    verify(catalogCache).invalidateQuantity(itemId);
+    verify(batchSession).commit();
+    verify(batchSession).close();
+  }
+
+  @Test
+  void shouldFlushTheBatchEveryFlushSizeStatements() {
+    // given
+    Order order = new Order();
+    for (int i = 1; i <= 5; i++) {
+      LineItem item = new LineItem();
+      item.setItemId("I0" + i);
+      item.setQuantity(1);
+      order.addLineItem(item);
+    }
+    orderService.setBatchFlushSize(4);
+
+    // when
+    when(sequenceBlockAllocator.nextId("ordernum")).thenReturn(100L);
+    when(sqlSessionFactory.openSession(ExecutorType.BATCH)).thenReturn(batchSession);
+    when(batchSession.getMapper(ItemMapper.class)).thenReturn(itemMapper);
+    when(batchSession.getMapper(OrderMapper.class)).thenReturn(orderMapper);
+    when(batchSession.getMapper(LineItemMapper.class)).thenReturn(lineItemMapper);
+    orderService.insertOrder(order);
+
+    // then
+    verify(batchSession, times(3)).flushStatements();
+    verify(itemMapper, times(5)).updateInventoryQuantity(any());
+    verify(lineItemMapper, times(5)).insertLineItem(any());
+    verify(batchSession).commit();
+  }
+
+  @Test
+  void shouldNotOpenABatchSessionWhenBatchingIsDisabled() {
+    // given
+    Order order = new Order();
+    LineItem item = new LineItem();
+    item.setItemId("I01");
+    item.setQuantity(4);
+    order.addLineItem(item);
+    orderService.setBatchFlushSize(0);
+
+    // when
+    when(sequenceBlockAllocator.nextId("ordernum")).thenReturn(100L);
+    when(itemMapper.updateInventoryQuantity(any())).thenReturn(1);
+    orderService.insertOrder(order);
+
+    // then
+    verify(orderMapper).insertOrder(order);
+    verify(orderMapper).insertOrderStatus(order);
+    verify(lineItemMapper).insertLineItem(item);
+    verify(itemMapper).updateInventoryQuantity(any());
+    verifyNoInteractions(sqlSessionFactory);
+  }
+
+  @Test
+  void shouldReserveThroughTheLedgerWhenEnabled() {
+    // given
+    Order order = new Order();
+    LineItem item = new LineItem();
+    item.setItemId("I01");
+    item.setQuantity(4);
+    order.addLineItem(item);
+    orderService.setBatchFlushSize(0);
+
+    // when
+    when(inventoryLedger.isEnabled()).thenReturn(true);
+    when(sequenceBlockAllocator.nextId("ordernum")).thenReturn(100L);
+    orderService.insertOrder(order);
+
+    // then
+    verify(inventoryLedger).reserve(order);
+    verify(orderMapper).insertOrder(order);
+    verify(lineItemMapper).insertLineItem(item);
+    verifyNoInteractions(itemMapper, catalogCache);
+  }
+
+  @Test
+  void shouldHandTheOrderToTheJournalInWriteBehindMode() {
+    // given
+    Order order = new Order();
+    LineItem item = new LineItem();
+    item.setItemId("I01");
+    item.setQuantity(4);
+    order.addLineItem(item);
+
+    // when
+    when(orderJournal.isEnabled()).thenReturn(true);
+    when(sequenceBlockAllocator.nextId("ordernum")).thenReturn(100L);
+    when(itemMapper.updateInventoryQuantity(any())).thenReturn(1);
+    orderService.insertOrder(order);
+
+    // then
+    verify(orderJournal).submit(argThat(v -> v == order && v.getOrderId() == 100));
+    assertThat(item.getOrderId()).isEqualTo(100);
+    verifyNoInteractions(orderMapper, lineItemMapper, sqlSessionFactory);
+  }
+
+  @Test
+  void shouldServePendingOrdersFromTheJournal() {
+    // given
+    Order pending = new Order();
+    pending.setOrderId(2);
+    Order written = new Order();
+    written.setOrderId(1);
+
+    // when
+    when(orderJournal.getPendingOrder(2)).thenReturn(pending);
+    when(orderJournal.getPendingCount()).thenReturn(1);
+    when(orderJournal.getPendingOrders("j2ee")).thenReturn(List.of(pending));
+    when(orderMapper.getOrdersByUsername("j2ee")).thenReturn(List.of(written));
+
+    // then
+    assertThat(orderService.getOrder(2)).isSameAs(pending);
+    assertThat(orderService.getOrdersByUsername("j2ee")).containsExactly(written, pending);
+  }
+
+  @Test
+  void shouldRejectTheLedgerTogetherWithWriteBehind() {
+    // when
+    when(inventoryLedger.isEnabled()).thenReturn(true);
+    when(orderJournal.isEnabled()).thenReturn(true);
+
+    // then
+    Assertions.assertThrows(IllegalStateException.class, () -> orderService.afterPropertiesSet());
+  }
+
+  @Test
+  void shouldReportEveryLineWithoutEnoughInventory() {
+    // given
+    Order order = new Order();
+    for (int i = 1; i <= 3; i++) {
+      LineItem item = new LineItem();
+      item.setItemId("I0" + i);
+      item.setQuantity(i);
+      order.addLineItem(item);
+    }
+    orderService.setBatchFlushSize(0);
+
+    // when
+    when(sequenceBlockAllocator.nextId("ordernum")).thenReturn(100L);
+    when(itemMapper.updateInventoryQuantity(any())).thenReturn(0, 1, 0);
+
+    // then
+    InsufficientInventoryException exception = Assertions.assertThrows(InsufficientInventoryException.class,
+        () -> orderService.insertOrder(order));
+    assertThat(exception.getItemIds()).containsExactly("I01", "I03");
+    verifyNoInteractions(orderMapper, lineItemMapper);
+  }
+
+  @Test
+  void shouldCheckTheBatchedInventoryUpdatesBeforeWritingTheOrder() {
+    // given
+    Order order = new Order();
+    for (int i = 1; i <= 2; i++) {
+      LineItem item = new LineItem();
+      item.setItemId("I0" + i);
+      item.setQuantity(i);
+      order.addLineItem(item);
+    }
+    BatchResult inventoryUpdates = new BatchResult(null, "UPDATE INVENTORY");
+    inventoryUpdates.addParameterObject(Map.of("itemId", "I01"));
+    inventoryUpdates.addParameterObject(Map.of("itemId", "I02"));
+    inventoryUpdates.setUpdateCounts(new int[] { 1, 0 });
+
+    // when
+    when(sequenceBlockAllocator.nextId("ordernum")).thenReturn(100L);
+    when(sqlSessionFactory.openSession(ExecutorType.BATCH)).thenReturn(batchSession);
+    when(batchSession.getMapper(ItemMapper.class)).thenReturn(itemMapper);
+    when(batchSession.getMapper(OrderMapper.class)).thenReturn(orderMapper);
+    when(batchSession.getMapper(LineItemMapper.class)).thenReturn(lineItemMapper);
+    when(batchSession.flushStatements()).thenReturn(List.of(inventoryUpdates));
+
+    // then
+    InsufficientInventoryException exception = Assertions.assertThrows(InsufficientInventoryException.class,
+        () -> orderService.insertOrder(order));
+    assertThat(exception.getItemIds()).containsExactly("I02");
+    verifyNoInteractions(orderMapper, lineItemMapper);
+    verify(batchSession).close();
   }
 
   // [REFACTOR (java:S112)] 22/06/25 - "Define and throw a dedicated exception instead of using a generic one." [M]
@@ -187,7 +385,7 @@ class OrderServiceTest {
     String name = "order";
 
     // when
-    when(sequenceMapper.getSequence(any())).thenReturn(null);
+    when(sequenceBlockAllocator.nextId(name)).thenThrow(new SequenceNotFoundException(name));
 
     // then
     SequenceNotFoundException exception = Assertions.assertThrows(SequenceNotFoundException.class,
@@ -195,8 +393,232 @@ class OrderServiceTest {
 
     assertThat(exception.getMessage())
         .isEqualTo("Error: A null sequence was returned from the database (could not get next order sequence).");
+  }
+
+  @Nested
+  @SpringJUnitConfig(ServiceTestContext.class)
+  @Transactional
+  class WithDatabase {
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private int batchFlushSize;
+
+    @BeforeEach
+    void saveBatchFlushSize() {
+      batchFlushSize = orderService.getBatchFlushSize();
+    }
+
+    @AfterEach
+    void restoreBatchFlushSize() {
+      orderService.setBatchFlushSize(batchFlushSize);
+    }
+
+    @Test
+    void shouldLeaveTheSameDatabaseStateWithAndWithoutBatching() {
+      // given
+      Map<String, Integer> initialQuantities = inventoryQuantities();
+
+      // when
+      orderService.setBatchFlushSize(0);
+      Order unbatched = newOrder();
+      orderService.insertOrder(unbatched);
+      Map<String, Integer> unbatchedQuantities = inventoryQuantities();
 
-    verify(sequenceMapper).getSequence(argThat(v -> v.getName().equals(name) && v.getNextId() == -1));
+      orderService.setBatchFlushSize(2);
+      Order batched = newOrder();
+      orderService.insertOrder(batched);
+      Map<String, Integer> batchedQuantities = inventoryQuantities();
+
+      // then
+      assertThat(batched.getOrderId()).isNotEqualTo(unbatched.getOrderId());
+      assertThat(orderRow(batched.getOrderId())).isEqualTo(orderRow(unbatched.getOrderId()));
+      assertThat(orderStatusRows(batched.getOrderId())).isEqualTo(orderStatusRows(unbatched.getOrderId()));
+      assertThat(lineItemRows(batched.getOrderId())).hasSize(5).isEqualTo(lineItemRows(unbatched.getOrderId()));
+      for (String itemId : ITEM_IDS) {
+        int unbatchedDecrement = initialQuantities.get(itemId) - unbatchedQuantities.get(itemId);
+        int batchedDecrement = unbatchedQuantities.get(itemId) - batchedQuantities.get(itemId);
+        assertThat(unbatchedDecrement).isPositive();
+        assertThat(batchedDecrement).isEqualTo(unbatchedDecrement);
+      }
+    }
+
+    @Test
+    void shouldRejectAnOrderLargerThanTheInventory() {
+      assertOrderRejectedForLowInventory(0);
+    }
+
+    @Test
+    void shouldRejectABatchedOrderLargerThanTheInventory() {
+      assertOrderRejectedForLowInventory(2);
+    }
+
+    private void assertOrderRejectedForLowInventory(int flushSize) {
+      // given
+      orderService.setBatchFlushSize(flushSize);
+      jdbcTemplate.update("UPDATE INVENTORY SET QTY = 3 WHERE ITEMID = ?", "EST-2");
+      jdbcTemplate.update("UPDATE INVENTORY SET QTY = 3 WHERE ITEMID = ?", "EST-4");
+      Map<String, Integer> initialQuantities = inventoryQuantities();
+      int orders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ORDERS", Integer.class);
+
+      // when
+      InsufficientInventoryException exception = Assertions.assertThrows(InsufficientInventoryException.class,
+          () -> orderService.insertOrder(newOrder()));
+
+      // then
+      assertThat(exception.getItemIds()).containsExactly("EST-4");
+      assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ORDERS", Integer.class)).isEqualTo(orders);
+      assertThat(inventoryQuantities().get("EST-4")).isEqualTo(initialQuantities.get("EST-4"));
+    }
+
+    @Test
+    void shouldLoadAnOrderWithItsLineItemsInOneQuery() {
+      // given
+      Order inserted = newOrder();
+      orderService.insertOrder(inserted);
+      statementCounter.reset();
+
+      // when
+      Order order = orderService.getOrder(inserted.getOrderId());
+
+      // then
+      assertThat(statementCounter.getQueries()).isEqualTo(1);
+      assertThat(order.getLineItems()).hasSize(ITEM_IDS.size());
+      for (int i = 0; i < ITEM_IDS.size(); i++) {
+        LineItem lineItem = order.getLineItems().get(i);
+        assertThat(lineItem.getLineNumber()).isEqualTo(i + 1);
+        assertThat(lineItem.getItem().getItemId()).isEqualTo(ITEM_IDS.get(i));
+        assertThat(lineItem.getItem().getProduct().getName()).isNotEmpty();
+        assertThat(lineItem.getItem().getQuantity()).isEqualTo(
+            jdbcTemplate.queryForObject("SELECT QTY FROM INVENTORY WHERE ITEMID = ?", Integer.class, ITEM_IDS.get(i)));
+      }
+    }
+
+    private Order newOrder() {
+      Map<String, Integer> quantities = new LinkedHashMap<>();
+      for (int i = 0; i < ITEM_IDS.size(); i++) {
+        quantities.put(ITEM_IDS.get(i), i + 1);
+      }
+      return OrderServiceTest.newOrder(quantities);
+    }
+
+    private Map<String, Integer> inventoryQuantities() {
+      Map<String, Integer> quantities = new HashMap<>();
+      for (String itemId : ITEM_IDS) {
+        quantities.put(itemId,
+            jdbcTemplate.queryForObject("SELECT QTY FROM INVENTORY WHERE ITEMID = ?", Integer.class, itemId));
+      }
+      return quantities;
+    }
+
+    private Map<String, Object> orderRow(int orderId) {
+      Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM ORDERS WHERE ORDERID = ?", orderId);
+      row.remove("ORDERID");
+      return row;
+    }
+
+    private List<Map<String, Object>> orderStatusRows(int orderId) {
+      return jdbcTemplate.queryForList("SELECT TIMESTAMP, STATUS FROM ORDERSTATUS WHERE ORDERID = ?", orderId);
+    }
+
+    private List<Map<String, Object>> lineItemRows(int orderId) {
+      return jdbcTemplate.queryForList(
+          "SELECT LINENUM, ITEMID, QUANTITY, UNITPRICE FROM LINEITEM WHERE ORDERID = ? ORDER BY LINENUM", orderId);
+    }
+
+  }
+
+  @Nested
+  @SpringJUnitConfig(ServiceTestContext.class)
+  @DirtiesContext
+  class UnderConcurrentOrders {
+
+    private static final int THREADS = 32;
+    private static final int ORDERS = 400;
+    private static final int STOCK = 150;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldNeverOversellAnItem() throws Exception {
+      // given
+      jdbcTemplate.update("UPDATE INVENTORY SET QTY = ? WHERE ITEMID = ?", STOCK, "EST-6");
+      int lineItems = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LINEITEM WHERE ITEMID = 'EST-6'",
+          Integer.class);
+
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      CountDownLatch ready = new CountDownLatch(1);
+      List<Future<Boolean>> futures = new ArrayList<>();
+      try {
+        for (int i = 0; i < ORDERS; i++) {
+          Callable<Boolean> task = () -> {
+            ready.await();
+            try {
+              orderService.insertOrder(newOrder(Map.of("EST-6", 1)));
+              return true;
+            } catch (InsufficientInventoryException e) {
+              return false;
+            }
+          };
+          futures.add(executor.submit(task));
+        }
+
+        // when
+        ready.countDown();
+        int accepted = 0;
+        for (Future<Boolean> future : futures) {
+          if (future.get()) {
+            accepted++;
+          }
+        }
+
+        // then
+        assertThat(accepted).isEqualTo(STOCK);
+        assertThat(jdbcTemplate.queryForObject("SELECT QTY FROM INVENTORY WHERE ITEMID = 'EST-6'", Integer.class))
+            .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LINEITEM WHERE ITEMID = 'EST-6'", Integer.class))
+            .isEqualTo(lineItems + STOCK);
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+  }
+
+  static Order newOrder(Map<String, Integer> quantities) {
+    Account account = new Account();
+    account.setUsername("j2ee");
+    account.setFirstName("ABC");
+    account.setLastName("XYX");
+    account.setEmail("yourname@yourdomain.com");
+    account.setAddress1("901 San Antonio Road");
+    account.setAddress2("MS UCUP02-206");
+    account.setCity("Palo Alto");
+    account.setState("CA");
+    account.setZip("94303");
+    account.setCountry("USA");
+
+    Cart cart = new Cart();
+    quantities.forEach((itemId, quantity) -> {
+      Item item = new Item();
+      item.setItemId(itemId);
+      item.setListPrice(new BigDecimal("16.50"));
+      cart.addItem(item, true);
+      cart.setQuantityByItemId(itemId, quantity);
+    });
+
+    Order order = new Order();
+    order.initOrder(account, cart);
+    order.setOrderDate(Date.valueOf("2026-01-01"));
+    return order;
   }
 
 }
@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PasswordHasherTest {
+
+  private final PasswordHasher hasher = new PasswordHasher();
+
+  @BeforeEach
+  void setup() {
+    hasher.setIterations(1000);
+  }
+
+  @Test
+  void shouldMatchOnlyTheHashedPassword() {
+    // when
+    String hash = hasher.hash("j2ee");
+
+    // then
+    assertThat(hash).startsWith("$pbkdf2-sha256$1000$").doesNotContain("j2ee");
+    assertThat(hasher.matches("j2ee", hash)).isTrue();
+    assertThat(hasher.matches("J2EE", hash)).isFalse();
+    assertThat(hasher.needsRehash(hash)).isFalse();
+  }
+
+  @Test
+  void shouldSaltEveryHash() {
+    // when
+    String first = hasher.hash("j2ee");
+    String second = hasher.hash("j2ee");
+
+    // then
+    assertThat(first).isNotEqualTo(second);
+  }
+
+  @Test
+  void shouldVerifyAHashOfAnotherCostAndAskForARehash() {
+    // given
+    String hash = hasher.hash("j2ee");
+
+    // when
+    hasher.setIterations(2000);
+
+    // then
+    assertThat(hasher.matches("j2ee", hash)).isTrue();
+    assertThat(hasher.needsRehash(hash)).isTrue();
+  }
+
+  @Test
+  void shouldCompareAPasswordKeptInClearAndAskForARehash() {
+    // then
+    assertThat(hasher.matches("j2ee", "j2ee")).isTrue();
+    assertThat(hasher.matches("j2ee", "ACID")).isFalse();
+    assertThat(hasher.needsRehash("j2ee")).isTrue();
+  }
+
+  @Test
+  void shouldNotMatchAMissingOrMalformedHash() {
+    // then
+    assertThat(hasher.matches("", null)).isFalse();
+    assertThat(hasher.matches("j2ee", "$pbkdf2-sha256$1000$not base64!")).isFalse();
+    assertThat(hasher.matches("j2ee", "$pbkdf2-sha256$x$AAAA$AAAA")).isFalse();
+  }
+
+}
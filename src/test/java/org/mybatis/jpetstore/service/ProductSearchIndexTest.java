@@ -0,0 +1,168 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mybatis.jpetstore.domain.Product;
+import org.mybatis.jpetstore.mapper.ProductMapper;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+  @Mock(lenient = true)
+  private ProductMapper productMapper;
+
+  @InjectMocks
+  private ProductSearchIndex productSearchIndex;
+
+  @BeforeEach
+  void setup() {
+    List<Product> products = new ArrayList<>();
+    products.add(product("K9-BD-01", "Bulldog", "<image src=\"../images/dog2.gif\">Friendly dog from England"));
+    products.add(product("K9-PO-02", "Poodle", "<image src=\"../images/dog6.gif\">Cute dog from France"));
+    products.add(product("FI-FW-02", "Goldfish", "<image src=\"../images/fish2.gif\">Fresh Water fish from China"));
+    products.add(product("RP-LI-02", "Iguana", "<image src=\"../images/lizard1.gif\">Friendly green friend"));
+    when(productMapper.getProductList()).thenReturn(products);
+  }
+
+  @Test
+  void shouldMatchSubstringsOfTheName() {
+    // when
+    List<Product> products = productSearchIndex.search("dog", false);
+
+    // then
+    assertThat(products).extracting(Product::getProductId).containsExactly("K9-BD-01", "K9-PO-02");
+  }
+
+  @Test
+  void shouldRankNameMatchesBeforeDescriptionMatches() {
+    // when
+    List<Product> products = productSearchIndex.search("fish", false);
+
+    // then
+    assertThat(products).extracting(Product::getProductId).containsExactly("FI-FW-02");
+    assertThat(productSearchIndex.search("friend", false)).extracting(Product::getProductId).containsExactly("K9-BD-01",
+        "RP-LI-02");
+  }
+
+  @Test
+  void shouldNotMatchTheMarkupOfTheDescription() {
+    // when
+    List<Product> products = productSearchIndex.search("images", false);
+
+    // then
+    assertThat(products).isEmpty();
+  }
+
+  @Test
+  void shouldReturnEachProductOnceWhenSeveralKeywordsMatch() {
+    // when
+    List<Product> products = productSearchIndex.search("bull dog friendly", false);
+
+    // then
+    assertThat(products).extracting(Product::getProductId).containsExactly("K9-BD-01", "K9-PO-02", "RP-LI-02");
+  }
+
+  @Test
+  void shouldReturnOnlyProductsMatchingAllKeywords() {
+    // when
+    List<Product> products = productSearchIndex.search("dog france", true);
+
+    // then
+    assertThat(products).extracting(Product::getProductId).containsExactly("K9-PO-02");
+    assertThat(productSearchIndex.search("dog china", true)).isEmpty();
+  }
+
+  @Test
+  void shouldReturnNothingForBlankKeywords() {
+    assertThat(productSearchIndex.search("  ", false)).isEmpty();
+    assertThat(productSearchIndex.search(" - ", true)).isEmpty();
+    verifyNoInteractions(productMapper);
+  }
+
+  @Test
+  void shouldSplitKeywordsLikeTheIndexedText() {
+    assertThat(ProductSearchIndex.keywords(" Great-Dog  dog ")).containsExactly("great", "dog");
+  }
+
+  @Test
+  void shouldNotBuildTheIndexToRefreshAProduct() {
+    // when
+    productSearchIndex.refresh("K9-BD-01");
+    productSearchIndex.remove("K9-PO-02");
+
+    // then
+    verifyNoInteractions(productMapper);
+    assertThat(productSearchIndex.search("dog", false)).extracting(Product::getProductId).containsExactly("K9-BD-01",
+        "K9-PO-02");
+  }
+
+  @Test
+  void shouldReindexUpdatedProducts() {
+    // given
+    productSearchIndex.search("dog", false);
+
+    // when
+    productSearchIndex.update(product("K9-PO-02", "Standard Poodle", "Curly dog from Germany"));
+    productSearchIndex.remove("K9-BD-01");
+
+    // then
+    assertThat(productSearchIndex.search("standard", false)).extracting(Product::getProductId)
+        .containsExactly("K9-PO-02");
+    assertThat(productSearchIndex.search("france", false)).isEmpty();
+    assertThat(productSearchIndex.search("bulldog", false)).isEmpty();
+    verify(productMapper, times(1)).getProductList();
+  }
+
+  @Test
+  void shouldRefreshProductsFromTheDatabase() {
+    // given
+    productSearchIndex.search("dog", false);
+
+    // when
+    when(productMapper.getProduct("K9-BD-01")).thenReturn(null);
+    when(productMapper.getProduct("FI-FW-02")).thenReturn(product("FI-FW-02", "Goldfish", "Pond fish"));
+    productSearchIndex.refresh("K9-BD-01");
+    productSearchIndex.refresh("FI-FW-02");
+
+    // then
+    assertThat(productSearchIndex.search("dog", false)).extracting(Product::getProductId).containsExactly("K9-PO-02");
+    assertThat(productSearchIndex.search("pond", false)).extracting(Product::getProductId).containsExactly("FI-FW-02");
+  }
+
+  private static Product product(String productId, String name, String description) {
+    Product product = new Product();
+    product.setProductId(productId);
+    product.setName(name);
+    product.setDescription(description);
+    return product;
+  }
+
+}
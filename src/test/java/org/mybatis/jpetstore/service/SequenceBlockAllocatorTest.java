@@ -0,0 +1,179 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mybatis.jpetstore.exception.SequenceNotFoundException;
+import org.mybatis.jpetstore.mapper.SequenceMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class SequenceBlockAllocatorTest {
+
+  @Mock
+  private SequenceMapper sequenceMapper;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private SequenceBlockAllocator allocator;
+
+  @BeforeEach
+  void setup() {
+    allocator = new SequenceBlockAllocator(sequenceMapper, transactionManager);
+    allocator.setBlockSize(3);
+  }
+
+  @Test
+  void shouldHandOutIdsFromAReservedBlock() {
+    // given
+    when(sequenceMapper.reserveSequenceRange("ordernum", 3)).thenReturn(1);
+    when(sequenceMapper.getSequenceNextId("ordernum")).thenReturn(1003L, 1006L);
+
+    // when
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      ids.add(allocator.nextId("ordernum"));
+    }
+
+    // then
+    assertThat(ids).containsExactly(1000L, 1001L, 1002L, 1003L);
+    verify(sequenceMapper, times(2)).reserveSequenceRange("ordernum", 3);
+  }
+
+  @Test
+  void shouldSkipIdsReservedByAnotherAllocator() {
+    // given
+    when(sequenceMapper.reserveSequenceRange("ordernum", 3)).thenReturn(1);
+    when(sequenceMapper.getSequenceNextId("ordernum")).thenReturn(1003L, 1009L);
+
+    // when
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      ids.add(allocator.nextId("ordernum"));
+    }
+
+    // then
+    assertThat(ids).containsExactly(1000L, 1001L, 1002L, 1006L);
+  }
+
+  @Test
+  void shouldThrowExceptionWhenSequenceNotFound() {
+    // given
+    when(sequenceMapper.reserveSequenceRange("order", 3)).thenReturn(0);
+
+    // when
+    assertThatThrownBy(() -> allocator.nextId("order"))
+        // then
+        .isInstanceOf(SequenceNotFoundException.class)
+        .hasMessage("Error: A null sequence was returned from the database (could not get next order sequence).");
+    verify(sequenceMapper, never()).getSequenceNextId("order");
+  }
+
+  @Test
+  void shouldRejectANonPositiveBlockSize() {
+    assertThatThrownBy(() -> allocator.setBlockSize(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Nested
+  @SpringJUnitConfig(ServiceTestContext.class)
+  @DirtiesContext
+  class WithDatabase {
+
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 500;
+
+    @Autowired
+    private SequenceMapper sequenceMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldNotHandOutDuplicatesAcrossThreadsAndAllocators() throws Exception {
+      // given
+      // two allocators stand for two JVMs sharing the SEQUENCE table
+      SequenceBlockAllocator first = new SequenceBlockAllocator(sequenceMapper, transactionManager);
+      SequenceBlockAllocator second = new SequenceBlockAllocator(sequenceMapper, transactionManager);
+      first.setBlockSize(100);
+      second.setBlockSize(7);
+      long start = jdbcTemplate.queryForObject("SELECT NEXTID FROM SEQUENCE WHERE NAME = 'ordernum'", Long.class);
+
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      CountDownLatch ready = new CountDownLatch(1);
+      List<Future<List<Long>>> futures = new ArrayList<>();
+      try {
+        for (int i = 0; i < THREADS; i++) {
+          SequenceBlockAllocator allocator = i % 2 == 0 ? first : second;
+          Callable<List<Long>> task = () -> {
+            ready.await();
+            List<Long> ids = new ArrayList<>(IDS_PER_THREAD);
+            for (int j = 0; j < IDS_PER_THREAD; j++) {
+              ids.add(allocator.nextId("ordernum"));
+            }
+            return ids;
+          };
+          futures.add(executor.submit(task));
+        }
+
+        // when
+        ready.countDown();
+        Set<Long> ids = new HashSet<>();
+        int count = 0;
+        for (Future<List<Long>> future : futures) {
+          List<Long> threadIds = future.get();
+          ids.addAll(threadIds);
+          count += threadIds.size();
+        }
+
+        // then
+        long end = jdbcTemplate.queryForObject("SELECT NEXTID FROM SEQUENCE WHERE NAME = 'ordernum'", Long.class);
+        assertThat(count).isEqualTo(THREADS * IDS_PER_THREAD);
+        assertThat(ids).hasSize(count).allMatch(id -> id >= start && id < end);
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+  }
+
+}
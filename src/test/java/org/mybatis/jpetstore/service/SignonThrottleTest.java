@@ -0,0 +1,129 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SignonThrottleTest {
+
+  private final MutableClock clock = new MutableClock();
+  private final SignonThrottle throttle = new SignonThrottle(clock);
+
+  @BeforeEach
+  void setup() {
+    throttle.setMaxFailures(3);
+    throttle.setLockoutSeconds(60);
+  }
+
+  @Test
+  void shouldLockAUsernameOutAfterTooManyFailures() {
+    // when
+    throttle.recordFailure("j2ee");
+    throttle.recordFailure("j2ee");
+    boolean lockedBefore = throttle.isLocked("j2ee");
+    throttle.recordFailure("j2ee");
+
+    // then
+    assertThat(lockedBefore).isFalse();
+    assertThat(throttle.isLocked("j2ee")).isTrue();
+    assertThat(throttle.isLocked("ACID")).isFalse();
+  }
+
+  @Test
+  void shouldUnlockAfterTheLockoutDuration() {
+    // given
+    for (int i = 0; i < 3; i++) {
+      throttle.recordFailure("j2ee");
+    }
+
+    // when
+    clock.advance(Duration.ofSeconds(61));
+
+    // then
+    assertThat(throttle.isLocked("j2ee")).isFalse();
+  }
+
+  @Test
+  void shouldStartOverAfterASuccessOrOldFailures() {
+    // given
+    throttle.recordFailure("j2ee");
+    throttle.recordFailure("j2ee");
+    throttle.recordSuccess("j2ee");
+    throttle.recordFailure("ACID");
+    throttle.recordFailure("ACID");
+    clock.advance(Duration.ofSeconds(61));
+
+    // when
+    throttle.recordFailure("j2ee");
+    throttle.recordFailure("ACID");
+
+    // then
+    assertThat(throttle.isLocked("j2ee")).isFalse();
+    assertThat(throttle.isLocked("ACID")).isFalse();
+  }
+
+  @Test
+  void shouldKeepABoundedNumberOfCounters() {
+    // given
+    throttle.setMaxEntries(64);
+    for (int i = 0; i < 3; i++) {
+      throttle.recordFailure("j2ee");
+    }
+
+    // when
+    for (int i = 0; i < 10_000; i++) {
+      throttle.recordFailure("user" + i);
+    }
+
+    // then
+    assertThat(throttle.isLocked("j2ee")).isFalse();
+  }
+
+  private static final class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+  }
+
+}
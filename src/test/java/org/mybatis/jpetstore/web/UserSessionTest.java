@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class UserSessionTest {
+
+  @Test
+  void shouldGiveThePaymentDraftOnlyForTheTokenOfTheCurrentCheckout() {
+    // given
+    UserSession userSession = new UserSession();
+    userSession.signon("j2ee");
+    String earlier = userSession.startCheckout("Visa", "1111 1111 1111 1111", "12/29");
+
+    // when
+    String token = userSession.startCheckout("MasterCard", "2222 2222 2222 2222", "01/30");
+    UserSession.PaymentDraft draft = userSession.getPaymentDraft(token);
+
+    // then
+    assertThat(draft.getCardType()).isEqualTo("MasterCard");
+    assertThat(draft.getCreditCard()).isEqualTo("2222 2222 2222 2222");
+    assertThat(draft.getExpiryDate()).isEqualTo("01/30");
+    assertThat(userSession.getPaymentDraft(earlier)).isNull();
+    assertThat(userSession.getPaymentDraft(null)).isNull();
+  }
+
+  @Test
+  void shouldForgetThePaymentDraftWhenTheCheckoutEnds() {
+    // given
+    UserSession userSession = new UserSession();
+    userSession.signon("j2ee");
+    String token = userSession.startCheckout("Visa", "1111 1111 1111 1111", "12/29");
+
+    // when
+    userSession.endCheckout();
+
+    // then
+    assertThat(userSession.getPaymentDraft(token)).isNull();
+  }
+
+}
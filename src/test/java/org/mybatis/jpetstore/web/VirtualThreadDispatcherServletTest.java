@@ -0,0 +1,244 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import net.sourceforge.stripes.action.ActionBean;
+import net.sourceforge.stripes.action.ActionBeanContext;
+import net.sourceforge.stripes.action.DefaultHandler;
+import net.sourceforge.stripes.action.HandlesEvent;
+import net.sourceforge.stripes.action.Resolution;
+import net.sourceforge.stripes.action.StreamingResolution;
+import net.sourceforge.stripes.action.UrlBinding;
+import net.sourceforge.stripes.controller.StripesFilter;
+import net.sourceforge.stripes.controller.StripesRequestWrapper;
+import net.sourceforge.stripes.mock.MockHttpServletRequest;
+import net.sourceforge.stripes.mock.MockHttpServletResponse;
+import net.sourceforge.stripes.mock.MockServletConfig;
+import net.sourceforge.stripes.mock.MockServletContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadDispatcherServletTest {
+
+  private final MockServletContext servletContext = new MockServletContext("test");
+  private final ExecutorService executor = Executors
+      .newSingleThreadExecutor(task -> new Thread(task, "request-thread"));
+  private final CountDownLatch released = new CountDownLatch(1);
+
+  private VirtualThreadDispatcherServlet servlet;
+
+  @BeforeEach
+  void setup() throws Exception {
+    servletContext.addFilter(StripesFilter.class, "StripesFilter",
+        Map.of("ActionResolver.Packages", "org.mybatis.jpetstore.web"));
+
+    servlet = new VirtualThreadDispatcherServlet() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      ExecutorService newExecutor() {
+        return executor;
+      }
+    };
+    MockServletConfig servletConfig = new MockServletConfig();
+    servletConfig.setServletContext(servletContext);
+    servletConfig.setServletName("DispatcherServlet");
+    servletConfig.addInitParameter(VirtualThreadDispatcherServlet.ENABLED_PARAM, "true");
+    servlet.init(servletConfig);
+
+    // holds the request thread until the test has looked at the request
+    executor.execute(() -> {
+      try {
+        released.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+  }
+
+  @AfterEach
+  void tearDown() {
+    released.countDown();
+    servlet.destroy();
+    servletContext.close();
+  }
+
+  @Test
+  void shouldCompleteTheRequestOnTheExecutor() throws Exception {
+    // given
+    AsyncRequest request = new AsyncRequest("hello");
+    MockHttpServletResponse response = new Response();
+
+    // when
+    servlet.service(new StripesRequestWrapper(request), response);
+    boolean startedBeforeRun = request.asyncStarted;
+    String outputBeforeRun = response.getOutputString();
+    verify(request.asyncContext, never()).complete();
+    runPendingRequests();
+
+    // then
+    assertThat(startedBeforeRun).isTrue();
+    assertThat(outputBeforeRun).isEmpty();
+    verify(request.asyncContext).setTimeout(60_000);
+    verify(request.asyncContext).complete();
+    assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    assertThat(response.getOutputString()).isEqualTo("hello from request-thread");
+  }
+
+  @Test
+  void shouldSendAnErrorWhenTheRequestFails() throws Exception {
+    // given
+    AsyncRequest request = new AsyncRequest("fail");
+    MockHttpServletResponse response = new Response();
+
+    // when
+    servlet.service(new StripesRequestWrapper(request), response);
+    runPendingRequests();
+
+    // then
+    verify(request.asyncContext).complete();
+    assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    assertThat(response.getOutputString()).isEmpty();
+  }
+
+  @Test
+  void shouldRunOnTheContainerThreadWhenAsyncIsNotSupported() throws Exception {
+    // given
+    AsyncRequest request = new AsyncRequest("hello");
+    request.asyncSupported = false;
+    MockHttpServletResponse response = new Response();
+
+    // when
+    servlet.service(new StripesRequestWrapper(request), response);
+
+    // then
+    assertThat(request.asyncStarted).isFalse();
+    assertThat(response.getOutputString()).isEqualTo("hello from " + Thread.currentThread().getName());
+  }
+
+  @Test
+  void shouldCompleteTheRequestWhenTheExecutorRejectsIt() throws Exception {
+    // given
+    AsyncRequest request = new AsyncRequest("hello");
+    MockHttpServletResponse response = new Response();
+    executor.shutdownNow();
+
+    // when
+    assertThatThrownBy(() -> servlet.service(new StripesRequestWrapper(request), response))
+        .isInstanceOf(ServletException.class).hasMessage("The dispatcher is shutting down");
+
+    // then
+    verify(request.asyncContext).complete();
+  }
+
+  private void runPendingRequests() throws InterruptedException {
+    released.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  /**
+   * The Stripes mock request predates Servlet 3, this adds just enough async support for the dispatcher.
+   */
+  static class AsyncRequest extends MockHttpServletRequest {
+
+    final AsyncContext asyncContext = mock(AsyncContext.class);
+    boolean asyncSupported = true;
+    boolean asyncStarted;
+
+    AsyncRequest(String event) {
+      super("/test", "/Async.action");
+      getParameterMap().put(event, new String[] { "" });
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+      return asyncSupported;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+      return asyncStarted;
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+      asyncStarted = true;
+      return asyncContext;
+    }
+
+  }
+
+  /**
+   * The Stripes mock response always reports itself committed, this one only once something has been written.
+   */
+  static class Response extends MockHttpServletResponse {
+
+    @Override
+    public boolean isCommitted() {
+      return getOutputBytes().length > 0;
+    }
+
+  }
+
+  @UrlBinding("/Async.action")
+  public static class AsyncActionBean implements ActionBean {
+
+    private ActionBeanContext context;
+
+    @Override
+    public ActionBeanContext getContext() {
+      return context;
+    }
+
+    @Override
+    public void setContext(ActionBeanContext context) {
+      this.context = context;
+    }
+
+    @DefaultHandler
+    public Resolution hello() {
+      return new StreamingResolution("text/plain", "hello from " + Thread.currentThread().getName());
+    }
+
+    @HandlesEvent("fail")
+    public Resolution fail() {
+      throw new IllegalStateException("failed on purpose");
+    }
+
+  }
+
+}
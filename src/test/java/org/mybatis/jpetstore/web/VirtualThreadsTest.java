@@ -0,0 +1,42 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadsTest {
+
+  @Test
+  void shouldOnlyOfferAnExecutorOnRuntimesWithVirtualThreads() throws Exception {
+    // when
+    Optional<ExecutorService> executor = VirtualThreads.newThreadPerTaskExecutor();
+
+    // then
+    assertThat(executor.isPresent()).isEqualTo(Runtime.version().feature() >= 21);
+    if (executor.isPresent()) {
+      assertThat(executor.get().submit(() -> Thread.currentThread().toString()).get(5, TimeUnit.SECONDS))
+          .contains("VirtualThread");
+      executor.get().shutdown();
+    }
+  }
+
+}
@@ -152,4 +152,27 @@ class CatalogActionBeanTest {
     assertThat(actual.getContext()).isNull();
 
   }
+
+  @Test
+  void getNextProductIdOutputNull() {
+
+    // Arrange
+    final CatalogActionBean catalogActionBean = new CatalogActionBean();
+
+    // Act and Assert result
+    assertThat(catalogActionBean.getNextProductId()).isNull();
+
+  }
+
+  @Test
+  void getNextItemIdOutputNull() {
+
+    // Arrange
+    final CatalogActionBean catalogActionBean = new CatalogActionBean();
+
+    // Act and Assert result
+    assertThat(catalogActionBean.getNextItemId()).isNull();
+
+  }
+
 }
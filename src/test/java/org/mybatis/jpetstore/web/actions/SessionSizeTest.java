@@ -0,0 +1,157 @@
+/*
+ *    Copyright 2010-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.mybatis.jpetstore.web.actions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sourceforge.stripes.action.ActionBean;
+import net.sourceforge.stripes.controller.StripesFilter;
+import net.sourceforge.stripes.mock.MockHttpSession;
+import net.sourceforge.stripes.mock.MockRoundtrip;
+import net.sourceforge.stripes.mock.MockServletContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.jpetstore.service.ServiceTestContext;
+import org.mybatis.jpetstore.web.UserSession;
+import org.mybatis.jpetstore.web.VirtualThreadDispatcherServlet;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+/**
+ * Browses the catalog, signs on, fills a cart and checks out through the action beans, then measures what the HTTP
+ * session holds.
+ */
+class SessionSizeTest {
+
+  private static final String[] CART = { "EST-1", "EST-6", "EST-6", "EST-14", "EST-18" };
+
+  private final MockServletContext servletContext = new MockServletContext("jpetstore");
+  private final AnnotationConfigWebApplicationContext applicationContext = new AnnotationConfigWebApplicationContext();
+  private final MockHttpSession session = new MockHttpSession(servletContext);
+
+  @BeforeEach
+  void setup() {
+    applicationContext.setServletContext(servletContext);
+    applicationContext.register(ServiceTestContext.class);
+    applicationContext.refresh();
+    servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+    Map<String, String> filterParams = new LinkedHashMap<>();
+    filterParams.put("ActionResolver.Packages", "org.mybatis.jpetstore.web");
+    filterParams.put("Extension.Packages", "net.sourceforge.stripes.integration.spring");
+    servletContext.addFilter(StripesFilter.class, "StripesFilter", filterParams);
+    servletContext.setServlet(VirtualThreadDispatcherServlet.class, "StripesDispatcher", null);
+  }
+
+  @AfterEach
+  void tearDown() {
+    servletContext.close();
+    applicationContext.close();
+  }
+
+  @Test
+  void shouldKeepTheSessionSmallAfterBrowsingAndCheckingOut() throws Exception {
+    // given
+    execute(CatalogActionBean.class, "viewCategory", Map.of("categoryId", "DOGS"));
+    execute(CatalogActionBean.class, "viewProduct", Map.of("productId", "K9-BD-01"));
+    execute(CatalogActionBean.class, "viewItem", Map.of("itemId", "EST-6"));
+    execute(AccountActionBean.class, "signon", Map.of("username", "j2ee", "password", "j2ee"));
+    for (String itemId : CART) {
+      execute(CartActionBean.class, "addItemToCart", Map.of("workingItemId", itemId));
+    }
+    execute(CartActionBean.class, "checkOut", Map.of());
+    execute(OrderActionBean.class, "newOrderForm", Map.of());
+    Map<String, String> billing = new LinkedHashMap<>();
+    billing.put("order.billToFirstName", "ABC");
+    billing.put("order.billToLastName", "XYX");
+    billing.put("order.billAddress1", "901 San Antonio Road");
+    billing.put("order.billCity", "Palo Alto");
+    billing.put("order.billState", "CA");
+    billing.put("order.billZip", "94303");
+    billing.put("order.billCountry", "USA");
+    Map<String, String> payment = new LinkedHashMap<>(billing);
+    payment.put("order.cardType", "Visa");
+    payment.put("order.creditCard", "4111 1111 1111 1111");
+    payment.put("order.expiryDate", "12/29");
+    OrderActionBean confirm = execute(OrderActionBean.class, "newOrder", payment).getActionBean(OrderActionBean.class);
+    Map<String, String> confirmed = new LinkedHashMap<>(billing);
+    confirmed.put("checkoutToken", confirm.getCheckoutToken());
+    confirmed.put("confirmed", "true");
+    MockRoundtrip submitted = execute(OrderActionBean.class, "newOrder", confirmed);
+    OrderActionBean placed = submitted.getActionBean(OrderActionBean.class);
+    followRedirect(submitted);
+
+    // when
+    UserSession userSession = (UserSession) session.getAttribute(UserSession.ATTRIBUTE);
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    for (String name : Collections.list(session.getAttributeNames())) {
+      attributes.put(name, session.getAttribute(name));
+    }
+    int size = serializedSize((Serializable) attributes);
+
+    // then
+    assertThat(userSession.isAuthenticated()).isTrue();
+    assertThat(placed.getOrder().getCreditCard()).isEqualTo("4111 1111 1111 1111");
+    assertThat(userSession.getOrderId()).isEqualTo(placed.getOrderId()).isPositive();
+    assertThat(attributes).containsOnlyKeys(UserSession.ATTRIBUTE);
+    assertThat(size).isLessThan(512);
+  }
+
+  private MockRoundtrip execute(Class<? extends ActionBean> beanType, String event, Map<String, String> parameters)
+      throws Exception {
+    MockRoundtrip roundtrip = new MockRoundtrip(servletContext, beanType, session);
+    parameters.forEach(roundtrip::setParameter);
+    roundtrip.execute(event);
+    assertThat(roundtrip.getValidationErrors()).as(event).isEmpty();
+    return roundtrip;
+  }
+
+  /**
+   * Requests the page redirected to, as a browser would.
+   */
+  private void followRedirect(MockRoundtrip roundtrip) throws Exception {
+    String url = roundtrip.getRedirectUrl();
+    assertThat(url).startsWith(servletContext.getContextPath());
+    String[] pathAndQuery = url.substring(servletContext.getContextPath().length()).split("\\?", 2);
+    MockRoundtrip redirected = new MockRoundtrip(servletContext, pathAndQuery[0], session);
+    for (String parameter : pathAndQuery[1].split("&")) {
+      String[] nameAndValue = parameter.split("=", 2);
+      redirected.addParameter(URLDecoder.decode(nameAndValue[0], StandardCharsets.UTF_8),
+          URLDecoder.decode(nameAndValue.length > 1 ? nameAndValue[1] : "", StandardCharsets.UTF_8));
+    }
+    redirected.execute();
+  }
+
+  private static int serializedSize(Serializable state) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(state);
+    }
+    return bytes.size();
+  }
+
+}